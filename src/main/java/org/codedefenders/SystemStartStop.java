@@ -30,7 +30,10 @@ import javax.servlet.annotation.WebListener;
 
 import org.codedefenders.configuration.Configuration;
 import org.codedefenders.configuration.ConfigurationValidationException;
+import org.codedefenders.execution.ExecutionScheduler;
+import org.codedefenders.execution.SubmissionPipeline;
 import org.codedefenders.execution.ThreadPoolManager;
+import org.codedefenders.util.CDIUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,8 +62,25 @@ public class SystemStartStop implements ServletContextListener {
             logger.error(e.getMessage());
             throw new RuntimeException("Invalid configuration! Reason: " + e.getMessage(), e);
         }
-        mgr.register("test-executor").withMax(4).withCore(2).add();
+        // The priority queue is unbounded, so the pool never grows beyond its core size.
+        int executionThreads = config.getNumberOfExecutionThreads();
+        mgr.register(ExecutionScheduler.POOL_NAME)
+                .withCore(executionThreads)
+                .withMax(executionThreads)
+                .withWorkQueue(ExecutionScheduler.newWorkQueue())
+                .add();
+        // The pipeline threads mostly wait for their executions, which are limited by the scheduler above.
+        mgr.register(SubmissionPipeline.POOL_NAME)
+                .withCore(executionThreads)
+                .withMax(executionThreads)
+                .add();
 
+        // The pool of the pipeline exists only now, so the pipeline is looked up instead of injected.
+        try {
+            CDIUtil.getBeanFromCDI(SubmissionPipeline.class).resumePendingJobs();
+        } catch (RuntimeException e) {
+            logger.error("Could not resume the pending submission jobs", e);
+        }
     }
 
     /**
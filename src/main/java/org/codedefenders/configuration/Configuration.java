@@ -97,6 +97,16 @@ public class Configuration {
     protected Boolean parallelize;
     protected Boolean blockAttacker;
     protected Boolean mutantCoverage;
+    protected Boolean workerExecution;
+    protected Integer executionTimeout;
+    protected Integer executionWorkers;
+    protected Integer executionWorkerJobs;
+    protected Integer executionThreads;
+    protected Integer killmapJobs;
+    protected Integer killmapBatchSize;
+    protected Integer killmapBatchInterval;
+    protected Integer gameCacheSize;
+    protected Integer gameCacheTtl;
 
     /**
      * Validates the currently configured Configuration.
@@ -192,6 +202,16 @@ public class Configuration {
                 }
             }
 
+            validationErrors.add(validatePositive("executionThreads", executionThreads));
+            validationErrors.add(validatePositive("executionTimeout", executionTimeout));
+            validationErrors.add(validatePositive("executionWorkers", executionWorkers));
+            validationErrors.add(validatePositive("executionWorkerJobs", executionWorkerJobs));
+            validationErrors.add(validatePositive("killmapJobs", killmapJobs));
+            validationErrors.add(validatePositive("killmapBatchSize", killmapBatchSize));
+            validationErrors.add(validatePositive("killmapBatchInterval", killmapBatchInterval));
+            validationErrors.add(validateNonNegative("gameCacheSize", gameCacheSize));
+            validationErrors.add(validateNonNegative("gameCacheTtl", gameCacheTtl));
+
             if (getJavaMajorVersion() > 11) {
                 validationErrors.add("Unsupported java version! CodeDefenders needs at most Java 11");
             }
@@ -244,6 +264,34 @@ public class Configuration {
         }
     }
 
+    /**
+     * Checks that the given number attribute is set and greater than zero.
+     *
+     * @return Either a error message or null if the value is valid.
+     */
+    private String validatePositive(String attributeName, Integer value) {
+        if (value == null) {
+            return "Property " + resolveAttributeName(attributeName) + " is missing";
+        } else if (value <= 0) {
+            return resolveAttributeName(attributeName) + ": " + value + " is not a positive number";
+        }
+        return null;
+    }
+
+    /**
+     * Checks that the given number attribute is set and not negative.
+     *
+     * @return Either a error message or null if the value is valid.
+     */
+    private String validateNonNegative(String attributeName, Integer value) {
+        if (value == null) {
+            return "Property " + resolveAttributeName(attributeName) + " is missing";
+        } else if (value < 0) {
+            return resolveAttributeName(attributeName) + ": " + value + " is a negative number";
+        }
+        return null;
+    }
+
     private String setupDirectory(File directory) {
         if (directory.exists() && directory.isDirectory() && !directory.canWrite()) {
             return "Can't write to directory " + directory.toPath().toString()
@@ -366,10 +414,82 @@ public class Configuration {
         return mutantCoverage;
     }
 
+    /**
+     * Whether tests are executed against mutants on long-lived worker JVMs instead of forking Ant every time.
+     */
+    public boolean isWorkerExecution() {
+        return workerExecution;
+    }
+
+    /**
+     * The maximum time in seconds a single test execution on a worker JVM may take.
+     */
+    public int getExecutionTimeout() {
+        return executionTimeout;
+    }
+
+    /**
+     * The maximum number of concurrent test executions of the {@link org.codedefenders.execution.ExecutionScheduler},
+     * shared by test submissions, equivalence validations and killmap computations.
+     */
+    public int getNumberOfExecutionThreads() {
+        return executionThreads;
+    }
+
     public int getNumberOfKillmapThreads() {
         return 40;
     }
 
+    /**
+     * The number of killmap jobs the {@link org.codedefenders.execution.KillMapProcessor} of this instance
+     * processes at the same time.
+     */
+    public int getNumberOfKillmapJobs() {
+        return killmapJobs;
+    }
+
+    /**
+     * The number of computed killmap entries which are stored in the database together.
+     */
+    public int getKillmapBatchSize() {
+        return killmapBatchSize;
+    }
+
+    /**
+     * The maximum time in seconds computed killmap entries are buffered before they are stored in the database.
+     */
+    public int getKillmapBatchInterval() {
+        return killmapBatchInterval;
+    }
+
+    /**
+     * The maximum number of games whose snapshots are cached, {@code 0} disables the cache.
+     */
+    public int getGameCacheSize() {
+        return gameCacheSize;
+    }
+
+    /**
+     * The time in seconds after which a cached game snapshot is loaded again, {@code 0} disables the cache.
+     */
+    public int getGameCacheTtl() {
+        return gameCacheTtl;
+    }
+
+    /**
+     * The number of worker JVMs kept running for test executions if {@link #isWorkerExecution()} is enabled.
+     */
+    public int getNumberOfExecutionWorkers() {
+        return executionWorkers;
+    }
+
+    /**
+     * The number of test executions after which a worker JVM is replaced by a fresh one.
+     */
+    public int getExecutionWorkerMaxJobs() {
+        return executionWorkerJobs;
+    }
+
     private int getJavaMajorVersion() {
         String version = System.getProperty("java.version");
         if (version.startsWith("1.")) {
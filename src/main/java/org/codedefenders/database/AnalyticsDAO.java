@@ -18,7 +18,9 @@
  */
 package org.codedefenders.database;
 
-import java.util.List;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 
 import org.codedefenders.api.analytics.ClassDataDTO;
 import org.codedefenders.api.analytics.KillmapDataDTO;
@@ -27,6 +29,11 @@ import org.codedefenders.game.Role;
 import org.codedefenders.model.Feedback;
 
 public class AnalyticsDAO {
+    /**
+     * Makes the MySQL driver stream the rows of a result instead of loading it into memory at once.
+     */
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
     private static final  String ANALYTICS_USER_DATA_QUERY = String.join("\n",
             " SELECT users.User_ID                    AS ID,",
             "       users.Username                    AS Username,",
@@ -219,6 +226,7 @@ public class AnalyticsDAO {
             "  GROUP BY feedback_inner.Class_ID",
             ") AS feedback ON feedback.Class_ID = classes.Class_ID;");
 
+    /* Uses the killmap rollups maintained by the KillmapDAO instead of the killmap itself. */
     private static final String ANALYTICS_KILLMAP_USEFUL_ACTIONS_QUERY = String.join("\n",
             "SELECT killmap_participations.*,",
             "       IFNULL(useful_tests.Useful_Tests,0)     AS Useful_Tests,",
@@ -227,73 +235,73 @@ public class AnalyticsDAO {
             /* Get all (classId, userId, role) pairs for which data exists in the killmap. */
             "FROM",
             "(",
-            "  SELECT DISTINCT killmap.Class_ID AS Class_ID,",
+            "  SELECT DISTINCT rollups.Class_ID AS Class_ID,",
             "                  classes.Name     AS Class_Name,",
             "                  users.User_ID    AS User_ID,",
             "                  users.Username   AS User_Name,",
             "                  players.Role     AS Role",
-            "  FROM killmap,",
+            "  FROM killmap_mutant_rollups AS rollups,",
             "       view_playable_classes AS classes,",
             "       view_valid_mutants AS mutants,",
             "       view_players AS players,",
             "       view_valid_users AS users",
-            "  WHERE killmap.Class_ID = classes.Class_ID",
-            "    AND killmap.Mutant_ID = mutants.Mutant_ID",
+            "  WHERE rollups.Class_ID = classes.Class_ID",
+            "    AND rollups.Mutant_ID = mutants.Mutant_ID",
             "    AND mutants.Player_ID = players.ID",
             "    AND players.User_ID = users.User_ID",
 
             "  UNION",
 
-            "  SELECT DISTINCT killmap.Class_ID AS Class_ID,",
+            "  SELECT DISTINCT rollups.Class_ID AS Class_ID,",
             "                  classes.Name     AS Class_Name,",
             "                  users.User_ID    AS User_ID,",
             "                  users.Username   AS User_Name,",
             "                  players.Role     AS Role",
-            "  FROM killmap,",
+            "  FROM killmap_test_rollups AS rollups,",
             "       view_playable_classes AS classes,",
             "       view_valid_tests AS tests,",
             "       view_players AS players,",
             "       view_valid_users AS users",
-            "  WHERE killmap.Class_ID = classes.Class_ID",
-            "    AND killmap.Test_ID = tests.Test_ID",
+            "  WHERE rollups.Class_ID = classes.Class_ID",
+            "    AND rollups.Test_ID = tests.Test_ID",
             "    AND tests.Player_ID = players.ID",
             "    AND players.User_ID = users.User_ID",
             ") AS killmap_participations",
 
-            /* Count number of useful tests. */
+            /* Count number of useful tests, i.e. tests which kill at least one mutant. */
             "LEFT JOIN",
             "(",
-            "  SELECT COUNT(DISTINCT killmap.Test_ID) AS Useful_Tests,",
-            "         killmap.Class_ID                AS Class_ID,",
-            "         players.User_ID                 AS User_ID,",
-            "         players.Role                    AS Role",
-            "  FROM killmap,",
+            "  SELECT COUNT(rollups.Test_ID) AS Useful_Tests,",
+            "         rollups.Class_ID       AS Class_ID,",
+            "         players.User_ID        AS User_ID,",
+            "         players.Role           AS Role",
+            "  FROM killmap_test_rollups AS rollups,",
             "       view_valid_tests AS tests,",
             "       view_players AS players",
-            "  WHERE killmap.Status = 'KILL'",
-            "    AND killmap.Test_ID = tests.Test_ID",
+            "  WHERE rollups.Useful = 1",
+            "    AND rollups.Test_ID = tests.Test_ID",
             "    AND tests.Player_ID = players.ID",
-            "  GROUP BY killmap.Class_ID, players.User_ID, players.Role",
+            "  GROUP BY rollups.Class_ID, players.User_ID, players.Role",
             ") AS useful_tests",
             "  ON killmap_participations.Class_ID = useful_tests.Class_ID",
             "  AND killmap_participations.User_ID = useful_tests.User_ID",
             "  AND killmap_participations.Role = useful_tests.Role",
 
-            /* Count number of useful mutants. */
+            /* Count number of useful mutants, i.e. mutants which are killed by some tests and survive others. */
             "LEFT JOIN",
             "(",
-            "  SELECT COUNT(DISTINCT killmap.Mutant_ID) AS Useful_Mutants,",
-            "         killmap.Class_ID                  AS Class_ID,",
-            "         players.User_ID                   AS User_ID,",
-            "         players.Role                      AS Role",
-            "  FROM killmap,",
+            "  SELECT COUNT(rollups.Mutant_ID) AS Useful_Mutants,",
+            "         rollups.Class_ID         AS Class_ID,",
+            "         players.User_ID          AS User_ID,",
+            "         players.Role             AS Role",
+            "  FROM killmap_mutant_rollups AS rollups,",
             "       view_valid_mutants AS mutants,",
             "       view_players AS players",
-            "  WHERE EXISTS(SELECT k.Mutant_ID FROM killmap k WHERE k.Mutant_ID = killmap.Mutant_ID AND k.Status = 'KILL')",
-            "    AND EXISTS(SELECT k.Mutant_ID FROM killmap k WHERE k.Mutant_ID = killmap.Mutant_ID AND k.Status = 'NO_KILL')",
-            "    AND killmap.Mutant_ID = mutants.Mutant_ID",
+            "  WHERE rollups.Killed = 1",
+            "    AND rollups.Survived = 1",
+            "    AND rollups.Mutant_ID = mutants.Mutant_ID",
             "    AND players.ID = mutants.Player_ID",
-            "  GROUP BY killmap.Class_ID, players.User_ID, players.Role",
+            "  GROUP BY rollups.Class_ID, players.User_ID, players.Role",
             ") AS useful_mutants",
             "  ON killmap_participations.Class_ID = useful_mutants.Class_ID",
             "  AND killmap_participations.User_ID = useful_mutants.User_ID",
@@ -301,74 +309,117 @@ public class AnalyticsDAO {
 
             "ORDER BY Class_ID, User_ID;");
 
-    public static List<UserDataDTO> getAnalyticsUserData() throws UncheckedSQLException, SQLMappingException {
-        return DB.executeQueryReturnList(ANALYTICS_USER_DATA_QUERY, rs -> {
-            UserDataDTO u = new UserDataDTO();
-            u.setId(rs.getLong("ID"));
-            u.setUsername(rs.getString("Username"));
-            u.setAttackerScore(rs.getInt("AttackerScore"));
-            u.setDefenderScore(rs.getInt("DefenderScore"));
-            u.setGamesPlayed(rs.getInt("GamesPlayed"));
-            u.setAttackerGamesPlayed(rs.getInt("AttackerGamesPlayed"));
-            u.setDefenderGamesPlayed(rs.getInt("DefenderGamesPlayed"));
-            u.setMutantsSubmitted(rs.getInt("MutantsSubmitted"));
-            u.setMutantsAlive(rs.getInt("MutantsAlive"));
-            u.setMutantsEquivalent(rs.getInt("MutantsEquivalent"));
-            u.setTestsSubmitted(rs.getInt("TestsSubmitted"));
-            u.setMutantsKilled(rs.getInt("MutantsKilled"));
-            return u;
-        });
+    /**
+     * Passes the analytics data of every user to the given handler. The rows are streamed from the database, so the
+     * data is never held in memory completely.
+     *
+     * @param handler the handler writing the rows.
+     * @throws IOException if the handler throws an {@link IOException}.
+     */
+    public static void forEachAnalyticsUserData(RowHandler<UserDataDTO> handler)
+            throws IOException, UncheckedSQLException {
+        DB.executeQueryForEach(ANALYTICS_USER_DATA_QUERY, STREAMING_FETCH_SIZE,
+                rs -> handler.handle(userDataFromRS(rs)));
+    }
+
+    /**
+     * Passes the analytics data of every class to the given handler. The rows are streamed from the database, so the
+     * data is never held in memory completely.
+     *
+     * @param handler the handler writing the rows.
+     * @throws IOException if the handler throws an {@link IOException}.
+     */
+    public static void forEachAnalyticsClassData(RowHandler<ClassDataDTO> handler)
+            throws IOException, UncheckedSQLException {
+        DB.executeQueryForEach(ANALYTICS_CLASS_DATA_QUERY, STREAMING_FETCH_SIZE,
+                rs -> handler.handle(classDataFromRS(rs)));
+    }
+
+    /**
+     * Passes the killmap analytics data of every user, class and role to the given handler. The rows are streamed
+     * from the database, so the data is never held in memory completely.
+     *
+     * @param handler the handler writing the rows.
+     * @throws IOException if the handler throws an {@link IOException}.
+     */
+    public static void forEachAnalyticsKillMapData(RowHandler<KillmapDataDTO> handler)
+            throws IOException, UncheckedSQLException {
+        DB.executeQueryForEach(ANALYTICS_KILLMAP_USEFUL_ACTIONS_QUERY, STREAMING_FETCH_SIZE,
+                rs -> handler.handle(killmapDataFromRS(rs)));
+    }
+
+    private static UserDataDTO userDataFromRS(ResultSet rs) throws SQLException {
+        UserDataDTO u = new UserDataDTO();
+        u.setId(rs.getLong("ID"));
+        u.setUsername(rs.getString("Username"));
+        u.setAttackerScore(rs.getInt("AttackerScore"));
+        u.setDefenderScore(rs.getInt("DefenderScore"));
+        u.setGamesPlayed(rs.getInt("GamesPlayed"));
+        u.setAttackerGamesPlayed(rs.getInt("AttackerGamesPlayed"));
+        u.setDefenderGamesPlayed(rs.getInt("DefenderGamesPlayed"));
+        u.setMutantsSubmitted(rs.getInt("MutantsSubmitted"));
+        u.setMutantsAlive(rs.getInt("MutantsAlive"));
+        u.setMutantsEquivalent(rs.getInt("MutantsEquivalent"));
+        u.setTestsSubmitted(rs.getInt("TestsSubmitted"));
+        u.setMutantsKilled(rs.getInt("MutantsKilled"));
+        return u;
+    }
+
+    private static ClassDataDTO classDataFromRS(ResultSet rs) throws SQLException {
+        ClassDataDTO c = new ClassDataDTO();
+        c.setId(rs.getLong("ID"));
+        c.setClassname(rs.getString("Classname"));
+        c.setClassalias(rs.getString("Classalias"));
+        c.setNrGames(rs.getInt("NrGames"));
+        c.setAttackerWins(rs.getInt("AttackerWins"));
+        c.setDefenderWins(rs.getInt("DefenderWins"));
+        c.setNrPlayers(rs.getInt("NrPlayers"));
+        c.setTestsSubmitted(rs.getInt("TestsSubmitted"));
+        c.setMutantsSubmitted(rs.getInt("MutantsSubmitted"));
+        c.setMutantsAlive(rs.getInt("MutantsAlive"));
+        c.setMutantsEquivalent(rs.getInt("MutantsEquivalent"));
+
+        ClassDataDTO.ClassRatings ratings = new ClassDataDTO.ClassRatings();
+        ClassDataDTO.ClassRating rating;
+
+        rating = new ClassDataDTO.ClassRating();
+        rating.setCount(rs.getInt("ratings_CutMutationDifficulty_count"));
+        rating.setSum(rs.getInt("ratings_CutMutationDifficulty_sum"));
+        ratings.setCutMutationDifficulty(rating);
+
+        rating = new ClassDataDTO.ClassRating();
+        rating.setCount(rs.getInt("ratings_CutTestDifficulty_count"));
+        rating.setSum(rs.getInt("ratings_CutTestDifficulty_sum"));
+        ratings.setCutTestDifficulty(rating);
+
+        rating = new ClassDataDTO.ClassRating();
+        rating.setCount(rs.getInt("ratings_GameEngaging_count"));
+        rating.setSum(rs.getInt("ratings_GameEngaging_sum"));
+        ratings.setGameEngaging(rating);
+
+        c.setRatings(ratings);
+        return c;
     }
 
-    public static List<ClassDataDTO> getAnalyticsClassData() throws UncheckedSQLException, SQLMappingException {
-        return DB.executeQueryReturnList(ANALYTICS_CLASS_DATA_QUERY, rs -> {
-            ClassDataDTO c = new ClassDataDTO();
-            c.setId(rs.getLong("ID"));
-            c.setClassname(rs.getString("Classname"));
-            c.setClassalias(rs.getString("Classalias"));
-            c.setNrGames(rs.getInt("NrGames"));
-            c.setAttackerWins(rs.getInt("AttackerWins"));
-            c.setDefenderWins(rs.getInt("DefenderWins"));
-            c.setNrPlayers(rs.getInt("NrPlayers"));
-            c.setTestsSubmitted(rs.getInt("TestsSubmitted"));
-            c.setMutantsSubmitted(rs.getInt("MutantsSubmitted"));
-            c.setMutantsAlive(rs.getInt("MutantsAlive"));
-            c.setMutantsEquivalent(rs.getInt("MutantsEquivalent"));
-
-            ClassDataDTO.ClassRatings ratings = new ClassDataDTO.ClassRatings();
-            ClassDataDTO.ClassRating rating;
-
-            rating = new ClassDataDTO.ClassRating();
-            rating.setCount(rs.getInt("ratings_CutMutationDifficulty_count"));
-            rating.setSum(rs.getInt("ratings_CutMutationDifficulty_sum"));
-            ratings.setCutMutationDifficulty(rating);
-
-            rating = new ClassDataDTO.ClassRating();
-            rating.setCount(rs.getInt("ratings_CutTestDifficulty_count"));
-            rating.setSum(rs.getInt("ratings_CutTestDifficulty_sum"));
-            ratings.setCutTestDifficulty(rating);
-
-            rating = new ClassDataDTO.ClassRating();
-            rating.setCount(rs.getInt("ratings_GameEngaging_count"));
-            rating.setSum(rs.getInt("ratings_GameEngaging_sum"));
-            ratings.setGameEngaging(rating);
-
-            c.setRatings(ratings);
-            return c;
-        });
+    private static KillmapDataDTO killmapDataFromRS(ResultSet rs) throws SQLException {
+        KillmapDataDTO k = new KillmapDataDTO();
+        k.setClassId(rs.getInt("Class_ID"));
+        k.setClassName(rs.getString("Class_Name"));
+        k.setUserId(rs.getInt("User_ID"));
+        k.setUserName(rs.getString("User_Name"));
+        k.setRole(Role.valueOf(rs.getString("Role")));
+        k.setUsefulMutants(rs.getInt("Useful_Mutants"));
+        k.setUsefulTests(rs.getInt("Useful_Tests"));
+        return k;
     }
 
-    public static List<KillmapDataDTO> getAnalyticsKillMapData() throws UncheckedSQLException, SQLMappingException {
-        return DB.executeQueryReturnList(ANALYTICS_KILLMAP_USEFUL_ACTIONS_QUERY, rs -> {
-            KillmapDataDTO k = new KillmapDataDTO();
-            k.setClassId(rs.getInt("Class_ID"));
-            k.setClassName(rs.getString("Class_Name"));
-            k.setUserId(rs.getInt("User_ID"));
-            k.setUserName(rs.getString("User_Name"));
-            k.setRole(Role.valueOf(rs.getString("Role")));
-            k.setUsefulMutants(rs.getInt("Useful_Mutants"));
-            k.setUsefulTests(rs.getInt("Useful_Tests"));
-            return k;
-        });
+    /**
+     * Handles the rows of an analytics export one after the other.
+     *
+     * @param <T> the type of the rows.
+     */
+    @FunctionalInterface
+    public interface RowHandler<T> {
+        void handle(T row) throws IOException;
     }
 }
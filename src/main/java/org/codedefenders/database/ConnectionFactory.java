@@ -19,17 +19,22 @@
 
 package org.codedefenders.database;
 
+import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import javax.sql.DataSource;
 
 import org.apache.commons.dbutils.QueryRunner;
 import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
@@ -49,6 +54,10 @@ public class ConnectionFactory {
     private final BasicDataSource dataSource;
     private final QueryRunner queryRunner;
 
+    private final LongAdder connectionRequests = new LongAdder();
+    private final LongAdder connectionWaitNanos = new LongAdder();
+    private final AtomicLong maxConnectionWaitNanos = new AtomicLong();
+
     @Inject
     public ConnectionFactory(final Configuration config) {
         if (config.isValid()) {
@@ -66,7 +75,7 @@ public class ConnectionFactory {
 
             migrate(config.getDbName());
 
-            queryRunner = new QueryRunner(dataSource);
+            queryRunner = new QueryRunner(new UnitOfWorkDataSource());
         } else {
             throw new RuntimeException("Configuration invalid");
         }
@@ -87,8 +96,40 @@ public class ConnectionFactory {
         }
     }
 
+    /**
+     * Returns a connection. If a {@link UnitOfWork} is active on the current thread, this is the connection shared
+     * by the unit of work, otherwise a connection is borrowed from the pool.
+     */
     public Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            return unitOfWork.getConnection();
+        }
+        return borrowConnection();
+    }
+
+    /**
+     * Borrows a connection from the pool. The time spent waiting for the connection is recorded in the
+     * {@link #getPoolStatistics() pool statistics}.
+     */
+    Connection borrowConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return dataSource.getConnection();
+        } finally {
+            long waitNanos = System.nanoTime() - start;
+            connectionRequests.increment();
+            connectionWaitNanos.add(waitNanos);
+            maxConnectionWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+    }
+
+    /**
+     * Returns the current state of the connection pool.
+     */
+    public PoolStatistics getPoolStatistics() {
+        return new PoolStatistics(dataSource.getNumActive(), dataSource.getNumIdle(), dataSource.getMaxTotal(),
+                connectionRequests.sum(), connectionWaitNanos.sum(), maxConnectionWaitNanos.get());
     }
 
     public QueryRunner getQueryRunner() {
@@ -153,6 +194,109 @@ public class ConnectionFactory {
         return result;
     }
 
+    /**
+     * Data source of the {@link QueryRunner}, which gets its connections from {@link #getConnection()}, so the
+     * QueryRunner uses the connection of the current {@link UnitOfWork} as well.
+     */
+    private class UnitOfWorkDataSource implements DataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return ConnectionFactory.this.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return dataSource.getConnection(username, password);
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return dataSource.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return dataSource.isWrapperFor(iface);
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return dataSource.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            dataSource.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            dataSource.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return dataSource.getLoginTimeout();
+        }
+
+        @Override
+        public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return dataSource.getParentLogger();
+        }
+    }
+
+    /**
+     * A snapshot of the state of the connection pool.
+     */
+    public static class PoolStatistics {
+        private final int activeConnections;
+        private final int idleConnections;
+        private final int maxConnections;
+        private final long connectionRequests;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        PoolStatistics(int activeConnections, int idleConnections, int maxConnections, long connectionRequests,
+                long totalWaitNanos, long maxWaitNanos) {
+            this.activeConnections = activeConnections;
+            this.idleConnections = idleConnections;
+            this.maxConnections = maxConnections;
+            this.connectionRequests = connectionRequests;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        public int getActiveConnections() {
+            return activeConnections;
+        }
+
+        public int getIdleConnections() {
+            return idleConnections;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public long getConnectionRequests() {
+            return connectionRequests;
+        }
+
+        /**
+         * Returns the average time in milliseconds a request waited for a connection.
+         */
+        public double getAverageWaitMillis() {
+            return connectionRequests == 0 ? 0 : totalWaitNanos / 1e6 / connectionRequests;
+        }
+
+        /**
+         * Returns the longest time in milliseconds a request waited for a connection.
+         */
+        public double getMaxWaitMillis() {
+            return maxWaitNanos / 1e6;
+        }
+    }
+
     /**
      * @param maxTotalConnections
      * @deprecated Set this via the configuration
@@ -18,6 +18,7 @@
  */
 package org.codedefenders.database;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -52,7 +53,16 @@ import org.slf4j.LoggerFactory;
 public class DB {
     private static final Logger logger = LoggerFactory.getLogger(DB.class);
 
-    public static synchronized Connection getConnection() {
+    /**
+     * Returns a connection for the current thread. While a {@link UnitOfWork} is active on the thread, this is the
+     * connection shared by the unit of work; closing it (e.g. with {@link #cleanup(Connection, PreparedStatement)})
+     * has no effect, it is returned to the pool when the unit of work is closed. Otherwise, the connection is
+     * borrowed from the connection pool and has to be closed by the caller. This does not lock, concurrent callers
+     * only wait for the pool if all connections are in use.
+     *
+     * @return A connection, or {@code null} if no connection could be acquired.
+     */
+    public static Connection getConnection() {
         try {
             return DatabaseConnection.getConnection();
         } catch (SQLException e) {
@@ -70,7 +80,9 @@ public class DB {
             logger.error("SQL exception while closing statement!", se);
         } finally {
             try {
-                conn.close();
+                if (conn != null) {
+                    conn.close();
+                }
             } catch (SQLException e) {
                 logger.error("Unable to close SQL connection", e);
             }
@@ -109,6 +121,9 @@ public class DB {
             case TIMESTAMP:
                 stmt.setObject(position, value.getValue(), type.typeValue);
                 break;
+            case BYTES:
+                stmt.setBytes(position, (byte[]) value.getValue());
+                break;
             default:
                 final IllegalArgumentException e =
                         new IllegalArgumentException("Unknown database value type: " + type);
@@ -344,6 +359,50 @@ public class DB {
         }
     }
 
+    /**
+     * Handles a single row of a query result.
+     *
+     * @see #executeQueryForEach(String, int, RSConsumer, DatabaseValue...)
+     */
+    @FunctionalInterface
+    interface RSConsumer {
+        void accept(ResultSet rs) throws SQLException, IOException;
+    }
+
+    /**
+     * Executes a database query and passes every row of the result to a consumer, without collecting the rows.
+     * The result is read forward-only with the given fetch size, so with a fetch size of {@link Integer#MIN_VALUE}
+     * the MySQL driver streams the rows instead of loading the whole result into memory. Cleans up the database
+     * connection and statement afterwards.
+     *
+     * @param query     The query.
+     * @param fetchSize The statement fetch size.
+     * @param consumer  The consumer handling each row.
+     * @param params    The parameters for the query.
+     * @throws IOException           If the consumer throws an {@link IOException}.
+     * @throws UncheckedSQLException If a {@link SQLException} is thrown while executing the query
+     *                               or advancing the {@link ResultSet}.
+     * @see Statement#setFetchSize(int)
+     */
+    static void executeQueryForEach(String query, int fetchSize, RSConsumer consumer, DatabaseValue... params)
+            throws IOException, UncheckedSQLException {
+
+        Connection conn = DB.getConnection();
+        PreparedStatement stmt = DB.createPreparedStatement(conn, query, params);
+        try {
+            stmt.setFetchSize(fetchSize);
+            ResultSet resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                consumer.accept(resultSet);
+            }
+        } catch (SQLException e) {
+            logger.error("SQL exception while executing query.", e);
+            throw new UncheckedSQLException("SQL exception while executing query.", e);
+        } finally {
+            DB.cleanup(conn, stmt);
+        }
+    }
+
     /**
      * Provides a way to extract {@link DatabaseValue database values} from an element of given type {@code T}.
      * It should never return {@code null}. If no values are extracted, an empty array should be returned.
@@ -20,8 +20,10 @@ package org.codedefenders.database;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -93,6 +95,25 @@ public class DatabaseAccess {
         return Optional.ofNullable(id).orElse(-1);
     }
 
+    /**
+     * Retrieves the defenders who claimed the mutants of a given game as equivalent.
+     *
+     * @param gameId the game identifier.
+     * @return a mapping from mutant identifier to the player identifier of the claiming defender.
+     */
+    public static Map<Integer, Integer> getEquivalentDefenderIdsForGame(int gameId) {
+        String query = String.join("\n",
+                "SELECT equivalences.Mutant_ID, equivalences.Defender_ID",
+                "FROM equivalences",
+                "JOIN mutants ON mutants.Mutant_ID = equivalences.Mutant_ID",
+                "WHERE mutants.Game_ID = ?;");
+        final Map<Integer, Integer> defenders = new HashMap<>();
+        DB.executeQueryReturnList(query,
+                rs -> defenders.putIfAbsent(rs.getInt("Mutant_ID"), rs.getInt("Defender_ID")),
+                DatabaseValue.of(gameId));
+        return defenders;
+    }
+
     public static boolean insertEquivalence(Mutant mutant, int defender) {
         String query = String.join("\n",
                 "INSERT INTO equivalences (Mutant_ID, Defender_ID, Mutant_Points)",
@@ -26,11 +26,25 @@ import org.codedefenders.util.CDIUtil;
 /**
  * Provides a way to acquire a database connection in a static context.
  *
+ * <p>The {@link ConnectionFactory} is looked up once and then cached, so getting a connection neither takes a lock
+ * nor goes through CDI. The factory is a singleton, so concurrent first lookups find the same instance.
+ *
  * @deprecated Use {@link ConnectionFactory#getConnection()} from a non static class/method instead.
  */
 @Deprecated
 public class DatabaseConnection {
+    private static volatile ConnectionFactory connectionFactory;
+
     public static Connection getConnection() throws SQLException {
-        return CDIUtil.getBeanFromCDI(ConnectionFactory.class).getConnection();
+        return getConnectionFactory().getConnection();
+    }
+
+    static ConnectionFactory getConnectionFactory() {
+        ConnectionFactory factory = connectionFactory;
+        if (factory == null) {
+            factory = CDIUtil.getBeanFromCDI(ConnectionFactory.class);
+            connectionFactory = factory;
+        }
+        return factory;
     }
 }
@@ -103,6 +103,70 @@ public class EventDAO {
         return DB.executeQueryReturnList(query, EventDAO::eventFromRS, values);
     }
 
+    /**
+     * Returns the events of a game with an id greater than the given one, ordered by their id.
+     *
+     * @param gameId the id of the game.
+     * @param eventId the id of the last event already known to the caller, {@code 0} for all events.
+     * @return the newer events of the game.
+     */
+    public List<Event> getEventsForGameAfter(int gameId, int eventId) {
+        String query = String.join("\n",
+                "SELECT * from events",
+                "WHERE Game_ID=?",
+                "  AND Event_ID > ?",
+                "ORDER BY Event_ID;");
+        DatabaseValue[] values = new DatabaseValue[]{DatabaseValue.of(gameId), DatabaseValue.of(eventId)};
+        return DB.executeQueryReturnList(query, EventDAO::eventFromRS, values);
+    }
+
+    /**
+     * Returns the number of events of a game with an id less than or equal to the given one.
+     *
+     * @param gameId the id of the game.
+     * @param eventId the id up to which events are counted.
+     * @return the number of events.
+     */
+    public int countEventsForGameUpTo(int gameId, int eventId) {
+        String query = String.join("\n",
+                "SELECT COUNT(*) AS Events from events",
+                "WHERE Game_ID=?",
+                "  AND Event_ID <= ?;");
+        DatabaseValue[] values = new DatabaseValue[]{DatabaseValue.of(gameId), DatabaseValue.of(eventId)};
+        return DB.executeQueryReturnValue(query, rs -> rs.getInt("Events"), values);
+    }
+
+    /**
+     * Returns the last stored scoring checkpoint of a game.
+     *
+     * @param gameId the id of the game.
+     * @return the serialized scoring state, or {@code null} if the game has no checkpoint.
+     */
+    public String getScoringCheckpoint(int gameId) {
+        String query = "SELECT State FROM scoring_checkpoints WHERE Game_ID = ?;";
+        return DB.executeQueryReturnValue(query, rs -> rs.getString("State"), DatabaseValue.of(gameId));
+    }
+
+    /**
+     * Stores a scoring checkpoint of a game, replacing the previous one.
+     *
+     * @param gameId the id of the game.
+     * @param eventId the id of the last event contained in the checkpoint.
+     * @param state the serialized scoring state.
+     * @return whether storing the checkpoint was successful or not.
+     */
+    public boolean storeScoringCheckpoint(int gameId, int eventId, String state) {
+        String query = String.join("\n",
+                "INSERT INTO scoring_checkpoints (Game_ID, Event_ID, State)",
+                "VALUES (?, ?, ?)",
+                "ON DUPLICATE KEY UPDATE",
+                "  Event_ID = VALUES(Event_ID),",
+                "  State = VALUES(State);");
+        DatabaseValue[] values = new DatabaseValue[]{DatabaseValue.of(gameId), DatabaseValue.of(eventId),
+                DatabaseValue.of(state)};
+        return DB.executeUpdateQuery(query, values);
+    }
+
     public List<Event> getNewEventsForGame(int gameId, long timestamp, Role role) {
         String query = String.join("\n", "SELECT *",
                 "FROM events",
@@ -21,6 +21,7 @@ package org.codedefenders.database;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -394,7 +395,11 @@ public class GameClassDAO {
     public static boolean removeClassForId(int id) {
         String query = "DELETE FROM classes WHERE Class_ID = ?;";
 
-        return DB.executeUpdateQuery(query, DatabaseValue.of(id));
+        boolean removed = DB.executeUpdateQuery(query, DatabaseValue.of(id));
+        if (removed) {
+            KillmapDAO.removeRollupsForClasses(Collections.singletonList(id));
+        }
+        return removed;
     }
 
     /**
@@ -453,7 +458,11 @@ public class GameClassDAO {
         String query = bob.toString();
         DatabaseValue[] values = classes.stream().map(DatabaseValue::of).toArray(DatabaseValue[]::new);
 
-        return DB.executeUpdateQuery(query, values);
+        boolean removed = DB.executeUpdateQuery(query, values);
+        if (removed) {
+            KillmapDAO.removeRollupsForClasses(classes);
+        }
+        return removed;
     }
 
     /**
@@ -18,6 +18,8 @@
  */
 package org.codedefenders.database;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -27,6 +29,7 @@ import org.codedefenders.database.DB.RSMapper;
 import org.codedefenders.execution.KillMap;
 import org.codedefenders.execution.KillMap.KillMapEntry;
 import org.codedefenders.execution.KillMapProcessor;
+import org.codedefenders.execution.KillMatrix;
 import org.codedefenders.game.GameMode;
 import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Test;
@@ -41,6 +44,11 @@ import org.slf4j.LoggerFactory;
 public class KillmapDAO {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseAccess.class);
 
+    /**
+     * The maximum number of killmap entries inserted with a single statement.
+     */
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+
     // TODO: remove (hasKillMap will be replaced with progress)
     /**
      * Returns if the given game already has a computed killmap.
@@ -116,7 +124,8 @@ public class KillmapDAO {
     }
 
     /**
-     * Inserts a killmap entry into the database.
+     * Inserts a killmap entry into the database. The rollups are not updated, entries computed for the analytics are
+     * stored with {@link #insertManyKillMapEntries(List, int)}.
      */
     public static boolean insertKillMapEntry(KillMapEntry entry, int classId) {
         String query = String.join("\n",
@@ -137,26 +146,207 @@ public class KillmapDAO {
     }
 
     /**
-     * Inserts many killmap entries into the database.
+     * Inserts many killmap entries into the database, using multi-row inserts of up to
+     * {@link #MAX_ROWS_PER_INSERT} entries each.
+     *
+     * @return {@code true} if all entries were stored, {@code false} if any of the inserts failed.
+     */
+    public static boolean insertManyKillMapEntries(List<KillMapEntry> entries, int classId) {
+        boolean inserted = true;
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_INSERT) {
+            List<KillMapEntry> rows = entries.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, entries.size()));
+
+            String query = String.join("\n",
+                    "INSERT INTO killmap (Class_ID,Game_ID,Test_ID,Mutant_ID,Status)",
+                    "VALUES " + String.join(",", Collections.nCopies(rows.size(), "(?,?,?,?,?)")),
+                    "ON DUPLICATE KEY UPDATE Status = VALUES(Status);");
+
+            DatabaseValue[] values = new DatabaseValue[rows.size() * 5];
+            int i = 0;
+            for (KillMapEntry entry : rows) {
+                int testGameId = entry.test.getGameId();
+                int mutantGameId = entry.mutant.getGameId();
+                values[i++] = DatabaseValue.of(classId);
+                values[i++] = DatabaseValue.of(testGameId == mutantGameId ? testGameId : null);
+                values[i++] = DatabaseValue.of(entry.test.getId());
+                values[i++] = DatabaseValue.of(entry.mutant.getId());
+                values[i++] = DatabaseValue.of(entry.status.name());
+            }
+            inserted &= DB.executeUpdateQuery(query, values);
+        }
+        updateRollups(entries, classId);
+        return inserted;
+    }
+
+    /**
+     * Brings the killmap rollups of the tests and mutants of the given entries up to date, after the entries were
+     * stored.
+     *
+     * <p>The rollups record per test whether it kills any mutant, and per mutant whether it is killed by any test and
+     * survives any test. The analytics use them to count useful tests and mutants without scanning the killmap.
+     * They are merged with the given entries only, without reading the stored entries again, since entries are
+     * computed once and do not change their status. Removing entries requires a full recompute, see
+     * {@link #updateRollupsForClass(int)}.
+     */
+    private static void updateRollups(List<KillMapEntry> entries, int classId) {
+        Map<Integer, Boolean> usefulTests = new TreeMap<>();
+        Map<Integer, boolean[]> killedAndSurvivedMutants = new TreeMap<>();
+        for (KillMapEntry entry : entries) {
+            usefulTests.merge(entry.test.getId(), entry.status == KillMapEntry.Status.KILL, Boolean::logicalOr);
+            boolean[] killedAndSurvived = killedAndSurvivedMutants.computeIfAbsent(entry.mutant.getId(),
+                    id -> new boolean[2]);
+            killedAndSurvived[0] |= entry.status == KillMapEntry.Status.KILL;
+            killedAndSurvived[1] |= entry.status == KillMapEntry.Status.NO_KILL;
+        }
+
+        List<Map.Entry<Integer, Boolean>> tests = new ArrayList<>(usefulTests.entrySet());
+        for (int from = 0; from < tests.size(); from += MAX_ROWS_PER_INSERT) {
+            List<Map.Entry<Integer, Boolean>> rows = tests.subList(from,
+                    Math.min(from + MAX_ROWS_PER_INSERT, tests.size()));
+            String query = String.join("\n",
+                    "INSERT INTO killmap_test_rollups (Test_ID, Class_ID, Useful)",
+                    "VALUES " + String.join(",", Collections.nCopies(rows.size(), "(?,?,?)")),
+                    "ON DUPLICATE KEY UPDATE Useful = Useful OR VALUES(Useful);");
+            DatabaseValue[] values = new DatabaseValue[rows.size() * 3];
+            int i = 0;
+            for (Map.Entry<Integer, Boolean> row : rows) {
+                values[i++] = DatabaseValue.of(row.getKey());
+                values[i++] = DatabaseValue.of(classId);
+                values[i++] = DatabaseValue.of(row.getValue());
+            }
+            DB.executeUpdateQuery(query, values);
+        }
+
+        List<Map.Entry<Integer, boolean[]>> mutants = new ArrayList<>(killedAndSurvivedMutants.entrySet());
+        for (int from = 0; from < mutants.size(); from += MAX_ROWS_PER_INSERT) {
+            List<Map.Entry<Integer, boolean[]>> rows = mutants.subList(from,
+                    Math.min(from + MAX_ROWS_PER_INSERT, mutants.size()));
+            String query = String.join("\n",
+                    "INSERT INTO killmap_mutant_rollups (Mutant_ID, Class_ID, Killed, Survived)",
+                    "VALUES " + String.join(",", Collections.nCopies(rows.size(), "(?,?,?,?)")),
+                    "ON DUPLICATE KEY UPDATE Killed = Killed OR VALUES(Killed),",
+                    "                        Survived = Survived OR VALUES(Survived);");
+            DatabaseValue[] values = new DatabaseValue[rows.size() * 4];
+            int i = 0;
+            for (Map.Entry<Integer, boolean[]> row : rows) {
+                values[i++] = DatabaseValue.of(row.getKey());
+                values[i++] = DatabaseValue.of(classId);
+                values[i++] = DatabaseValue.of(row.getValue()[0]);
+                values[i++] = DatabaseValue.of(row.getValue()[1]);
+            }
+            DB.executeUpdateQuery(query, values);
+        }
+    }
+
+    /**
+     * Recomputes the rollups of the tests matching a condition on {@code Test_ID} from their killmap entries.
+     * Tests without entries lose their rollup.
+     */
+    private static void updateTestRollups(String testIdCondition, DatabaseValue... values) {
+        String deleteQuery = "DELETE FROM killmap_test_rollups WHERE " + testIdCondition + ";";
+        String insertQuery = String.join("\n",
+                "INSERT INTO killmap_test_rollups (Test_ID, Class_ID, Useful)",
+                "SELECT Test_ID, MIN(Class_ID), MAX(Status = 'KILL')",
+                "FROM killmap",
+                "WHERE " + testIdCondition,
+                "GROUP BY Test_ID;");
+        UnitOfWork.inTransaction(() -> {
+            DB.executeUpdateQuery(deleteQuery, values);
+            return DB.executeUpdateQuery(insertQuery, values);
+        });
+    }
+
+    /**
+     * Recomputes the rollups of the mutants matching a condition on {@code Mutant_ID} from their killmap entries.
+     * Mutants without entries lose their rollup.
+     */
+    private static void updateMutantRollups(String mutantIdCondition, DatabaseValue... values) {
+        String deleteQuery = "DELETE FROM killmap_mutant_rollups WHERE " + mutantIdCondition + ";";
+        String insertQuery = String.join("\n",
+                "INSERT INTO killmap_mutant_rollups (Mutant_ID, Class_ID, Killed, Survived)",
+                "SELECT Mutant_ID, MIN(Class_ID), MAX(Status = 'KILL'), MAX(Status = 'NO_KILL')",
+                "FROM killmap",
+                "WHERE " + mutantIdCondition,
+                "GROUP BY Mutant_ID;");
+        UnitOfWork.inTransaction(() -> {
+            DB.executeUpdateQuery(deleteQuery, values);
+            return DB.executeUpdateQuery(insertQuery, values);
+        });
+    }
+
+    /**
+     * Recomputes the rollups of all tests and mutants of a class, e.g. after some of them were deleted, which deletes
+     * their killmap entries through the foreign keys and changes the rollups of the remaining tests and mutants.
+     */
+    public static void updateRollupsForClass(int classId) {
+        updateTestRollups("Test_ID IN (SELECT Test_ID FROM tests WHERE Class_ID = ?)", DatabaseValue.of(classId));
+        updateMutantRollups("Mutant_ID IN (SELECT Mutant_ID FROM mutants WHERE Class_ID = ?)",
+                DatabaseValue.of(classId));
+    }
+
+    /**
+     * Removes the rollups of deleted classes. Their killmap entries are deleted through the foreign keys, but the
+     * rollups do not reference the classes.
+     */
+    public static void removeRollupsForClasses(List<Integer> classIds) {
+        if (classIds.isEmpty()) {
+            return;
+        }
+        DatabaseValue[] values = toValues(classIds);
+        DB.executeUpdateQuery("DELETE FROM killmap_test_rollups WHERE Class_ID IN ("
+                + placeholders(classIds.size()) + ");", values);
+        DB.executeUpdateQuery("DELETE FROM killmap_mutant_rollups WHERE Class_ID IN ("
+                + placeholders(classIds.size()) + ");", values);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static DatabaseValue[] toValues(List<Integer> ids) {
+        return ids.stream()
+                .map(DatabaseValue::of)
+                .toArray(DatabaseValue[]::new);
+    }
+
+    /**
+     * Returns the stored matrix of the given killmap, or {@code null} if no matrix is stored for it.
+     *
+     * @see #storeKillMatrix(KillMap.KillMapType, int, KillMatrix)
      */
-    public static void insertManyKillMapEntries(List<KillMapEntry> entries, int classId) {
+    public static KillMatrix getKillMatrix(KillMap.KillMapType killmapType, int id) {
         String query = String.join("\n",
-                "INSERT INTO killmap (Class_ID,Game_ID,Test_ID,Mutant_ID,Status)",
-                "VALUES (?,?,?,?,?)",
-                "ON DUPLICATE KEY UPDATE Status = VALUES(Status);");
+                "SELECT Matrix",
+                "FROM killmap_matrices",
+                "WHERE Type = ?",
+                "  AND Reference_ID = ?;");
+        RSMapper<KillMatrix> mapper = rs -> {
+            try {
+                return KillMatrix.fromBytes(rs.getBytes("Matrix"));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring invalid stored matrix of " + killmapType + " killmap " + id, e);
+                return null;
+            }
+        };
+        return DB.executeQueryReturnValue(query, mapper,
+                DatabaseValue.of(killmapType.name()), DatabaseValue.of(id));
+    }
 
-        final DB.DBVExtractor<KillMapEntry> dbvExtractor = entry -> {
-            int testGameId = entry.test.getGameId();
-            int mutantGameId = entry.mutant.getGameId();
-            return new DatabaseValue[]{
-                DatabaseValue.of(classId),
-                DatabaseValue.of(testGameId == mutantGameId ? testGameId : null),
-                DatabaseValue.of(entry.test.getId()),
-                DatabaseValue.of(entry.mutant.getId()),
-                DatabaseValue.of(entry.status.name()),
-            };
+    /**
+     * Stores the whole matrix of the given killmap in a single row, replacing a previously stored matrix.
+     * The killmap entries are still stored one row per pair, the stored matrix only speeds up loading the killmap.
+     */
+    public static boolean storeKillMatrix(KillMap.KillMapType killmapType, int id, KillMatrix matrix) {
+        String query = String.join("\n",
+                "INSERT INTO killmap_matrices (Type, Reference_ID, Matrix)",
+                "VALUES (?,?,?)",
+                "ON DUPLICATE KEY UPDATE Matrix = VALUES(Matrix);");
+        DatabaseValue[] values = new DatabaseValue[]{
+                DatabaseValue.of(killmapType.name()),
+                DatabaseValue.of(id),
+                DatabaseValue.of(matrix.toBytes())
         };
-        DB.executeBatchQueryReturnKeys(query, entries, dbvExtractor);
+        return DB.executeUpdateQuery(query, values);
     }
 
     public static boolean removeKillmapsByIds(KillMap.KillMapType killmapType, List<Integer> ids) {
@@ -181,8 +371,34 @@ public class KillmapDAO {
                 .map(String::valueOf)
                 .collect(Collectors.joining(","));
 
+        String matrixQuery = "DELETE FROM killmap_matrices WHERE Type = ? AND Reference_ID in (" + idsString + ")";
+        DB.executeUpdateQuery(matrixQuery, DatabaseValue.of(killmapType.name()));
+
+        // Game entries are part of the killmap of their class too, so the matrices on the other level are stale.
+        String relatedMatrixQuery;
+        if (killmapType == KillMap.KillMapType.CLASS) {
+            relatedMatrixQuery = "DELETE FROM killmap_matrices WHERE Type = ? AND Reference_ID in "
+                    + "(SELECT ID FROM games WHERE Class_ID in (" + idsString + "))";
+            DB.executeUpdateQuery(relatedMatrixQuery, DatabaseValue.of(KillMap.KillMapType.GAME.name()));
+        } else {
+            relatedMatrixQuery = "DELETE FROM killmap_matrices WHERE Type = ? AND Reference_ID in "
+                    + "(SELECT Class_ID FROM games WHERE ID in (" + idsString + "))";
+            DB.executeUpdateQuery(relatedMatrixQuery, DatabaseValue.of(KillMap.KillMapType.CLASS.name()));
+        }
+
         String query = "DELETE FROM killmap WHERE " + idName + " in (" + idsString + ")";
-        return DB.executeUpdateQuery(query);
+        boolean removed = DB.executeUpdateQuery(query);
+
+        if (killmapType == KillMap.KillMapType.CLASS) {
+            // All entries of the classes are gone.
+            DB.executeUpdateQuery("DELETE FROM killmap_test_rollups WHERE Class_ID in (" + idsString + ")");
+            DB.executeUpdateQuery("DELETE FROM killmap_mutant_rollups WHERE Class_ID in (" + idsString + ")");
+        } else {
+            // Tests and mutants of the games may still have entries in the killmap of their class.
+            updateTestRollups("Test_ID in (SELECT Test_ID FROM tests WHERE Game_ID in (" + idsString + "))");
+            updateMutantRollups("Mutant_ID in (SELECT Mutant_ID FROM mutants WHERE Game_ID in (" + idsString + "))");
+        }
+        return removed;
     }
 
     /**
@@ -192,7 +408,7 @@ public class KillmapDAO {
         String query = String.join("\n",
                 "SELECT *",
                 "FROM killmapjob",
-                "ORDER BY Timestamp ASC;");
+                "ORDER BY Timestamp ASC, ID ASC;");
 
         return DB.executeQueryReturnList(query, rs -> {
             int gameId = rs.getInt("Game_ID");
@@ -200,10 +416,95 @@ public class KillmapDAO {
             // if SQL NULL then int is 0
             KillMap.KillMapType type = (classId != 0) ? KillMap.KillMapType.CLASS : KillMap.KillMapType.GAME;
             int reference = (classId != 0) ? classId : gameId;
-            return new KillMapProcessor.KillMapJob(type, reference);
+            return new KillMapProcessor.KillMapJob(rs.getInt("ID"), type, reference, rs.getString("Claimed_By"),
+                    rs.getTimestamp("Timestamp"), rs.getTimestamp("Started_At"), rs.getLong("Computation_Time"));
         });
     }
 
+    /**
+     * Claims a pending job for the given processor instance. A job can only be claimed if it is not claimed by
+     * another instance, or if the claim of the other instance is older than the given timeout (e.g. because the
+     * instance was shut down). The claim is made with a single conditional update, so two instances never
+     * claim the same job.
+     *
+     * @param theJob The job to claim, as returned by {@link #getPendingJobs()}.
+     * @param claimant The ID of the processor instance.
+     * @param claimTimeout The time in seconds after which a claim expires.
+     * @return {@code true} if the job was claimed, {@code false} otherwise.
+     */
+    public static boolean claimJob(KillMapProcessor.KillMapJob theJob, String claimant, int claimTimeout) {
+        String query = String.join("\n",
+                "UPDATE killmapjob",
+                "SET Claimed_By = ?,",
+                "    Claimed_At = CURRENT_TIMESTAMP,",
+                "    Started_At = COALESCE(Started_At, CURRENT_TIMESTAMP)",
+                "WHERE ID = ?",
+                "  AND (Claimed_By IS NULL",
+                "    OR Claimed_At < CURRENT_TIMESTAMP - INTERVAL ? SECOND);");
+        return DB.executeUpdateQuery(query,
+                DatabaseValue.of(claimant),
+                DatabaseValue.of(theJob.getJobId()),
+                DatabaseValue.of(claimTimeout));
+    }
+
+    /**
+     * Renews the claim of a job which is still processed, so it does not expire.
+     *
+     * @param theJob The claimed job.
+     * @param claimant The ID of the processor instance which claimed the job.
+     * @return {@code true} if the claim was renewed, {@code false} if the job is not claimed by the instance anymore.
+     */
+    public static boolean renewClaim(KillMapProcessor.KillMapJob theJob, String claimant) {
+        String query = String.join("\n",
+                "UPDATE killmapjob",
+                "SET Claimed_At = CURRENT_TIMESTAMP",
+                "WHERE ID = ?",
+                "  AND Claimed_By = ?;");
+        return DB.executeUpdateQuery(query,
+                DatabaseValue.of(theJob.getJobId()),
+                DatabaseValue.of(claimant));
+    }
+
+    /**
+     * Removes a finished job, if it is still claimed by the given instance. Other unclaimed jobs for the same game
+     * or class are removed as well, like {@link #removeJob(KillMapProcessor.KillMapJob)} does.
+     *
+     * @param theJob The claimed job.
+     * @param claimant The ID of the processor instance which claimed the job.
+     * @return {@code true} if the job was removed, {@code false} if it is not claimed by the instance anymore.
+     */
+    public static boolean removeClaimedJob(KillMapProcessor.KillMapJob theJob, String claimant) {
+        String query = "DELETE FROM killmapjob WHERE ID = ? AND Claimed_By = ?";
+        if (!DB.executeUpdateQuery(query, DatabaseValue.of(theJob.getJobId()), DatabaseValue.of(claimant))) {
+            return false;
+        }
+        String idName = theJob.getType() == KillMap.KillMapType.CLASS ? "Class_ID" : "Game_ID";
+        DB.executeUpdateQuery("DELETE FROM killmapjob WHERE " + idName + " = ? AND Claimed_By IS NULL",
+                DatabaseValue.of(theJob.getId()));
+        return true;
+    }
+
+    /**
+     * Releases the claim of an unfinished job, so it can be claimed again, and adds the time spent on it.
+     *
+     * @param theJob The claimed job.
+     * @param claimant The ID of the processor instance which claimed the job.
+     * @param computationTime The time in milliseconds spent on the job since it was claimed.
+     */
+    public static boolean releaseJob(KillMapProcessor.KillMapJob theJob, String claimant, long computationTime) {
+        String query = String.join("\n",
+                "UPDATE killmapjob",
+                "SET Claimed_By = NULL,",
+                "    Claimed_At = NULL,",
+                "    Computation_Time = Computation_Time + ?",
+                "WHERE ID = ?",
+                "  AND Claimed_By = ?;");
+        return DB.executeUpdateQuery(query,
+                DatabaseValue.of(computationTime),
+                DatabaseValue.of(theJob.getJobId()),
+                DatabaseValue.of(claimant));
+    }
+
     public static boolean enqueueJob(KillMapProcessor.KillMapJob theJob) {
         String query;
         switch (theJob.getType()) {
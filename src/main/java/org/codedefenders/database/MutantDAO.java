@@ -21,8 +21,11 @@ package org.codedefenders.database;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -323,6 +326,77 @@ public class MutantDAO {
         return DB.executeUpdateQuery(query, values);
     }
 
+    /**
+     * Returns the stored {@link Mutant.Diff} of the mutant with the given identifier.
+     *
+     * @param mutantId the identifier of the mutant.
+     * @return the diff of the mutant, or {@code null} if it was not stored yet.
+     */
+    public static Mutant.Diff getMutantDiff(int mutantId) throws UncheckedSQLException, SQLMappingException {
+        String query = String.join("\n",
+                "SELECT Summary, Readout, Patch",
+                "FROM mutant_diffs",
+                "WHERE Mutant_ID = ?;"
+        );
+        return DB.executeQueryReturnValue(query, MutantDAO::diffFromRS, DatabaseValue.of(mutantId));
+    }
+
+    /**
+     * Returns the stored {@link Mutant.Diff diffs} of the mutants of the given game, so the mutants of a game can be
+     * shown without querying the diff of each mutant on its own.
+     *
+     * @param gameId the identifier of the game.
+     * @return a mapping from mutant identifier to the diff of the mutant. Mutants whose diff was not stored yet are
+     *     missing.
+     */
+    public static Map<Integer, Mutant.Diff> getMutantDiffsForGame(int gameId)
+            throws UncheckedSQLException, SQLMappingException {
+        String query = String.join("\n",
+                "SELECT d.Mutant_ID, d.Summary, d.Readout, d.Patch",
+                "FROM mutant_diffs d",
+                "JOIN mutants m ON m.Mutant_ID = d.Mutant_ID",
+                "WHERE m.Game_ID = ?;"
+        );
+        final Map<Integer, Mutant.Diff> diffs = new HashMap<>();
+        DB.executeQueryReturnList(query, rs -> diffs.put(rs.getInt("Mutant_ID"), diffFromRS(rs)),
+                DatabaseValue.of(gameId));
+        return diffs;
+    }
+
+    private static Mutant.Diff diffFromRS(ResultSet rs) throws SQLException {
+        String readout = rs.getString("Readout");
+        return new Mutant.Diff(
+                rs.getString("Summary"),
+                // Every readout line ends with a line break.
+                readout.isEmpty() ? new ArrayList<>() : Arrays.asList(readout.split("(?<=\n)")),
+                rs.getString("Patch"));
+    }
+
+    /**
+     * Stores the {@link Mutant.Diff} of the mutant with the given identifier, replacing an already stored one.
+     *
+     * @param mutantId the identifier of the mutant.
+     * @param diff the diff of the mutant.
+     * @return whether storing the diff was successful or not.
+     */
+    public static boolean storeMutantDiff(int mutantId, Mutant.Diff diff) throws UncheckedSQLException {
+        String query = String.join("\n",
+                "INSERT INTO mutant_diffs (Mutant_ID, Summary, Readout, Patch)",
+                "VALUES (?, ?, ?, ?)",
+                "ON DUPLICATE KEY UPDATE",
+                "  Summary = VALUES(Summary),",
+                "  Readout = VALUES(Readout),",
+                "  Patch = VALUES(Patch);"
+        );
+        DatabaseValue[] values = new DatabaseValue[]{
+                DatabaseValue.of(mutantId),
+                DatabaseValue.of(diff.getSummary()),
+                DatabaseValue.of(String.join("", diff.getReadout())),
+                DatabaseValue.of(diff.getPatch())
+        };
+        return DB.executeUpdateQuery(query, values);
+    }
+
     /**
      * Stores a mapping between a {@link Mutant} and a {@link GameClass} in the database.
      *
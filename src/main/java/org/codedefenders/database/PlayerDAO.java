@@ -20,6 +20,8 @@ package org.codedefenders.database;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import org.codedefenders.game.Role;
@@ -144,4 +146,18 @@ public class PlayerDAO {
                 rs -> rs.getInt("Points"), DatabaseValue.of(playerId));
         return Optional.ofNullable(points).orElse(0);
     }
+
+    /**
+     * Retrieves the points of all players of a given game.
+     *
+     * @param gameId the game identifier as an {@code int}.
+     * @return a mapping from player identifier to the points of the player, can be empty but never {@code null}.
+     */
+    public static Map<Integer, Integer> getPlayerPointsForGame(int gameId) {
+        String query = "SELECT ID, Points FROM players WHERE Game_ID=?;";
+        final Map<Integer, Integer> points = new HashMap<>();
+        DB.executeQueryReturnList(query, rs -> points.put(rs.getInt("ID"), rs.getInt("Points")),
+                DatabaseValue.of(gameId));
+        return points;
+    }
 }
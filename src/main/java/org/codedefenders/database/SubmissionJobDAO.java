@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.util.List;
+
+import org.codedefenders.execution.SubmissionPipeline;
+import org.codedefenders.execution.SubmissionPipeline.Submission;
+
+/**
+ * This class handles the database logic for the pending jobs of the {@link SubmissionPipeline}.
+ *
+ * @see SubmissionPipeline
+ */
+public class SubmissionJobDAO {
+
+    /**
+     * Stores a pending job for the given submission.
+     *
+     * @return The id of the stored job, or {@code -1} if it could not be stored.
+     */
+    public static int insertJob(Submission submission) {
+        String query = String.join("\n",
+                "INSERT INTO submission_jobs (Game_ID, Test_ID, Mutant_ID, User_ID)",
+                "VALUES (?,?,?,?);");
+        boolean isTest = submission.getType() == Submission.Type.TEST;
+        DatabaseValue[] values = new DatabaseValue[]{
+                DatabaseValue.of(submission.getGameId()),
+                DatabaseValue.of(isTest ? submission.getSubmissionId() : null),
+                DatabaseValue.of(isTest ? null : submission.getSubmissionId()),
+                DatabaseValue.of(submission.getUserId())
+        };
+        return DB.executeUpdateQueryGetKeys(query, values);
+    }
+
+    /**
+     * Removes the job with the given id.
+     */
+    public static boolean removeJob(int jobId) {
+        String query = "DELETE FROM submission_jobs WHERE ID = ?;";
+        return DB.executeUpdateQuery(query, DatabaseValue.of(jobId));
+    }
+
+    /**
+     * Returns the pending jobs in the order they were stored.
+     */
+    public static List<Submission> getPendingJobs() {
+        String query = String.join("\n",
+                "SELECT *",
+                "FROM submission_jobs",
+                "ORDER BY ID ASC;");
+
+        return DB.executeQueryReturnList(query, rs -> {
+            int testId = rs.getInt("Test_ID");
+            // if SQL NULL then int is 0
+            Submission.Type type = testId != 0 ? Submission.Type.TEST : Submission.Type.MUTANT;
+            int submissionId = testId != 0 ? testId : rs.getInt("Mutant_ID");
+            return new Submission(rs.getInt("ID"), type, rs.getInt("Game_ID"), submissionId, rs.getInt("User_ID"));
+        });
+    }
+}
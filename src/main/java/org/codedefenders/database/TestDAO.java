@@ -21,10 +21,8 @@ package org.codedefenders.database;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.codedefenders.database.DB.RSMapper;
 import org.codedefenders.game.GameClass;
@@ -69,25 +67,12 @@ public class TestDAO {
         int mutantsKilled = rs.getInt("MutantsKilled");
         int playerId = rs.getInt("Player_ID");
         int points = rs.getInt("Points");
-        String linesCoveredString = rs.getString("Lines_Covered");
-        String linesUncoveredString = rs.getString("Lines_Uncovered");
-
-        List<Integer> linesCovered = new ArrayList<>();
-        if (linesCoveredString != null && !linesCoveredString.isEmpty()) {
-            linesCovered.addAll(Arrays.stream(linesCoveredString.split(","))
-                            .map(Integer::parseInt)
-                            .collect(Collectors.toList()));
-        }
-
-        List<Integer> linesUncovered = new ArrayList<>();
-        if (linesUncoveredString != null && !linesUncoveredString.isEmpty()) {
-            linesUncovered.addAll(Arrays.stream(linesUncoveredString.split(","))
-                            .map(Integer::parseInt)
-                            .collect(Collectors.toList()));
-        }
+        LineCoverage lineCoverage = new LineCoverage(
+                LineCoverage.decodeLines(rs.getString("Lines_Covered")),
+                LineCoverage.decodeLines(rs.getString("Lines_Uncovered")));
 
         return new Test(testId, classId, gameId, absoluteJavaFile, absoluteClassFile, roundCreated, mutantsKilled,
-                playerId, linesCovered, linesUncovered, points);
+                playerId, lineCoverage, points);
     }
 
     /**
@@ -261,16 +246,8 @@ public class TestDAO {
         String linesUncovered = "";
 
         if (lineCoverage != null) {
-            linesCovered = lineCoverage.getLinesCovered()
-                    .stream()
-                    .sorted()
-                    .map(Object::toString)
-                    .collect(Collectors.joining(","));
-            linesUncovered = lineCoverage.getLinesUncovered()
-                    .stream()
-                    .sorted()
-                    .map(Object::toString)
-                    .collect(Collectors.joining(","));
+            linesCovered = LineCoverage.encodeLines(lineCoverage.getCoveredLineSet());
+            linesUncovered = LineCoverage.encodeLines(lineCoverage.getUncoveredLineSet());
         }
 
         String query = String.join("\n",
@@ -316,14 +293,8 @@ public class TestDAO {
 
         LineCoverage lineCoverage = test.getLineCoverage();
         if (lineCoverage != null) {
-            linesCoveredString = lineCoverage.getLinesCovered()
-                    .stream()
-                    .map(Object::toString)
-                    .collect(Collectors.joining(","));
-            linesUncoveredString = lineCoverage.getLinesUncovered()
-                    .stream()
-                    .map(Object::toString)
-                    .collect(Collectors.joining(","));
+            linesCoveredString = LineCoverage.encodeLines(lineCoverage.getCoveredLineSet());
+            linesUncoveredString = LineCoverage.encodeLines(lineCoverage.getUncoveredLineSet());
         }
 
 
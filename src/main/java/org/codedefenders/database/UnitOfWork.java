@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares one database connection between all database accesses of a thread, e.g. of one HTTP request
+ * (see {@link UnitOfWorkFilter}).
+ *
+ * <p>While a unit of work is active on a thread, {@link ConnectionFactory#getConnection()} (and therefore the
+ * {@link DB} helpers, {@link DatabaseConnection} and the {@link ConnectionFactory#getQueryRunner() QueryRunner})
+ * returns the connection of the unit of work. The connection is borrowed from the pool on first use, closing it has
+ * no effect, and it is returned to the pool when the unit of work is {@link #close() closed}.
+ *
+ * <p>Multi-step writes can be run in a transaction with {@link #inTransaction(Supplier)}.
+ *
+ * <p>The unit of work is bound to the thread instead of being a request scoped bean, since the legacy static DAOs
+ * can not resolve request scoped beans, and threads spawned by a request must not use its connection.
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final ConnectionFactory connectionFactory;
+    private Connection connection;
+    private Connection sharedConnection;
+    private boolean inTransaction = false;
+
+    private UnitOfWork(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Starts a unit of work on the current thread. It has to be {@link #close() closed} by the same thread.
+     *
+     * @param connectionFactory The factory the connection is borrowed from.
+     * @return The new unit of work.
+     * @throws IllegalStateException If a unit of work is already active on the current thread.
+     */
+    public static UnitOfWork begin(ConnectionFactory connectionFactory) {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("A unit of work is already active on this thread");
+        }
+        UnitOfWork unitOfWork = new UnitOfWork(connectionFactory);
+        CURRENT.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    /**
+     * Returns the unit of work of the current thread, or {@code null} if none is active.
+     */
+    static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the shared connection of the unit of work, borrowing it from the pool on first use.
+     */
+    Connection getConnection() throws SQLException {
+        if (connection == null) {
+            Connection borrowed = connectionFactory.borrowConnection();
+            sharedConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                            // The connection is closed together with the unit of work.
+                            return null;
+                        }
+                        try {
+                            return method.invoke(borrowed, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+            connection = borrowed;
+        }
+        return sharedConnection;
+    }
+
+    /**
+     * Runs the given action in a database transaction. The transaction is committed if the action returns, and
+     * rolled back if it throws an exception. The action uses the unit of work of the current thread, if none is
+     * active, a unit of work is started for the duration of the action. Nested transactions join the outer
+     * transaction.
+     *
+     * <p>Note that most {@link DB} helpers log SQL errors instead of throwing them, which does not roll back the
+     * transaction.
+     *
+     * @param action The action to run.
+     * @param <T> The type of the result of the action.
+     * @return The result of the action.
+     * @throws UncheckedSQLException If the transaction could not be started, committed or rolled back.
+     */
+    public static <T> T inTransaction(Supplier<T> action) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            try (UnitOfWork unitOfWork = begin(DatabaseConnection.getConnectionFactory())) {
+                return unitOfWork.runInTransaction(action);
+            }
+        }
+        return current.runInTransaction(action);
+    }
+
+    private <T> T runInTransaction(Supplier<T> action) {
+        if (inTransaction) {
+            return action.get();
+        }
+
+        Connection conn;
+        try {
+            conn = getConnection();
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new UncheckedSQLException("Could not start transaction", e);
+        }
+
+        inTransaction = true;
+        boolean committed = false;
+        try {
+            T result = action.get();
+            conn.commit();
+            committed = true;
+            return result;
+        } catch (SQLException e) {
+            throw new UncheckedSQLException("Could not commit transaction", e);
+        } finally {
+            inTransaction = false;
+            try {
+                if (!committed) {
+                    conn.rollback();
+                }
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                logger.error("Could not roll back transaction", e);
+            }
+        }
+    }
+
+    /**
+     * Ends the unit of work and returns its connection to the pool.
+     */
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.error("Unable to close SQL connection", e);
+            }
+            connection = null;
+            sharedConnection = null;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.database;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Runs page requests in a {@link UnitOfWork}, so all database accesses of a request share one connection.
+ *
+ * <p>Only {@code GET} and {@code HEAD} requests are handled. {@code POST} requests may compile and execute code for
+ * a long time, and would keep their connection from the pool while doing so.
+ */
+@WebFilter(filterName = "UnitOfWorkFilter")
+public class UnitOfWorkFilter implements Filter {
+
+    @Inject
+    private ConnectionFactory connectionFactory;
+
+    @Override
+    public void init(FilterConfig config) throws ServletException {
+
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !isReadRequest((HttpServletRequest) request)
+                || UnitOfWork.current() != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        try (UnitOfWork ignored = UnitOfWork.begin(connectionFactory)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private static boolean isReadRequest(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+
+    @Override
+    public void destroy() {
+
+    }
+}
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 
 import javax.annotation.ManagedBean;
+import javax.enterprise.inject.Typed;
 import javax.inject.Inject;
 
 import org.apache.commons.io.FileUtils;
@@ -51,10 +52,15 @@ import static org.codedefenders.util.Constants.CUTS_DIR;
 import static org.codedefenders.util.Constants.JAVA_CLASS_EXT;
 
 /**
+ * Executes compilations and tests by starting the relevant Ant target of the {@code build.xml}.
+ *
+ * <p>Injected as {@link BackendExecutorService} through {@link BackendExecutorServiceProducer}.
+ *
  * @author Jose Rojas
  * @author Alessio Gambi (last edit)
  */
 @ManagedBean
+@Typed({AntRunner.class, ClassCompilerService.class, TestGeneratorService.class, MutantGeneratorService.class})
 public class AntRunner implements //
         BackendExecutorService, //
         ClassCompilerService, //
@@ -64,10 +70,12 @@ public class AntRunner implements //
     private static final Logger logger = LoggerFactory.getLogger(AntRunner.class);
 
     private final Configuration config;
+    private final SubmissionCache submissionCache;
 
     @Inject
-    public AntRunner(Configuration config) {
+    public AntRunner(Configuration config, SubmissionCache submissionCache) {
         this.config = config;
+        this.submissionCache = submissionCache;
     }
 
     /**
@@ -256,15 +264,11 @@ public class AntRunner implements //
      */
     public Mutant compileMutant(File dir, String javaFile, int gameId, GameClass cut, int ownerId) {
 
-        // Gets the classname for the mutant from the game it is in
-        AntProcessResult result = runAntTarget("compile-mutant", dir.getAbsolutePath(), null,
-                cut, null, config.isForceLocalExecution());
-
-        logger.info("Compilation result: {}", result);
+        SubmissionCache.Compilation result = compileCached("compile-mutant", dir, javaFile, cut);
 
         Mutant newMutant;
         // If the input stream returned a 'successful build' message, the mutant compiled correctly
-        if (result.compiled()) {
+        if (result.isCompiled()) {
             // Create and insert a new target execution recording successful compile,
             // with no message to report, and return its ID
             // Locate .class file
@@ -282,7 +286,7 @@ public class AntRunner implements //
         } else {
             // The mutant failed to compile
             // New target execution recording failed compile, providing the return messages from the ant javac task
-            String message = result.getCompilerOutput();
+            String message = result.getMessage();
             logger.error("Failed to compile mutant {}: {}", javaFile, message);
             int playerId = PlayerDAO.getPlayerIdForUserAndGame(ownerId, gameId);
             newMutant = new Mutant(gameId, cut.getId(), javaFile, null, false, playerId, GameDAO.getCurrentRound(gameId));
@@ -300,13 +304,12 @@ public class AntRunner implements //
     public Test compileTest(File dir, String javaFile, int gameId, GameClass cut, int ownerId) {
         //public static int compileTest(ServletContext context, Test t) {
 
-        AntProcessResult result = runAntTarget("compile-test", null, dir.getAbsolutePath(),
-                cut, null, config.isForceLocalExecution());
+        SubmissionCache.Compilation result = compileCached("compile-test", dir, javaFile, cut);
 
         int playerId = PlayerDAO.getPlayerIdForUserAndGame(ownerId, gameId);
 
         // If the input stream returned a 'successful build' message, the test compiled correctly
-        if (result.compiled()) {
+        if (result.isCompiled()) {
             // Create and insert a new target execution recording successful compile,
             // with no message to report, and return its ID
             // Locate .class file
@@ -326,7 +329,7 @@ public class AntRunner implements //
         } else {
             // The test failed to compile
             // New target execution recording failed compile, providing the return messages from the ant javac task
-            String message = result.getCompilerOutput();
+            String message = result.getMessage();
             logger.error("Failed to compile test {}: {}", javaFile, message);
             Test newTest = new Test(cut.getId(), gameId, javaFile, null, playerId);
             newTest.insert();
@@ -337,6 +340,43 @@ public class AntRunner implements //
         }
     }
 
+    /**
+     * Compiles a mutant or test with the given Ant target. If the same source was already compiled for the class
+     * under test, the earlier compilation is reused instead, and its class files are copied to {@code dir}.
+     *
+     * @param target Either {@code compile-mutant} or {@code compile-test}.
+     * @param dir The directory of the mutant or test.
+     * @param javaFile The source file in the directory.
+     * @param cut The class under test.
+     * @return The outcome of the compilation.
+     */
+    private SubmissionCache.Compilation compileCached(String target, File dir, String javaFile, GameClass cut) {
+        String sourceHash = submissionCache.hashSource(javaFile);
+        SubmissionCache.Compilation cached = sourceHash == null
+                ? null : submissionCache.getCompilation(target, cut.getId(), sourceHash);
+        if (cached != null && (!cached.isCompiled() || SubmissionCache.copyClassFiles(cached.getDirectory(), dir))) {
+            logger.info("Reusing compilation of {} for {}", cached.getDirectory(), javaFile);
+            return cached.relocate(dir);
+        }
+
+        AntProcessResult result;
+        if (target.equals("compile-mutant")) {
+            result = runAntTarget(target, dir.getAbsolutePath(), null, cut, null, config.isForceLocalExecution());
+        } else {
+            result = runAntTarget(target, null, dir.getAbsolutePath(), cut, null, config.isForceLocalExecution());
+        }
+        logger.info("Compilation result: {}", result);
+
+        SubmissionCache.Compilation compilation = result.compiled()
+                ? new SubmissionCache.Compilation(dir, true, null)
+                : new SubmissionCache.Compilation(dir, false, result.getCompilerOutput());
+        // Failures without compiler output are not caused by the source, e.g. Ant could not be started.
+        if (sourceHash != null && (compilation.isCompiled() || !compilation.getMessage().isEmpty())) {
+            submissionCache.putCompilation(target, cut.getId(), sourceHash, compilation);
+        }
+        return compilation;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -19,6 +19,8 @@
 package org.codedefenders.execution;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.codedefenders.game.GameClass;
 import org.codedefenders.game.Mutant;
@@ -58,6 +60,33 @@ public interface BackendExecutorService {
      */
     TargetExecution testMutant(Mutant m, Test t);
 
+    /**
+     * Executes a test against many mutants. Implementations may run all pairs in a single execution,
+     * as long as every mutant is loaded in isolation. By default, every pair is executed on its own.
+     *
+     * @param test A {@link Test} object
+     * @param mutants The {@link Mutant mutants} to execute the test against
+     * @return One {@link TargetExecution} object per mutant, in the order of the given mutants
+     */
+    default List<TargetExecution> testMutants(Test test, List<Mutant> mutants) {
+        List<TargetExecution> executions = new ArrayList<>(mutants.size());
+        for (Mutant mutant : mutants) {
+            executions.add(testMutant(mutant, test));
+        }
+        return executions;
+    }
+
+    /**
+     * Returns whether {@link #testMutants(Test, List)} runs all pairs in a single execution. Only then it pays off
+     * to give it more than one mutant at a time.
+     *
+     * @return {@code true} if many mutants are tested in a single execution, {@code false} if they are tested one
+     *         after the other.
+     */
+    default boolean isBatchExecution() {
+        return false;
+    }
+
     /**
      * @param mutant
      * @return
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+
+import org.codedefenders.configuration.Configuration;
+
+/**
+ * Selects the {@link BackendExecutorService} implementation based on the configuration.
+ * Test executions run on {@link WorkerRunner test workers} if enabled, and through {@link AntRunner Ant} otherwise.
+ * Either way, executions already done for the same test and mutant sources are answered by the
+ * {@link CachingExecutorService}.
+ */
+public class BackendExecutorServiceProducer {
+
+    private final Configuration config;
+    private final Instance<AntRunner> antRunner;
+    private final Instance<WorkerRunner> workerRunner;
+    private final SubmissionCache submissionCache;
+
+    @Inject
+    public BackendExecutorServiceProducer(Configuration config, Instance<AntRunner> antRunner,
+            Instance<WorkerRunner> workerRunner, SubmissionCache submissionCache) {
+        this.config = config;
+        this.antRunner = antRunner;
+        this.workerRunner = workerRunner;
+        this.submissionCache = submissionCache;
+    }
+
+    @Produces
+    public BackendExecutorService getBackendExecutorService() {
+        // Cluster executions have to go through srun, which only the AntRunner supports.
+        BackendExecutorService backend;
+        if (config.isWorkerExecution() && !config.isClusterModeEnabled()) {
+            backend = workerRunner.get();
+        } else {
+            backend = antRunner.get();
+        }
+        return new CachingExecutorService(backend, submissionCache);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.codedefenders.game.GameClass;
+import org.codedefenders.game.Mutant;
+import org.codedefenders.game.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link BackendExecutorService} which answers the execution of a test on a mutant from the
+ * {@link SubmissionCache} if the same test source was already executed on the same mutant source, and delegates
+ * everything else to another {@link BackendExecutorService}.
+ *
+ * <p>Cached outcomes are stored as new {@link TargetExecution target executions}, like executed ones.
+ *
+ * <p>We inject instances using {@link BackendExecutorServiceProducer}.
+ */
+class CachingExecutorService implements BackendExecutorService {
+    private static final Logger logger = LoggerFactory.getLogger(CachingExecutorService.class);
+
+    private final BackendExecutorService backend;
+    private final SubmissionCache submissionCache;
+
+    CachingExecutorService(BackendExecutorService backend, SubmissionCache submissionCache) {
+        this.backend = backend;
+        this.submissionCache = submissionCache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void testOriginal(GameClass cut, String testDir, String testClassName) throws Exception {
+        backend.testOriginal(cut, testDir, testClassName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TargetExecution testOriginal(File dir, Test test) {
+        return backend.testOriginal(dir, test);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TargetExecution testMutant(Mutant mutant, Test test) {
+        TargetExecution cached = fromCache(mutant, test);
+        if (cached != null) {
+            return cached;
+        }
+        TargetExecution execution = backend.testMutant(mutant, test);
+        submissionCache.putExecution(mutant, test, execution);
+        return execution;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only the mutants without a cached outcome are passed on to the delegate.
+     */
+    @Override
+    public List<TargetExecution> testMutants(Test test, List<Mutant> mutants) {
+        TargetExecution[] executions = new TargetExecution[mutants.size()];
+        List<Integer> uncachedIndices = new ArrayList<>();
+        List<Mutant> uncachedMutants = new ArrayList<>();
+        for (int i = 0; i < mutants.size(); i++) {
+            executions[i] = fromCache(mutants.get(i), test);
+            if (executions[i] == null) {
+                uncachedIndices.add(i);
+                uncachedMutants.add(mutants.get(i));
+            }
+        }
+
+        if (!uncachedMutants.isEmpty()) {
+            List<TargetExecution> results;
+            boolean interrupted = false;
+            try {
+                results = backend.testMutants(test, uncachedMutants);
+            } catch (ExecutionInterruptedException e) {
+                results = e.getExecutions();
+                interrupted = true;
+            }
+            for (int j = 0; j < uncachedIndices.size(); j++) {
+                int i = uncachedIndices.get(j);
+                executions[i] = results.get(j);
+                if (executions[i] != null) {
+                    submissionCache.putExecution(mutants.get(i), test, executions[i]);
+                }
+            }
+            if (interrupted) {
+                throw new ExecutionInterruptedException(Arrays.asList(executions));
+            }
+        }
+        return Arrays.asList(executions);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isBatchExecution() {
+        return backend.isBatchExecution();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean potentialEquivalent(Mutant mutant) {
+        return backend.potentialEquivalent(mutant);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean testKillsMutant(Mutant mutant, Test test) {
+        return backend.testKillsMutant(mutant, test);
+    }
+
+    private TargetExecution fromCache(Mutant mutant, Test test) {
+        SubmissionCache.Execution cached = submissionCache.getExecution(mutant, test);
+        if (cached == null) {
+            return null;
+        }
+        logger.info("Reusing the outcome of an identical execution for test {} on mutant {}",
+                test.getId(), mutant.getId());
+        TargetExecution execution = new TargetExecution(test.getId(), mutant.getId(),
+                TargetExecution.Target.TEST_MUTANT, cached.getStatus(), cached.getMessage());
+        execution.insert();
+        return execution;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Thrown by a {@link BackendExecutorService} if the calling thread was interrupted before all requested executions
+ * finished. No further executions are started after the interrupt, and the interrupt flag of the thread is set.
+ *
+ * <p>The executions which already finished (and were stored) are available through {@link #getExecutions()}.
+ */
+public class ExecutionInterruptedException extends CancellationException {
+    private final List<TargetExecution> executions;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param executions the requested executions, in the order they were requested, with {@code null} for the
+     *                   executions which did not finish.
+     */
+    public ExecutionInterruptedException(List<TargetExecution> executions) {
+        super("Interrupted after " + executions.stream().filter(e -> e != null).count() + " of " + executions.size()
+                + " executions");
+        this.executions = Collections.unmodifiableList(new ArrayList<>(executions));
+    }
+
+    /**
+     * Returns the requested executions, with {@code null} for the executions which did not finish.
+     */
+    public List<TargetExecution> getExecutions() {
+        return executions;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+/**
+ * The priority classes of the {@link ExecutionScheduler}, from highest to lowest priority.
+ * Queued tasks of a higher priority class are always started before queued tasks of a lower one.
+ */
+public enum ExecutionPriority {
+    /**
+     * Executions a player is waiting for, e.g. running a submitted test against the mutants of a game.
+     */
+    INTERACTIVE,
+    /**
+     * Validation of mutants claimed to be equivalent.
+     */
+    VALIDATION,
+    /**
+     * Killmap computations and other work nobody is actively waiting for.
+     */
+    BACKGROUND
+}
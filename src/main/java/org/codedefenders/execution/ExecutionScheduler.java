@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The single scheduler for test executions of the whole application. Test submissions, equivalence validations
+ * and killmap computations all run on the same thread pool, so together they never exceed
+ * {@link org.codedefenders.configuration.Configuration#getNumberOfExecutionThreads()} concurrent executions.
+ *
+ * <p>Queued tasks are started by {@link ExecutionPriority}, and in submission order within the same priority.
+ * A large killmap computation therefore does not delay the tests of players, it only uses the threads that are
+ * left over. Running tasks are never preempted.
+ *
+ * <p>The underlying pool is registered as {@value #POOL_NAME} with the {@link ThreadPoolManager} in
+ * {@link org.codedefenders.SystemStartStop}, using a {@link #newWorkQueue() priority queue}.
+ */
+@Singleton
+public class ExecutionScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionScheduler.class);
+
+    public static final String POOL_NAME = "execution-scheduler";
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<ExecutionPriority, AtomicInteger> queuedTasks = new EnumMap<>(ExecutionPriority.class);
+    private final AtomicInteger runningTasks = new AtomicInteger();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final Object queueMonitor = new Object();
+
+    @Inject
+    public ExecutionScheduler(@ThreadPool(POOL_NAME) ThreadPoolExecutor executor) {
+        this.executor = executor;
+        for (ExecutionPriority priority : ExecutionPriority.values()) {
+            queuedTasks.put(priority, new AtomicInteger());
+        }
+    }
+
+    /**
+     * Creates the work queue of the scheduler pool. The pool must have the same number of core and maximum
+     * threads, since the queue is unbounded.
+     */
+    public static PriorityBlockingQueue<Runnable> newWorkQueue() {
+        return new PriorityBlockingQueue<>();
+    }
+
+    /**
+     * Queues a task with the given priority.
+     *
+     * @param priority the priority class of the task.
+     * @param task the task to execute.
+     * @param <T> the result type of the task.
+     * @return a future for the result of the task. A task cancelled while it is queued is skipped, cancelling it
+     *     with interruption interrupts it if it is already running.
+     */
+    public <T> Future<T> submit(ExecutionPriority priority, Callable<T> task) {
+        PrioritizedTask<T> prioritizedTask = new PrioritizedTask<>(priority, sequence.getAndIncrement(), task);
+        queuedTasks.get(priority).incrementAndGet();
+        try {
+            executor.execute(prioritizedTask);
+        } catch (RuntimeException e) {
+            dequeued(priority);
+            throw e;
+        }
+        logger.debug("Queued {} task, {} tasks running, {} queued", priority, runningTasks.get(), queuedTasks);
+        return prioritizedTask;
+    }
+
+    /**
+     * Returns the number of tasks of the given priority which wait for a free thread.
+     */
+    public int getQueuedTasks(ExecutionPriority priority) {
+        return queuedTasks.get(priority).get();
+    }
+
+    /**
+     * Returns the number of tasks which wait for a free thread.
+     */
+    public int getQueuedTasks() {
+        int queued = 0;
+        for (AtomicInteger count : queuedTasks.values()) {
+            queued += count.get();
+        }
+        return queued;
+    }
+
+    /**
+     * Returns whether tasks of a higher priority than the given one wait for a free thread.
+     */
+    public boolean hasQueuedTasksAbove(ExecutionPriority priority) {
+        for (ExecutionPriority higher : ExecutionPriority.values()) {
+            if (higher.compareTo(priority) >= 0) {
+                break;
+            }
+            if (queuedTasks.get(higher).get() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Blocks until no tasks of a higher priority than the given one wait for a free thread.
+     * Long-running work of a low priority calls this between its parts, so it pauses while the system is busy with
+     * more important executions.
+     *
+     * @param priority the priority of the calling work.
+     * @throws InterruptedException if the calling thread was interrupted while waiting.
+     */
+    public void awaitNoQueuedTasksAbove(ExecutionPriority priority) throws InterruptedException {
+        synchronized (queueMonitor) {
+            while (hasQueuedTasksAbove(priority)) {
+                queueMonitor.wait();
+            }
+        }
+    }
+
+    /**
+     * Blocks until no tasks of a higher priority than the given one wait for a free thread, or until the timeout
+     * elapsed. Long-running work with a deadline uses this instead of
+     * {@link #awaitNoQueuedTasksAbove(ExecutionPriority)}, so it does not pause beyond its deadline under steady
+     * load.
+     *
+     * @param priority the priority of the calling work.
+     * @param timeout the maximum time to wait.
+     * @param unit the time unit of the timeout.
+     * @return {@code true} if no tasks of a higher priority are queued, {@code false} if the timeout elapsed before.
+     * @throws InterruptedException if the calling thread was interrupted while waiting.
+     */
+    public boolean awaitNoQueuedTasksAbove(ExecutionPriority priority, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (queueMonitor) {
+            while (hasQueuedTasksAbove(priority)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(queueMonitor, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of tasks which are currently executed.
+     */
+    public int getRunningTasks() {
+        return runningTasks.get();
+    }
+
+    /**
+     * Returns the number of tasks which finished, successfully or not, since the application started.
+     */
+    public long getCompletedTasks() {
+        return completedTasks.get();
+    }
+
+    /**
+     * Returns the maximum number of tasks which are executed at the same time.
+     */
+    public int getMaxConcurrency() {
+        return executor.getMaximumPoolSize();
+    }
+
+    private void dequeued(ExecutionPriority priority) {
+        if (queuedTasks.get(priority).decrementAndGet() == 0) {
+            synchronized (queueMonitor) {
+                queueMonitor.notifyAll();
+            }
+        }
+    }
+
+    private class PrioritizedTask<T> extends FutureTask<T> implements Comparable<PrioritizedTask<?>> {
+        private final ExecutionPriority priority;
+        private final long sequenceNumber;
+
+        private PrioritizedTask(ExecutionPriority priority, long sequenceNumber, Callable<T> callable) {
+            super(callable);
+            this.priority = priority;
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        @Override
+        public void run() {
+            dequeued(priority);
+            if (isDone()) {
+                // Cancelled while queued.
+                return;
+            }
+            runningTasks.incrementAndGet();
+            try {
+                super.run();
+            } finally {
+                runningTasks.decrementAndGet();
+                completedTasks.incrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask<?> other) {
+            int result = priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+}
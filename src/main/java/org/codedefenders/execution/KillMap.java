@@ -22,25 +22,28 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 
-import org.apache.commons.lang3.ArrayUtils;
 import org.codedefenders.configuration.Configuration;
 import org.codedefenders.database.KillmapDAO;
 import org.codedefenders.database.MutantDAO;
 import org.codedefenders.database.TestDAO;
 import org.codedefenders.game.AbstractGame;
+import org.codedefenders.game.CoverageIndex;
 import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Test;
 import org.codedefenders.util.CDIUtil;
@@ -56,19 +59,42 @@ import static org.codedefenders.execution.KillMap.KillMapEntry.Status.UNKNOWN;
  * Killmaps are computed and saved to the DB on the first time they are requested. This may take a long time.
  * {@link KillmapDAO#hasKillMap(int)}  can be used to check if a finished game's killmap has already been computed.
  * <p/>
- * Only one killmap can be computed at a time. Further request are queued via {@code synchronized}.
- * This is mostly to prevent multiple calculations of the same killmap at once, e.g. by accidentally refreshing a page.
+ * The same killmap is only computed by one thread at a time. Further requests for it are queued via
+ * {@code synchronized}. This is mostly to prevent multiple calculations of the same killmap at once, e.g. by
+ * accidentally refreshing a page. Different killmaps are computed concurrently.
+ * <p/>
+ * The executions run on the shared {@link ExecutionScheduler}, with {@link ExecutionPriority#BACKGROUND background}
+ * priority, except for the validation of equivalent mutants.
  */
 public class KillMap {
 
     private static final Logger logger = LoggerFactory.getLogger(KillMap.class);
 
+    /**
+     * The number of entries computed between two checks for pausing or stopping the computation.
+     */
+    private static final int CHUNK_SIZE = 50;
+
+    /**
+     * The maximum number of entries without coverage stored between two checks for pausing or stopping the
+     * computation.
+     */
+    private static final int UNCOVERED_CHUNK_SIZE = 5000;
+
+    /**
+     * Locks of the game and class killmaps, so each killmap is only computed by one thread at a time.
+     */
+    private static final ConcurrentMap<String, ComputationLock> COMPUTATION_LOCKS = new ConcurrentHashMap<>();
+
     // @Inject // This does not work for static classes
     private static BackendExecutorService backend;
+    private static ExecutionScheduler scheduler;
 
     private static boolean USE_COVERAGE;
     private static boolean PARALLELIZE;
     private static int NUM_THREADS;
+    private static int BATCH_SIZE;
+    private static Duration BATCH_INTERVAL = Duration.ZERO;
 
     static {
         /* Get the BackendExecutorService and Configuration since dependency injection does not work on this class. */
@@ -78,6 +104,9 @@ public class KillMap {
             USE_COVERAGE = config.isMutantCoverage();
             PARALLELIZE = config.isParallelize();
             NUM_THREADS = config.getNumberOfKillmapThreads();
+            BATCH_SIZE = config.getKillmapBatchSize();
+            BATCH_INTERVAL = Duration.ofSeconds(config.getKillmapBatchInterval());
+            scheduler = CDIUtil.getBeanFromCDI(ExecutionScheduler.class);
         } catch (IllegalStateException e) {
             // TODO
         }
@@ -94,6 +123,12 @@ public class KillMap {
         }
     }
 
+    /**
+     * Whether all entries of the killmap are stored in the database. Only a stored killmap may be
+     * {@link KillmapDAO#storeKillMatrix(KillMapType, int, KillMatrix) stored as matrix}, otherwise the matrix
+     * would claim entries which a later computation could not find.
+     */
+    private boolean entriesStored = true;
     /**
      * The tests the killmap is computed for.
      */
@@ -115,14 +150,10 @@ public class KillMap {
      */
     private Map<Mutant, Integer> indexOfMutant;
 
-    /**
-     * The killmap data, as a list of "test vs. mutant" execution results.
-     */
-    private List<KillMapEntry> entries;
     /**
      * The killmap data, as matrix between tests and mutants.
      */
-    private KillMapEntry[][] matrix;
+    private KillMatrix matrix;
 
 
     /**
@@ -135,78 +166,236 @@ public class KillMap {
      *                an empty list.
      */
     private KillMap(List<Test> tests, List<Mutant> mutants, int classId, List<KillMapEntry> entries) {
+        this(tests, mutants, classId);
+
+        for (KillMapEntry entry : entries) {
+            Integer testIndex = indexOf(entry.test);
+            Integer mutantIndex = indexOf(entry.mutant);
+            if (testIndex != null && mutantIndex != null) {
+                matrix.set(testIndex, mutantIndex, entry.status);
+            }
+        }
+    }
+
+    /**
+     * Constructs a new killmap from a stored matrix.
+     *
+     * @param tests   The tests of the killmap.
+     * @param mutants The mutants of the killmap.
+     * @param classId The id of the class the tests and mutants are for.
+     * @param stored  The stored matrix. Only the entries of tests and mutants of the killmap are used.
+     */
+    private KillMap(List<Test> tests, List<Mutant> mutants, int classId, KillMatrix stored) {
+        this(tests, mutants, classId);
+        matrix.putAll(stored);
+    }
+
+    private KillMap(List<Test> tests, List<Mutant> mutants, int classId) {
         this.tests = new ArrayList<>(tests);
         this.mutants = new ArrayList<>(mutants);
         this.classId = classId;
         this.indexOfTest = new TreeMap<>(Test.orderByIdDescending());
         this.indexOfMutant = new TreeMap<>(Mutant.orderByIdDescending());
 
-        this.entries = entries;
-        this.matrix = new KillMapEntry[tests.size()][mutants.size()];
-
         /* Fill the maps and the matrix. */
+        int[] testIds = new int[this.tests.size()];
         for (int i = 0; i < this.tests.size(); i++) {
-            this.indexOfTest.put(tests.get(i), i);
+            this.indexOfTest.put(this.tests.get(i), i);
+            testIds[i] = this.tests.get(i).getId();
         }
+        int[] mutantIds = new int[this.mutants.size()];
         for (int i = 0; i < this.mutants.size(); i++) {
-            this.indexOfMutant.put(mutants.get(i), i);
-        }
-        for (KillMapEntry entry : entries) {
-            Integer testIndex = indexOf(entry.test);
-            Integer mutantIndex = indexOf(entry.mutant);
-            if (testIndex != null && mutantIndex != null) {
-                matrix[indexOf(entry.test)][indexOf(entry.mutant)] = entry;
-            }
+            this.indexOfMutant.put(this.mutants.get(i), i);
+            mutantIds[i] = this.mutants.get(i).getId();
         }
+        this.matrix = new KillMatrix(testIds, mutantIds);
     }
 
     /**
-     * Computes the missing entries of the killmap.
+     * Computes the missing entries of the killmap on the {@link ExecutionScheduler}.
+     *
+     * <p>The pairs of tests and mutants are walked in chunks of up to {@link #CHUNK_SIZE} missing entries which need
+     * an execution, and up to {@link #UNCOVERED_CHUNK_SIZE} missing entries where the test does not cover the
+     * mutant. The latter are determined from the coverage index and stored without an execution. Before each chunk,
+     * the computation pauses while executions of a higher priority are queued, and it stops if the deadline has
+     * passed. Computed entries are stored in batches through a {@link KillMapEntryBuffer}, which is flushed when the
+     * computation ends in any way, so a stopped computation can be resumed later by creating the killmap again.
+     * At most {@link Configuration#getNumberOfKillmapThreads()} executions (one if
+     * parallelization is disabled) of the killmap are queued or running at the same time.
      *
+     * @param priority The priority of the executions.
+     * @param deadline The time after which no further chunk is started, or {@code null} to compute all entries.
+     *                 At least one chunk is computed, unless the computation pauses for executions of a higher
+     *                 priority until the deadline.
+     * @return {@code true} if all entries have been computed, {@code false} if the computation stopped early.
      * @throws InterruptedException If the computation is interrupted.
      * @throws ExecutionException   If an error occurred during an execution.
      */
-    private void compute(ExecutorService executor) throws InterruptedException, ExecutionException {
+    private boolean compute(ExecutionPriority priority, Instant deadline)
+            throws InterruptedException, ExecutionException {
         Instant startTime = Instant.now();
 
-        List<Future<KillMapEntry>> executionResults = new LinkedList<>();
+        CoverageIndex coverage = USE_COVERAGE ? new CoverageIndex(tests, mutants) : null;
+        PairCursor cursor = new PairCursor(coverage);
+        Semaphore permits = new Semaphore(PARALLELIZE ? NUM_THREADS : 1);
+        KillMapEntryBuffer buffer = new KillMapEntryBuffer(classId, BATCH_SIZE, BATCH_INTERVAL);
+        int[] testIndices = new int[CHUNK_SIZE];
+        int[] mutantIndices = new int[CHUNK_SIZE];
+        try {
+            for (int chunk = 0; cursor.hasNext(); chunk++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Got interrupted while computing the killmap");
+                }
+                if (chunk > 0 && deadline != null && Instant.now().isAfter(deadline)) {
+                    logger.info(String.format("Stopping killmap computation (class %d) after %d chunks, "
+                            + "%d of %d entries computed", classId, chunk, matrix.getNumEntries(),
+                            tests.size() * mutants.size()));
+                    return false;
+                }
+                if (scheduler.hasQueuedTasksAbove(priority)) {
+                    logger.info("Pausing killmap computation (class {}) for executions of a higher priority",
+                            classId);
+                    // The buffer is only flushed when entries are added, so the pause must not keep entries in it.
+                    buffer.flush();
+                    if (deadline == null) {
+                        scheduler.awaitNoQueuedTasksAbove(priority);
+                    } else if (!scheduler.awaitNoQueuedTasksAbove(priority,
+                            Math.max(0, Duration.between(Instant.now(), deadline).toMillis()),
+                            TimeUnit.MILLISECONDS)) {
+                        logger.info(String.format("Stopping paused killmap computation (class %d) after %d "
+                                + "chunks, the deadline has passed", classId, chunk));
+                        return false;
+                    }
+                    logger.info("Resuming killmap computation (class {})", classId);
+                }
+
+                int numPairs = cursor.nextChunk(testIndices, mutantIndices, buffer);
+                computeChunk(priority, testIndices, mutantIndices, numPairs, permits, buffer);
 
-        if (Thread.currentThread().isInterrupted()) {
-            executor.shutdownNow();
-            throw new InterruptedException("Got interrupted before submitting tasks");
+                logger.info(String.format(
+                        "Killmap computation (class %d): chunk %d done, %d of %d entries computed",
+                        classId, chunk + 1, matrix.getNumEntries(), tests.size() * mutants.size()));
+            }
+        } finally {
+            buffer.flush();
+            if (buffer.hasFailed()) {
+                entriesStored = false;
+            }
         }
 
-        for (int t = 0; t < tests.size(); t++) {
-            Test test = tests.get(t);
-            for (int m = 0; m < mutants.size(); m++) {
-                Mutant mutant = mutants.get(m);
-                if ((matrix[t][m] == null)) {
-                    executionResults.add(executor.submit(new TestVsMutantCallable(test, mutant, classId)));
+        logger.info("Computation of killmap finished after " + Duration.between(startTime, Instant.now()).getSeconds()
+                + " seconds");
+        return true;
+    }
+
+    /**
+     * Walks the pairs of tests and mutants (by index) whose entries are missing, in the order of the matrix.
+     */
+    private class PairCursor {
+        private final CoverageIndex coverage;
+        private int test = 0;
+        private int mutant = 0;
+        private BitSet coveredMutants;
+
+        PairCursor(CoverageIndex coverage) {
+            this.coverage = coverage;
+            skipComputed();
+        }
+
+        boolean hasNext() {
+            return test < tests.size();
+        }
+
+        /**
+         * Collects the next pairs which need an execution into the given arrays, and adds an entry to the buffer
+         * for each pair where the test does not cover the mutant. Stops after {@link #CHUNK_SIZE} pairs to execute
+         * or {@link #UNCOVERED_CHUNK_SIZE} uncovered pairs.
+         *
+         * @return The number of pairs to execute.
+         */
+        int nextChunk(int[] testIndices, int[] mutantIndices, KillMapEntryBuffer buffer) {
+            int numPairs = 0;
+            int numUncovered = 0;
+            while (hasNext() && numPairs < CHUNK_SIZE && numUncovered < UNCOVERED_CHUNK_SIZE) {
+                if (coveredMutants != null && !coveredMutants.get(mutant)) {
+                    addEntry(new KillMapEntry(tests.get(test), mutants.get(mutant), KillMapEntry.Status.NO_COVERAGE),
+                            buffer);
+                    numUncovered++;
+                } else {
+                    testIndices[numPairs] = test;
+                    mutantIndices[numPairs] = mutant;
+                    numPairs++;
                 }
+                mutant++;
+                skipComputed();
             }
+            return numPairs;
         }
 
-        if (Thread.currentThread().isInterrupted()) {
-            executor.shutdownNow();
-            throw new InterruptedException("Got interrupted after submitting tasks");
+        private void skipComputed() {
+            while (test < tests.size()) {
+                if (mutant == 0) {
+                    coveredMutants = coverage != null ? coverage.getCoveredMutantIndices(tests.get(test)) : null;
+                }
+                while (mutant < mutants.size() && matrix.get(test, mutant) != null) {
+                    mutant++;
+                }
+                if (mutant < mutants.size()) {
+                    return;
+                }
+                test++;
+                mutant = 0;
+            }
         }
+    }
 
-        executor.shutdown();
+    /**
+     * Executes the given pairs of tests and mutants and adds their results to the killmap and the buffer.
+     * If interrupted, the results of the executions which already finished are still added.
+     */
+    private void computeChunk(ExecutionPriority priority, int[] testIndices, int[] mutantIndices, int numPairs,
+            Semaphore permits, KillMapEntryBuffer buffer) throws InterruptedException, ExecutionException {
+        List<Future<KillMapEntry>> executionResults = new LinkedList<>();
+        try {
+            for (int i = 0; i < numPairs; i++) {
+                TestVsMutantCallable callable =
+                        new TestVsMutantCallable(tests.get(testIndices[i]), mutants.get(mutantIndices[i]));
+                permits.acquire();
+                executionResults.add(scheduler.submit(priority, () -> {
+                    try {
+                        return callable.call();
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
 
-        for (Future<KillMapEntry> result : executionResults) {
-            try {
-                KillMapEntry entry = result.get();
-                entries.add(entry);
-                matrix[indexOf(entry.test)][indexOf(entry.mutant)] = entry;
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-                throw new InterruptedException("Got interrupted while waiting for results");
+            for (Future<KillMapEntry> result : executionResults) {
+                addEntry(result.get(), buffer);
             }
+        } catch (InterruptedException e) {
+            for (Future<KillMapEntry> result : executionResults) {
+                if (result.isDone() && !result.isCancelled()) {
+                    try {
+                        KillMapEntry entry = result.get();
+                        if (matrix.get(indexOf(entry.test), indexOf(entry.mutant)) == null) {
+                            addEntry(entry, buffer);
+                        }
+                    } catch (ExecutionException ignored) {
+                        // Failed executions have no result to store.
+                    }
+                } else {
+                    result.cancel(true);
+                }
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedException("Got interrupted while computing the killmap");
         }
+    }
 
-        logger.info("Computation of killmap finished after " + Duration.between(startTime, Instant.now()).getSeconds()
-                + " seconds");
+    private void addEntry(KillMapEntry entry, KillMapEntryBuffer buffer) {
+        matrix.set(indexOf(entry.test), indexOf(entry.mutant), entry.status);
+        buffer.add(entry);
     }
 
     /**
@@ -218,32 +407,56 @@ public class KillMap {
      * @throws ExecutionException   If an error occurred during an execution.
      */
     public static KillMap forGame(AbstractGame game) throws InterruptedException, ExecutionException {
+        return forGame(game, null);
+    }
+
+    /**
+     * Returns the killmap for the given finished game, computing missing entries until the given deadline.
+     * A killmap which is not {@link #isComplete() complete} yet is resumed by calling this method again.
+     *
+     * @param game     The finished game to get the killmap for.
+     * @param deadline The time after which the computation stops, or {@code null} to compute the whole killmap.
+     * @throws InterruptedException If the computation is interrupted.
+     * @throws ExecutionException   If an error occurred during an execution.
+     */
+    public static KillMap forGame(AbstractGame game, Instant deadline)
+            throws InterruptedException, ExecutionException {
         List<Test> tests = game.getTests();
         List<Mutant> mutants = game.getMutants();
-        List<KillMapEntry> entries = KillmapDAO.getKillMapEntriesForGame(game.getId());
-        KillMap killmap = new KillMap(tests, mutants, game.getClassId(), entries);
-
-        if (tests.size() * mutants.size() != entries.size()) {
-            /* Synchronized, so only one killmap can is computed at a time. */
-            synchronized (KillMap.class) {
-                logger.info(String.format("Computing killmap for %s game %d: %d tests, %d mutants, %d entries provided",
-                        game.getMode(), game.getId(), tests.size(), mutants.size(), entries.size()));
+        KillMap killmap = fromStoredMatrix(KillMapType.GAME, game.getId(), tests, mutants, game.getClassId());
+        if (killmap != null) {
+            logger.info("Killmap for game " + game.getId() + " already computed");
+            return killmap;
+        }
 
-                // TODO refactor this into a CDI
-                ExecutorService executor = PARALLELIZE
-                        ? Executors.newFixedThreadPool(NUM_THREADS)
-                        : Executors.newSingleThreadExecutor();
+        List<KillMapEntry> entries = KillmapDAO.getKillMapEntriesForGame(game.getId());
+        killmap = new KillMap(tests, mutants, game.getClassId(), entries);
+
+        if (!killmap.isComplete()) {
+            /* Synchronized, so the same killmap is only computed once at a time. */
+            try (ComputationLock lock = ComputationLock.acquire(KillMapType.GAME, game.getId())) {
+                synchronized (lock) {
+                    /* Another thread may have computed entries while we waited. */
+                    entries = KillmapDAO.getKillMapEntriesForGame(game.getId());
+                    killmap = new KillMap(tests, mutants, game.getClassId(), entries);
+                    logger.info(String.format(
+                            "Computing killmap for %s game %d: %d tests, %d mutants, %d entries provided",
+                            game.getMode(), game.getId(), tests.size(), mutants.size(), entries.size()));
 
-                killmap.compute(executor);
+                    boolean complete = killmap.compute(ExecutionPriority.BACKGROUND, deadline);
 
-                if (game.isFinished()) {
-                    KillmapDAO.setHasKillMap(game.getId(), true);
+                    if (complete && killmap.entriesStored && game.isFinished()) {
+                        KillmapDAO.setHasKillMap(game.getId(), true);
+                    }
                 }
             }
         } else {
             logger.info("Killmap for game " + game.getId() + " already computed");
         }
 
+        if (killmap.isComplete() && killmap.entriesStored) {
+            KillmapDAO.storeKillMatrix(KillMapType.GAME, game.getId(), killmap.matrix);
+        }
         return killmap;
     }
 
@@ -256,27 +469,50 @@ public class KillMap {
      * @throws ExecutionException   If an error occurred during an execution.
      */
     public static KillMap forClass(int classId) throws InterruptedException, ExecutionException {
+        return forClass(classId, null);
+    }
+
+    /**
+     * Returns the killmap for the given class, computing missing entries until the given deadline.
+     * A killmap which is not {@link #isComplete() complete} yet is resumed by calling this method again.
+     *
+     * @param classId  The class to get the killmap for.
+     * @param deadline The time after which the computation stops, or {@code null} to compute the whole killmap.
+     * @throws InterruptedException If the computation is interrupted.
+     * @throws ExecutionException   If an error occurred during an execution.
+     */
+    public static KillMap forClass(int classId, Instant deadline) throws InterruptedException, ExecutionException {
         List<Test> tests = TestDAO.getValidTestsForClass(classId);
         List<Mutant> mutants = MutantDAO.getValidMutantsForClass(classId);
+        KillMap killmap = fromStoredMatrix(KillMapType.CLASS, classId, tests, mutants, classId);
+        if (killmap != null) {
+            logger.info("Killmap for class " + classId + " already computed");
+            return killmap;
+        }
+
         List<KillMapEntry> entries = KillmapDAO.getKillMapEntriesForClass(classId);
-        KillMap killmap = new KillMap(tests, mutants, classId, entries);
-
-        if (tests.size() * mutants.size() != entries.size()) {
-            /* Synchronized, so only one killmap is computed at a time. */
-            synchronized (KillMap.class) {
-                logger.info(String.format("Computing killmap for class %d: %d tests, %d mutants, %d entries provided",
-                        classId, tests.size(), mutants.size(), entries.size()));
-                // TODO refactor this into a CDI
-                ExecutorService executor = PARALLELIZE
-                        ? Executors.newFixedThreadPool(NUM_THREADS)
-                        : Executors.newSingleThreadExecutor();
-
-                killmap.compute(executor);
+        killmap = new KillMap(tests, mutants, classId, entries);
+
+        if (!killmap.isComplete()) {
+            /* Synchronized, so the same killmap is only computed once at a time. */
+            try (ComputationLock lock = ComputationLock.acquire(KillMapType.CLASS, classId)) {
+                synchronized (lock) {
+                    /* Another thread may have computed entries while we waited. */
+                    entries = KillmapDAO.getKillMapEntriesForClass(classId);
+                    killmap = new KillMap(tests, mutants, classId, entries);
+                    logger.info(String.format(
+                            "Computing killmap for class %d: %d tests, %d mutants, %d entries provided",
+                            classId, tests.size(), mutants.size(), entries.size()));
+                    killmap.compute(ExecutionPriority.BACKGROUND, deadline);
+                }
             }
         } else {
             logger.info("Killmap for class " + classId + " already computed");
         }
 
+        if (killmap.isComplete() && killmap.entriesStored) {
+            KillmapDAO.storeKillMatrix(KillMapType.CLASS, classId, killmap.matrix);
+        }
         return killmap;
     }
 
@@ -294,28 +530,22 @@ public class KillMap {
      */
     public static KillMap forCustom(List<Test> tests, List<Mutant> mutants, int classId, List<KillMapEntry> entries)
             throws InterruptedException, ExecutionException {
-        /* Synchronized, so only one killmap can be computed at a time. */
-        synchronized (KillMap.class) {
-            KillMap killmap = new KillMap(tests, mutants, classId, entries);
+        /* Custom killmaps store their entries for the class, so they share the lock of the class killmap. */
+        try (ComputationLock lock = ComputationLock.acquire(KillMapType.CLASS, classId)) {
+            synchronized (lock) {
+                KillMap killmap = new KillMap(tests, mutants, classId, entries);
 
-            if (tests.size() * mutants.size() != entries.size()) {
-                /* Synchronized, so only one killmap is computed at a time. */
-                synchronized (KillMap.class) {
+                if (!killmap.isComplete()) {
                     logger.info(String.format(
                             "Computing custom killmap (class %d): %d tests, %d mutants, %d entries provided",
                             classId, tests.size(), mutants.size(), entries.size()));
-                    // TODO refactor this into a CDI
-                    ExecutorService executor = PARALLELIZE
-                            ? Executors.newFixedThreadPool(NUM_THREADS)
-                            : Executors.newSingleThreadExecutor();
-
-                    killmap.compute(executor);
+                    killmap.compute(ExecutionPriority.BACKGROUND, null);
+                } else {
+                    logger.info("Custom killmap for class " + classId + " already computed");
                 }
-            } else {
-                logger.info("Custom killmap for class " + classId + " already computed");
-            }
 
-            return killmap;
+                return killmap;
+            }
         }
     }
 
@@ -337,14 +567,8 @@ public class KillMap {
         logger.debug("Validating mutant {} using custom killmap (partial results are stored in the db) using: {} tests",
                 mutant, tests.size());
 
-        // TODO this creates a surge in the load as the number of executor services might grow
-        // by refactoring this into a CDI we should be able to easily control the situation and queue jobs.
-        ExecutorService executor = PARALLELIZE
-                ? Executors.newFixedThreadPool(NUM_THREADS)
-                : Executors.newSingleThreadExecutor();
-
         try {
-            killmap.compute(executor);
+            killmap.compute(ExecutionPriority.VALIDATION, null);
         } catch (InterruptedException | ExecutionException e) {
             logger.error("Exception while validating mutant {} using custom killmap", e);
             return null;
@@ -353,6 +577,59 @@ public class KillMap {
         return killmap;
     }
 
+    /**
+     * Returns the killmap for the given tests and mutants from the matrix stored with
+     * {@link KillmapDAO#storeKillMatrix(KillMapType, int, KillMatrix)}, if the stored matrix contains all entries of
+     * the killmap. Returns {@code null} otherwise, e.g. if tests or mutants have been added since it was stored.
+     */
+    private static KillMap fromStoredMatrix(KillMapType type, int id, List<Test> tests, List<Mutant> mutants,
+            int classId) {
+        KillMatrix stored = KillmapDAO.getKillMatrix(type, id);
+        if (stored == null) {
+            return null;
+        }
+        KillMap killmap = new KillMap(tests, mutants, classId, stored);
+        return killmap.isComplete() ? killmap : null;
+    }
+
+    /**
+     * The lock of a game or class killmap. Locks are counted by their users and removed from
+     * {@link #COMPUTATION_LOCKS} once the last user released them, so the map does not grow with every killmap.
+     */
+    private static class ComputationLock implements AutoCloseable {
+        private final String key;
+        private int users = 0;
+
+        private ComputationLock(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Returns the lock of the given killmap. It has to be {@link #close() released} after use.
+         */
+        private static ComputationLock acquire(KillMapType type, int id) {
+            return COMPUTATION_LOCKS.compute(type + "-" + id, (key, lock) -> {
+                ComputationLock result = lock != null ? lock : new ComputationLock(key);
+                result.users++;
+                return result;
+            });
+        }
+
+        @Override
+        public void close() {
+            COMPUTATION_LOCKS.computeIfPresent(key, (k, lock) -> --lock.users == 0 ? null : lock);
+        }
+    }
+
+    /**
+     * Returns whether the killmap contains an entry for every pair of test and mutant.
+     *
+     * @return Whether the killmap contains an entry for every pair of test and mutant.
+     */
+    public boolean isComplete() {
+        return matrix.isComplete();
+    }
+
     /**
      * Returns the tests of the killmap.
      *
@@ -373,22 +650,35 @@ public class KillMap {
 
     /**
      * Returns The results of all "test vs. mutant" executions.
+     * The entries are created from the matrix on every call, ordered by test and mutant.
      *
      * @return The results of all "test vs. mutant" executions.
      */
     public List<KillMapEntry> getEntries() {
-        return new ArrayList<>(entries);
+        List<KillMapEntry> entries = new ArrayList<>(matrix.getNumEntries());
+        for (int t = 0; t < tests.size(); t++) {
+            KillMatrix.View row = matrix.row(t);
+            for (int m = 0; m < mutants.size(); m++) {
+                KillMapEntry.Status status = row.get(m);
+                if (status != null) {
+                    entries.add(new KillMapEntry(tests.get(t), mutants.get(m), status));
+                }
+            }
+        }
+        return entries;
     }
 
     /**
      * Returns a matrix that maps tests and mutants to their execution result.
-     * The first dimension describes the tests, the second dimension describes the mutants.
+     * The rows describe the tests, the columns describe the mutants.
      * {@link KillMap#indexOf(Test)} / {@link KillMap#indexOf(Mutant)} can be used to get the index of a test / mutant.
      *
+     * <p>The matrix is not copied, it must not be modified while the killmap is computed.
+     *
      * @return A matrix that maps tests and mutants to their execution result.
      */
-    public KillMapEntry[][] getMatrix() {
-        return (KillMapEntry[][]) ArrayUtils.clone(matrix);
+    public KillMatrix getMatrix() {
+        return matrix;
     }
 
     /**
@@ -398,7 +688,15 @@ public class KillMap {
      * @return All "test vs. mutant" execution results for the given test.
      */
     public KillMapEntry[] getEntriesForTest(Test test) {
-        return (KillMapEntry[]) ArrayUtils.clone(matrix[indexOf(test)]);
+        int testIndex = indexOf(test);
+        KillMatrix.View row = matrix.row(testIndex);
+        KillMapEntry[] result = new KillMapEntry[mutants.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = toEntry(tests.get(testIndex), mutants.get(i), row.get(i));
+        }
+
+        return result;
     }
 
     /**
@@ -409,10 +707,11 @@ public class KillMap {
      */
     public KillMapEntry[] getEntriesForMutant(Mutant mutant) {
         int mutantIndex = indexOf(mutant);
+        KillMatrix.View column = matrix.column(mutantIndex);
         KillMapEntry[] result = new KillMapEntry[tests.size()];
 
         for (int i = 0; i < result.length; i++) {
-            result[i] = matrix[i][mutantIndex];
+            result[i] = toEntry(tests.get(i), mutants.get(mutantIndex), column.get(i));
         }
 
         return result;
@@ -426,7 +725,13 @@ public class KillMap {
      * @return The "test vs. mutant" execution result for the given test and mutant.
      */
     public KillMapEntry getEntry(Test test, Mutant mutant) {
-        return matrix[indexOf(test)][indexOf(mutant)];
+        int testIndex = indexOf(test);
+        int mutantIndex = indexOf(mutant);
+        return toEntry(tests.get(testIndex), mutants.get(mutantIndex), matrix.get(testIndex, mutantIndex));
+    }
+
+    private static KillMapEntry toEntry(Test test, Mutant mutant, KillMapEntry.Status status) {
+        return status == null ? null : new KillMapEntry(test, mutant, status);
     }
 
     /**
@@ -450,53 +755,39 @@ public class KillMap {
     }
 
     /**
-     * Executes a test against a mutant, inserts the result into the DB, and returns the result.
+     * Executes a test against a mutant and returns the result. The result is stored by the computing killmap.
+     * Pairs where the test does not cover the mutant are filtered out before, in {@link #compute}.
      */
     private static class TestVsMutantCallable implements Callable<KillMapEntry> {
         private Test test;
         private Mutant mutant;
-        private int classId;
 
-        private TestVsMutantCallable(Test test, Mutant mutant, int classId) {
+        private TestVsMutantCallable(Test test, Mutant mutant) {
             this.test = test;
             this.mutant = mutant;
-            this.classId = classId;
         }
 
         @Override
         public KillMapEntry call() {
-            KillMapEntry entry;
-
-            if (USE_COVERAGE && !test.isMutantCovered(mutant)) {
-                entry = new KillMapEntry(test, mutant, KillMapEntry.Status.NO_COVERAGE);
-
-            } else {
-                TargetExecution executedTarget = backend.testMutant(mutant, test);
-                KillMapEntry.Status status;
-
-                switch (executedTarget.status) {
-                    case FAIL:
-                        status = KILL;
-                        break;
-                    case SUCCESS:
-                        status = NO_KILL;
-                        break;
-                    case ERROR:
-                        status = KillMapEntry.Status.ERROR;
-                        break;
-                    default:
-                        status = UNKNOWN;
-                        break;
-                }
-
-                entry = new KillMapEntry(test, mutant, status);
-            }
-
-            if (!KillmapDAO.insertKillMapEntry(entry, classId)) {
-                logger.error("An error occurred while inserting killmap entry into the DB: " + entry);
+            TargetExecution executedTarget = backend.testMutant(mutant, test);
+            KillMapEntry.Status status;
+
+            switch (executedTarget.status) {
+                case FAIL:
+                    status = KILL;
+                    break;
+                case SUCCESS:
+                    status = NO_KILL;
+                    break;
+                case ERROR:
+                    status = KillMapEntry.Status.ERROR;
+                    break;
+                default:
+                    status = UNKNOWN;
+                    break;
             }
 
-            return entry;
+            return new KillMapEntry(test, mutant, status);
         }
     }
 
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codedefenders.database.KillmapDAO;
+import org.codedefenders.execution.KillMap.KillMapEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind buffer for computed killmap entries.
+ *
+ * <p>Entries are stored with {@link KillmapDAO#insertManyKillMapEntries(List, int)} once {@code batchSize}
+ * entries are buffered, or when an entry is added after {@code flushInterval} has passed since the last flush.
+ * The owner of the buffer has to call {@link #flush()} when the computation ends, also if it ends with an exception,
+ * and before it pauses, since the flush interval is only checked when an entry is added.
+ */
+class KillMapEntryBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(KillMapEntryBuffer.class);
+
+    private final int classId;
+    private final int batchSize;
+    private final Duration flushInterval;
+
+    private final List<KillMapEntry> buffer = new ArrayList<>();
+    private Instant lastFlush = Instant.now();
+    private boolean failed = false;
+
+    /**
+     * Creates a new buffer.
+     *
+     * @param classId The class the entries are stored for.
+     * @param batchSize The number of entries which are stored together.
+     * @param flushInterval The maximum time entries are kept in the buffer, as long as entries are added.
+     */
+    KillMapEntryBuffer(int classId, int batchSize, Duration flushInterval) {
+        this.classId = classId;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Adds an entry to the buffer, and stores the buffered entries if the batch is full or the flush interval
+     * has passed.
+     */
+    synchronized void add(KillMapEntry entry) {
+        buffer.add(entry);
+        if (buffer.size() >= batchSize || Instant.now().isAfter(lastFlush.plus(flushInterval))) {
+            flush();
+        }
+    }
+
+    /**
+     * Stores all buffered entries.
+     */
+    synchronized void flush() {
+        if (!buffer.isEmpty()) {
+            logger.debug("Storing {} killmap entries (class {})", buffer.size(), classId);
+            try {
+                if (!KillmapDAO.insertManyKillMapEntries(buffer, classId)) {
+                    logger.warn("Failed to store {} killmap entries (class {})", buffer.size(), classId);
+                    failed = true;
+                }
+            } finally {
+                buffer.clear();
+                lastFlush = Instant.now();
+            }
+        }
+    }
+
+    /**
+     * Returns whether storing any of the flushed entries failed.
+     */
+    synchronized boolean hasFailed() {
+        return failed;
+    }
+}
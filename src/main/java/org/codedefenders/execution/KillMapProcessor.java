@@ -18,17 +18,30 @@
  */
 package org.codedefenders.execution;
 
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.inject.Inject;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 import javax.servlet.annotation.WebListener;
 
+import org.codedefenders.configuration.Configuration;
 import org.codedefenders.database.AdminDAO;
 import org.codedefenders.database.KillmapDAO;
 import org.codedefenders.database.MultiplayerGameDAO;
@@ -38,10 +51,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class setups the thread pool to process games killmaps asynchronously.
+ * This class setups the thread pools to process games killmaps asynchronously.
  * It reads from the DB KillMapJobs the id of the games waiting for their
- * killmap to be computed, and processes them one at the time. Results are then
- * stored to killmap, and the job is removed from the database
+ * killmap to be computed, and processes up to {@link Configuration#getNumberOfKillmapJobs()}
+ * of them at the same time. Results are then stored to killmap, and the job is
+ * removed from the database.
+ *
+ * <p>Jobs are claimed in the database before they are processed, so several instances
+ * of Code Defenders can share the same database without computing a job twice. The claim
+ * is renewed every {@link #CLAIM_RENEWAL_INTERVAL} while the job is computed. If the claim
+ * is lost anyway (e.g. because the database was not reachable for a while), the computation
+ * is stopped and the job is left to the instance which claimed it next.
+ * The executions of all jobs run on the shared {@link ExecutionScheduler}, which
+ * limits the CPU used by killmaps together with all other executions.
+ *
+ * <p>Each run computes a job for at most {@link #TIME_SLICE}. Unfinished jobs stay in
+ * the database and are resumed from their stored entries once the other pending jobs
+ * had their turn, so a large killmap does not hold up all others.
  *
  * TODO We should need to decouple the actual processor from the context
  * listener for better testing.
@@ -55,11 +81,33 @@ public class KillMapProcessor implements ServletContextListener {
     private static Logger logger = LoggerFactory.getLogger(KillMapProcessor.class);
 
     private ScheduledExecutorService executor;
+    private ExecutorService jobExecutor;
+
+    @Inject
+    private Configuration config;
 
     // Do we need those to be configurable ? Not until further notice !
     private static final int INITIAL_DELAY_VALUE = 20;
     private static final int EXECUTION_DELAY_VALUE = 10;
     private static final TimeUnit EXECUTION_DELAY_UNIT = TimeUnit.SECONDS;
+    /**
+     * The time a job is computed before the processor moves on to the next pending job.
+     */
+    private static final Duration TIME_SLICE = Duration.ofMinutes(10);
+    /**
+     * The time after which the claim of a job expires, e.g. because the instance which claimed it died.
+     */
+    private static final Duration CLAIM_TIMEOUT = TIME_SLICE.multipliedBy(3);
+    /**
+     * The interval in which the claim of a job is renewed while the job is computed.
+     */
+    private static final Duration CLAIM_RENEWAL_INTERVAL = TIME_SLICE.dividedBy(2);
+
+    /**
+     * Identifies this instance in the claims of the jobs it processes.
+     */
+    private static final String INSTANCE_ID = ManagementFactory.getRuntimeMXBean().getName()
+            + "/" + UUID.randomUUID().toString().substring(0, 8);
 
     // Ref name
     public static final String NAME = "KILLMAP_PROCESSOR";
@@ -69,64 +117,163 @@ public class KillMapProcessor implements ServletContextListener {
     // simply skip the job if the processor is disabled
     private static boolean isEnabled = true;
 
-    private KillMapJob currentJob = null;
+    private int maxJobs = 1;
+
+    /**
+     * The jobs which are currently processed by this instance, by their job ID.
+     */
+    private final Map<Integer, KillMapJob> currentJobs = new ConcurrentHashMap<>();
+
+    /**
+     * The job claimed last, so the next run continues with the job after it.
+     */
+    private volatile KillMapJob lastJob = null;
 
     private class Processor implements Runnable {
 
         @Override
         public void run() {
-            if (!isEnabled) {
+            if (!isEnabled || currentJobs.size() >= maxJobs) {
                 return;
             }
             // Retrieve all of them to have a partial count, but execute only
-            // the first
+            // as many as we have free slots
             List<KillMapJob> gamesToProcess = KillmapDAO.getPendingJobs();
             if (gamesToProcess.isEmpty()) {
                 logger.debug("No killmap computation to process");
-            } else {
-
-                KillMapJob theJob = gamesToProcess.get(0);
-                currentJob = theJob;
-
-                switch (theJob.getType()) {
-                    case CLASS:
-                        try {
-                            KillMap.forClass(theJob.getId());
-                        } catch (InterruptedException | ExecutionException e) {
-                            logger.warn("Killmap computation failed!", e);
-                        } catch (Throwable e) {
-                            logger.warn("Killmap computation failed!", e);
-                        } finally {
-                            // If the job fails and we leave it in the database,
-                            // we risk to create an infinite loop. So we remove it every time !
-                            KillmapDAO.removeJob(theJob);
-                        }
-                        break;
-                    case GAME:
-                        try {
-                            MultiplayerGame game = MultiplayerGameDAO.getMultiplayerGame(theJob.getId());
-
-                            assert game.getId() == theJob.getId();
-
-                            logger.info("Computing killmap for game " + game.getId());
-                            KillMap.forGame(game);
-                            logger.info("Killmap for game " + game.getId() + ". Remove job from DB");
-                            // At this point we can remove the job from the DB
-                        } catch (Throwable e) {
-                            logger.warn("Killmap computation failed!", e);
-                        } finally {
-                            // If the job fails and we leave it in the database,
-                            // we risk to create an infinite loop. So we remove it every time !
-                            KillmapDAO.removeJob(theJob);
-                        }
-                        break;
-                    default:
-                        // ignored
+                return;
+            }
+
+            for (KillMapJob theJob : inTurnOrder(gamesToProcess)) {
+                if (currentJobs.size() >= maxJobs) {
+                    break;
+                }
+                if (!KillmapDAO.claimJob(theJob, INSTANCE_ID, (int) CLAIM_TIMEOUT.getSeconds())) {
+                    // Processed by another instance.
+                    continue;
                 }
+                currentJobs.put(theJob.getJobId(), theJob);
+                lastJob = theJob;
+                jobExecutor.execute(() -> process(theJob));
+            }
+        }
+    }
 
-                currentJob = null;
+    /**
+     * Computes the killmap of a claimed job for one {@link #TIME_SLICE}, and then removes
+     * or releases the job.
+     */
+    private void process(KillMapJob theJob) {
+        Instant start = Instant.now();
+        Instant deadline = start.plus(TIME_SLICE);
+
+        AtomicBoolean claimLost = new AtomicBoolean(false);
+        ScheduledFuture<?> claimRenewal = scheduleClaimRenewal(theJob, Thread.currentThread(), claimLost);
+
+        boolean done = true;
+        boolean interrupted = false;
+        try {
+            switch (theJob.getType()) {
+                case CLASS:
+                    done = KillMap.forClass(theJob.getId(), deadline).isComplete();
+                    break;
+                case GAME:
+                    MultiplayerGame game = MultiplayerGameDAO.getMultiplayerGame(theJob.getId());
+
+                    assert game.getId() == theJob.getId();
+
+                    logger.info("Computing killmap for game " + game.getId());
+                    done = KillMap.forGame(game, deadline).isComplete();
+                    break;
+                default:
+                    // ignored
+            }
+        } catch (InterruptedException e) {
+            // Keep the job, it is resumed from the stored entries after the restart.
+            logger.info("Killmap computation interrupted, the job is resumed later");
+            done = false;
+            interrupted = true;
+        } catch (Throwable e) {
+            logger.warn("Killmap computation failed!", e);
+        } finally {
+            if (claimRenewal != null) {
+                claimRenewal.cancel(false);
             }
         }
+
+        long computationTime = Duration.between(start, Instant.now()).toMillis();
+        if (claimLost.get()) {
+            // The interrupt came from the claim renewal, the job belongs to another instance now.
+            interrupted = false;
+            Thread.interrupted();
+        } else if (done) {
+            // If the job fails and we leave it in the database,
+            // we risk to create an infinite loop. So we remove it every time !
+            logger.info(String.format("Killmap for %s %d done after %d seconds of computation, "
+                            + "%d seconds after it was queued. Remove job from DB",
+                    theJob.getType(), theJob.getId(),
+                    (theJob.getComputationTime() + computationTime) / 1000,
+                    Duration.between(theJob.getTimestamp().toInstant(), Instant.now()).getSeconds()));
+            if (!KillmapDAO.removeClaimedJob(theJob, INSTANCE_ID)) {
+                logger.warn("Killmap job for {} {} was claimed by another instance in the meantime, not removing it",
+                        theJob.getType(), theJob.getId());
+            }
+        } else {
+            logger.info("Killmap for {} {} not finished yet, continuing with the next job",
+                    theJob.getType(), theJob.getId());
+            if (!KillmapDAO.releaseJob(theJob, INSTANCE_ID, computationTime)) {
+                logger.warn("Killmap job for {} {} was claimed by another instance in the meantime",
+                        theJob.getType(), theJob.getId());
+            }
+        }
+
+        currentJobs.remove(theJob.getJobId());
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Periodically renews the claim of the given job while it is computed. If the claim cannot be renewed, the
+     * computing thread is interrupted and the renewal stops.
+     *
+     * @return the renewal, which has to be cancelled after the computation, or {@code null} if the processor is
+     *     shutting down.
+     */
+    private ScheduledFuture<?> scheduleClaimRenewal(KillMapJob theJob, Thread computingThread,
+            AtomicBoolean claimLost) {
+        try {
+            return executor.scheduleWithFixedDelay(() -> {
+                if (!KillmapDAO.renewClaim(theJob, INSTANCE_ID)) {
+                    logger.warn("Lost the claim of the killmap job for {} {}, stopping its computation",
+                            theJob.getType(), theJob.getId());
+                    claimLost.set(true);
+                    computingThread.interrupt();
+                    // Stops further renewals.
+                    throw new IllegalStateException("Claim of killmap job " + theJob.getJobId() + " lost");
+                }
+            }, CLAIM_RENEWAL_INTERVAL.getSeconds(), CLAIM_RENEWAL_INTERVAL.getSeconds(), TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Orders the pending jobs so the job after the last claimed one comes first, so unfinished jobs take turns.
+     */
+    private List<KillMapJob> inTurnOrder(List<KillMapJob> pendingJobs) {
+        int first = 0;
+        if (lastJob != null) {
+            for (int i = 0; i < pendingJobs.size(); i++) {
+                if (pendingJobs.get(i).getJobId() == lastJob.getJobId()) {
+                    first = (i + 1) % pendingJobs.size();
+                    break;
+                }
+            }
+        }
+        List<KillMapJob> jobs = new ArrayList<>(pendingJobs.subList(first, pendingJobs.size()));
+        jobs.addAll(pendingJobs.subList(0, first));
+        return jobs;
     }
 
     public KillMapProcessor() {
@@ -141,12 +288,12 @@ public class KillMapProcessor implements ServletContextListener {
     }
 
     /**
-     * Returns the job that is currently processed.
-     * Can be {@code null} even when killmap processing is enabled.
-     * @return The currently processed job.
+     * Returns the jobs that are currently processed by this instance.
+     * Can be empty even when killmap processing is enabled.
+     * @return The currently processed jobs.
      */
-    public KillMapJob getCurrentJob() {
-        return currentJob;
+    public List<KillMapJob> getCurrentJobs() {
+        return new ArrayList<>(currentJobs.values());
     }
 
     /**
@@ -160,9 +307,8 @@ public class KillMapProcessor implements ServletContextListener {
     @Override
     public void contextInitialized(ServletContextEvent sce) {
         /*
-         * Note: the size of the thread pool for the moment is fixed to 1. If
-         * this thread dies for whatever reason the killmap computation will die
-         * as well
+         * Note: the dispatcher thread pool is fixed to 1. If this thread dies
+         * for whatever reason the killmap computation will die as well
          */
 
         // Read the setting for this service from the DB
@@ -178,8 +324,10 @@ public class KillMapProcessor implements ServletContextListener {
             }
         }
 
+        maxJobs = Math.max(1, config.getNumberOfKillmapJobs());
+        jobExecutor = Executors.newFixedThreadPool(maxJobs);
         executor = Executors.newScheduledThreadPool(1);
-        logger.debug("KillMapProcessor Started ");
+        logger.debug("KillMapProcessor Started as {} with {} job slots", INSTANCE_ID, maxJobs);
         executor.scheduleWithFixedDelay(new Processor(), INITIAL_DELAY_VALUE, EXECUTION_DELAY_VALUE,
                 EXECUTION_DELAY_UNIT);
 
@@ -198,7 +346,9 @@ public class KillMapProcessor implements ServletContextListener {
             logger.info("KillMapProcessor Shutting down");
             // Cancel pending jobs
             executor.shutdownNow();
+            jobExecutor.shutdownNow();
             executor.awaitTermination(20, TimeUnit.SECONDS);
+            jobExecutor.awaitTermination(20, TimeUnit.SECONDS);
             logger.info("KillMapProcessor Shut down");
         } catch (InterruptedException e) {
             logger.warn("KillMapProcessor Shutdown interrupted", e);
@@ -209,14 +359,45 @@ public class KillMapProcessor implements ServletContextListener {
      * Represents a job for computing a killmap.
      */
     public static class KillMapJob {
+        private int jobId;
         private KillMap.KillMapType type;
         private Integer id;
+        private String claimedBy;
+        private Timestamp timestamp;
+        private Timestamp startedAt;
+        private long computationTime;
 
         public KillMapJob(KillMap.KillMapType type, Integer id) {
             this.type = type;
             this.id = id;
         }
 
+        /**
+         * Creates a job read from the database.
+         *
+         * @param jobId The ID of the job.
+         * @param type The type of the killmap.
+         * @param id The ID of the game or class.
+         * @param claimedBy The instance which currently processes the job, or {@code null}.
+         * @param timestamp When the job was queued.
+         * @param startedAt When the job was processed for the first time, or {@code null}.
+         * @param computationTime The time in milliseconds spent on unfinished parts of the job so far.
+         */
+        public KillMapJob(int jobId, KillMap.KillMapType type, Integer id, String claimedBy, Timestamp timestamp,
+                Timestamp startedAt, long computationTime) {
+            this.jobId = jobId;
+            this.type = type;
+            this.id = id;
+            this.claimedBy = claimedBy;
+            this.timestamp = timestamp;
+            this.startedAt = startedAt;
+            this.computationTime = computationTime;
+        }
+
+        public int getJobId() {
+            return jobId;
+        }
+
         public KillMap.KillMapType getType() {
             return type;
         }
@@ -224,5 +405,21 @@ public class KillMapProcessor implements ServletContextListener {
         public Integer getId() {
             return id;
         }
+
+        public String getClaimedBy() {
+            return claimedBy;
+        }
+
+        public Timestamp getTimestamp() {
+            return timestamp;
+        }
+
+        public Timestamp getStartedAt() {
+            return startedAt;
+        }
+
+        public long getComputationTime() {
+            return computationTime;
+        }
     }
 }
@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codedefenders.execution.KillMap.KillMapEntry;
+
+/**
+ * Packed matrix of the execution results of a {@link KillMap}.
+ *
+ * <p>Rows are tests and columns are mutants, both identified by their ID. Every cell takes three bits, which hold
+ * either one of the five {@link KillMapEntry.Status statuses} or "not computed yet", so a killmap of 5000 tests and
+ * 5000 mutants takes less than 10 MB. Rows and columns can be read through {@link View views}, which do not copy
+ * the matrix.
+ *
+ * <p>The matrix can be serialized with {@link #toBytes()}, which is used to store whole killmaps with
+ * {@link org.codedefenders.database.KillmapDAO#storeKillMatrix(KillMap.KillMapType, int, KillMatrix)}.
+ *
+ * <p>The matrix is not thread safe. Killmaps only modify it from the thread computing the killmap.
+ */
+public class KillMatrix {
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int BITS_PER_CELL = 3;
+    private static final int CELLS_PER_WORD = Long.SIZE / BITS_PER_CELL;
+    private static final long CELL_MASK = (1L << BITS_PER_CELL) - 1;
+
+    /**
+     * The statuses by code. Code {@code 0} means "not computed yet", code {@code i + 1} the status with ordinal
+     * {@code i}.
+     */
+    private static final KillMapEntry.Status[] STATUSES = KillMapEntry.Status.values();
+
+    static {
+        if (STATUSES.length > CELL_MASK) {
+            throw new IllegalStateException("Too many killmap statuses for " + BITS_PER_CELL + " bits per cell");
+        }
+    }
+
+    private final int[] testIds;
+    private final int[] mutantIds;
+    private final long[] cells;
+    private int numEntries;
+
+    /**
+     * Creates an empty matrix, in which no entry is computed yet.
+     *
+     * @param testIds The IDs of the tests, in the order of the rows.
+     * @param mutantIds The IDs of the mutants, in the order of the columns.
+     */
+    public KillMatrix(int[] testIds, int[] mutantIds) {
+        this(testIds.clone(), mutantIds.clone(), new long[numWords(testIds.length, mutantIds.length)]);
+    }
+
+    private KillMatrix(int[] testIds, int[] mutantIds, long[] cells) {
+        this.testIds = testIds;
+        this.mutantIds = mutantIds;
+        this.cells = cells;
+    }
+
+    private static int numWords(int numTests, int numMutants) {
+        long numCells = (long) numTests * numMutants;
+        long numWords = (numCells + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+        if (numWords > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Killmap of " + numTests + " tests and " + numMutants
+                    + " mutants is too large");
+        }
+        return (int) numWords;
+    }
+
+    public int getNumTests() {
+        return testIds.length;
+    }
+
+    public int getNumMutants() {
+        return mutantIds.length;
+    }
+
+    public int getTestId(int testIndex) {
+        return testIds[testIndex];
+    }
+
+    public int getMutantId(int mutantIndex) {
+        return mutantIds[mutantIndex];
+    }
+
+    /**
+     * Returns the number of computed entries.
+     */
+    public int getNumEntries() {
+        return numEntries;
+    }
+
+    /**
+     * Returns whether all entries of the matrix are computed.
+     */
+    public boolean isComplete() {
+        return numEntries == (long) testIds.length * mutantIds.length;
+    }
+
+    /**
+     * Returns the status of the given cell, or {@code null} if the entry is not computed yet.
+     *
+     * @param testIndex The row of the test.
+     * @param mutantIndex The column of the mutant.
+     * @return The status of the given cell, or {@code null} if the entry is not computed yet.
+     */
+    public KillMapEntry.Status get(int testIndex, int mutantIndex) {
+        int code = code(cellIndex(testIndex, mutantIndex));
+        return code == 0 ? null : STATUSES[code - 1];
+    }
+
+    /**
+     * Sets the status of the given cell.
+     */
+    void set(int testIndex, int mutantIndex, KillMapEntry.Status status) {
+        long cell = cellIndex(testIndex, mutantIndex);
+        int word = (int) (cell / CELLS_PER_WORD);
+        int shift = (int) (cell % CELLS_PER_WORD) * BITS_PER_CELL;
+
+        if (code(cell) == 0) {
+            numEntries++;
+        }
+        cells[word] = (cells[word] & ~(CELL_MASK << shift)) | ((long) (status.ordinal() + 1) << shift);
+    }
+
+    /**
+     * Copies the computed entries of the given matrix into this matrix. Tests and mutants are matched by their
+     * ID, tests and mutants which are not part of this matrix are ignored.
+     */
+    void putAll(KillMatrix other) {
+        Map<Integer, Integer> mutantIndices = new HashMap<>();
+        for (int m = 0; m < mutantIds.length; m++) {
+            mutantIndices.put(mutantIds[m], m);
+        }
+        int[] mutantIndexOfOther = new int[other.mutantIds.length];
+        for (int m = 0; m < other.mutantIds.length; m++) {
+            mutantIndexOfOther[m] = mutantIndices.getOrDefault(other.mutantIds[m], -1);
+        }
+
+        Map<Integer, Integer> testIndices = new HashMap<>();
+        for (int t = 0; t < testIds.length; t++) {
+            testIndices.put(testIds[t], t);
+        }
+        for (int t = 0; t < other.testIds.length; t++) {
+            Integer testIndex = testIndices.get(other.testIds[t]);
+            if (testIndex == null) {
+                continue;
+            }
+            for (int m = 0; m < other.mutantIds.length; m++) {
+                KillMapEntry.Status status = other.get(t, m);
+                if (status != null && mutantIndexOfOther[m] >= 0) {
+                    set(testIndex, mutantIndexOfOther[m], status);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a view of the statuses of the given test against all mutants.
+     */
+    public View row(int testIndex) {
+        checkIndex(testIndex, testIds.length);
+        return new View((long) testIndex * mutantIds.length, 1, mutantIds.length);
+    }
+
+    /**
+     * Returns a view of the statuses of all tests against the given mutant.
+     */
+    public View column(int mutantIndex) {
+        checkIndex(mutantIndex, mutantIds.length);
+        return new View(mutantIndex, mutantIds.length, testIds.length);
+    }
+
+    private long cellIndex(int testIndex, int mutantIndex) {
+        checkIndex(testIndex, testIds.length);
+        checkIndex(mutantIndex, mutantIds.length);
+        return (long) testIndex * mutantIds.length + mutantIndex;
+    }
+
+    private int code(long cell) {
+        int shift = (int) (cell % CELLS_PER_WORD) * BITS_PER_CELL;
+        return (int) ((cells[(int) (cell / CELLS_PER_WORD)] >>> shift) & CELL_MASK);
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Serializes the matrix, including the test and mutant IDs.
+     *
+     * @return The serialized matrix.
+     * @see #fromBytes(byte[])
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * (3 + testIds.length + mutantIds.length)
+                + Long.BYTES * cells.length);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(testIds.length);
+        buffer.putInt(mutantIds.length);
+        buffer.asIntBuffer().put(testIds).put(mutantIds);
+        buffer.position(buffer.position() + Integer.BYTES * (testIds.length + mutantIds.length));
+        buffer.asLongBuffer().put(cells);
+        return buffer.array();
+    }
+
+    /**
+     * Deserializes a matrix serialized with {@link #toBytes()}.
+     *
+     * @param bytes The serialized matrix.
+     * @return The deserialized matrix.
+     * @throws IllegalArgumentException If the bytes are not a valid serialized matrix.
+     */
+    public static KillMatrix fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown killmap matrix format version: " + version);
+            }
+            int[] testIds = new int[buffer.getInt()];
+            int[] mutantIds = new int[buffer.getInt()];
+            long[] cells = new long[numWords(testIds.length, mutantIds.length)];
+            if (buffer.remaining() != Integer.BYTES * (testIds.length + mutantIds.length)
+                    + Long.BYTES * cells.length) {
+                throw new IllegalArgumentException("Killmap matrix has an invalid size");
+            }
+            buffer.asIntBuffer().get(testIds).get(mutantIds);
+            buffer.position(buffer.position() + Integer.BYTES * (testIds.length + mutantIds.length));
+            buffer.asLongBuffer().get(cells);
+
+            KillMatrix matrix = new KillMatrix(testIds, mutantIds, cells);
+            for (long word : cells) {
+                for (int i = 0; i < CELLS_PER_WORD; i++, word >>>= BITS_PER_CELL) {
+                    if ((word & CELL_MASK) != 0) {
+                        matrix.numEntries++;
+                    }
+                }
+            }
+            return matrix;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Killmap matrix is truncated", e);
+        }
+    }
+
+    /**
+     * A read-only view of a row or column of the matrix. The view reflects later changes of the matrix.
+     */
+    public class View {
+        private final long offset;
+        private final int stride;
+        private final int size;
+
+        private View(long offset, int stride, int size) {
+            this.offset = offset;
+            this.stride = stride;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the status of the given element, or {@code null} if the entry is not computed yet.
+         */
+        public KillMapEntry.Status get(int index) {
+            checkIndex(index, size);
+            int code = code(offset + (long) index * stride);
+            return code == 0 ? null : STATUSES[code - 1];
+        }
+
+        /**
+         * Returns the number of elements with the given status.
+         */
+        public int count(KillMapEntry.Status status) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (get(i) == status) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -20,11 +20,12 @@ package org.codedefenders.execution;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.codedefenders.database.EventDAO;
 import org.codedefenders.database.MutantDAO;
 import org.codedefenders.database.TargetExecutionDAO;
@@ -124,36 +125,28 @@ public class MutationTester implements IMutationTester {
             throw new RuntimeException();
         }
 
+        Set<Mutant> coveredMutants = test.getCoveredMutants(mutants);
+        List<Mutant> mutantsToTest = new ArrayList<>();
         for (Mutant mutant : mutants) {
             // Skip mutants which changed lines does not match with covered lines by the test
             // Exception for mutants who modify static variables (which also requires a recompile)
-            if (!mutant.doesRequireRecompilation() && useMutantCoverage && !test.isMutantCovered(mutant)) {
+            if (useMutantCoverage && !coveredMutants.contains(mutant) && !mutant.doesRequireRecompilation()) {
                 // System.out.println("Skipping non-covered mutant "
                 // + mutant.getId() + ", test " + test.getId());
                 continue;
             }
-
-            if (testVsMutant(test, mutant)) {
-                killed++;
-                killedMutants.add(mutant);
-            }
+            mutantsToTest.add(mutant);
         }
 
+        killedMutants.addAll(testVsMutants(test, mutantsToTest));
+        killed = killedMutants.size();
+
         for (Mutant mutant : mutants) {
             if (mutant.isAlive()) {
                 ArrayList<Test> missedTests = new ArrayList<>();
 
-                for (int lm : mutant.getLines()) {
-                    boolean found = false;
-                    for (int lc : test.getLineCoverage().getLinesCovered()) {
-                        if (lc == lm) {
-                            found = true;
-                            missedTests.add(test);
-                        }
-                    }
-                    if (found) {
-                        break;
-                    }
+                if (test.isMutantCovered(mutant)) {
+                    missedTests.add(test);
                 }
                 // mutant.setScore(Scorer.score(game, mutant, missedTests));
                 // mutant.update();
@@ -212,15 +205,20 @@ public class MutationTester implements IMutationTester {
         int killed = 0;
         List<Mutant> killedMutants = new ArrayList<>();
 
+        Set<Mutant> coveredMutants = test.getCoveredMutants(mutants);
+        List<Mutant> mutantsToTest = new ArrayList<>();
         for (Mutant mutant : mutants) {
-            if (useMutantCoverage && !test.isMutantCovered(mutant)) {
+            if (useMutantCoverage && !coveredMutants.contains(mutant)) {
                 continue;
             }
+            mutantsToTest.add(mutant);
+        }
+        killedMutants.addAll(testVsMutants(test, mutantsToTest));
+        killed = killedMutants.size();
 
+        for (Mutant mutant : mutantsToTest) {
             // Notify each and every mutant killed and survived
-            if (testVsMutant(test, mutant)) {
-                killed++;
-                killedMutants.add(mutant);
+            if (killedMutants.contains(mutant)) {
                 Event scoreEvent = new Event(-1, game.getId(), Constants.DUMMY_CREATOR_USER_ID,
                         test.getId() + ":" + mutant.getId(),
                         EventType.PLAYER_KILLED_MUTANT, EventStatus.GAME, new Timestamp(System.currentTimeMillis()));
@@ -238,17 +236,8 @@ public class MutationTester implements IMutationTester {
             if (mutant.isAlive()) {
                 ArrayList<Test> missedTests = new ArrayList<>();
 
-                for (int lm : mutant.getLines()) {
-                    boolean found = false;
-                    for (int lc : test.getLineCoverage().getLinesCovered()) {
-                        if (lc == lm) {
-                            found = true;
-                            missedTests.add(test);
-                        }
-                    }
-                    if (found) {
-                        break;
-                    }
+                if (test.isMutantCovered(mutant)) {
+                    missedTests.add(test);
                 }
             }
         }
@@ -297,8 +286,9 @@ public class MutationTester implements IMutationTester {
             throw new RuntimeException();
         }
 
+        Set<Test> coveringTests = mutant.getCoveringTests(tests);
         for (Test test : tests) {
-            if (useMutantCoverage && !test.isMutantCovered(mutant)) {
+            if (useMutantCoverage && !coveringTests.contains(test)) {
                 logger.info("Skipping non-covered mutant " + mutant.getId() + ", test " + test.getId());
                 continue;
             }
@@ -330,7 +320,7 @@ public class MutationTester implements IMutationTester {
         ArrayList<Test> missedTests = new ArrayList<>();
         if (game instanceof MultiplayerGame) {
             for (Test t : tests) {
-                if (CollectionUtils.containsAny(t.getLineCoverage().getLinesCovered(), mutant.getLines())) {
+                if (t.isMutantCovered(mutant)) {
                     missedTests.add(t);
                 }
             }
@@ -362,13 +352,64 @@ public class MutationTester implements IMutationTester {
      * @return {@code true} if the test killed the mutant, {@code false} otherwise
      */
     public boolean testVsMutant(Test test, Mutant mutant) {
-        if (TargetExecutionDAO.getTargetExecutionForPair(test.getId(), mutant.getId()) != null) {
-            logger.error("Execution result found for Mutant {} and Test {}.", mutant.getId(), test.getId());
-            return false;
+        return !testVsMutants(test, Collections.singletonList(mutant)).isEmpty();
+    }
+
+    /**
+     * Runs a test against several mutants at once, see {@link BackendExecutorService#testMutants(Test, List)}.
+     * Mutants the test was already executed against are skipped.
+     *
+     * @param test    The test to run
+     * @param mutants The mutants we run the test against
+     * @return The mutants killed by the test
+     */
+    protected List<Mutant> testVsMutants(Test test, List<Mutant> mutants) {
+        List<Mutant> mutantsToTest = new ArrayList<>();
+        for (Mutant mutant : mutants) {
+            if (TargetExecutionDAO.getTargetExecutionForPair(test.getId(), mutant.getId()) != null) {
+                logger.error("Execution result found for Mutant {} and Test {}.", mutant.getId(), test.getId());
+                continue;
+            }
+            mutantsToTest.add(mutant);
+        }
+        if (mutantsToTest.isEmpty()) {
+            return Collections.emptyList();
         }
 
-        final TargetExecution executedTarget = backend.testMutant(mutant, test);
+        List<TargetExecution> executedTargets;
+        try {
+            executedTargets = backend.testMutants(test, mutantsToTest);
+        } catch (ExecutionInterruptedException e) {
+            // The executions which finished are stored, so their kills have to be applied as well.
+            handleTestVsMutantResults(test, mutantsToTest, e.getExecutions());
+            throw e;
+        }
+        return handleTestVsMutantResults(test, mutantsToTest, executedTargets);
+    }
 
+    /**
+     * Applies the results of {@link #testVsMutants(Test, List)}, skipping executions which did not finish.
+     *
+     * @return The mutants killed by the test
+     */
+    private List<Mutant> handleTestVsMutantResults(Test test, List<Mutant> mutants,
+            List<TargetExecution> executedTargets) {
+        List<Mutant> killedMutants = new ArrayList<>();
+        for (int i = 0; i < mutants.size(); i++) {
+            TargetExecution executedTarget = executedTargets.get(i);
+            if (executedTarget != null && handleTestVsMutantResult(test, mutants.get(i), executedTarget)) {
+                killedMutants.add(mutants.get(i));
+            }
+        }
+        return killedMutants;
+    }
+
+    /**
+     * Kills the mutant if the given execution of the test against it failed.
+     *
+     * @return {@code true} if the test killed the mutant, {@code false} otherwise
+     */
+    private boolean handleTestVsMutantResult(Test test, Mutant mutant, TargetExecution executedTarget) {
         Integer gameId = test.getGameId();
         String scoringMessage = String.join(":", new String[]{"" + test.getId(), "" + mutant.getId()});
         Timestamp timestamp = new Timestamp(System.currentTimeMillis());
@@ -457,8 +498,9 @@ public class MutationTester implements IMutationTester {
 
         /// Follows duplicate code
 
+        Set<Test> coveringTests = mutant.getCoveringTests(tests);
         for (Test test : tests) {
-            if (useMutantCoverage && !test.isMutantCovered(mutant)) {
+            if (useMutantCoverage && !coveringTests.contains(test)) {
                 logger.info("Skipping non-covered mutant " + mutant.getId() + ", test " + test.getId());
                 continue;
             }
@@ -497,7 +539,7 @@ public class MutationTester implements IMutationTester {
         // the first block and the second one are swapped. Why ?
         ArrayList<Test> missedTests = new ArrayList<>();
         for (Test t : tests) {
-            if (CollectionUtils.containsAny(t.getLineCoverage().getLinesCovered(), mutant.getLines())) {
+            if (t.isMutantCovered(mutant)) {
                 missedTests.add(t);
             }
         }
@@ -18,8 +18,6 @@
  */
 package org.codedefenders.execution;
 
-import java.util.concurrent.ExecutorService;
-
 import javax.enterprise.context.RequestScoped;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
@@ -32,14 +30,14 @@ public class MutationTesterProducer {
 
     private final Configuration config;
     private final BackendExecutorService backend;
-    private final ExecutorService testExecutorThreadPool;
+    private final ExecutionScheduler scheduler;
     private final EventDAO eventDAO;
 
     @Inject
-    public MutationTesterProducer(Configuration config, BackendExecutorService backend, @ThreadPool("test-executor") ExecutorService testExecutorThreadPool, EventDAO eventDAO) {
+    public MutationTesterProducer(Configuration config, BackendExecutorService backend, ExecutionScheduler scheduler, EventDAO eventDAO) {
         this.config = config;
         this.backend = backend;
-        this.testExecutorThreadPool = testExecutorThreadPool;
+        this.scheduler = scheduler;
         this.eventDAO = eventDAO;
     }
 
@@ -50,7 +48,7 @@ public class MutationTesterProducer {
     @RequestScoped
     public IMutationTester getMutationTester() {
         if (config.isParallelize()) {
-            return new ParallelMutationTester(backend, userRepo, eventDAO, config.isMutantCoverage(), testExecutorThreadPool);
+            return new ParallelMutationTester(backend, userRepo, eventDAO, config.isMutantCoverage(), scheduler);
         } else {
             return new MutationTester(backend, userRepo, eventDAO, config.isMutantCoverage());
         }
@@ -24,14 +24,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.FutureTask;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.codedefenders.database.EventDAO;
 import org.codedefenders.game.AbstractGame;
 import org.codedefenders.game.Mutant;
@@ -58,20 +56,29 @@ import static org.codedefenders.util.Constants.TEST_SUBMITTED_MESSAGE;
 
 /**
  * This is a parallel implementation of IMutationTester. Parallelism is achieved
- * by means of the injected executionService
+ * by means of the injected {@link ExecutionScheduler}, all executions run with
+ * {@link ExecutionPriority#INTERACTIVE interactive} priority.
  *
  * <p>We inject instances using {@link MutationTesterProducer}
  */
 public class ParallelMutationTester extends MutationTester //
         // This MIGHT be superfluous but I am not sure how CDI works with annotations
         implements IMutationTester {
-    private ExecutorService testExecutorThreadPool;
+    /**
+     * The number of mutants a test is executed against in a single task, see
+     * {@link BackendExecutorService#testMutants(Test, List)}. Only used if the backend
+     * {@link BackendExecutorService#isBatchExecution() runs them in a single execution}, otherwise every mutant gets
+     * its own task.
+     */
+    private static final int MUTANTS_PER_TASK = 25;
+
+    private ExecutionScheduler executionScheduler;
 
-    // TODO Move the Executor service before useMutantCoverage
+    // TODO Move the scheduler before useMutantCoverage
     public ParallelMutationTester(BackendExecutorService backend, UserRepository userRepo, EventDAO eventDAO,
-            boolean useMutantCoverage, ExecutorService testExecutorThreadPool) {
+            boolean useMutantCoverage, ExecutionScheduler scheduler) {
         super(backend, userRepo, eventDAO, useMutantCoverage);
-        this.testExecutorThreadPool = testExecutorThreadPool;
+        this.executionScheduler = scheduler;
     }
 
     private static final Logger logger = LoggerFactory.getLogger(ParallelMutationTester.class);
@@ -90,73 +97,47 @@ public class ParallelMutationTester extends MutationTester //
             throw new RuntimeException();
         }
 
-        // Fork and Join parallelization
-        Map<Mutant, FutureTask<Boolean>> tasks = new HashMap<Mutant, FutureTask<Boolean>>();
+        Set<Mutant> coveredMutants = test.getCoveredMutants(mutants);
+        List<Mutant> mutantsToTest = new ArrayList<>();
         for (final Mutant mutant : mutants) {
-            if (useMutantCoverage && !test.isMutantCovered(mutant)) {
+            if (useMutantCoverage && !coveredMutants.contains(mutant)) {
                 // System.out.println("Skipping non-covered mutant "
                 // + mutant.getId() + ", test " + test.getId());
                 continue;
             }
+            mutantsToTest.add(mutant);
+        }
 
-            FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
-
-                @Override
-                public Boolean call() throws Exception {
-                    // This automatically update the 'mutants' and 'tests'
-                    // tables, as well as the test and mutant objects.
-                    return testVsMutant(test, mutant);
-                }
-            });
+        // Fork and Join parallelization. Each task runs the test against a batch of mutants in one execution.
+        int mutantsPerTask = backend.isBatchExecution() ? MUTANTS_PER_TASK : 1;
+        List<Future<List<Mutant>>> tasks = new ArrayList<>();
+        for (int from = 0; from < mutantsToTest.size(); from += mutantsPerTask) {
+            final List<Mutant> batch = mutantsToTest.subList(from,
+                    Math.min(from + mutantsPerTask, mutantsToTest.size()));
 
+            // This automatically update the 'mutants' and 'tests'
+            // tables, as well as the test and mutant objects.
             // This is for checking later
-            tasks.put(mutant, task);
-
-            testExecutorThreadPool.execute(task);
+            tasks.add(executionScheduler.submit(ExecutionPriority.INTERACTIVE, () -> testVsMutants(test, batch)));
         }
 
         // TODO Mayse use some timeout ?!
-        for (final Mutant mutant : mutants) {
-            if (useMutantCoverage && !test.isMutantCovered(mutant)) {
-                continue;
-            }
-
-            // checks if task done
-            // System.out.println(
-            // "Is mutant done? " + tasks.get(mutant).isDone());
-            // checks if task canceled
-            // System.out.println("Is mutant cancelled? "
-            // + tasks.get(mutant).isCancelled());
-            // fetches result and waits if not ready
-
+        for (Future<List<Mutant>> task : tasks) {
             // THIS IS BLOCKING !!!
             try {
-                if (tasks.get(mutant).get()) {
-                    killed++;
-                    killedMutants.add(mutant);
-                }
+                killedMutants.addAll(task.get());
             } catch (InterruptedException | ExecutionException | CancellationException e) {
-                logger.error("While waiting results for mutant " + mutant, e);
+                logger.error("While waiting results for test " + test.getId(), e);
             }
         }
-
-        tasks.clear();
+        killed = killedMutants.size();
 
         for (Mutant mutant : mutants) {
             if (mutant.isAlive()) {
                 ArrayList<Test> missedTests = new ArrayList<Test>();
 
-                for (int lm : mutant.getLines()) {
-                    boolean found = false;
-                    for (int lc : test.getLineCoverage().getLinesCovered()) {
-                        if (lc == lm) {
-                            found = true;
-                            missedTests.add(test);
-                        }
-                    }
-                    if (found) {
-                        break;
-                    }
+                if (test.isMutantCovered(mutant)) {
+                    missedTests.add(test);
                 }
                 // mutant.setScore(Scorer.score(game, mutant, missedTests));
                 // mutant.update();
@@ -211,14 +192,15 @@ public class ParallelMutationTester extends MutationTester //
             throw new RuntimeException();
         }
 
-        final Map<Test, FutureTask<Boolean>> tasks = new HashMap<Test, FutureTask<Boolean>>();
+        final Map<Test, Callable<Boolean>> callables = new HashMap<Test, Callable<Boolean>>();
+        Set<Test> coveringTests = mutant.getCoveringTests(tests);
         for (Test test : tests) {
-            if (useMutantCoverage && !test.isMutantCovered(mutant)) {
+            if (useMutantCoverage && !coveringTests.contains(test)) {
                 logger.info("Skipping non-covered mutant " + mutant.getId() + ", test " + test.getId());
                 continue;
             }
 
-            FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
+            Callable<Boolean> callable = new Callable<Boolean>() {
 
                 @Override
                 public Boolean call() throws Exception {
@@ -226,17 +208,18 @@ public class ParallelMutationTester extends MutationTester //
                     // TODO Is this testVsMutant thread safe?
                     return testVsMutant(test, mutant);
                 }
-            });
+            };
 
             // Book keeping
-            tasks.put(test, task);
+            callables.put(test, callable);
         }
 
         // Submit all the tests in the given order
+        final Map<Test, Future<Boolean>> tasks = new HashMap<Test, Future<Boolean>>();
         for (Test test : tests) {
-            if (tasks.containsKey(test)) {
+            if (callables.containsKey(test)) {
                 logger.debug("MutationTester.runAllTestsOnMutant() : Scheduling Task " + test);
-                testExecutorThreadPool.execute(tasks.get(test));
+                tasks.put(test, executionScheduler.submit(ExecutionPriority.INTERACTIVE, callables.get(test)));
             }
         }
 
@@ -299,7 +282,7 @@ public class ParallelMutationTester extends MutationTester //
         ArrayList<Test> missedTests = new ArrayList<Test>();
         if (game instanceof MultiplayerGame) {
             for (Test t : tests) {
-                if (CollectionUtils.containsAny(t.getLineCoverage().getLinesCovered(), mutant.getLines())) {
+                if (t.isMutantCovered(mutant)) {
                     missedTests.add(t);
                 }
             }
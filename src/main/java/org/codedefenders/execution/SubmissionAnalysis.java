@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.codedefenders.database.DatabaseAccess;
+import org.codedefenders.database.EventDAO;
+import org.codedefenders.database.GameDAO;
+import org.codedefenders.database.MutantDAO;
+import org.codedefenders.database.TargetExecutionDAO;
+import org.codedefenders.database.TestDAO;
+import org.codedefenders.execution.SubmissionPipeline.Submission;
+import org.codedefenders.game.AbstractGame;
+import org.codedefenders.game.GameState;
+import org.codedefenders.game.Mutant;
+import org.codedefenders.game.Test;
+import org.codedefenders.game.multiplayer.MeleeGame;
+import org.codedefenders.game.multiplayer.MultiplayerGame;
+import org.codedefenders.model.Event;
+import org.codedefenders.model.EventStatus;
+import org.codedefenders.model.EventType;
+import org.codedefenders.notification.INotificationService;
+import org.codedefenders.notification.events.server.mutant.MutantTestedEvent;
+import org.codedefenders.notification.events.server.test.TestTestedMutantsEvent;
+import org.codedefenders.persistence.database.UserRepository;
+import org.codedefenders.util.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.codedefenders.execution.TargetExecution.Target.TEST_MUTANT;
+
+/**
+ * The mutation analysis of a submitted test or mutant, as run by the {@link SubmissionPipeline}.
+ *
+ * <p>The game, test and mutant are loaded again when the analysis runs, since the game may have changed (or ended)
+ * since the submission. The game itself is never written back. Submissions are only accepted while a game is active,
+ * so a submission is analysed even if its game has finished in the meantime; otherwise the submitted tests and
+ * mutants of the last moments of a game would never be scored.
+ */
+@Singleton
+public class SubmissionAnalysis {
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionAnalysis.class);
+
+    private final EventDAO eventDAO;
+    private final UserRepository userRepo;
+    private final INotificationService notificationService;
+
+    @Inject
+    public SubmissionAnalysis(EventDAO eventDAO, UserRepository userRepo, INotificationService notificationService) {
+        this.eventDAO = eventDAO;
+        this.userRepo = userRepo;
+        this.notificationService = notificationService;
+    }
+
+    /**
+     * Runs the submitted test against the mutants of its game, or all tests of the game against the submitted
+     * mutant. If the game has finished in the meantime, the submission is still analysed, but no automatic
+     * equivalence duels are started anymore.
+     *
+     * @param submission The submission.
+     * @param mutationTester A mutation tester which does not depend on a request.
+     * @param messages The messages shown to the player who submitted.
+     */
+    void analyze(Submission submission, IMutationTester mutationTester, ArrayList<String> messages) {
+        AbstractGame game = GameDAO.getGame(submission.getGameId());
+        if (game == null) {
+            logger.warn("Skipping analysis of {}, game {} was not found", submission, submission.getGameId());
+            return;
+        }
+        if (!(game instanceof MultiplayerGame) && !(game instanceof MeleeGame)) {
+            logger.warn("Skipping analysis of {}, game {} is a {} game", submission, game.getId(), game.getMode());
+            return;
+        }
+
+        if (submission.getType() == Submission.Type.TEST) {
+            Test test = TestDAO.getTestById(submission.getSubmissionId());
+            if (test == null) {
+                logger.info("Skipping analysis of {}, the test was removed", submission);
+                return;
+            }
+            if (game instanceof MultiplayerGame) {
+                mutationTester.runTestOnAllMultiplayerMutants((MultiplayerGame) game, test, messages);
+            } else {
+                mutationTester.runTestOnAllMeleeMutants((MeleeGame) game, test, messages);
+            }
+            logger.info("Successfully created test {} ", test.getId());
+
+            TestTestedMutantsEvent ttme = new TestTestedMutantsEvent();
+            ttme.setGameId(game.getId());
+            ttme.setUserId(submission.getUserId());
+            notificationService.post(ttme);
+        } else {
+            Mutant mutant = MutantDAO.getMutantById(submission.getSubmissionId());
+            if (mutant == null) {
+                logger.info("Skipping analysis of {}, the mutant was removed", submission);
+                return;
+            }
+            if (game instanceof MultiplayerGame) {
+                mutationTester.runAllTestsOnMutant(game, mutant, messages);
+            } else {
+                mutationTester.runAllTestsOnMeleeMutant((MeleeGame) game, mutant, messages);
+            }
+
+            MutantTestedEvent mte = new MutantTestedEvent();
+            mte.setGameId(game.getId());
+            mte.setUserId(submission.getUserId());
+            mte.setMutantId(mutant.getId());
+            notificationService.post(mte);
+        }
+
+        // After a test or mutant is submitted, there's the chance that one or more mutants already survived enough
+        // tests
+        if (game.getState() == GameState.FINISHED) {
+            logger.info("Analysed {} after game {} has finished", submission, game.getId());
+        } else if (game instanceof MultiplayerGame) {
+            triggerAutomaticMutantEquivalenceForGame((MultiplayerGame) game);
+        } else {
+            triggerAutomaticMutantEquivalenceForGame((MeleeGame) game);
+        }
+    }
+
+    /**
+     * Returns whether the analysis of the submission has started, i.e. whether the submitted test or mutant has been
+     * executed against any mutant or test. The results of a started analysis are (partly) applied already, so it
+     * must not be run again.
+     */
+    boolean isStarted(Submission submission) {
+        if (submission.getType() == Submission.Type.TEST) {
+            Test test = TestDAO.getTestById(submission.getSubmissionId());
+            return test == null || TargetExecutionDAO.getTargetExecutionForTest(test, TEST_MUTANT) != null;
+        } else {
+            Mutant mutant = MutantDAO.getMutantById(submission.getSubmissionId());
+            return mutant == null || TargetExecutionDAO.getTargetExecutionForMutant(mutant, TEST_MUTANT) != null;
+        }
+    }
+
+    /**
+     * Flags the alive mutants of a battleground game which are covered by enough tests submitted after them as
+     * possibly equivalent.
+     */
+    private void triggerAutomaticMutantEquivalenceForGame(MultiplayerGame game) {
+        int threshold = game.getAutomaticMutantEquivalenceThreshold();
+        if (threshold < 1) {
+            // No need to check as this feature is disabled
+            return;
+        }
+        // Get all the live mutants in the game
+        for (Mutant aliveMutant : game.getAliveMutants()) {
+            /*
+             * If the mutant is covered by enough tests trigger the automatic
+             * equivalence duel. Consider ONLY the coveringTests submitted after the mutant was created
+             */
+            Set<Integer> allCoveringTests = aliveMutant.getCoveringTests().stream()
+                        .map(Test::getId)
+                        .collect(Collectors.toSet());
+
+            boolean considerOnlydefenders = false;
+            Set<Integer> testSubmittedAfterMutant =
+                    TestDAO.getValidTestsForGameSubmittedAfterMutant(game.getId(), considerOnlydefenders, aliveMutant)
+                        .stream()
+                        .map(Test::getId)
+                        .collect(Collectors.toSet());
+
+            allCoveringTests.retainAll(testSubmittedAfterMutant);
+
+            int numberOfCoveringTestsSubmittedAfterMutant = allCoveringTests.size();
+
+            if (numberOfCoveringTestsSubmittedAfterMutant  >= threshold) {
+                // Flag the mutant as possibly equivalent
+                aliveMutant.setEquivalent(Mutant.Equivalence.PENDING_TEST);
+                aliveMutant.update();
+                // Send the notification about the flagged mutant to attacker
+                Optional<Integer> mutantOwnerId = userRepo.getUserIdForPlayerId(aliveMutant.getPlayerId());
+                Event event = new Event(-1, game.getId(), mutantOwnerId.orElse(0),
+                        "One of your mutants survived "
+                                + (threshold == aliveMutant.getCoveringTests().size() ? "" : "more than ") + threshold
+                                + "tests so it was automatically claimed as equivalent.",
+                        // TODO it might make sense to specify a new event type?
+                        EventType.DEFENDER_MUTANT_EQUIVALENT, EventStatus.NEW,
+                        new Timestamp(System.currentTimeMillis()));
+                eventDAO.insert(event);
+                /*
+                 * Register the event to DB
+                 */
+                DatabaseAccess.insertEquivalence(aliveMutant, Constants.DUMMY_CREATOR_USER_ID);
+                /*
+                 * Send the notification about the flagged mutant to the game channel
+                 */
+                String flaggingChatMessage = "Code Defenders automatically flagged mutant " + aliveMutant.getId()
+                        + " as equivalent.";
+                Event gameEvent = new Event(-1, game.getId(), -1, flaggingChatMessage,
+                        EventType.DEFENDER_MUTANT_CLAIMED_EQUIVALENT, EventStatus.GAME,
+                        new Timestamp(System.currentTimeMillis()));
+                eventDAO.insert(gameEvent);
+            }
+        }
+    }
+
+    /**
+     * Flags the alive mutants of a melee game which are covered by enough tests as possibly equivalent.
+     */
+    private void triggerAutomaticMutantEquivalenceForGame(MeleeGame game) {
+        int threshold = game.getAutomaticMutantEquivalenceThreshold();
+        if (threshold < 1) {
+            // No need to check as this feature is disabled
+            return;
+        }
+        // Get all the live mutants in the game
+        for (Mutant aliveMutant : game.getAliveMutants()) {
+            /*
+             * If the mutant is covered by enough tests trigger the automatic equivalence
+             * duel
+             */
+            int coveringTests = aliveMutant.getCoveringTests().size();
+            if (coveringTests >= threshold) {
+                // Flag the mutant as possibly equivalent
+                aliveMutant.setEquivalent(Mutant.Equivalence.PENDING_TEST);
+                aliveMutant.update();
+                // Send the notification about the flagged mutant to attacker
+                int mutantOwnerId = userRepo.getUserIdForPlayerId(aliveMutant.getPlayerId()).orElse(0);
+                Event event = new Event(-1, game.getId(), mutantOwnerId,
+                        "One of your mutants survived "
+                                + (threshold == aliveMutant.getCoveringTests().size() ? "" : "more than ") + threshold
+                                + "tests so it was automatically claimed as equivalent.",
+                        EventType.PLAYER_MUTANT_EQUIVALENT, EventStatus.NEW,
+                        new Timestamp(System.currentTimeMillis()));
+                eventDAO.insert(event);
+                /*
+                 * Register the event to DB
+                 */
+                DatabaseAccess.insertEquivalence(aliveMutant, Constants.DUMMY_CREATOR_USER_ID);
+                /*
+                 * Send the notification about the flagged mutant to the game channel
+                 */
+                String flaggingChatMessage = "Code Defenders automatically flagged mutant " + aliveMutant.getId()
+                        + " as equivalent.";
+                Event gameEvent = new Event(-1, game.getId(), -1, flaggingChatMessage,
+                        EventType.PLAYER_MUTANT_CLAIMED_EQUIVALENT, EventStatus.GAME,
+                        new Timestamp(System.currentTimeMillis()));
+                eventDAO.insert(gameEvent);
+            }
+        }
+    }
+}
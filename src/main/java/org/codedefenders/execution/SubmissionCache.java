@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.codedefenders.game.Mutant;
+import org.codedefenders.game.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import static org.codedefenders.util.Constants.JAVA_CLASS_EXT;
+
+/**
+ * Remembers compilations and test executions by the content of the compiled or executed sources, so identical
+ * mutants and tests, e.g. the same test submitted in several games of a class, are compiled and executed only once.
+ *
+ * <p>Sources are identified by the SHA-256 hash of the exact file content. The whitespace insensitive MD5 hash of
+ * {@link org.codedefenders.validation.code.CodeValidator#getMD5FromText(String)} is not used, since it treats sources
+ * with different string literals as equal.
+ *
+ * <ul>
+ *     <li>Compilations are cached per class under test and source. A successful compilation is reused by copying its
+ *     class files.</li>
+ *     <li>Test executions are cached per class under test, test source and mutant source. Only passing and failing
+ *     executions are cached, since errors may be caused by timeouts of a busy system.</li>
+ * </ul>
+ *
+ * <p>The caches are bounded and only kept in memory.
+ */
+@Singleton
+public class SubmissionCache {
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionCache.class);
+
+    private static final int MAX_COMPILATIONS = 10000;
+    private static final int MAX_EXECUTIONS = 200000;
+
+    private final Cache<String, String> sourceHashes = CacheBuilder.newBuilder()
+            .maximumSize(MAX_COMPILATIONS)
+            .build();
+
+    private final Cache<List<Object>, Compilation> compilations = CacheBuilder.newBuilder()
+            .maximumSize(MAX_COMPILATIONS)
+            .build();
+
+    private final Cache<List<Object>, Execution> executions = CacheBuilder.newBuilder()
+            .maximumSize(MAX_EXECUTIONS)
+            .build();
+
+    /**
+     * Returns the hash of a source file, or {@code null} if the file cannot be read.
+     * Submitted files are never changed, so the hashes are cached by path.
+     *
+     * @param javaFile The path of the source file.
+     */
+    public String hashSource(String javaFile) {
+        String hash = sourceHashes.getIfPresent(javaFile);
+        if (hash == null) {
+            try {
+                hash = DigestUtils.sha256Hex(Files.readAllBytes(Paths.get(javaFile)));
+            } catch (IOException e) {
+                logger.warn("Could not hash source file {}", javaFile, e);
+                return null;
+            }
+            sourceHashes.put(javaFile, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Returns an earlier compilation of the same source for the class under test, or {@code null}.
+     *
+     * @param target The Ant target the source is compiled with.
+     * @param classId The id of the class under test.
+     * @param sourceHash The hash of the source, see {@link #hashSource(String)}.
+     */
+    public Compilation getCompilation(String target, int classId, String sourceHash) {
+        return compilations.getIfPresent(compilationKey(target, classId, sourceHash));
+    }
+
+    public void putCompilation(String target, int classId, String sourceHash, Compilation compilation) {
+        compilations.put(compilationKey(target, classId, sourceHash), compilation);
+    }
+
+    /**
+     * Returns the outcome of an earlier execution of the same test source on the same mutant source, or {@code null}.
+     */
+    public Execution getExecution(Mutant mutant, Test test) {
+        List<Object> key = executionKey(mutant, test);
+        return key == null ? null : executions.getIfPresent(key);
+    }
+
+    /**
+     * Remembers the outcome of an execution, if it is not an error.
+     */
+    public void putExecution(Mutant mutant, Test test, TargetExecution execution) {
+        if (execution.status != TargetExecution.Status.SUCCESS && execution.status != TargetExecution.Status.FAIL) {
+            return;
+        }
+        List<Object> key = executionKey(mutant, test);
+        if (key != null) {
+            executions.put(key, new Execution(execution.status, execution.message));
+        }
+    }
+
+    private static List<Object> compilationKey(String target, int classId, String sourceHash) {
+        return Arrays.asList(target, classId, sourceHash);
+    }
+
+    private List<Object> executionKey(Mutant mutant, Test test) {
+        String mutantHash = hashSource(mutant.getJavaFile());
+        String testHash = hashSource(test.getJavaFile());
+        if (mutantHash == null || testHash == null) {
+            return null;
+        }
+        return Arrays.asList(mutant.getClassId(), testHash, mutantHash);
+    }
+
+    /**
+     * Copies the class files below one directory to the same relative paths below another one.
+     *
+     * @return {@code true} if at least one class file was copied.
+     */
+    public static boolean copyClassFiles(File from, File to) {
+        Path source = from.toPath();
+        Path target = to.toPath();
+        try (Stream<Path> files = Files.walk(source)) {
+            List<Path> classFiles = files
+                    .filter(path -> path.toString().endsWith(JAVA_CLASS_EXT))
+                    .collect(Collectors.toList());
+            for (Path classFile : classFiles) {
+                Path copy = target.resolve(source.relativize(classFile));
+                Files.createDirectories(copy.getParent());
+                Files.copy(classFile, copy);
+            }
+            return !classFiles.isEmpty();
+        } catch (IOException e) {
+            logger.warn("Could not copy class files from {} to {}", from, to, e);
+            return false;
+        }
+    }
+
+    /**
+     * The outcome of compiling a source in a directory.
+     */
+    public static class Compilation {
+        private final File directory;
+        private final boolean compiled;
+        private final String message;
+
+        public Compilation(File directory, boolean compiled, String message) {
+            this.directory = directory;
+            this.compiled = compiled;
+            this.message = message;
+        }
+
+        public File getDirectory() {
+            return directory;
+        }
+
+        public boolean isCompiled() {
+            return compiled;
+        }
+
+        /**
+         * Returns the compiler output of a failed compilation.
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Returns this compilation as if it had been done in another directory.
+         */
+        public Compilation relocate(File newDirectory) {
+            String relocatedMessage = message == null ? null
+                    : message.replace(directory.getAbsolutePath(), newDirectory.getAbsolutePath());
+            return new Compilation(newDirectory, compiled, relocatedMessage);
+        }
+    }
+
+    /**
+     * The outcome of running a test on a mutant.
+     */
+    public static class Execution {
+        private final TargetExecution.Status status;
+        private final String message;
+
+        Execution(TargetExecution.Status status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+
+        public TargetExecution.Status getStatus() {
+            return status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
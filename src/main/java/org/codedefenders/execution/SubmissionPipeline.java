@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.codedefenders.database.SubmissionJobDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Runs the mutation analysis of submitted tests and mutants in the background, so the request which submitted them
+ * does not wait for it.
+ *
+ * <p>The request validates and compiles the submission and runs it against the original class under test, since the
+ * player needs these results to fix their submission. Running the test against the mutants of the game (or all tests
+ * against the mutant) is then queued as a job, and the request returns. The job reports its result with the
+ * lifecycle events the progress bars listen to and with messages shown on the next page the player loads. The analysis
+ * itself is done by {@link SubmissionAnalysis}.
+ *
+ * <p>Queued jobs are also stored in the database (see {@link SubmissionJobDAO}) until they ran, and
+ * {@link #resumePendingJobs()} queues them again after a restart. Jobs which were interrupted after their first
+ * execution are not resumed, since their results are partly applied already.
+ *
+ * <p>Jobs must not use request or session scoped beans, since neither context is active on the pipeline threads.
+ * The single executions of a job still go through the {@link ExecutionScheduler}.
+ *
+ * <p>The underlying pool is registered as {@value #POOL_NAME} with the {@link ThreadPoolManager} in
+ * {@link org.codedefenders.SystemStartStop}.
+ */
+@Singleton
+public class SubmissionPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionPipeline.class);
+
+    public static final String POOL_NAME = "submission-pipeline";
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        FINISHED,
+        FAILED
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final MutationTesterProducer mutationTesterProducer;
+    private final SubmissionAnalysis analysis;
+
+    private final AtomicInteger nextJobId = new AtomicInteger(1);
+
+    /**
+     * The status of recent jobs by id. Finished jobs are forgotten after an hour.
+     */
+    private final Cache<Integer, JobStatus> jobs = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+
+    @Inject
+    public SubmissionPipeline(@ThreadPool(POOL_NAME) ThreadPoolExecutor executor,
+            MutationTesterProducer mutationTesterProducer, SubmissionAnalysis analysis) {
+        this.executor = executor;
+        this.mutationTesterProducer = mutationTesterProducer;
+        this.analysis = analysis;
+    }
+
+    /**
+     * Queues the analysis of a submitted test and returns immediately.
+     *
+     * @param gameId The game the test was submitted to.
+     * @param testId The submitted test.
+     * @param userId The user who submitted the test.
+     * @param messages The messages shown to the user, e.g. the message bridge of the request.
+     * @return The id of the job.
+     */
+    public int submitTest(int gameId, int testId, int userId, ArrayList<String> messages) {
+        return submit(new Submission(-1, Submission.Type.TEST, gameId, testId, userId), messages);
+    }
+
+    /**
+     * Queues the analysis of a submitted mutant and returns immediately.
+     *
+     * @param gameId The game the mutant was submitted to.
+     * @param mutantId The submitted mutant.
+     * @param userId The user who submitted the mutant.
+     * @param messages The messages shown to the user, e.g. the message bridge of the request.
+     * @return The id of the job.
+     */
+    public int submitMutant(int gameId, int mutantId, int userId, ArrayList<String> messages) {
+        return submit(new Submission(-1, Submission.Type.MUTANT, gameId, mutantId, userId), messages);
+    }
+
+    private int submit(Submission submission, ArrayList<String> messages) {
+        int storedId = SubmissionJobDAO.insertJob(submission);
+        if (storedId == -1) {
+            logger.warn("Could not store job for {}, it is lost if the server stops before it ran", submission);
+        }
+        return queue(new Submission(storedId, submission.getType(), submission.getGameId(),
+                submission.getSubmissionId(), submission.getUserId()), messages);
+    }
+
+    /**
+     * Queues the stored jobs which did not run before the last shutdown. Jobs whose analysis has started already are
+     * removed instead.
+     */
+    public void resumePendingJobs() {
+        for (Submission submission : SubmissionJobDAO.getPendingJobs()) {
+            if (analysis.isStarted(submission)) {
+                logger.info("Not resuming the started analysis of {}", submission);
+                SubmissionJobDAO.removeJob(submission.getId());
+            } else {
+                logger.info("Resuming the analysis of {}", submission);
+                queue(submission, new ArrayList<>());
+            }
+        }
+    }
+
+    private int queue(Submission submission, ArrayList<String> messages) {
+        int jobId = nextJobId.getAndIncrement();
+        jobs.put(jobId, JobStatus.QUEUED);
+        executor.execute(() -> run(jobId, submission, messages));
+        logger.info("Queued job {} for {}, {} jobs waiting", jobId, submission, executor.getQueue().size());
+        return jobId;
+    }
+
+    private void run(int jobId, Submission submission, ArrayList<String> messages) {
+        jobs.put(jobId, JobStatus.RUNNING);
+        long start = System.currentTimeMillis();
+        try {
+            analysis.analyze(submission, mutationTesterProducer.getMutationTester(), messages);
+            jobs.put(jobId, JobStatus.FINISHED);
+            logger.info("Finished job {} for {} in {} ms", jobId, submission, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            jobs.put(jobId, JobStatus.FAILED);
+            logger.error("Job " + jobId + " for " + submission + " failed", e);
+        } finally {
+            // An interrupted job (e.g. on shutdown) is kept, resumePendingJobs() decides whether it can run again.
+            if (submission.getId() != -1 && !Thread.currentThread().isInterrupted()) {
+                SubmissionJobDAO.removeJob(submission.getId());
+            }
+        }
+    }
+
+    /**
+     * Returns the status of a job, or an empty optional if the job is unknown or finished long ago.
+     */
+    public Optional<JobStatus> getJobStatus(int jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    /**
+     * Returns the number of jobs which wait for a free thread.
+     */
+    public int getQueuedJobs() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of jobs which are currently running.
+     */
+    public int getRunningJobs() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * A submitted test or mutant whose mutation analysis is pending.
+     */
+    public static class Submission {
+        public enum Type {
+            TEST,
+            MUTANT
+        }
+
+        private final int id;
+        private final Type type;
+        private final int gameId;
+        private final int submissionId;
+        private final int userId;
+
+        /**
+         * @param id The id of the stored job, or {@code -1} if the job is not stored.
+         * @param type Whether a test or a mutant was submitted.
+         * @param gameId The game the test or mutant was submitted to.
+         * @param submissionId The id of the test or mutant.
+         * @param userId The user who submitted the test or mutant.
+         */
+        public Submission(int id, Type type, int gameId, int submissionId, int userId) {
+            this.id = id;
+            this.type = type;
+            this.gameId = gameId;
+            this.submissionId = submissionId;
+            this.userId = userId;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public int getGameId() {
+            return gameId;
+        }
+
+        public int getSubmissionId() {
+            return submissionId;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String toString() {
+            return type.name().toLowerCase() + " " + submissionId;
+        }
+    }
+}
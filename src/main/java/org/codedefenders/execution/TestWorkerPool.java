@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codedefenders.execution.worker.TestWorker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed size pool of pre-started {@link TestWorker} JVMs.
+ *
+ * <p>At most {@code size} jobs run at the same time, further callers wait for a free worker.
+ * Workers are recycled after {@code maxJobs} test runs, after a timeout, after a crash and after a run which left
+ * state behind in the worker. Recycled workers are replaced in the background, so callers usually find a warm
+ * worker.
+ *
+ * <p>Workers are only ever started by the single background starter thread, which keeps at most {@code size}
+ * worker JVMs running (or starting) at the same time. Callers which find no idle worker wait for the starter.
+ */
+class TestWorkerPool implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(TestWorkerPool.class);
+
+    /**
+     * Maximum time in seconds a new worker may take until it accepts jobs.
+     */
+    private static final int STARTUP_TIMEOUT = 60;
+
+    private final int size;
+    private final int maxJobs;
+    private final List<String> command;
+    private final File directory;
+
+    private final Semaphore permits;
+    private final BlockingDeque<TestWorkerProcess> idleWorkers = new LinkedBlockingDeque<>();
+    private final ExecutorService starter;
+    /**
+     * The number of workers which are running or being started. Only modified by the starter thread, and when a
+     * worker is retired.
+     */
+    private final AtomicInteger workers = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new pool and starts its workers in the background.
+     *
+     * @param size the number of workers.
+     * @param maxJobs the number of test runs after which a worker is replaced.
+     * @param command the command starting a worker JVM.
+     * @param directory the working directory of the worker JVMs.
+     * @throws IllegalArgumentException if the size or the maximum number of jobs is not positive.
+     */
+    TestWorkerPool(int size, int maxJobs, List<String> command, File directory) {
+        if (size <= 0 || maxJobs <= 0) {
+            throw new IllegalArgumentException("Invalid test worker pool size " + size + " or maximum number of jobs "
+                    + maxJobs);
+        }
+        this.size = size;
+        this.maxJobs = maxJobs;
+        this.command = command;
+        this.directory = directory;
+        this.permits = new Semaphore(size, true);
+        this.starter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "test-worker-starter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        logger.info("Starting {} test workers", size);
+        for (int i = 0; i < size; i++) {
+            starter.execute(this::startIdleWorker);
+        }
+    }
+
+    /**
+     * Runs a JUnit test class once for every given classpath on a worker of the pool, waiting for a free worker if
+     * necessary. All runs are sent to the worker at once. If the worker dies, the run is reported as
+     * {@link TestWorker.Status#ERROR error} and the remaining runs continue on a new worker. A run which times out
+     * is retried once on a new worker, since a slow run can also be caused by load on the host. Only a second
+     * timeout is reported as error, like the timeout of the Ant JUnit task. The remaining runs of a job also continue
+     * on a new worker if a run {@link TestWorker.Result#isRecycleWorker() tainted} the worker.
+     *
+     * <p>If the calling thread is interrupted, or no worker can be started, the results received so far are
+     * returned and no further runs are started. In case of an interrupt, the interrupt flag of the thread is set
+     * again.
+     *
+     * @param testClassName the qualified name of the test class.
+     * @param classpaths the classpaths the test class and the classes it tests are loaded from.
+     * @param timeout the maximum time a single run may take.
+     * @param unit the time unit of the timeout.
+     * @return one result per finished run, in the order of the classpaths. Fewer results than classpaths are
+     *         returned if the execution stopped early.
+     */
+    List<TestWorker.Result> execute(String testClassName, List<List<String>> classpaths, long timeout,
+            TimeUnit unit) {
+        List<TestWorker.Result> results = new ArrayList<>(classpaths.size());
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return results;
+        }
+        try {
+            boolean retried = false;
+            int timedOutRun = -1;
+            while (results.size() < classpaths.size()) {
+                List<List<String>> remaining = classpaths.subList(results.size(), classpaths.size());
+                TestWorkerProcess worker = acquireWorker();
+                try {
+                    worker.submit(testClassName, remaining);
+                } catch (IOException e) {
+                    // The worker died while idle, nothing was executed yet. Retry once on a fresh worker.
+                    releaseWorker(worker);
+                    if (retried) {
+                        throw e;
+                    }
+                    retried = true;
+                    continue;
+                }
+                try {
+                    for (int i = 0; i < remaining.size(); i++) {
+                        results.add(worker.nextResult(timeout, unit));
+                        if (!worker.isReusable()) {
+                            logger.info("Test worker tainted by {}, continuing on a new worker", testClassName);
+                            break;
+                        }
+                    }
+                } catch (TimeoutException e) {
+                    if (timedOutRun != results.size()) {
+                        logger.warn("Execution of {} timed out after {} seconds, retrying on a new worker",
+                                testClassName, unit.toSeconds(timeout));
+                        timedOutRun = results.size();
+                    } else {
+                        logger.warn("Execution of {} timed out again after {} seconds", testClassName,
+                                unit.toSeconds(timeout));
+                        results.add(new TestWorker.Result(TestWorker.Status.ERROR,
+                                "Test execution timed out after " + unit.toSeconds(timeout) + " seconds."));
+                    }
+                } catch (IOException e) {
+                    logger.error("Test worker died while executing " + testClassName, e);
+                    results.add(new TestWorker.Result(TestWorker.Status.ERROR, e.getMessage()));
+                } finally {
+                    releaseWorker(worker);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Could not start a test worker, " + (classpaths.size() - results.size())
+                    + " runs of " + testClassName + " were not executed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            permits.release();
+        }
+        return results;
+    }
+
+    /**
+     * Takes an idle worker, waiting for the starter if there is none.
+     */
+    private TestWorkerProcess acquireWorker() throws IOException, InterruptedException {
+        while (true) {
+            TestWorkerProcess worker = idleWorkers.poll(STARTUP_TIMEOUT, TimeUnit.SECONDS);
+            if (worker == null) {
+                // Starting a worker may have failed before, try again for the next caller.
+                requestWorker();
+                throw new IOException("No test worker became available within " + STARTUP_TIMEOUT + " seconds");
+            }
+            if (worker.isAlive()) {
+                return worker;
+            }
+            retireWorker(worker);
+        }
+    }
+
+    private void releaseWorker(TestWorkerProcess worker) {
+        if (!closed && worker.isReusable() && worker.getExecutedJobs() < maxJobs) {
+            idleWorkers.push(worker);
+        } else {
+            retireWorker(worker);
+        }
+    }
+
+    private void retireWorker(TestWorkerProcess worker) {
+        worker.close();
+        workers.decrementAndGet();
+        requestWorker();
+    }
+
+    private void requestWorker() {
+        if (!closed) {
+            try {
+                starter.execute(this::startIdleWorker);
+            } catch (RejectedExecutionException ignored) {
+                // The pool was closed in the meantime.
+            }
+        }
+    }
+
+    /**
+     * Starts a worker if fewer than {@code size} workers are running. Only called on the starter thread.
+     */
+    private void startIdleWorker() {
+        if (closed || workers.get() >= size) {
+            return;
+        }
+        workers.incrementAndGet();
+        try {
+            TestWorkerProcess worker = new TestWorkerProcess(command, directory);
+            // The worker is destroyed if it does not get ready.
+            worker.awaitReady(STARTUP_TIMEOUT, TimeUnit.SECONDS);
+            idleWorkers.push(worker);
+        } catch (IOException | TimeoutException e) {
+            workers.decrementAndGet();
+            logger.error("Could not start test worker", e);
+        } catch (InterruptedException e) {
+            workers.decrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+        if (closed) {
+            closeIdleWorkers();
+        }
+    }
+
+    private void closeIdleWorkers() {
+        TestWorkerProcess worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        starter.shutdownNow();
+        closeIdleWorkers();
+    }
+}
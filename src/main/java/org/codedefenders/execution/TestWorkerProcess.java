@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.codedefenders.execution.worker.TestWorker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Host side handle of a single {@link TestWorker} JVM.
+ *
+ * <p>A worker executes one job at a time, so an instance must only be used by one thread at a time.
+ * If a job does not finish within its timeout, or the worker dies, the worker process is destroyed and
+ * the instance cannot be used anymore.
+ */
+class TestWorkerProcess implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(TestWorkerProcess.class);
+
+    private final Process process;
+    private final DataOutputStream toWorker;
+    private final DataInputStream fromWorker;
+    private final ExecutorService reader;
+
+    private int executedJobs = 0;
+    private boolean tainted = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Starts a new worker JVM.
+     *
+     * @param command the command starting the worker JVM.
+     * @param directory the working directory of the worker JVM.
+     * @throws IOException if the worker JVM cannot be started.
+     */
+    TestWorkerProcess(List<String> command, File directory) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(directory);
+        // Worker output goes to the standard streams, so only crash reports end up here.
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+        logger.info("Starting test worker {} from directory {}", command, directory);
+        process = pb.start();
+        toWorker = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        fromWorker = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        reader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "test-worker-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Waits until the worker has loaded its libraries and accepts jobs.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit the time unit of the timeout.
+     * @throws IOException if the worker died during startup.
+     * @throws TimeoutException if the worker did not get ready in time. The worker is destroyed in this case.
+     * @throws InterruptedException if the calling thread was interrupted. The worker is destroyed in this case.
+     */
+    void awaitReady(long timeout, TimeUnit unit) throws IOException, TimeoutException, InterruptedException {
+        Future<?> ready = reader.submit(() -> {
+            TestWorker.readReady(fromWorker);
+            return null;
+        });
+        await(ready, timeout, unit, "Test worker died during startup");
+    }
+
+    /**
+     * Sends a job to the worker, which runs the test class once for every given classpath.
+     * The results have to be fetched with {@link #nextResult(long, TimeUnit)}, one per classpath.
+     *
+     * @param testClassName the qualified name of the test class.
+     * @param classpaths the classpaths the test class and the classes it tests are loaded from.
+     * @throws IOException if the worker died.
+     */
+    void submit(String testClassName, List<List<String>> classpaths) throws IOException {
+        executedJobs += classpaths.size();
+        try {
+            TestWorker.writeJob(toWorker, testClassName, classpaths);
+            toWorker.flush();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the result of the next run of the last submitted job. If the result
+     * {@link TestWorker.Result#isRecycleWorker() taints} the worker, the worker executes no further runs and
+     * is not {@link #isReusable() reusable} anymore.
+     *
+     * @param timeout the maximum time to wait for the result.
+     * @param unit the time unit of the timeout.
+     * @return the result reported by the worker.
+     * @throws IOException if the worker died while executing the job.
+     * @throws TimeoutException if the run did not finish in time. The worker is destroyed in this case.
+     * @throws InterruptedException if the calling thread was interrupted. The worker is destroyed in this case.
+     */
+    TestWorker.Result nextResult(long timeout, TimeUnit unit)
+            throws IOException, TimeoutException, InterruptedException {
+        Future<TestWorker.Result> future = reader.submit(() -> TestWorker.readResult(fromWorker));
+        TestWorker.Result result = await(future, timeout, unit, "Test worker died while executing a test");
+        if (result.isRecycleWorker()) {
+            tainted = true;
+        }
+        return result;
+    }
+
+    private <T> T await(Future<T> future, long timeout, TimeUnit unit, String errorMessage)
+            throws IOException, TimeoutException, InterruptedException {
+        try {
+            return future.get(timeout, unit);
+        } catch (ExecutionException e) {
+            close();
+            throw new IOException(errorMessage, e.getCause());
+        } catch (TimeoutException | InterruptedException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of test runs this worker was given so far.
+     */
+    int getExecutedJobs() {
+        return executedJobs;
+    }
+
+    boolean isAlive() {
+        return !closed && process.isAlive();
+    }
+
+    /**
+     * Returns whether the worker is alive and no run has left state behind in it.
+     */
+    boolean isReusable() {
+        return isAlive() && !tainted;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        process.destroyForcibly();
+        reader.shutdownNow();
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Typed;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.codedefenders.configuration.Configuration;
+import org.codedefenders.database.GameClassDAO;
+import org.codedefenders.execution.worker.TestWorker;
+import org.codedefenders.game.GameClass;
+import org.codedefenders.game.Mutant;
+import org.codedefenders.game.Test;
+import org.codedefenders.util.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.codedefenders.util.Constants.AI_DIR;
+import static org.codedefenders.util.Constants.CUTS_DEPENDENCY_DIR;
+
+/**
+ * A {@link BackendExecutorService} which runs tests against mutants on long-lived {@link TestWorker} JVMs instead
+ * of starting a new Ant process for every execution.
+ *
+ * <p>The workers run with the same {@code security.policy} as the {@code test-mutant} Ant target, and each
+ * execution is limited by {@link Configuration#getExecutionTimeout()}. They are kept in a {@link TestWorkerPool} of
+ * {@link Configuration#getNumberOfExecutionWorkers()} pre-started JVMs, which also bounds the number of concurrent
+ * executions. Workers are recycled after {@link Configuration#getExecutionWorkerMaxJobs()} jobs, and workers that
+ * time out or die are replaced by new ones.
+ *
+ * <p>Everything that needs more than running a compiled test (compilation, coverage of the original class, mutants
+ * which require the test to be recompiled) is delegated to the {@link AntRunner}. The {@link AntRunner} is also
+ * used if the worker pool cannot be created.
+ *
+ * <p>We inject instances using {@link BackendExecutorServiceProducer}.
+ */
+@Singleton
+@Typed(WorkerRunner.class)
+public class WorkerRunner implements BackendExecutorService {
+    private static final Logger logger = LoggerFactory.getLogger(WorkerRunner.class);
+
+    /**
+     * The libraries of the {@code nocut.cp} classpath of the {@code build.xml}, relative to the data directory.
+     */
+    private static final List<String> LIBRARIES = Arrays.asList(
+            "lib/hamcrest-all-1.3.jar",
+            "lib/junit-4.13.1.jar",
+            "lib/junit-jupiter-api-5.7.0.jar",
+            "lib/junit-jupiter-engine-5.7.0.jar",
+            "lib/junit-platform-commons-1.7.0.jar",
+            "lib/junit-platform-engine-1.7.0.jar",
+            "lib/junit-platform-launcher-1.7.0.jar",
+            "lib/junit-vintage-engine-5.7.0.jar",
+            "lib/mockito-all-1.10.19.jar",
+            "lib/opentest4j-1.2.0.jar",
+            "lib/truth-1.1.2.jar",
+            "lib/guava-29.0-android.jar",
+            "lib/truth-java8-extension-1.1.2.jar",
+            "lib/major/config/config.jar");
+
+    private final Configuration config;
+    private final AntRunner antRunner;
+
+    private volatile TestWorkerPool pool;
+    private volatile boolean shutdown = false;
+
+    @Inject
+    public WorkerRunner(Configuration config, AntRunner antRunner) {
+        this.config = config;
+        this.antRunner = antRunner;
+    }
+
+    /**
+     * Starts the workers together with the application, so the first executions already find warm workers.
+     */
+    void init(@Observes @Initialized(ApplicationScoped.class) final Object start) {
+        if (config.isValid() && config.isWorkerExecution() && !config.isClusterModeEnabled()) {
+            getPool();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        shutdown = true;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private TestWorkerPool getPool() {
+        if (pool == null) {
+            synchronized (this) {
+                if (pool == null && !shutdown) {
+                    try {
+                        pool = new TestWorkerPool(config.getNumberOfExecutionWorkers(),
+                                config.getExecutionWorkerMaxJobs(), workerCommand(), config.getDataDir());
+                    } catch (URISyntaxException e) {
+                        logger.error("Could not locate the test worker classes", e);
+                    }
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void testOriginal(GameClass cut, String testDir, String testClassName) throws Exception {
+        antRunner.testOriginal(cut, testDir, testClassName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TargetExecution testOriginal(File dir, Test test) {
+        // Coverage is collected with the JaCoCo Ant task.
+        return antRunner.testOriginal(dir, test);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TargetExecution testMutant(Mutant mutant, Test test) {
+        return testMutants(test, Collections.singletonList(mutant)).get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>All mutants which do not require a recompilation of the test are tested in a single job on one worker.
+     * Only the mutants the job could not be executed for, e.g. because no worker could be started, are tested with
+     * Ant afterwards.
+     *
+     * @throws ExecutionInterruptedException if the calling thread is interrupted. No Ant process is started after
+     *                                       the interrupt.
+     */
+    @Override
+    public List<TargetExecution> testMutants(Test test, List<Mutant> mutants) {
+        TargetExecution[] executions = new TargetExecution[mutants.size()];
+        List<Integer> batchIndices = new ArrayList<>();
+        List<List<String>> batchClasspaths = new ArrayList<>();
+
+        Map<Integer, GameClass> cutForGame = new HashMap<>();
+        for (int i = 0; i < mutants.size(); i++) {
+            Mutant mutant = mutants.get(i);
+            if (!mutant.doesRequireRecompilation()) {
+                GameClass cut = cutForGame.computeIfAbsent(mutant.getGameId(), gameId -> getClassUnderTest(mutant));
+                batchIndices.add(i);
+                batchClasspaths.add(classpath(cut, mutant.getDirectory(), test.getDirectory()));
+            }
+        }
+
+        if (!batchIndices.isEmpty()) {
+            logger.info("Running test {} on {} mutants", test.getId(), batchIndices.size());
+            List<TestWorker.Result> results = runAll(test.getFullyQualifiedClassName(), batchClasspaths);
+            for (int j = 0; j < results.size(); j++) {
+                int i = batchIndices.get(j);
+                TestWorker.Result result = results.get(j);
+                executions[i] = new TargetExecution(test.getId(), mutants.get(i).getId(),
+                        TargetExecution.Target.TEST_MUTANT, toStatus(result), result.getMessage());
+                executions[i].insert();
+            }
+        }
+
+        for (int i = 0; i < mutants.size(); i++) {
+            if (executions[i] == null) {
+                checkInterrupted(executions);
+                executions[i] = antRunner.testMutant(mutants.get(i), test);
+            }
+        }
+        return Arrays.asList(executions);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This is the case as long as the worker pool could be created.
+     */
+    @Override
+    public boolean isBatchExecution() {
+        return getPool() != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws ExecutionInterruptedException if the calling thread is interrupted.
+     */
+    @Override
+    public boolean potentialEquivalent(Mutant mutant) {
+        logger.info("Checking if mutant {} is potentially equivalent.", mutant.getId());
+        GameClass cut = GameClassDAO.getClassForGameId(mutant.getGameId());
+        String suiteDir = Paths.get(AI_DIR, "tests", cut.getAlias()).toString();
+
+        TestWorker.Result result = run(cut.getName() + Constants.SUITE_EXT,
+                classpath(cut, mutant.getDirectory(), suiteDir));
+        if (result == null) {
+            checkInterrupted();
+            return antRunner.potentialEquivalent(mutant);
+        }
+
+        // return true if tests pass without failures or errors
+        return result.getStatus() == TestWorker.Status.SUCCESS;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws ExecutionInterruptedException if the calling thread is interrupted.
+     */
+    @Override
+    public boolean testKillsMutant(Mutant mutant, Test test) {
+        GameClass cut = GameClassDAO.getClassForGameId(mutant.getGameId());
+        TestWorker.Result result = run(test.getFullyQualifiedClassName(),
+                classpath(cut, mutant.getDirectory(), test.getDirectory()));
+        if (result == null) {
+            checkInterrupted();
+            return antRunner.testKillsMutant(mutant, test);
+        }
+
+        // Return true iff test failed
+        return result.getStatus() == TestWorker.Status.FAIL;
+    }
+
+    /**
+     * Ant processes do not react to interrupts, so no Ant execution is started once the thread is interrupted.
+     */
+    private static void checkInterrupted(TargetExecution... executions) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new ExecutionInterruptedException(Arrays.asList(executions));
+        }
+    }
+
+    private GameClass getClassUnderTest(Mutant mutant) {
+        GameClass cut = GameClassDAO.getClassForGameId(mutant.getGameId());
+        if (cut == null) {
+            cut = GameClassDAO.getClassForId(mutant.getClassId());
+        }
+        return cut;
+    }
+
+    /**
+     * Builds the classpath of a job, like the {@code test-mutant} Ant target does. The libraries are
+     * already loaded by the worker.
+     */
+    private List<String> classpath(GameClass cut, String mutantDir, String testDir) {
+        String cutDir = Paths.get(cut.getJavaFile()).getParent().toString();
+        List<String> classpath = new ArrayList<>();
+        classpath.add(Paths.get(cutDir, CUTS_DEPENDENCY_DIR).toString());
+        classpath.add(mutantDir);
+        classpath.add(testDir);
+        return classpath;
+    }
+
+    private static TargetExecution.Status toStatus(TestWorker.Result result) {
+        return TargetExecution.Status.valueOf(result.getStatus().name());
+    }
+
+    /**
+     * Runs a test class with a single classpath on a worker of the pool.
+     *
+     * @return the result of the execution, or {@code null} if it was interrupted or has to fall back to Ant.
+     */
+    private TestWorker.Result run(String testClassName, List<String> classpath) {
+        List<TestWorker.Result> results = runAll(testClassName, Collections.singletonList(classpath));
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Runs a test class once for every given classpath on a worker of the pool.
+     *
+     * @return one result per finished run, in the order of the classpaths. The runs which are missing were
+     *         interrupted or have to fall back to Ant.
+     */
+    private List<TestWorker.Result> runAll(String testClassName, List<List<String>> classpaths) {
+        TestWorkerPool pool = getPool();
+        if (pool == null) {
+            return Collections.emptyList();
+        }
+        return pool.execute(testClassName, classpaths, config.getExecutionTimeout(), TimeUnit.SECONDS);
+    }
+
+    private List<String> workerCommand() throws URISyntaxException {
+        File dataDir = config.getDataDir();
+        String workerCodebase = Paths.get(TestWorker.class.getProtectionDomain().getCodeSource().getLocation()
+                .toURI()).toString();
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Djava.security.manager");
+        command.add("-Djava.security.policy==" + new File(dataDir, "security.policy").getAbsolutePath());
+        command.add("-Dcodedef.home=" + dataDir.getAbsolutePath());
+        command.add("-cp");
+        command.add(workerCodebase);
+        command.add(TestWorker.class.getName());
+        for (String library : LIBRARIES) {
+            command.add(new File(dataDir, library).getAbsolutePath());
+        }
+        return command;
+    }
+}
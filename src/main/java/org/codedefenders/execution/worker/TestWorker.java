@@ -0,0 +1,504 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Entry point of a long-lived test execution worker JVM.
+ *
+ * <p>The worker is started by {@link org.codedefenders.execution.TestWorkerProcess} with the same
+ * {@code security.policy} the {@code test-mutant} Ant target uses, and then executes one job after the
+ * other. A job consists of the name of a JUnit test class and one or more classpaths (mutant directory,
+ * test directory, ...) the test class is run against, e.g. one per mutant. Each classpath gets its own
+ * {@link URLClassLoader}, so the class under test is loaded anew for every mutant and mutants of the same
+ * class under test never see each other. The result of every run is sent as soon as it is available. The libraries given as program arguments
+ * (JUnit, Hamcrest, Mockito, ...) are loaded only once and are shared between all jobs.
+ *
+ * <p>Host and worker talk through the standard streams of the worker. Anything the tests print is
+ * captured (up to {@link #MAX_OUTPUT_LENGTH} bytes per run) and never reaches the host directly. This class must
+ * only depend on the JDK, since the worker JVM does not have the web application libraries on its classpath.
+ *
+ * <p>Since all runs share the JVM and the library class loader, a run which leaves state behind (threads which are
+ * still running, changed system properties or standard streams, a default exception handler) taints the worker.
+ * The result of such a run asks the host to {@link Result#isRecycleWorker() recycle} the worker, and the worker
+ * stops executing further runs.
+ *
+ * @see org.codedefenders.execution.WorkerRunner
+ */
+public final class TestWorker {
+
+    /**
+     * Maximum number of bytes of test output captured per run. Further output is discarded.
+     */
+    private static final int MAX_OUTPUT_LENGTH = 10000;
+
+    /**
+     * Maximum time in milliseconds threads started by a test get to terminate after the run, before they are
+     * considered leaked.
+     */
+    private static final long THREAD_GRACE_PERIOD = 200;
+
+    /**
+     * Stack frames removed from failure traces, like the {@code filtertrace} option of the Ant JUnit task does.
+     */
+    private static final String[] FILTERED_FRAMES = {
+        "org.junit.",
+        "junit.framework.",
+        "sun.reflect.",
+        "java.lang.reflect.Method.invoke",
+        "org.codedefenders.execution.worker."
+    };
+
+    /**
+     * Library classes which are loaded and initialized before the worker reports to be ready,
+     * so the first job does not pay for it.
+     */
+    private static final String[] PRELOADED_CLASSES = {
+        "org.junit.runner.JUnitCore",
+        "org.junit.Assert",
+        "org.hamcrest.Matchers",
+        "org.mockito.Mockito"
+    };
+
+    /**
+     * Sent by the worker once it is ready to accept jobs.
+     */
+    public static final String READY = "READY";
+
+    private final ClassLoader libraryLoader;
+    private final BoundedOutputStream capturedOutput = new BoundedOutputStream(MAX_OUTPUT_LENGTH);
+    private final PrintStream capture = new PrintStream(capturedOutput, true);
+
+    private TestWorker(ClassLoader libraryLoader) {
+        this.libraryLoader = libraryLoader;
+    }
+
+    /**
+     * Starts the worker loop.
+     *
+     * @param args the paths of the libraries shared by all test executions.
+     * @throws IOException if the connection to the host breaks.
+     */
+    public static void main(String[] args) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+
+        // The bootstrap/extension class loader is the parent, so tests do not see the worker classes.
+        ClassLoader libraryLoader = new URLClassLoader(toUrls(args), ClassLoader.getSystemClassLoader().getParent());
+        TestWorker worker = new TestWorker(libraryLoader);
+
+        System.setOut(worker.capture);
+        System.setErr(worker.capture);
+
+        worker.preload();
+        writeReady(out);
+        out.flush();
+
+        while (true) {
+            Job job;
+            try {
+                job = readJob(in);
+            } catch (EOFException e) {
+                // The host closed the connection.
+                return;
+            }
+            for (List<String> classpath : job.classpaths) {
+                Result result = worker.execute(job.testClassName, classpath);
+                writeResult(out, result);
+                out.flush();
+                if (result.recycleWorker) {
+                    // The host replaces this worker and runs the remaining classpaths on the new one.
+                    return;
+                }
+            }
+        }
+    }
+
+    private void preload() {
+        for (String className : PRELOADED_CLASSES) {
+            try {
+                Class.forName(className, true, libraryLoader);
+            } catch (ClassNotFoundException | LinkageError ignored) {
+                // The library is not installed, tests using it will fail to load anyway.
+            }
+        }
+    }
+
+    private Result execute(String testClassName, List<String> classpath) {
+        capturedOutput.reset();
+        Thread currentThread = Thread.currentThread();
+        ClassLoader previousContextLoader = currentThread.getContextClassLoader();
+        Set<Thread> threadsBefore = liveThreads();
+        Properties propertiesBefore = (Properties) System.getProperties().clone();
+        Result result;
+        try {
+            // Job class loaders only reference directories, so they are not closed (which the policy forbids anyway).
+            ClassLoader jobLoader = new URLClassLoader(toUrls(classpath), libraryLoader);
+            currentThread.setContextClassLoader(jobLoader);
+            result = runJUnit(testClassName, jobLoader);
+        } catch (Throwable e) {
+            result = new Result(Status.ERROR, "Could not execute " + testClassName + ": " + e + output());
+        } finally {
+            currentThread.setContextClassLoader(previousContextLoader);
+        }
+
+        boolean tainted = hasLeakedThreads(threadsBefore)
+                | !System.getProperties().equals(propertiesBefore)
+                | System.out != capture
+                | System.err != capture
+                | Thread.getDefaultUncaughtExceptionHandler() != null;
+        return tainted ? new Result(result.status, result.message, true) : result;
+    }
+
+    private static Set<Thread> liveThreads() {
+        ThreadGroup group = Thread.currentThread().getThreadGroup();
+        Thread[] threads = new Thread[group.activeCount() + 16];
+        int count = group.enumerate(threads, true);
+        return new HashSet<>(Arrays.asList(threads).subList(0, count));
+    }
+
+    /**
+     * Checks whether threads started during a run are still alive, giving them {@link #THREAD_GRACE_PERIOD}
+     * milliseconds to terminate (e.g. the watchdog threads of JUnit timeouts).
+     */
+    private static boolean hasLeakedThreads(Set<Thread> threadsBefore) {
+        long deadline = System.currentTimeMillis() + THREAD_GRACE_PERIOD;
+        for (Thread thread : liveThreads()) {
+            if (threadsBefore.contains(thread)) {
+                continue;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining > 0) {
+                try {
+                    thread.join(remaining);
+                } catch (InterruptedException e) {
+                    return true;
+                }
+            }
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the given test class with {@code org.junit.runner.JUnitCore}. JUnit is only available through the
+     * library class loader, hence it is accessed reflectively.
+     */
+    private Result runJUnit(String testClassName, ClassLoader jobLoader) throws ReflectiveOperationException {
+        Class<?> testClass;
+        try {
+            testClass = Class.forName(testClassName, false, jobLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return new Result(Status.ERROR, "Could not load test class " + testClassName + ": " + e);
+        }
+
+        Class<?> junitCore = Class.forName("org.junit.runner.JUnitCore", true, libraryLoader);
+        Object result;
+        try {
+            result = junitCore.getMethod("runClasses", Class[].class).invoke(null, (Object) new Class<?>[]{testClass});
+        } catch (InvocationTargetException e) {
+            return new Result(Status.ERROR, "JUnit failed to execute " + testClassName + ": " + e.getCause());
+        }
+
+        List<?> failures = (List<?>) result.getClass().getMethod("getFailures").invoke(result);
+        if (failures.isEmpty()) {
+            return new Result(Status.SUCCESS, null);
+        }
+
+        // Same interpretation as the Ant JUnit task: assertion errors are failures, everything else is an error.
+        boolean hasFailure = false;
+        StringBuilder message = new StringBuilder();
+        for (Object failure : failures) {
+            Throwable exception = (Throwable) failure.getClass().getMethod("getException").invoke(failure);
+            if (exception instanceof AssertionError) {
+                hasFailure = true;
+            }
+            message.append("Testcase: ")
+                    .append(failure.getClass().getMethod("getTestHeader").invoke(failure))
+                    .append(System.lineSeparator())
+                    .append(filterTrace((String) failure.getClass().getMethod("getTrace").invoke(failure)));
+        }
+        return new Result(hasFailure ? Status.FAIL : Status.ERROR, message.toString() + output());
+    }
+
+    private static String filterTrace(String trace) {
+        StringBuilder filtered = new StringBuilder();
+        for (String line : trace.split("\\R")) {
+            String frame = line.trim();
+            boolean skip = false;
+            for (String prefix : FILTERED_FRAMES) {
+                if (frame.startsWith("at " + prefix)) {
+                    skip = true;
+                    break;
+                }
+            }
+            if (!skip) {
+                filtered.append(line).append(System.lineSeparator());
+            }
+        }
+        return filtered.toString();
+    }
+
+    private String output() {
+        String output = new String(capturedOutput.toByteArray(), StandardCharsets.UTF_8);
+        if (output.isEmpty()) {
+            return "";
+        }
+        if (capturedOutput.isTruncated()) {
+            output += "...";
+        }
+        return System.lineSeparator() + "Output:" + System.lineSeparator() + output;
+    }
+
+    private static URL[] toUrls(String[] paths) throws MalformedURLException {
+        URL[] urls = new URL[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            urls[i] = new File(paths[i]).toURI().toURL();
+        }
+        return urls;
+    }
+
+    private static URL[] toUrls(List<String> paths) throws MalformedURLException {
+        return toUrls(paths.toArray(new String[0]));
+    }
+
+    // Wire protocol, shared by the worker and the host.
+
+    /**
+     * Writes a job to the given stream. The worker answers with one result per classpath, in the same order.
+     *
+     * @param out the stream to the worker.
+     * @param testClassName the qualified name of the test class to run.
+     * @param classpaths the classpaths the test class is run with, each one given as list of entries.
+     * @throws IOException if the job cannot be written.
+     */
+    public static void writeJob(DataOutputStream out, String testClassName, List<List<String>> classpaths)
+            throws IOException {
+        writeString(out, testClassName);
+        out.writeInt(classpaths.size());
+        for (List<String> classpath : classpaths) {
+            out.writeInt(classpath.size());
+            for (String entry : classpath) {
+                writeString(out, entry);
+            }
+        }
+    }
+
+    static Job readJob(DataInputStream in) throws IOException {
+        String testClassName = readString(in);
+        int count = in.readInt();
+        List<List<String>> classpaths = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int size = in.readInt();
+            List<String> classpath = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                classpath.add(readString(in));
+            }
+            classpaths.add(classpath);
+        }
+        return new Job(testClassName, classpaths);
+    }
+
+    static void writeReady(DataOutputStream out) throws IOException {
+        writeString(out, READY);
+    }
+
+    /**
+     * Waits for the worker to report that it is ready.
+     *
+     * @param in the stream from the worker.
+     * @throws IOException if the worker died or sent something unexpected.
+     */
+    public static void readReady(DataInputStream in) throws IOException {
+        String message = readString(in);
+        if (!READY.equals(message)) {
+            throw new IOException("Unexpected message from test worker: " + message);
+        }
+    }
+
+    static void writeResult(DataOutputStream out, Result result) throws IOException {
+        writeString(out, result.status.name());
+        writeString(out, result.message);
+        out.writeBoolean(result.recycleWorker);
+    }
+
+    /**
+     * Reads a result from the given stream.
+     *
+     * @param in the stream from the worker.
+     * @return the result of the next run of the job that was last written to the worker.
+     * @throws IOException if the worker died or the stream is corrupted.
+     */
+    public static Result readResult(DataInputStream in) throws IOException {
+        Status status = Status.valueOf(readString(in));
+        String message = readString(in);
+        return new Result(status, message, in.readBoolean());
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static class Job {
+        private final String testClassName;
+        private final List<List<String>> classpaths;
+
+        private Job(String testClassName, List<List<String>> classpaths) {
+            this.testClassName = testClassName;
+            this.classpaths = classpaths;
+        }
+
+        String getTestClassName() {
+            return testClassName;
+        }
+
+        List<List<String>> getClasspaths() {
+            return classpaths;
+        }
+    }
+
+    /**
+     * The outcome of a test execution. The names match {@code TargetExecution.Status}.
+     */
+    public enum Status {
+        SUCCESS,
+        FAIL,
+        ERROR
+    }
+
+    /**
+     * The result of a single run of a job.
+     */
+    public static class Result {
+        private final Status status;
+        private final String message;
+        private final boolean recycleWorker;
+
+        public Result(Status status, String message) {
+            this(status, message, false);
+        }
+
+        public Result(Status status, String message, boolean recycleWorker) {
+            this.status = status;
+            this.message = message;
+            this.recycleWorker = recycleWorker;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Returns whether the run left state behind in the worker JVM. The worker does not execute further runs
+         * after such a result and has to be replaced.
+         */
+        public boolean isRecycleWorker() {
+            return recycleWorker;
+        }
+    }
+
+    /**
+     * Keeps the first {@code limit} bytes written to it and discards the rest.
+     */
+    static class BoundedOutputStream extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final int limit;
+        private boolean truncated = false;
+
+        BoundedOutputStream(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            if (buffer.size() < limit) {
+                buffer.write(b);
+            } else {
+                truncated = true;
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+            int accepted = Math.min(length, limit - buffer.size());
+            if (accepted > 0) {
+                buffer.write(bytes, offset, accepted);
+            }
+            if (accepted < length) {
+                truncated = true;
+            }
+        }
+
+        synchronized void reset() {
+            buffer.reset();
+            truncated = false;
+        }
+
+        synchronized byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+
+        synchronized boolean isTruncated() {
+            return truncated;
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.codedefenders.game;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.codedefenders.database.EventDAO;
@@ -156,6 +157,14 @@ public abstract class AbstractGame {
     public List<Mutant> getMutants() {
         if (mutants == null) {
             mutants = MutantDAO.getValidMutantsForGame(id);
+            // Load the diffs shown for the mutants with one query, mutants without a stored diff compute it lazily.
+            Map<Integer, Mutant.Diff> diffs = MutantDAO.getMutantDiffsForGame(id);
+            for (Mutant mutant : mutants) {
+                Mutant.Diff diff = diffs.get(mutant.getId());
+                if (diff != null) {
+                    mutant.setDiff(diff);
+                }
+            }
         }
         return mutants;
     }
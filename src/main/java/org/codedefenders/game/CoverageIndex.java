@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index over the line coverage of a set of {@link Test tests} and the mutated lines of a set of
+ * {@link Mutant mutants}, e.g. of a game or of a class killmap.
+ *
+ * <p>The covered lines of every test and the mutated lines of every mutant are stored as {@link BitSet BitSets},
+ * and every line is mapped to the tests covering it and the mutants modifying it. The mutants covered by a test
+ * (or the tests covering a mutant) are then computed by joining the bitsets of the covered (or mutated) lines,
+ * instead of comparing the line lists of every test with the ones of every mutant.
+ *
+ * <p>A test covers a mutant if it covers at least one of the lines modified by the mutant, like
+ * {@link Test#isMutantCovered(Mutant)}. Tests and mutants are identified by their ID.
+ */
+public class CoverageIndex {
+    private final List<Test> tests;
+    private final List<Mutant> mutants;
+
+    private final Map<Integer, Integer> testIndices = new HashMap<>();
+    private final Map<Integer, Integer> mutantIndices = new HashMap<>();
+
+    /**
+     * The covered lines of each test, by index in {@link #tests}.
+     */
+    private final BitSet[] linesOfTest;
+    /**
+     * The mutated lines of each mutant, by index in {@link #mutants}.
+     */
+    private final BitSet[] linesOfMutant;
+    /**
+     * Maps each line to the indices of the tests covering it.
+     */
+    private final Map<Integer, BitSet> testsOnLine = new HashMap<>();
+    /**
+     * Maps each line to the indices of the mutants modifying it.
+     */
+    private final Map<Integer, BitSet> mutantsOnLine = new HashMap<>();
+
+    /**
+     * Creates the index for the given tests and mutants.
+     *
+     * @param tests The tests of the index.
+     * @param mutants The mutants of the index.
+     */
+    public CoverageIndex(List<Test> tests, List<Mutant> mutants) {
+        this.tests = new ArrayList<>(tests);
+        this.mutants = new ArrayList<>(mutants);
+        this.linesOfTest = new BitSet[tests.size()];
+        this.linesOfMutant = new BitSet[mutants.size()];
+
+        for (int i = 0; i < this.tests.size(); i++) {
+            Test test = this.tests.get(i);
+            testIndices.put(test.getId(), i);
+            linesOfTest[i] = coveredLines(test);
+            addToLines(testsOnLine, linesOfTest[i], i);
+        }
+        for (int i = 0; i < this.mutants.size(); i++) {
+            Mutant mutant = this.mutants.get(i);
+            mutantIndices.put(mutant.getId(), i);
+            linesOfMutant[i] = toBitSet(mutant.getLines());
+            addToLines(mutantsOnLine, linesOfMutant[i], i);
+        }
+    }
+
+    /**
+     * Returns whether the given test covers the given mutant.
+     * The test and the mutant do not need to be part of the index.
+     */
+    public boolean isCovered(Test test, Mutant mutant) {
+        return linesOf(test).intersects(linesOf(mutant));
+    }
+
+    /**
+     * Returns the mutants of the index which are covered by the given test, in the order of the index.
+     * The test does not need to be part of the index.
+     */
+    public List<Mutant> getCoveredMutants(Test test) {
+        return select(mutants, getCoveredMutantIndices(test));
+    }
+
+    /**
+     * Returns the indices of the mutants which are covered by the given test, as positions in the list of mutants
+     * the index was created with. The test does not need to be part of the index.
+     */
+    public BitSet getCoveredMutantIndices(Test test) {
+        return join(mutantsOnLine, linesOf(test));
+    }
+
+    /**
+     * Returns the tests of the index which cover the given mutant, in the order of the index.
+     * The mutant does not need to be part of the index.
+     */
+    public List<Test> getCoveringTests(Mutant mutant) {
+        return select(tests, join(testsOnLine, linesOf(mutant)));
+    }
+
+    /**
+     * Converts a collection of line numbers into a {@link BitSet} of the lines.
+     */
+    public static BitSet toBitSet(Collection<Integer> lines) {
+        BitSet bitSet = new BitSet();
+        if (lines != null) {
+            for (int line : lines) {
+                if (line >= 0) {
+                    bitSet.set(line);
+                }
+            }
+        }
+        return bitSet;
+    }
+
+    private BitSet linesOf(Test test) {
+        Integer index = testIndices.get(test.getId());
+        return index != null ? linesOfTest[index] : coveredLines(test);
+    }
+
+    private BitSet linesOf(Mutant mutant) {
+        Integer index = mutantIndices.get(mutant.getId());
+        return index != null ? linesOfMutant[index] : toBitSet(mutant.getLines());
+    }
+
+    private static BitSet coveredLines(Test test) {
+        LineCoverage lineCoverage = test.getLineCoverage();
+        return lineCoverage != null ? lineCoverage.getCoveredLineSet() : new BitSet();
+    }
+
+    private static void addToLines(Map<Integer, BitSet> onLine, BitSet lines, int index) {
+        for (int line = lines.nextSetBit(0); line >= 0; line = lines.nextSetBit(line + 1)) {
+            onLine.computeIfAbsent(line, l -> new BitSet()).set(index);
+        }
+    }
+
+    /**
+     * Returns the union of the indices mapped to the given lines.
+     */
+    private static BitSet join(Map<Integer, BitSet> onLine, BitSet lines) {
+        BitSet result = new BitSet();
+        for (int line = lines.nextSetBit(0); line >= 0; line = lines.nextSetBit(line + 1)) {
+            BitSet indices = onLine.get(line);
+            if (indices != null) {
+                result.or(indices);
+            }
+        }
+        return result;
+    }
+
+    private static <T> List<T> select(List<T> elements, BitSet indices) {
+        List<T> result = new ArrayList<>(indices.cardinality());
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+            result.add(elements.get(i));
+        }
+        return result;
+    }
+}
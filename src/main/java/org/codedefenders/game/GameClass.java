@@ -27,9 +27,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.Range;
 import org.apache.commons.text.StringEscapeUtils;
 import org.codedefenders.database.GameClassDAO;
@@ -41,6 +43,11 @@ import org.codedefenders.util.analysis.CodeAnalysisResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 /**
  * This class represents a class under test. Games will be played with this class by
  * modifying it or creating test cases for it.
@@ -49,6 +56,20 @@ public class GameClass {
 
     private static final Logger logger = LoggerFactory.getLogger(GameClass.class);
 
+    /**
+     * Maximum number of code analyses kept in the {@link #ANALYSIS_CACHE}.
+     */
+    private static final int MAX_CACHED_ANALYSES = 500;
+
+    /**
+     * Caches the results of {@link ClassCodeAnalyser#visitCode(String, String)}, which parses the whole class, by
+     * class and hash of the source code. New {@link GameClass} instances are created for nearly every database
+     * access, but the analysis of a class never changes.
+     */
+    private static final Cache<String, CodeAnalysisResult> ANALYSIS_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_ANALYSES)
+            .build();
+
     private Integer id;
     private String name; // fully qualified name
     private String alias;
@@ -149,7 +170,7 @@ public class GameClass {
 
     private void visitCode() {
         if (!this.visitedCode) {
-            final CodeAnalysisResult visit = ClassCodeAnalyser.visitCode(this.name, this.getSourceCode());
+            final CodeAnalysisResult visit = analyseCode();
             this.additionalImports.addAll(visit.getAdditionalImports());
             this.linesOfCompileTimeConstants.addAll(visit.getCompileTimeConstants());
             this.linesOfNonCoverableCode.addAll(visit.getNonCoverableCode());
@@ -164,6 +185,22 @@ public class GameClass {
         }
     }
 
+    /**
+     * Returns the analysis of the source code of this class from the {@link #ANALYSIS_CACHE}, analysing the code
+     * if it is not cached yet. The cache key contains the hash of the source code, so changed source code is
+     * analysed again.
+     */
+    private CodeAnalysisResult analyseCode() {
+        final String sourceCode = this.getSourceCode();
+        final String key = (id != null ? String.valueOf(id) : name) + ":" + DigestUtils.md5Hex(sourceCode);
+        try {
+            return ANALYSIS_CACHE.get(key, () -> ClassCodeAnalyser.visitCode(this.name, sourceCode));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException("Failed to analyse class " + name, e.getCause());
+        }
+    }
+
     /**
      * Calls {@link GameClassDAO} to insert this {@link GameClass} instance into the database.
      * <p></p>
@@ -18,11 +18,12 @@
  */
 package org.codedefenders.game;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 import org.codedefenders.model.UserEntity;
 import org.codedefenders.util.Constants;
@@ -79,16 +80,7 @@ public class GameHighlightingDTO {
         /* Construct the test maps. */
         for (Test test : tests) {
             this.tests.put(test.getId(), new GHTestDTO(test));
-            List<Integer> linesCovered = test
-                    .getLineCoverage()
-                    .getLinesCovered()
-                    .stream()
-                    .distinct()
-                    .collect(Collectors.toList());
-            for (Integer line : linesCovered) {
-                List<Integer> list = testIdsPerLine.computeIfAbsent(line, key -> new LinkedList<>());
-                list.add(test.getId());
-            }
+            addToLines(testIdsPerLine, test.getLineCoverage().getCoveredLineSet(), test.getId());
         }
 
         /* Construct the mutant maps. */
@@ -109,16 +101,16 @@ public class GameHighlightingDTO {
         /* Construct the test maps. */
         for (Test test : tests) {
             this.alternativeTests.put(test.getId(), new GHTestDTO(test));
-            List<Integer> linesCovered = test
-                    .getLineCoverage()
-                    .getLinesCovered()
-                    .stream()
-                    .distinct()
-                    .collect(Collectors.toList());
-            for (Integer line : linesCovered) {
-                List<Integer> list = alternativeTestIdsPerLine.computeIfAbsent(line, key -> new LinkedList<>());
-                list.add(test.getId());
-            }
+            addToLines(alternativeTestIdsPerLine, test.getLineCoverage().getCoveredLineSet(), test.getId());
+        }
+    }
+
+    /**
+     * Adds the given id to the entries of the given lines.
+     */
+    private static void addToLines(Map<Integer, List<Integer>> idsPerLine, BitSet lines, int id) {
+        for (int line = lines.nextSetBit(0); line >= 0; line = lines.nextSetBit(line + 1)) {
+            idsPerLine.computeIfAbsent(line, key -> new ArrayList<>()).add(id);
         }
     }
 
@@ -18,26 +18,31 @@
  */
 package org.codedefenders.game;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * This class contains information about how many lines of a {@link GameClass} was
  * covered not or covered by a {@link Test}. Covered and uncovered lines are stored
- * in {@link List Lists}. Both lists can't be {@code null}.
+ * as {@link BitSet BitSets}, so checking whether a line is covered takes constant time.
+ *
+ * <p>In the database, the lines are stored as comma separated line ranges, e.g. {@code 1-4,7,9-10}
+ * (see {@link #encodeLines(BitSet)}). Plain comma separated lines are valid ranges as well.
  *
  * <p>Note that no {@link GameClass} or {@link Test} reference is stored.
  */
 public class LineCoverage {
-    private List<Integer> linesCovered;
-    private List<Integer> linesUncovered;
+    private final BitSet linesCovered;
+    private final BitSet linesUncovered;
 
     /**
      * Creating a empty line coverage in which zero covered and uncovered lines are stored.
      */
     public LineCoverage() {
-        linesCovered = new LinkedList<>();
-        linesUncovered = new LinkedList<>();
+        linesCovered = new BitSet();
+        linesUncovered = new BitSet();
     }
 
     /**
@@ -47,15 +52,142 @@ public class LineCoverage {
      * @param linesUncovered given uncovered lines.
      */
     public LineCoverage(List<Integer> linesCovered, List<Integer> linesUncovered) {
-        this.linesCovered = new LinkedList<>(linesCovered);
-        this.linesUncovered = new LinkedList<>(linesUncovered);
+        this.linesCovered = toBitSet(linesCovered);
+        this.linesUncovered = toBitSet(linesUncovered);
+    }
+
+    /**
+     * Creates a line coverage for given covered and uncovered lines.
+     *
+     * @param linesCovered given covered lines.
+     * @param linesUncovered given uncovered lines.
+     */
+    public LineCoverage(BitSet linesCovered, BitSet linesUncovered) {
+        this.linesCovered = (BitSet) linesCovered.clone();
+        this.linesUncovered = (BitSet) linesUncovered.clone();
     }
 
+    /**
+     * Returns the covered lines in ascending order. The list is a copy, changing it does not change the coverage.
+     */
     public List<Integer> getLinesCovered() {
-        return linesCovered;
+        return toList(linesCovered);
     }
 
+    /**
+     * Returns the uncovered lines in ascending order. The list is a copy, changing it does not change the coverage.
+     */
     public List<Integer> getLinesUncovered() {
-        return linesUncovered;
+        return toList(linesUncovered);
+    }
+
+    /**
+     * Returns a copy of the covered lines.
+     */
+    public BitSet getCoveredLineSet() {
+        return (BitSet) linesCovered.clone();
+    }
+
+    /**
+     * Returns a copy of the uncovered lines.
+     */
+    public BitSet getUncoveredLineSet() {
+        return (BitSet) linesUncovered.clone();
+    }
+
+    public boolean isLineCovered(int line) {
+        return line >= 0 && linesCovered.get(line);
+    }
+
+    public boolean isLineUncovered(int line) {
+        return line >= 0 && linesUncovered.get(line);
+    }
+
+    /**
+     * Returns whether at least one of the given lines is covered.
+     */
+    public boolean coversAny(BitSet lines) {
+        return linesCovered.intersects(lines);
+    }
+
+    public int getNumberOfLinesCovered() {
+        return linesCovered.cardinality();
+    }
+
+    public int getNumberOfLinesUncovered() {
+        return linesUncovered.cardinality();
+    }
+
+    /**
+     * Encodes lines as comma separated line ranges, e.g. lines 1, 2, 3, 4, 7, 9 and 10 as {@code 1-4,7,9-10}.
+     *
+     * @param lines the lines to encode.
+     * @return the encoded lines, or an empty string if there are no lines.
+     */
+    public static String encodeLines(BitSet lines) {
+        StringBuilder encoded = new StringBuilder();
+        int start = lines.nextSetBit(0);
+        while (start >= 0) {
+            int end = lines.nextClearBit(start) - 1;
+            if (encoded.length() > 0) {
+                encoded.append(',');
+            }
+            encoded.append(start);
+            if (end > start) {
+                encoded.append('-').append(end);
+            }
+            start = lines.nextSetBit(end + 1);
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Decodes lines encoded by {@link #encodeLines(BitSet)}. Comma separated lines without ranges are
+     * decoded as well.
+     *
+     * @param encoded the encoded lines, may be {@code null} or empty.
+     * @return the decoded lines.
+     * @throws NumberFormatException if the string is not a valid encoding.
+     */
+    public static BitSet decodeLines(String encoded) {
+        BitSet lines = new BitSet();
+        if (encoded == null || encoded.isEmpty()) {
+            return lines;
+        }
+        int pos = 0;
+        while (pos < encoded.length()) {
+            int comma = encoded.indexOf(',', pos);
+            if (comma < 0) {
+                comma = encoded.length();
+            }
+            int dash = encoded.indexOf('-', pos);
+            if (dash >= 0 && dash < comma) {
+                int start = Integer.parseInt(encoded.substring(pos, dash).trim());
+                int end = Integer.parseInt(encoded.substring(dash + 1, comma).trim());
+                lines.set(start, end + 1);
+            } else {
+                lines.set(Integer.parseInt(encoded.substring(pos, comma).trim()));
+            }
+            pos = comma + 1;
+        }
+        return lines;
+    }
+
+    private static BitSet toBitSet(Collection<Integer> lines) {
+        BitSet bitSet = new BitSet();
+        for (int line : lines) {
+            if (line >= 0) {
+                bitSet.set(line);
+            }
+        }
+        return bitSet;
+    }
+
+    private static List<Integer> toList(BitSet lines) {
+        List<Integer> list = new ArrayList<>(lines.cardinality());
+        for (int line = lines.nextSetBit(0); line >= 0; line = lines.nextSetBit(line + 1)) {
+            list.add(line);
+        }
+        return list;
     }
 }
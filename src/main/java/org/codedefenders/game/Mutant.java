@@ -25,8 +25,10 @@ import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -108,6 +110,7 @@ public class Mutant implements Serializable {
     private List<Integer> lines = null;
     private transient List<String> description = null;
     private transient Patch difference = null;
+    private transient String patchString = null;
 
     private String killMessage;
 
@@ -331,10 +334,9 @@ public class Mutant implements Serializable {
     }
 
     public boolean isCovered(List<Test> tests) {
-        return tests.stream()
+        return getCoveringTests(tests).stream()
                 // Filter the tests that were created by the same user that created the mutant
-                .filter(t -> t.getPlayerId() != this.getPlayerId())
-                .anyMatch(t -> t.isMutantCovered(this));
+                .anyMatch(t -> t.getPlayerId() != this.getPlayerId());
     }
 
     // This might return several instances of the same test since Test does not implement hash and equalsTo
@@ -343,10 +345,20 @@ public class Mutant implements Serializable {
         return getCoveringTests(tests);
     }
 
+    /**
+     * Returns the given tests which cover this mutant. For many mutants of a game, use a {@link CoverageIndex} of
+     * the game instead.
+     */
     public Set<Test> getCoveringTests(List<Test> tests) {
-        return tests.stream()
-                .filter(t -> t.isMutantCovered(this))
-                .collect(Collectors.toSet());
+        BitSet lines = CoverageIndex.toBitSet(getLines());
+        Set<Test> coveringTests = new HashSet<>();
+        for (Test test : tests) {
+            LineCoverage lineCoverage = test.getLineCoverage();
+            if (lineCoverage != null && lineCoverage.coversAny(lines)) {
+                coveringTests.add(test);
+            }
+        }
+        return coveringTests;
     }
 
     public boolean doesRequireRecompilation() {
@@ -393,7 +405,15 @@ public class Mutant implements Serializable {
         difference = DiffUtils.diff(sutLines, mutantLines);
     }
 
+    /**
+     * Returns the difference between the class under test and the mutant as unified diff.
+     */
     public String getPatchString() {
+        loadDiff();
+        return patchString;
+    }
+
+    private String computePatchString() {
         GameClass sut = GameClassDAO.getClassForGameId(gameId);
         if (sut == null) {
             // in this case gameId might have been -1 (upload)
@@ -419,6 +439,47 @@ public class Mutant implements Serializable {
         return unifiedPatch.toString();
     }
 
+    /**
+     * Loads the summary, the HTML readout and the patch of this mutant. Since neither the class under test nor the
+     * mutant ever change, they are computed from the files only once and then stored in the database. Mutants which
+     * are not stored yet compute them without storing them.
+     */
+    private synchronized void loadDiff() {
+        if (summaryString != null && description != null && patchString != null) {
+            return;
+        }
+        if (id > 0) {
+            Diff stored = MutantDAO.getMutantDiff(id);
+            if (stored != null) {
+                summaryString = stored.getSummary();
+                description = stored.getReadout();
+                patchString = stored.getPatch();
+                return;
+            }
+        }
+        computeLinesAndDescription();
+        patchString = computePatchString();
+        if (id > 0) {
+            try {
+                MutantDAO.storeMutantDiff(id, new Diff(summaryString, description, patchString));
+            } catch (UncheckedSQLException e) {
+                logger.error("Failed to store the diff of mutant {}.", id, e);
+            }
+        }
+    }
+
+    /**
+     * Sets the stored diff of this mutant, e.g. after the diffs of all mutants of a game were loaded at once.
+     *
+     * @param diff The diff of this mutant.
+     * @see MutantDAO#getMutantDiffsForGame(int)
+     */
+    public synchronized void setDiff(Diff diff) {
+        summaryString = diff.getSummary();
+        description = diff.getReadout();
+        patchString = diff.getPatch();
+    }
+
     public String getHTMLEscapedPatchString() {
         return StringEscapeUtils.escapeHtml4(getPatchString());
     }
@@ -443,11 +504,17 @@ public class Mutant implements Serializable {
     public boolean insert() {
         try {
             this.id = MutantDAO.storeMutant(this);
-            return true;
         } catch (Exception e) {
             logger.error("Inserting mutants resulted in error.", e);
             return false;
         }
+        // The mutant is stored at this point, if its diff cannot be stored it is computed again when it is shown.
+        try {
+            loadDiff();
+        } catch (Exception e) {
+            logger.error("Failed to compute the diff of mutant {}.", id, e);
+        }
+        return true;
     }
 
     public boolean update() {
@@ -468,9 +535,7 @@ public class Mutant implements Serializable {
     }
 
     public String getSummaryString() {
-        if (summaryString == null) {
-            computeLinesAndDescription();
-        }
+        loadDiff();
         return summaryString;
     }
 
@@ -542,10 +607,8 @@ public class Mutant implements Serializable {
         summaryString = String.join(",", fragementSummary);
     }
 
-    public synchronized List<String> getHTMLReadout() {
-        if (description == null) {
-            computeLinesAndDescription();
-        }
+    public List<String> getHTMLReadout() {
+        loadDiff();
         return description;
     }
 
@@ -628,4 +691,40 @@ public class Mutant implements Serializable {
     public void setKillMessage(String message) {
         this.killMessage = message;
     }
+
+    /**
+     * The precomputed, human readable differences between the class under test and a mutant.
+     *
+     * @see MutantDAO#getMutantDiff(int)
+     */
+    public static class Diff {
+        private final String summary;
+        private final List<String> readout;
+        private final String patch;
+
+        /**
+         * Creates a new diff.
+         *
+         * @param summary The lines changed by the mutant, see {@link #getSummaryString()}.
+         * @param readout The HTML escaped descriptions of the changes, see {@link #getHTMLReadout()}.
+         * @param patch The unified diff, see {@link #getPatchString()}.
+         */
+        public Diff(String summary, List<String> readout, String patch) {
+            this.summary = summary;
+            this.readout = Collections.unmodifiableList(new ArrayList<>(readout));
+            this.patch = patch;
+        }
+
+        public String getSummary() {
+            return summary;
+        }
+
+        public List<String> getReadout() {
+            return readout;
+        }
+
+        public String getPatch() {
+            return patch;
+        }
+    }
 }
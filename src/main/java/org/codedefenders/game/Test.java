@@ -30,7 +30,6 @@ import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.text.StringEscapeUtils;
 import org.codedefenders.database.DB;
 import org.codedefenders.database.DatabaseAccess;
@@ -108,13 +107,19 @@ public class Test {
 
     public Test(int testId, int classId, int gameId, String javaFile, String classFile, int roundCreated,
                 int mutantsKilled, int playerId, List<Integer> linesCovered, List<Integer> linesUncovered, int score) {
+        this(testId, classId, gameId, javaFile, classFile, roundCreated, mutantsKilled, playerId,
+                new LineCoverage(linesCovered, linesUncovered), score);
+    }
+
+    public Test(int testId, int classId, int gameId, String javaFile, String classFile, int roundCreated,
+                int mutantsKilled, int playerId, LineCoverage lineCoverage, int score) {
         this(classId, gameId, javaFile, classFile, playerId);
 
         this.id = testId;
         this.roundCreated = roundCreated;
         this.mutantsKilled = mutantsKilled;
         this.score = score;
-        lineCoverage = new LineCoverage(linesCovered, linesUncovered);
+        this.lineCoverage = lineCoverage;
     }
 
     /**
@@ -208,19 +213,22 @@ public class Test {
     }
 
     public boolean isMutantCovered(Mutant mutant) {
-        return CollectionUtils.containsAny(lineCoverage.getLinesCovered(), mutant.getLines());
+        return lineCoverage.coversAny(CoverageIndex.toBitSet(mutant.getLines()));
     }
 
+    /**
+     * Returns the given mutants which are covered by this test. For many tests of a game, use a
+     * {@link CoverageIndex} of the game instead.
+     */
     public Set<Mutant> getCoveredMutants(List<Mutant> mutants) {
-        List<Integer> coverage = lineCoverage.getLinesCovered();
         Set<Mutant> coveredMutants = new TreeSet<>(Mutant.orderByIdAscending());
-
-        for (Mutant m : mutants) {
-            if (CollectionUtils.containsAny(coverage, m.getLines())) {
-                coveredMutants.add(m);
+        if (lineCoverage != null) {
+            for (Mutant mutant : mutants) {
+                if (lineCoverage.coversAny(CoverageIndex.toBitSet(mutant.getLines()))) {
+                    coveredMutants.add(mutant);
+                }
             }
         }
-
         return coveredMutants;
     }
 
@@ -32,7 +32,7 @@ import org.codedefenders.game.scoring.Scorer;
 public class CoverageScorer extends Scorer {
     @Override
     protected int scoreTest(MultiplayerGame game, Test test, List<Mutant> killedMutants) {
-        return (game.getDefenderValue() + killedMutants.size()) * test.getLineCoverage().getLinesCovered().size();
+        return (game.getDefenderValue() + killedMutants.size()) * test.getLineCoverage().getNumberOfLinesCovered();
     }
 
     @Override
@@ -463,7 +463,7 @@ public class MeleeGame extends AbstractGame {
 
     public boolean isLineCovered(int lineNumber) {
         for (Test test : getTests(true)) {
-            if (test.getLineCoverage().getLinesCovered().contains(lineNumber)) {
+            if (test.getLineCoverage().isLineCovered(lineNumber)) {
                 return true;
             }
         }
@@ -21,7 +21,10 @@ package org.codedefenders.game.multiplayer;
 import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.codedefenders.database.DatabaseAccess;
 import org.codedefenders.database.GameDAO;
@@ -357,11 +360,8 @@ public class MultiplayerGame extends AbstractGame {
         final HashMap<Integer, Integer> mutantsChallenged = new HashMap<Integer, Integer>();
         final HashMap<Integer, Integer> duelsWon = new HashMap<Integer, Integer>();
 
-        // TODO why not getMutants()
-        List<Mutant> allMutants = getAliveMutants();
-        allMutants.addAll(getKilledMutants());
-        allMutants.addAll(getMutantsMarkedEquivalent());
-        allMutants.addAll(getMutantsMarkedEquivalentPending());
+        // Alive, killed, equivalent and flagged mutants, i.e. all of them.
+        List<Mutant> allMutants = getMutants();
 
         if (!mutantScores.containsKey(-1)) {
             mutantScores.put(-1, new PlayerScore(-1));
@@ -458,8 +458,15 @@ public class MultiplayerGame extends AbstractGame {
             challengesLost.put(defenderId, 0);
         }
 
+        // Load everything needed from the database up front, instead of querying it per player and mutant.
+        final Set<Integer> attackerIds = getAttackerPlayers().stream()
+                .map(Player::getId)
+                .collect(Collectors.toSet());
+        final Map<Integer, Integer> playerPoints = PlayerDAO.getPlayerPointsForGame(getId());
+        final Map<Integer, Integer> equivalenceDefenders = DatabaseAccess.getEquivalentDefenderIdsForGame(getId());
+
         for (Test test : getTests()) {
-            if (getAttackerPlayers().stream().anyMatch(p -> p.getId() == test.getPlayerId())) {
+            if (attackerIds.contains(test.getPlayerId())) {
                 continue;
             }
             if (!testScores.containsKey(test.getPlayerId())) {
@@ -482,42 +489,42 @@ public class MultiplayerGame extends AbstractGame {
         }
 
         for (int playerId : mutantsKilled.keySet()) {
-            if (playerId < 0 || getAttackerPlayers().stream().anyMatch(p -> p.getId() == playerId)) {
+            if (playerId < 0 || attackerIds.contains(playerId)) {
                 continue;
             }
             int teamKey = defendersTeamId;
 
             PlayerScore ps = testScores.get(playerId);
-            int playerScore = PlayerDAO.getPlayerPoints(playerId);
+            int playerScore = playerPoints.getOrDefault(playerId, 0);
             ps.increaseTotalScore(playerScore);
 
             PlayerScore ts = testScores.get(teamKey);
             ts.increaseTotalScore(playerScore);
         }
 
-        for (Mutant m : getKilledMutants()) {
-            if (!m.getEquivalent().equals(PROVEN_NO)) {
-                continue;
+        for (Mutant m : getMutants()) {
+            final Map<Integer, Integer> challenges;
+            switch (m.getState()) {
+                case KILLED:
+                    if (!m.getEquivalent().equals(PROVEN_NO)) {
+                        continue;
+                    }
+                    challenges = challengesLost;
+                    break;
+                case EQUIVALENT:
+                    challenges = challengesWon;
+                    break;
+                case FLAGGED:
+                    challenges = challengesOpen;
+                    break;
+                default:
+                    continue;
             }
 
-            int defenderId = DatabaseAccess.getEquivalentDefenderId(m);
-            challengesLost.put(defenderId, challengesLost.get(defenderId) + 1);
-            if (defenderId != defendersTeamId) {
-                challengesLost.put(defendersTeamId, challengesLost.get(defendersTeamId) + 1);
-            }
-        }
-        for (Mutant m : getMutantsMarkedEquivalent()) {
-            int defenderId = DatabaseAccess.getEquivalentDefenderId(m);
-            challengesWon.put(defenderId, challengesWon.get(defenderId) + 1);
-            if (defenderId != defendersTeamId) {
-                challengesWon.put(defendersTeamId, challengesWon.get(defendersTeamId) + 1);
-            }
-        }
-        for (Mutant m : getMutantsMarkedEquivalentPending()) {
-            int defenderId = DatabaseAccess.getEquivalentDefenderId(m);
-            challengesOpen.put(defenderId, challengesOpen.get(defenderId) + 1);
+            int defenderId = equivalenceDefenders.getOrDefault(m.getId(), -1);
+            challenges.merge(defenderId, 1, Integer::sum);
             if (defenderId != defendersTeamId) {
-                challengesOpen.put(defendersTeamId, challengesOpen.get(defendersTeamId) + 1);
+                challenges.merge(defendersTeamId, 1, Integer::sum);
             }
         }
 
@@ -537,7 +544,7 @@ public class MultiplayerGame extends AbstractGame {
 
     public boolean isLineCovered(int lineNumber) {
         for (Test test : getTests(true)) {
-            if (test.getLineCoverage().getLinesCovered().contains(lineNumber)) {
+            if (test.getLineCoverage().isLineCovered(lineNumber)) {
                 return true;
             }
         }
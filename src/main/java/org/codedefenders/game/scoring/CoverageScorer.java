@@ -34,10 +34,10 @@ public class CoverageScorer extends Scorer {
 
     @Override
     protected int scoreTest(MultiplayerGame game, Test test, List<Mutant> killedMutants) {
-        int totalLines = test.getLineCoverage().getLinesCovered().size()
-                + test.getLineCoverage().getLinesUncovered().size();
+        int totalLines = test.getLineCoverage().getNumberOfLinesCovered()
+                + test.getLineCoverage().getNumberOfLinesUncovered();
 
-        float percentCovered = test.getLineCoverage().getLinesCovered().size() / (float) totalLines;
+        float percentCovered = test.getLineCoverage().getNumberOfLinesCovered() / (float) totalLines;
 
         return killedMutants.size() + (int) (game.getDefenderValue() * percentCovered);
     }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game.scoring;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codedefenders.database.MutantDAO;
+import org.codedefenders.model.Event;
+import org.codedefenders.util.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The scores of a single game, computed incrementally from its event log.
+ *
+ * <p>Events are applied one after the other with {@link #apply(Event)}, ordered by timestamp and then by id. The state
+ * remembers the id of the last applied event (its high-water mark), the latest applied timestamp and the number of
+ * applied events, so only newer events have to be applied later on, and deleted or out of order events can be
+ * detected. The state is serialized to JSON for the scoring checkpoints.
+ *
+ * <p>Instances are not thread-safe.
+ */
+class GameScoreState {
+    private static final Logger logger = LoggerFactory.getLogger(GameScoreState.class);
+
+    /**
+     * Version of the state format. Checkpoints with a different version are discarded.
+     */
+    static final int VERSION = 2;
+
+    private int version = VERSION;
+    private int lastEventId = 0;
+    private long lastEventTimestamp = 0;
+    private int appliedEvents = 0;
+    private int checkpointedEvents = 0;
+    /**
+     * Whether an event stopped the scoring. Later events are not applied anymore in this case, as the full replay of
+     * the event log did.
+     */
+    private boolean halted = false;
+
+    // TestID, Score
+    private Map<Integer, Integer> testsScore = new HashMap<>();
+    // MutantID, Score
+    private Map<Integer, Integer> mutantsScore = new HashMap<>();
+    // PlayerID, PointsForWinningDuels
+    private Map<Integer, Integer> duelsScore = new HashMap<>();
+    // MutantID, PlayerClaimingEquivalence
+    private Map<Integer, Integer> flaggedMutants = new HashMap<>();
+    // MutantID, PlayerID of the mutant's creator
+    private Map<Integer, Integer> mutantOwners = new HashMap<>();
+
+    int getVersion() {
+        return version;
+    }
+
+    int getLastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * Returns whether the event can be applied after the already applied events, i.e. whether it does not happen
+     * before any of them. Otherwise the scores would differ from a replay of the event log in order, since e.g. the
+     * points for killing a mutant depend on the points the mutant has at that time.
+     */
+    boolean canApplyInOrder(Event event) {
+        return event.getTimestamp() >= lastEventTimestamp;
+    }
+
+    int getAppliedEvents() {
+        return appliedEvents;
+    }
+
+    int getCheckpointedEvents() {
+        return checkpointedEvents;
+    }
+
+    void setCheckpointedEvents(int checkpointedEvents) {
+        this.checkpointedEvents = checkpointedEvents;
+    }
+
+    /**
+     * Discards all applied events.
+     */
+    void reset() {
+        lastEventId = 0;
+        lastEventTimestamp = 0;
+        appliedEvents = 0;
+        checkpointedEvents = 0;
+        halted = false;
+        testsScore.clear();
+        mutantsScore.clear();
+        duelsScore.clear();
+        flaggedMutants.clear();
+    }
+
+    /**
+     * Applies an event to the scores. Events have to be applied in the order they happened, see
+     * {@link #canApplyInOrder(Event)}.
+     *
+     * @param event the next event of the game.
+     * @throws IllegalStateException if the event cannot be parsed. The event is not applied in this case.
+     */
+    void apply(Event event) {
+        if (!halted && event.getUserId() == Constants.DUMMY_CREATOR_USER_ID) {
+            score(event);
+        }
+        lastEventId = Math.max(lastEventId, event.getId());
+        lastEventTimestamp = Math.max(lastEventTimestamp, event.getTimestamp());
+        appliedEvents++;
+    }
+
+    private void score(Event event) {
+        // Special case: Automatic Equivalence Duels events also have event.getUser().getId() == 1 but they
+        // have a 'normal' Message Payload so we need to short circuit otherwise the Message Payload extraction
+        // in the following lines will fail exceptionally ^^.
+        if (!event.getMessage().matches("[-0-9]*:[-0-9]*")) {
+            switch (event.getEventType()) {
+                case DEFENDER_MUTANT_CLAIMED_EQUIVALENT:
+                case PLAYER_MUTANT_CLAIMED_EQUIVALENT:
+                    // For this event types it can happen that the payload is not in the expected format.
+                    logger.debug("Ignored automatic triggered equivalence duel event");
+                    halted = true;
+                    return;
+                default:
+                    throw new IllegalStateException("Encountered non-parseable event while computing score. Type: "
+                            + event.getEventType() + " and Message: " + event.getMessage());
+            }
+        }
+        // Extract Message Payload
+        // The first field of the message is overloaded for lost equivalence duels
+        int testId = Integer.parseInt(event.getMessage().split(":")[0]);
+        int mutantId = Integer.parseInt(event.getMessage().split(":")[1]);
+        int mutantScore = mutantsScore.getOrDefault(mutantId, 0);
+
+        switch (event.getEventType()) {
+            case PLAYER_MUTANT_CLAIMED_EQUIVALENT:
+            case DEFENDER_MUTANT_CLAIMED_EQUIVALENT:
+                // Book-keeping that this mutant is flagged as equivalent by a user...
+                flaggedMutants.put(mutantId, testId);
+                break;
+            case PLAYER_WON_EQUIVALENT_DUEL:
+            case PLAYER_MUTANT_KILLED_EQUIVALENT:
+            case ATTACKER_MUTANT_KILLED_EQUIVALENT:
+                // Remove the mutant from the flagged mutants
+                flaggedMutants.remove(mutantId);
+                // Mutant is killed: we keep the mutant's points and the mutant's owner gets an extra duel point
+                int mutantOwnerPlayerId = mutantOwners.computeIfAbsent(mutantId,
+                        id -> MutantDAO.getMutantById(id).getPlayerId());
+                duelsScore.merge(mutantOwnerPlayerId, 1, Integer::sum);
+                break;
+            case PLAYER_LOST_EQUIVALENT_DUEL:
+            case DEFENDER_MUTANT_EQUIVALENT:
+            case PLAYER_MUTANT_EQUIVALENT:
+                // Remove the mutant from the flagged mutants but keep the playerId that flagged it
+                Integer playerId = flaggedMutants.remove(mutantId);
+                // Remove the points from the equivalent mutant
+                mutantsScore.put(mutantId, 0);
+                // Give one point to the player claiming the equivalence
+                if (playerId != null) {
+                    duelsScore.merge(playerId, 1, Integer::sum);
+                }
+                break;
+            case PLAYER_KILLED_MUTANT:
+            case DEFENDER_KILLED_MUTANT:
+                // We need +1 for killing the mutant +mutantScore for earning the points from the mutant
+                testsScore.merge(testId, mutantScore + 1, Integer::sum);
+                break;
+            case PLAYER_MUTANT_SURVIVED:
+            case ATTACKER_MUTANT_SURVIVED:
+                // We need +1 for each test that misses this mutant
+                mutantsScore.put(mutantId, mutantScore + 1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns a copy of the current scores.
+     */
+    GameScores getScores() {
+        return new GameScores(new HashMap<>(testsScore), new HashMap<>(mutantsScore), new HashMap<>(duelsScore));
+    }
+
+    /**
+     * Immutable scores of a game, as computed by a {@link GameScoreState}.
+     */
+    static class GameScores {
+        private final Map<Integer, Integer> testsScore;
+        private final Map<Integer, Integer> mutantsScore;
+        private final Map<Integer, Integer> duelsScore;
+
+        GameScores(Map<Integer, Integer> testsScore, Map<Integer, Integer> mutantsScore,
+                Map<Integer, Integer> duelsScore) {
+            this.testsScore = Collections.unmodifiableMap(testsScore);
+            this.mutantsScore = Collections.unmodifiableMap(mutantsScore);
+            this.duelsScore = Collections.unmodifiableMap(duelsScore);
+        }
+
+        int getTestScore(int testId) {
+            return testsScore.getOrDefault(testId, 0);
+        }
+
+        int getMutantScore(int mutantId) {
+            return mutantsScore.getOrDefault(mutantId, 0);
+        }
+
+        int getDuelScore(int playerId) {
+            return duelsScore.getOrDefault(playerId, 0);
+        }
+    }
+}
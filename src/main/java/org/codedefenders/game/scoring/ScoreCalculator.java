@@ -16,6 +16,7 @@ import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Test;
 import org.codedefenders.game.multiplayer.PlayerScore;
 import org.codedefenders.model.Player;
+import org.codedefenders.service.LeaderboardService;
 
 /**
  * This class uses a ScoringPolicy to compute each players' attacking/mutants
@@ -30,10 +31,12 @@ import org.codedefenders.model.Player;
 public class ScoreCalculator {
 
     private final IScoringPolicy scoringPolicy;
+    private final LeaderboardService leaderboardService;
 
     @Inject
-    public ScoreCalculator(@Named("basic") IScoringPolicy scoringPolicy) {
+    public ScoreCalculator(@Named("basic") IScoringPolicy scoringPolicy, LeaderboardService leaderboardService) {
         this.scoringPolicy = scoringPolicy;
+        this.leaderboardService = leaderboardService;
     }
 
     /**
@@ -129,5 +132,6 @@ public class ScoreCalculator {
             scoringPolicy.scoreDuels(playerScore);
             PlayerDAO.setPlayerPoints(playerScore.getTotalScore(), player.getId());
         }
+        leaderboardService.markGameChanged(gameId);
     }
 }
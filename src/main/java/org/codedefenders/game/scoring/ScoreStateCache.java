@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game.scoring;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.codedefenders.database.EventDAO;
+import org.codedefenders.game.scoring.GameScoreState.GameScores;
+import org.codedefenders.model.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Keeps the {@link GameScoreState scoring state} of recently scored games in memory and brings it up to date with the
+ * event log of the game.
+ *
+ * <p>Only the events newer than the high-water mark of a state are loaded and applied. If events up to the high-water
+ * mark were deleted (e.g. because a player left the game), or if a new event happened before already applied events
+ * (e.g. because it was committed late), the event log is replayed from the start. Every
+ * {@link #CHECKPOINT_INTERVAL} applied events the state is stored as checkpoint in the database, so games which are
+ * not in memory anymore (or after a restart) do not have to be replayed from the start either.
+ */
+@Singleton
+public class ScoreStateCache {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreStateCache.class);
+
+    /**
+     * Maximum number of games whose scoring state is kept in memory.
+     */
+    private static final int MAX_CACHED_GAMES = 200;
+
+    /**
+     * Number of applied events after which a new checkpoint is stored.
+     */
+    static final int CHECKPOINT_INTERVAL = 50;
+
+    private final EventDAO eventDAO;
+    private final Gson gson = new Gson();
+    private final Cache<Integer, GameScoreState> stateForGameId = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_GAMES)
+            .build();
+
+    @Inject
+    public ScoreStateCache(EventDAO eventDAO) {
+        this.eventDAO = eventDAO;
+    }
+
+    /**
+     * Returns the current scores of a game, i.e. the scores after applying all events of the game.
+     *
+     * @param gameId the id of the game.
+     * @return the scores of the game.
+     */
+    GameScores getScores(int gameId) {
+        GameScoreState state;
+        try {
+            state = stateForGameId.get(gameId, () -> loadCheckpoint(gameId));
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+
+        synchronized (state) {
+            if (state.getAppliedEvents() != eventDAO.countEventsForGameUpTo(gameId, state.getLastEventId())) {
+                logger.info("Events of game {} were removed or committed late, replaying its event log.", gameId);
+                state.reset();
+            }
+
+            List<Event> events = getEventsInOrder(gameId, state.getLastEventId());
+            if (!events.isEmpty() && !state.canApplyInOrder(events.get(0))) {
+                logger.info("Event {} of game {} happened before already applied events, replaying its event log.",
+                        events.get(0).getId(), gameId);
+                state.reset();
+                events = getEventsInOrder(gameId, 0);
+            }
+            for (Event event : events) {
+                state.apply(event);
+            }
+
+            if (state.getAppliedEvents() - state.getCheckpointedEvents() >= CHECKPOINT_INTERVAL) {
+                state.setCheckpointedEvents(state.getAppliedEvents());
+                eventDAO.storeScoringCheckpoint(gameId, state.getLastEventId(), gson.toJson(state));
+            }
+            return state.getScores();
+        }
+    }
+
+    /**
+     * Returns the events of a game after the given event id, ordered by timestamp and then by id.
+     */
+    private List<Event> getEventsInOrder(int gameId, int afterEventId) {
+        List<Event> events = eventDAO.getEventsForGameAfter(gameId, afterEventId);
+        // The events are ordered by id, the stable sort keeps this order for events with the same timestamp.
+        events.sort(Comparator.comparing(Event::getTimestamp));
+        return events;
+    }
+
+    private GameScoreState loadCheckpoint(int gameId) {
+        String checkpoint = eventDAO.getScoringCheckpoint(gameId);
+        if (checkpoint != null) {
+            try {
+                GameScoreState state = gson.fromJson(checkpoint, GameScoreState.class);
+                if (state != null && state.getVersion() == GameScoreState.VERSION) {
+                    return state;
+                }
+            } catch (JsonParseException e) {
+                logger.warn("Could not read scoring checkpoint of game " + gameId + ", replaying its event log.", e);
+            }
+        }
+        return new GameScoreState();
+    }
+}
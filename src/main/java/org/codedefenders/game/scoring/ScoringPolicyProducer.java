@@ -3,13 +3,11 @@ package org.codedefenders.game.scoring;
 import javax.enterprise.inject.Produces;
 import javax.inject.Named;
 
-import org.codedefenders.database.EventDAO;
-
 public class ScoringPolicyProducer {
 
     @Produces
     @Named("basic")
-    public IScoringPolicy getTheBasicPolicy(EventDAO eventDAO) {
-        return new DefaultScoringPolicy(eventDAO);
+    public IScoringPolicy getTheBasicPolicy(ScoreStateCache scoreStateCache) {
+        return new DefaultScoringPolicy(scoreStateCache);
     }
 }
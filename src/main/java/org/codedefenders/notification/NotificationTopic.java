@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification;
+
+import java.util.Objects;
+
+/**
+ * A topic server events are dispatched by. An event is only delivered to handlers which subscribed to at least one
+ * of its topics.
+ *
+ * @see org.codedefenders.notification.events.server.ServerEvent#getTopics()
+ * @see org.codedefenders.notification.handling.server.ServerEventHandler#getTopics()
+ */
+public final class NotificationTopic {
+    public enum Kind {
+        GAME,
+        USER,
+        TICKET
+    }
+
+    private final Kind kind;
+    private final String key;
+
+    private NotificationTopic(Kind kind, String key) {
+        this.kind = kind;
+        this.key = key;
+    }
+
+    public static NotificationTopic game(int gameId) {
+        return new NotificationTopic(Kind.GAME, String.valueOf(gameId));
+    }
+
+    public static NotificationTopic user(int userId) {
+        return new NotificationTopic(Kind.USER, String.valueOf(userId));
+    }
+
+    public static NotificationTopic ticket(String ticket) {
+        return new NotificationTopic(Kind.TICKET, Objects.requireNonNull(ticket));
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        NotificationTopic that = (NotificationTopic) o;
+        return kind == that.kind
+                && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, key);
+    }
+
+    @Override
+    public String toString() {
+        return kind.name().toLowerCase() + ":" + key;
+    }
+}
@@ -1,5 +1,9 @@
 package org.codedefenders.notification.events.server;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codedefenders.notification.NotificationTopic;
 import org.codedefenders.notification.impl.NotificationService;
 import org.codedefenders.notification.web.EventEncoder;
 
@@ -40,4 +44,17 @@ public abstract class ServerEvent {
     public void setTicket(String ticket) {
         this.ticket = ticket;
     }
+
+    /**
+     * Get the topics this event is dispatched to. Subclasses add the topics of the game or user they belong to.
+     *
+     * @return The topics of this event, including the topic of the ticket if one is set.
+     */
+    public List<NotificationTopic> getTopics() {
+        List<NotificationTopic> topics = new ArrayList<>();
+        if (ticket != null) {
+            topics.add(NotificationTopic.ticket(ticket));
+        }
+        return topics;
+    }
 }
@@ -1,6 +1,9 @@
 package org.codedefenders.notification.events.server.chat;
 
+import java.util.List;
+
 import org.codedefenders.game.Role;
+import org.codedefenders.notification.NotificationTopic;
 
 import com.google.gson.annotations.Expose;
 
@@ -70,4 +73,11 @@ public class ServerGameChatEvent extends ServerChatEvent {
     public void setGameId(int gameId) {
         this.gameId = gameId;
     }
+
+    @Override
+    public List<NotificationTopic> getTopics() {
+        List<NotificationTopic> topics = super.getTopics();
+        topics.add(NotificationTopic.game(gameId));
+        return topics;
+    }
 }
@@ -1,5 +1,8 @@
 package org.codedefenders.notification.events.server.game;
 
+import java.util.List;
+
+import org.codedefenders.notification.NotificationTopic;
 import org.codedefenders.notification.events.server.ServerEvent;
 
 import com.google.gson.annotations.Expose;
@@ -20,4 +23,11 @@ public abstract class GameLifecycleEvent extends ServerEvent {
     public void setGameId(int gameId) {
         this.gameId = gameId;
     }
+
+    @Override
+    public List<NotificationTopic> getTopics() {
+        List<NotificationTopic> topics = super.getTopics();
+        topics.add(NotificationTopic.game(gameId));
+        return topics;
+    }
 }
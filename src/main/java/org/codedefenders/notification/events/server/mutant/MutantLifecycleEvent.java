@@ -1,5 +1,8 @@
 package org.codedefenders.notification.events.server.mutant;
 
+import java.util.List;
+
+import org.codedefenders.notification.NotificationTopic;
 import org.codedefenders.notification.events.server.ServerEvent;
 
 import com.google.gson.annotations.Expose;
@@ -33,4 +36,12 @@ public abstract class MutantLifecycleEvent extends ServerEvent {
     public void setGameId(int gameId) {
         this.gameId = gameId;
     }
+
+    @Override
+    public List<NotificationTopic> getTopics() {
+        List<NotificationTopic> topics = super.getTopics();
+        topics.add(NotificationTopic.game(gameId));
+        topics.add(NotificationTopic.user(userId));
+        return topics;
+    }
 }
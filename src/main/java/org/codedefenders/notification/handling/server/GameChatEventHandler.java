@@ -1,11 +1,14 @@
 package org.codedefenders.notification.handling.server;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Objects;
 
 import javax.websocket.EncodeException;
 
 import org.codedefenders.game.Role;
+import org.codedefenders.notification.NotificationTopic;
 import org.codedefenders.notification.events.server.chat.ServerGameChatEvent;
 import org.codedefenders.notification.events.server.chat.ServerSystemChatEvent;
 import org.codedefenders.notification.web.PushSocket;
@@ -37,6 +40,11 @@ public class GameChatEventHandler implements ServerEventHandler {
         return role;
     }
 
+    @Override
+    public Collection<NotificationTopic> getTopics() {
+        return Arrays.asList(NotificationTopic.game(gameId), NotificationTopic.ticket(ticket));
+    }
+
     @Subscribe
     public void sendChatMessage(ServerGameChatEvent event) throws IOException, EncodeException {
         if (event.getGameId() == this.gameId) {
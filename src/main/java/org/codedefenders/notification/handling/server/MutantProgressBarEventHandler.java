@@ -1,10 +1,13 @@
 package org.codedefenders.notification.handling.server;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Objects;
 
 import javax.websocket.EncodeException;
 
+import org.codedefenders.notification.NotificationTopic;
 import org.codedefenders.notification.events.server.mutant.MutantLifecycleEvent;
 import org.codedefenders.notification.web.PushSocket;
 import org.slf4j.Logger;
@@ -33,6 +36,11 @@ public class MutantProgressBarEventHandler implements ServerEventHandler {
         return userId;
     }
 
+    @Override
+    public Collection<NotificationTopic> getTopics() {
+        return Arrays.asList(NotificationTopic.game(gameId), NotificationTopic.user(userId));
+    }
+
     @Subscribe
     public void updateProgressBar(MutantLifecycleEvent event) throws IOException, EncodeException {
         if (this.gameId == event.getGameId() || this.userId == event.getUserId()) {
@@ -1,5 +1,8 @@
 package org.codedefenders.notification.handling.server;
 
+import java.util.Collection;
+
+import org.codedefenders.notification.NotificationTopic;
 import org.codedefenders.notification.impl.NotificationService;
 import org.codedefenders.notification.web.PushSocket;
 
@@ -8,4 +11,12 @@ import org.codedefenders.notification.web.PushSocket;
  * and sends outgoing events with a {@link PushSocket}.
  */
 public interface ServerEventHandler {
+    /**
+     * Returns the topics this handler is subscribed to. The {@link NotificationService} only delivers events that
+     * share at least one topic with the handler, the handler still has to filter the events it is given.
+     * The topics must not change while the handler is registered.
+     *
+     * @return The topics of this handler.
+     */
+    Collection<NotificationTopic> getTopics();
 }
@@ -18,19 +18,30 @@
  */
 package org.codedefenders.notification.impl;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.ManagedBean;
 import javax.annotation.PreDestroy;
 import javax.inject.Singleton;
 
 import org.codedefenders.notification.INotificationService;
+import org.codedefenders.notification.NotificationTopic;
+import org.codedefenders.notification.events.server.ServerEvent;
+import org.codedefenders.notification.handling.server.ServerEventHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.SubscriberExceptionHandler;
 import com.google.gson.Gson;
 
 /**
@@ -38,6 +49,11 @@ import com.google.gson.Gson;
  * This service behaves like a singleton in the app.
  * See https://docs.oracle.com/javaee/6/api/javax/enterprise/context/ApplicationScoped.html
  *
+ * <p>{@link ServerEventHandler ServerEventHandlers} (one set per open WebSocket) are indexed by their
+ * {@link NotificationTopic topics}, so a {@link ServerEvent} is only handed to the handlers of its game, user or
+ * ticket instead of every handler on the server. All other event handlers (services) receive every posted event
+ * through a single event bus, as before.
+ *
  * @author gambi
  */
 @ManagedBean
@@ -46,40 +62,205 @@ public class NotificationService implements INotificationService {
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
     private static final int NUM_THREADS = 8;
 
+    @SuppressWarnings("UnstableApiUsage")
+    private static final SubscriberExceptionHandler EXCEPTION_HANDLER = (exception, context) -> {
+        logger.warn("Got {} while calling notification handler.", exception.getClass().getSimpleName(), exception);
+        logger.warn("Event was: {}", new Gson().toJson(context.getEvent()));
+    };
+
     private final ExecutorService executor;
 
     @SuppressWarnings("UnstableApiUsage")
     private final EventBus eventBus;
 
+    /**
+     * The subscriptions of the {@link ServerEventHandler ServerEventHandlers} by topic. The sets are only modified
+     * inside {@code compute} calls of the map, so registrations for different topics do not block each other, and
+     * dispatching events reads them without locking.
+     */
+    private final ConcurrentMap<NotificationTopic, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    private final LongAdder dispatchedEvents = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder deliveryNanos = new LongAdder();
+    private final AtomicLong maxDeliveryNanos = new AtomicLong();
+
     public NotificationService() {
         executor = Executors.newFixedThreadPool(NUM_THREADS);
         //noinspection UnstableApiUsage
-        eventBus = new AsyncEventBus(executor, ((exception, context) -> {
-            logger.warn("Got {} while calling notification handler.", exception.getClass().getSimpleName(), exception);
-            logger.warn("Event was: {}", new Gson().toJson(context.getEvent()));
-        }));
+        eventBus = new AsyncEventBus(executor, EXCEPTION_HANDLER);
     }
 
     @Override
     public void post(Object message) {
         //noinspection UnstableApiUsage
         eventBus.post(message);
+        if (message instanceof ServerEvent) {
+            dispatch((ServerEvent) message);
+        }
     }
 
     @Override
     public void register(Object eventHandler) {
-        //noinspection UnstableApiUsage
-        eventBus.register(eventHandler);
+        if (eventHandler instanceof ServerEventHandler) {
+            ServerEventHandler handler = (ServerEventHandler) eventHandler;
+            Subscription subscription = new Subscription(handler);
+            for (NotificationTopic topic : handler.getTopics()) {
+                subscriptions.compute(topic, (t, topicSubscriptions) -> {
+                    if (topicSubscriptions == null) {
+                        topicSubscriptions = ConcurrentHashMap.newKeySet();
+                    }
+                    topicSubscriptions.add(subscription);
+                    return topicSubscriptions;
+                });
+            }
+        } else {
+            //noinspection UnstableApiUsage
+            eventBus.register(eventHandler);
+        }
     }
 
     @Override
     public void unregister(Object eventHandler) {
-        //noinspection UnstableApiUsage
-        eventBus.unregister(eventHandler);
+        if (eventHandler instanceof ServerEventHandler) {
+            ServerEventHandler handler = (ServerEventHandler) eventHandler;
+            for (NotificationTopic topic : handler.getTopics()) {
+                subscriptions.computeIfPresent(topic, (t, topicSubscriptions) -> {
+                    topicSubscriptions.removeIf(subscription -> subscription.handler == handler);
+                    return topicSubscriptions.isEmpty() ? null : topicSubscriptions;
+                });
+            }
+        } else {
+            //noinspection UnstableApiUsage
+            eventBus.unregister(eventHandler);
+        }
+    }
+
+    /**
+     * Hands the event to every subscription of at least one of its topics. Each subscription receives the event
+     * once, even if it shares several topics with it.
+     */
+    private void dispatch(ServerEvent event) {
+        long start = System.nanoTime();
+        dispatchedEvents.increment();
+
+        Set<Subscription> targets = new HashSet<>();
+        for (NotificationTopic topic : event.getTopics()) {
+            targets.addAll(subscriptions.getOrDefault(topic, Collections.emptySet()));
+        }
+
+        for (Subscription subscription : targets) {
+            executor.execute(() -> {
+                subscription.post(event);
+                long nanos = System.nanoTime() - start;
+                deliveries.increment();
+                deliveryNanos.add(nanos);
+                maxDeliveryNanos.accumulateAndGet(nanos, Math::max);
+            });
+        }
+    }
+
+    /**
+     * Returns a snapshot of the dispatch statistics of the {@link ServerEventHandler ServerEventHandlers}.
+     */
+    public DispatchStatistics getDispatchStatistics() {
+        int subscriptionCount = 0;
+        for (Set<Subscription> topicSubscriptions : subscriptions.values()) {
+            subscriptionCount += topicSubscriptions.size();
+        }
+        return new DispatchStatistics(subscriptions.size(), subscriptionCount, dispatchedEvents.sum(),
+                deliveries.sum(), deliveryNanos.sum(), maxDeliveryNanos.get());
     }
 
     @PreDestroy
     public void shutdown() {
         executor.shutdown();
     }
+
+    /**
+     * A registered {@link ServerEventHandler}. The handler gets its own synchronous event bus, which calls the
+     * {@code @Subscribe} methods matching the event type, like the shared event bus did.
+     */
+    private static class Subscription {
+        private final ServerEventHandler handler;
+
+        @SuppressWarnings("UnstableApiUsage")
+        private final EventBus handlerBus;
+
+        Subscription(ServerEventHandler handler) {
+            this.handler = handler;
+            //noinspection UnstableApiUsage
+            this.handlerBus = new EventBus(EXCEPTION_HANDLER);
+            //noinspection UnstableApiUsage
+            this.handlerBus.register(handler);
+        }
+
+        void post(ServerEvent event) {
+            //noinspection UnstableApiUsage
+            handlerBus.post(event);
+        }
+    }
+
+    /**
+     * A snapshot of the topic index and of the time it took from posting a {@link ServerEvent} until a handler
+     * processed it.
+     */
+    public static class DispatchStatistics {
+        private final int topics;
+        private final int subscriptions;
+        private final long dispatchedEvents;
+        private final long deliveries;
+        private final long totalDeliveryNanos;
+        private final long maxDeliveryNanos;
+
+        DispatchStatistics(int topics, int subscriptions, long dispatchedEvents, long deliveries,
+                long totalDeliveryNanos, long maxDeliveryNanos) {
+            this.topics = topics;
+            this.subscriptions = subscriptions;
+            this.dispatchedEvents = dispatchedEvents;
+            this.deliveries = deliveries;
+            this.totalDeliveryNanos = totalDeliveryNanos;
+            this.maxDeliveryNanos = maxDeliveryNanos;
+        }
+
+        public int getTopics() {
+            return topics;
+        }
+
+        /**
+         * Returns the number of handler subscriptions over all topics.
+         */
+        public int getSubscriptions() {
+            return subscriptions;
+        }
+
+        public long getDispatchedEvents() {
+            return dispatchedEvents;
+        }
+
+        public long getDeliveries() {
+            return deliveries;
+        }
+
+        /**
+         * Returns the average number of handlers a server event was delivered to.
+         */
+        public double getAverageFanOut() {
+            return dispatchedEvents == 0 ? 0 : (double) deliveries / dispatchedEvents;
+        }
+
+        /**
+         * Returns the average time in milliseconds from posting an event until a handler processed it.
+         */
+        public double getAverageLatencyMillis() {
+            return deliveries == 0 ? 0 : totalDeliveryNanos / 1e6 / deliveries;
+        }
+
+        /**
+         * Returns the longest time in milliseconds from posting an event until a handler processed it.
+         */
+        public double getMaxLatencyMillis() {
+            return maxDeliveryNanos / 1e6;
+        }
+    }
 }
@@ -6,17 +6,37 @@ import javax.websocket.EndpointConfig;
 import org.codedefenders.notification.events.EventNames;
 import org.codedefenders.notification.events.server.ServerEvent;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 
 /**
  * Encodes server events to a JSON string with a "{type: string, data: {}}" format.
+ * The encoder can be shared between threads.
+ *
+ * <p>The same event instance is usually sent to many sessions, e.g. a chat message to every player of a game.
+ * Each event is therefore only encoded once, and all sessions send the same message. Events must not be modified
+ * after they were posted.
  * @see ServerEvent
  * @see EventNames
  * @see PushSocket
  */
 public class EventEncoder implements Encoder.Text<ServerEvent> {
+    private static final Gson gson = new GsonBuilder()
+            .excludeFieldsWithoutExposeAnnotation()
+            .serializeNulls()
+            .create();
+
+    /**
+     * The encoded messages by event. Keys are compared by identity and only weakly referenced, so an entry is
+     * removed once the event was sent to all sessions.
+     */
+    private static final Cache<ServerEvent, String> encodedEvents = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
     @Override
     public void init(EndpointConfig endpointConfig) {
     }
@@ -27,11 +47,10 @@ public class EventEncoder implements Encoder.Text<ServerEvent> {
 
     @Override
     public String encode(ServerEvent event) {
-        Gson gson = new GsonBuilder()
-                .excludeFieldsWithoutExposeAnnotation()
-                .serializeNulls()
-                .create();
+        return encodedEvents.asMap().computeIfAbsent(event, EventEncoder::toJson);
+    }
 
+    private static String toJson(ServerEvent event) {
         JsonObject message = new JsonObject();
         message.addProperty("type", EventNames.toServerEventName(event.getClass()));
         message.add("data", gson.toJsonTree(event));
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification.web;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+import javax.websocket.CloseReason;
+import javax.websocket.CloseReason.CloseCodes;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import org.codedefenders.notification.events.server.ServerEvent;
+import org.codedefenders.notification.events.server.mutant.MutantLifecycleEvent;
+import org.codedefenders.notification.events.server.test.TestLifecycleEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the server events of a single WebSocket session without blocking the caller.
+ *
+ * <p>Events are put into a bounded queue, which is drained with the asynchronous remote of the session, one message
+ * at a time. Progress bar events only carry the latest state of a submission, so a queued progress bar event is
+ * replaced by a newer one of the same user and game instead of queueing both. If the queue is full, further events
+ * are dropped. If the client does not accept a message within the send timeout, the session is closed, and the client
+ * has to reconnect.
+ */
+class EventSender {
+    private static final Logger logger = LoggerFactory.getLogger(EventSender.class);
+
+    private static final EventEncoder encoder = new EventEncoder();
+
+    private final Session session;
+    private final int capacity;
+
+    // Guarded by this.
+    private final Deque<QueuedEvent> queue = new ArrayDeque<>();
+    private boolean sending = false;
+    private boolean closed = false;
+    private long droppedEvents = 0;
+
+    /**
+     * @param session The session to send the events to.
+     * @param capacity The maximum number of queued events.
+     * @param sendTimeoutMillis The time in milliseconds after which a message the client did not accept fails.
+     */
+    EventSender(Session session, int capacity, long sendTimeoutMillis) {
+        this.session = session;
+        this.capacity = capacity;
+        session.getAsyncRemote().setSendTimeout(sendTimeoutMillis);
+    }
+
+    /**
+     * Queues an event for sending and returns immediately.
+     *
+     * @param event The event to send.
+     */
+    void send(ServerEvent event) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            Object key = coalescingKey(event);
+            if (key != null && replaceQueued(key, event)) {
+                return;
+            }
+
+            if (queue.size() >= capacity) {
+                droppedEvents++;
+                if (droppedEvents == 1 || droppedEvents % capacity == 0) {
+                    logger.warn("Client of session {} is too slow, dropped {} events so far.",
+                            session.getId(), droppedEvents);
+                }
+                return;
+            }
+
+            queue.addLast(new QueuedEvent(key, event));
+            if (sending) {
+                return;
+            }
+            sending = true;
+        }
+        sendNext();
+    }
+
+    /**
+     * Discards all queued events. Events sent afterwards are ignored.
+     */
+    synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    private boolean replaceQueued(Object key, ServerEvent event) {
+        Iterator<QueuedEvent> it = queue.descendingIterator();
+        while (it.hasNext()) {
+            QueuedEvent queued = it.next();
+            if (key.equals(queued.key)) {
+                queued.event = event;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends the first queued event. Only one message is in flight at a time, the next one is sent once the
+     * previous one completed.
+     */
+    private void sendNext() {
+        QueuedEvent next;
+        synchronized (this) {
+            next = queue.pollFirst();
+            if (next == null || closed) {
+                sending = false;
+                return;
+            }
+        }
+
+        String message;
+        try {
+            message = encoder.encode(next.event);
+        } catch (RuntimeException e) {
+            logger.error("Exception while encoding event.", e);
+            sendNext();
+            return;
+        }
+
+        try {
+            session.getAsyncRemote().sendText(message, this::onResult);
+        } catch (RuntimeException e) {
+            // The session was closed concurrently.
+            logger.debug("Could not send event to session {}.", session.getId(), e);
+            close();
+            synchronized (this) {
+                sending = false;
+            }
+        }
+    }
+
+    private void onResult(SendResult result) {
+        if (!result.isOK()) {
+            logger.warn("Could not send event to session {}, closing it.", session.getId(), result.getException());
+            close();
+            synchronized (this) {
+                sending = false;
+            }
+            try {
+                session.close(new CloseReason(CloseCodes.TRY_AGAIN_LATER, "Could not deliver events"));
+            } catch (IOException e) {
+                logger.debug("Exception while closing session {}.", session.getId(), e);
+            }
+            return;
+        }
+        sendNext();
+    }
+
+    /**
+     * Returns the key queued events are replaced by, or {@code null} if the event must not be replaced.
+     */
+    private static Object coalescingKey(ServerEvent event) {
+        if (event instanceof MutantLifecycleEvent) {
+            MutantLifecycleEvent mutantEvent = (MutantLifecycleEvent) event;
+            return Arrays.asList(MutantLifecycleEvent.class, mutantEvent.getGameId(), mutantEvent.getUserId());
+        } else if (event instanceof TestLifecycleEvent) {
+            TestLifecycleEvent testEvent = (TestLifecycleEvent) event;
+            return Arrays.asList(TestLifecycleEvent.class, testEvent.getGameId(), testEvent.getUserId());
+        }
+        return null;
+    }
+
+    private static class QueuedEvent {
+        private final Object key;
+        private ServerEvent event;
+
+        QueuedEvent(Object key, ServerEvent event) {
+            this.key = key;
+            this.event = event;
+        }
+    }
+}
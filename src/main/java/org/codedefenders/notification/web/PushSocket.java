@@ -23,7 +23,6 @@ import java.util.Optional;
 
 import javax.websocket.CloseReason;
 import javax.websocket.CloseReason.CloseCodes;
-import javax.websocket.EncodeException;
 import javax.websocket.OnClose;
 import javax.websocket.OnError;
 import javax.websocket.OnMessage;
@@ -87,6 +86,16 @@ public class PushSocket {
     // TODO Make an Inject for this
     private static final Logger logger = LoggerFactory.getLogger(PushSocket.class);
 
+    /**
+     * Maximum number of events queued for a session before further events are dropped.
+     */
+    private static final int MAX_QUEUED_EVENTS = 100;
+
+    /**
+     * Time in milliseconds a client may take to accept a message before its session is closed.
+     */
+    private static final long SEND_TIMEOUT_MILLIS = 10000;
+
     // @Inject
     private final INotificationService notificationService;
 
@@ -107,6 +116,7 @@ public class PushSocket {
     private ServerEventHandlerContainer serverEventHandlerContainer;
 
     private Session session;
+    private EventSender eventSender;
 
     public PushSocket() {
         // Since @Inject does not work with WebSocket ...
@@ -146,6 +156,7 @@ public class PushSocket {
         this.serverEventHandlerContainer = new ServerEventHandlerContainer(notificationService, this, user.get(), ticket);
         this.clientEventHandler = new ClientEventHandler(notificationService, serverEventHandlerContainer, user.get(), ticket);
         this.session = session;
+        this.eventSender = new EventSender(session, MAX_QUEUED_EVENTS, SEND_TIMEOUT_MILLIS);
 
         open = true;
     }
@@ -159,6 +170,7 @@ public class PushSocket {
                for progress-bars on Firefox. */
             // ticketingServices.invalidateTicket(this.ticket);
             serverEventHandlerContainer.unregisterAll();
+            eventSender.close();
         }
     }
 
@@ -172,15 +184,13 @@ public class PushSocket {
         logger.error("Session " + session + " caused an error. Cause: ", throwable);
     }
 
-    // TODO: error handling?
-    public synchronized void sendEvent(ServerEvent event) {
-        try {
-            // TODO: asyncRemote?
-            session.getBasicRemote().sendObject(event);
-        } catch (IOException e) {
-            logger.error("Exception while sending event.", e);
-        } catch (EncodeException e) {
-            logger.error("Exception while encoding event.", e);
-        }
+    /**
+     * Queues an event for sending to the client. This does not wait for the client, so a slow client never blocks the
+     * notification threads.
+     *
+     * @param event The event to send.
+     */
+    public void sendEvent(ServerEvent event) {
+        eventSender.send(event);
     }
 }
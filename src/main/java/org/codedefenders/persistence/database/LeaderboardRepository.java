@@ -22,8 +22,10 @@ package org.codedefenders.persistence.database;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 import javax.enterprise.context.ApplicationScoped;
@@ -43,31 +45,46 @@ public class LeaderboardRepository {
 
     private final ConnectionFactory connectionFactory;
 
-    private static final String baseQuery = "SELECT U.username AS username, "
-            + "  IFNULL(NMutants,0) AS NMutants, "
-            + "  IFNULL(AScore,0) AS AScore, "
-            + "  IFNULL(NTests,0) AS NTests, "
-            + "  IFNULL(DScore,0) AS DScore, "
-            + "  IFNULL(NKilled,0) AS NKilled, "
-            + "  IFNULL(AScore,0)+IFNULL(DScore,0)+IFNULL(EScore,0) AS TotalScore "
-            + "FROM view_valid_users U "
-            + "LEFT JOIN ("
-            + "    SELECT PA.user_id, count(M.Mutant_ID) AS NMutants, sum(M.Points) AS AScore "
-            + "    FROM players PA "
-            + "    LEFT JOIN mutants M ON PA.id = M.Player_ID "
-            + "    GROUP BY PA.user_id"
-            + ") AS Attacker ON U.user_id = Attacker.user_id "
-            + "LEFT JOIN ("
-            + "    SELECT PD.user_id, count(T.Test_ID) AS NTests, sum(T.Points) AS DScore, sum(T.MutantsKilled) AS NKilled "
-            + "    FROM players PD "
-            + "    LEFT JOIN tests T ON PD.id = T.Player_ID "
-            + "    GROUP BY PD.user_id"
-            + ") AS Defender ON U.user_id = Defender.user_id "
-            + "LEFT JOIN ("
-            + "    SELECT PE.user_id, sum(PE.Points) AS EScore "
-            + "    FROM players PE "
-            + "    GROUP BY PE.user_id"
-            + ") AS Player ON U.User_ID = Player.User_ID ";
+    /**
+     * Builds the leaderboard query. The given condition restricts the users, it is applied to the outer query as well
+     * as to the grouped subqueries, so only the rows of these users are aggregated.
+     *
+     * @param userCondition a condition on a {@code user_id} column, e.g. {@code "IN (?, ?)"}, or an empty string.
+     */
+    private static String buildQuery(String userCondition) {
+        String where = userCondition.isEmpty() ? "" : "    WHERE %s.user_id " + userCondition + " ";
+        return "SELECT U.user_id AS userId, "
+                + "  U.username AS username, "
+                + "  IFNULL(NMutants,0) AS NMutants, "
+                + "  IFNULL(AScore,0) AS AScore, "
+                + "  IFNULL(NTests,0) AS NTests, "
+                + "  IFNULL(DScore,0) AS DScore, "
+                + "  IFNULL(NKilled,0) AS NKilled, "
+                + "  IFNULL(AScore,0)+IFNULL(DScore,0)+IFNULL(EScore,0) AS TotalScore "
+                + "FROM view_valid_users U "
+                + "LEFT JOIN ("
+                + "    SELECT PA.user_id, count(M.Mutant_ID) AS NMutants, sum(M.Points) AS AScore "
+                + "    FROM players PA "
+                + "    LEFT JOIN mutants M ON PA.id = M.Player_ID "
+                + String.format(where, "PA")
+                + "    GROUP BY PA.user_id"
+                + ") AS Attacker ON U.user_id = Attacker.user_id "
+                + "LEFT JOIN ("
+                + "    SELECT PD.user_id, count(T.Test_ID) AS NTests, sum(T.Points) AS DScore, "
+                + "      sum(T.MutantsKilled) AS NKilled "
+                + "    FROM players PD "
+                + "    LEFT JOIN tests T ON PD.id = T.Player_ID "
+                + String.format(where, "PD")
+                + "    GROUP BY PD.user_id"
+                + ") AS Defender ON U.user_id = Defender.user_id "
+                + "LEFT JOIN ("
+                + "    SELECT PE.user_id, sum(PE.Points) AS EScore "
+                + "    FROM players PE "
+                + String.format(where, "PE")
+                + "    GROUP BY PE.user_id"
+                + ") AS Player ON U.User_ID = Player.User_ID "
+                + (userCondition.isEmpty() ? "" : "WHERE U.user_id " + userCondition);
+    }
 
     @Inject
     public LeaderboardRepository(ConnectionFactory connectionFactory) {
@@ -76,7 +93,7 @@ public class LeaderboardRepository {
 
     @Nonnull
     public List<LeaderboardEntryEntity> getLeaderboard() {
-        String query = baseQuery
+        String query = buildQuery("")
                 + ";";
 
         try {
@@ -89,15 +106,49 @@ public class LeaderboardRepository {
         return new ArrayList<>();
     }
 
+    /**
+     * Returns the leaderboard entries of all users who play or played in one of the given games.
+     *
+     * @param gameIds the ids of the games.
+     * @return the entries of the players of the games, in no particular order.
+     */
+    @Nonnull
+    public List<LeaderboardEntryEntity> getLeaderboardForGames(@Nonnull Collection<Integer> gameIds) {
+        if (gameIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String gamePlaceholders = gameIds.stream()
+                .map(gameId -> "?")
+                .collect(Collectors.joining(", "));
+        String query = buildQuery("IN (SELECT User_ID FROM players WHERE Game_ID IN (" + gamePlaceholders + "))")
+                + ";";
+
+        // The condition is used four times, once in each subquery and once in the outer query.
+        List<Object> params = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            params.addAll(gameIds);
+        }
+
+        try {
+            return connectionFactory.getQueryRunner()
+                    .query(query, rs -> listFromRS(rs, LeaderboardRepository::leaderboardEntryFromRS),
+                            params.toArray());
+        } catch (SQLException e) {
+            logger.error("Exception while querying leaderboard for games {}", gameIds, e);
+        }
+
+        return new ArrayList<>();
+    }
+
     @Nonnull
     public Optional<LeaderboardEntryEntity> getScore(int userId) {
-        String query = baseQuery
-                + " WHERE U.user_id = ?;";
+        String query = buildQuery("= ?")
+                + ";";
 
         try {
             return connectionFactory.getQueryRunner()
                     .query(query, rs -> nextFromRS(rs, LeaderboardRepository::leaderboardEntryFromRS),
-                            userId);
+                            userId, userId, userId, userId);
         } catch (SQLException e) {
             logger.error("Exception while querying score for userId {}", userId, e);
         }
@@ -106,6 +157,7 @@ public class LeaderboardRepository {
 
     private static LeaderboardEntryEntity leaderboardEntryFromRS(ResultSet rs) throws SQLException {
         return new LeaderboardEntryEntity(
+                rs.getInt("userId"),
                 rs.getString("username"),
                 rs.getInt("NMutants"),
                 rs.getInt("AScore"),
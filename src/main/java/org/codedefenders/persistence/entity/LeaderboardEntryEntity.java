@@ -19,6 +19,7 @@
 package org.codedefenders.persistence.entity;
 
 public class LeaderboardEntryEntity {
+    private final int userId;
     private final String username;
     private final int mutantsSubmitted;
     private final int attackerScore;
@@ -27,8 +28,9 @@ public class LeaderboardEntryEntity {
     private final int mutantsKilled;
     private final int totalPoints;
 
-    public LeaderboardEntryEntity(String username, int mutantsSubmitted, int attackerScore, int testsSubmitted,
-            int defenderScore, int mutantsKilled, int totalPoints) {
+    public LeaderboardEntryEntity(int userId, String username, int mutantsSubmitted, int attackerScore,
+            int testsSubmitted, int defenderScore, int mutantsKilled, int totalPoints) {
+        this.userId = userId;
         this.username = username;
         this.mutantsSubmitted = mutantsSubmitted;
         this.attackerScore = attackerScore;
@@ -38,6 +40,10 @@ public class LeaderboardEntryEntity {
         this.totalPoints = totalPoints;
     }
 
+    public int getUserId() {
+        return userId;
+    }
+
     public String getUsername() {
         return username;
     }
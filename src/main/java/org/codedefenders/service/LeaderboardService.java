@@ -18,29 +18,239 @@
  */
 package org.codedefenders.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.codedefenders.database.DatabaseAccess;
+import org.codedefenders.notification.INotificationService;
+import org.codedefenders.notification.events.server.game.GameLifecycleEvent;
+import org.codedefenders.notification.events.server.mutant.MutantLifecycleEvent;
+import org.codedefenders.notification.events.server.test.TestLifecycleEvent;
 import org.codedefenders.persistence.database.LeaderboardRepository;
 import org.codedefenders.persistence.entity.LeaderboardEntryEntity;
 
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Provides the leaderboard over all games.
+ *
+ * <p>The leaderboard is kept in memory, ranked by total points. Games whose scores may have changed (a mutant or test
+ * was submitted or tested, the game was started or stopped, or the scores were stored with
+ * {@link #markGameChanged(int)}) are remembered, and on the next access only the entries of the players of these
+ * games are queried again. Since not every change of points goes through these notifications (e.g. resolved
+ * equivalence duels), the whole leaderboard is reloaded every {@link #RECONCILE_INTERVAL_MINUTES} minutes.
+ *
+ * <p>Only one thread queries the database at a time. The queries run without holding the monitor of the service, so
+ * marking games as changed never waits for them, and other readers get the last ranking in the meantime.
+ */
 @Named
 @ApplicationScoped
 public class LeaderboardService {
 
+    /**
+     * Time after which the whole leaderboard is reloaded from the database.
+     */
+    private static final long RECONCILE_INTERVAL_MINUTES = 10;
+
+    /**
+     * Order of the leaderboard: most total points first, ties ordered by username.
+     */
+    private static final Comparator<LeaderboardEntryEntity> RANKING =
+            Comparator.comparingInt(LeaderboardEntryEntity::getTotalPoints).reversed()
+                    .thenComparing(LeaderboardEntryEntity::getUsername);
+
     private final LeaderboardRepository leaderboardRepo;
+    private final INotificationService notificationService;
+
+    private final Set<Integer> changedGames = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    // Guarded by the monitor, the maps and the list are replaced instead of modified.
+    private Map<Integer, LeaderboardEntryEntity> entryForUserId = Collections.emptyMap();
+    private List<LeaderboardEntryEntity> ranking = Collections.emptyList();
+    private Map<Integer, Integer> rankForUserId = Collections.emptyMap();
+    private volatile boolean loaded = false;
+    // Guarded by the refresh lock.
+    private long lastReconcile = 0;
 
     @Inject
-    public LeaderboardService(LeaderboardRepository leaderboardRepo) {
+    public LeaderboardService(LeaderboardRepository leaderboardRepo, INotificationService notificationService) {
         this.leaderboardRepo = leaderboardRepo;
+        this.notificationService = notificationService;
+    }
+
+    @PostConstruct
+    void registerEventHandler() {
+        notificationService.register(this);
     }
 
+    @PreDestroy
+    void unregisterEventHandler() {
+        notificationService.unregister(this);
+    }
+
+    /**
+     * Returns all entries of the leaderboard, ranked by total points.
+     */
     public List<LeaderboardEntryEntity> getAll() {
-        return leaderboardRepo.getLeaderboard();
+        return getRanking();
+    }
+
+    /**
+     * Returns the entries with the highest total points.
+     *
+     * @param count the maximum number of entries.
+     * @return the first {@code count} entries of the leaderboard.
+     */
+    public List<LeaderboardEntryEntity> getTop(int count) {
+        return getPage(0, count);
+    }
+
+    /**
+     * Returns a page of the leaderboard.
+     *
+     * @param page the index of the page, starting at {@code 0}.
+     * @param pageSize the number of entries per page.
+     * @return the entries of the page, empty if the page is beyond the end of the leaderboard.
+     */
+    public List<LeaderboardEntryEntity> getPage(int page, int pageSize) {
+        List<LeaderboardEntryEntity> entries = getRanking();
+        int from = Math.min(page * pageSize, entries.size());
+        int to = Math.min(from + pageSize, entries.size());
+        return entries.subList(from, to);
+    }
+
+    /**
+     * Returns the rank of a user in the leaderboard.
+     *
+     * @param userId the id of the user.
+     * @return the rank of the user, starting at {@code 1}, or an empty {@code Optional} if the user is not on the
+     *     leaderboard.
+     */
+    public Optional<Integer> getRank(int userId) {
+        refresh();
+        synchronized (this) {
+            return Optional.ofNullable(rankForUserId.get(userId));
+        }
     }
 
+    /**
+     * Returns the leaderboard entry of a user.
+     *
+     * @param userId the id of the user.
+     * @return the entry of the user, or an empty {@code Optional} if the user is not on the leaderboard.
+     */
+    public Optional<LeaderboardEntryEntity> getEntry(int userId) {
+        refresh();
+        synchronized (this) {
+            return Optional.ofNullable(entryForUserId.get(userId));
+        }
+    }
+
+    /**
+     * Marks the scores of the players of a game as changed, so their entries are queried again on the next access.
+     *
+     * @param gameId the id of the game.
+     */
+    public void markGameChanged(int gameId) {
+        changedGames.add(gameId);
+    }
+
+    @Subscribe
+    public void onGameEvent(GameLifecycleEvent event) {
+        markGameChanged(event.getGameId());
+    }
+
+    @Subscribe
+    public void onMutantEvent(MutantLifecycleEvent event) {
+        markGameChanged(event.getGameId());
+    }
+
+    @Subscribe
+    public void onTestEvent(TestLifecycleEvent event) {
+        markGameChanged(event.getGameId());
+    }
+
+    private List<LeaderboardEntryEntity> getRanking() {
+        refresh();
+        synchronized (this) {
+            return ranking;
+        }
+    }
+
+    /**
+     * Brings the in-memory leaderboard up to date, either by reloading it completely or by querying the entries of
+     * the players of changed games. If another thread is already refreshing the leaderboard, the current ranking is
+     * kept, unless the leaderboard was never loaded.
+     */
+    private void refresh() {
+        if (!loaded) {
+            refreshLock.lock();
+        } else if (!refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            boolean reconcile = now - lastReconcile >= TimeUnit.MINUTES.toMillis(RECONCILE_INTERVAL_MINUTES);
+            List<LeaderboardEntryEntity> entries;
+            if (reconcile) {
+                // Games changed from now on are queried again after the reload.
+                changedGames.clear();
+                entries = leaderboardRepo.getLeaderboard();
+                lastReconcile = now;
+            } else if (!changedGames.isEmpty()) {
+                Set<Integer> games = new HashSet<>(changedGames);
+                changedGames.removeAll(games);
+                try {
+                    entries = leaderboardRepo.getLeaderboardForGames(games);
+                } catch (RuntimeException e) {
+                    changedGames.addAll(games);
+                    throw e;
+                }
+            } else {
+                return;
+            }
+            swapIn(entries, reconcile);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the ranking with one containing the given entries.
+     *
+     * @param entries the queried entries.
+     * @param replaceAll whether the entries replace all entries, or only the entries of their users.
+     */
+    private synchronized void swapIn(List<LeaderboardEntryEntity> entries, boolean replaceAll) {
+        Map<Integer, LeaderboardEntryEntity> newEntries = replaceAll ? new HashMap<>() : new HashMap<>(entryForUserId);
+        for (LeaderboardEntryEntity entry : entries) {
+            newEntries.put(entry.getUserId(), entry);
+        }
+
+        List<LeaderboardEntryEntity> newRanking = new ArrayList<>(newEntries.values());
+        newRanking.sort(RANKING);
+        Map<Integer, Integer> newRanks = new HashMap<>();
+        for (int i = 0; i < newRanking.size(); i++) {
+            newRanks.put(newRanking.get(i).getUserId(), i + 1);
+        }
+        entryForUserId = newEntries;
+        ranking = Collections.unmodifiableList(newRanking);
+        rankForUserId = newRanks;
+        loaded = true;
+    }
 }
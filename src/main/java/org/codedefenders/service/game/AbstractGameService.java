@@ -27,15 +27,14 @@ import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
-import org.codedefenders.database.GameDAO;
 import org.codedefenders.database.MutantDAO;
-import org.codedefenders.database.PlayerDAO;
 import org.codedefenders.database.TestDAO;
 import org.codedefenders.database.TestSmellsDAO;
 import org.codedefenders.dto.MutantDTO;
 import org.codedefenders.dto.SimpleUser;
 import org.codedefenders.dto.TestDTO;
 import org.codedefenders.game.AbstractGame;
+import org.codedefenders.game.CoverageIndex;
 import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Role;
 import org.codedefenders.game.Test;
@@ -59,6 +58,9 @@ public abstract class AbstractGameService implements IGameService {
     @Inject
     protected UserService userService;
 
+    @Inject
+    protected GameSnapshotCache gameSnapshotCache;
+
     @Override
     public MutantDTO getMutant(int userId, int mutantId) {
         return getMutant(userId, MutantDAO.getMutantById(mutantId));
@@ -66,8 +68,8 @@ public abstract class AbstractGameService implements IGameService {
 
     @Override
     public MutantDTO getMutant(int userId, Mutant mutant) {
-        AbstractGame game = GameDAO.getGame(mutant.getGameId());
-        Player player = PlayerDAO.getPlayerForUserAndGame(userId, mutant.getGameId());
+        AbstractGame game = gameSnapshotCache.getGame(mutant.getGameId());
+        Player player = getPlayer(userId, mutant.getGameId());
         Optional<SimpleUser> user = userService.getSimpleUserById(userId);
         if (game != null && user.isPresent()) {
             return convertMutant(mutant, user.get(), player, game);
@@ -79,7 +81,7 @@ public abstract class AbstractGameService implements IGameService {
     @Override
     public List<MutantDTO> getMutants(int userId, int gameId) {
         Optional<SimpleUser> user = userService.getSimpleUserById(userId);
-        AbstractGame game = GameDAO.getGame(gameId);
+        AbstractGame game = gameSnapshotCache.getGame(gameId);
         if (game != null && user.isPresent()) {
             return getMutants(user.get(), game);
         } else {
@@ -89,7 +91,7 @@ public abstract class AbstractGameService implements IGameService {
 
     @Override
     public List<MutantDTO> getMutants(SimpleUser user, AbstractGame game) {
-        Player player = PlayerDAO.getPlayerForUserAndGame(user.getId(), game.getId());
+        Player player = getPlayer(user.getId(), game.getId());
         return game.getMutants().stream()
                 .map(mutant -> convertMutant(mutant, user, player, game))
                 .filter(Objects::nonNull)
@@ -155,8 +157,8 @@ public abstract class AbstractGameService implements IGameService {
 
     @Override
     public TestDTO getTest(int userId, Test test) {
-        AbstractGame game = GameDAO.getGame(test.getGameId());
-        Player player = PlayerDAO.getPlayerForUserAndGame(userId, test.getGameId());
+        AbstractGame game = gameSnapshotCache.getGame(test.getGameId());
+        Player player = getPlayer(userId, test.getGameId());
         Optional<SimpleUser> user = userService.getSimpleUserById(userId);
         if (game != null && user.isPresent()) {
             return convertTest(test, user.get(), player, game);
@@ -168,7 +170,7 @@ public abstract class AbstractGameService implements IGameService {
     @Override
     public List<TestDTO> getTests(int userId, int gameId) {
         Optional<SimpleUser> user = userService.getSimpleUserById(userId);
-        AbstractGame game = GameDAO.getGame(gameId);
+        AbstractGame game = gameSnapshotCache.getGame(gameId);
         if (game != null && user.isPresent()) {
             return getTests(user.get(), game);
         } else {
@@ -178,7 +180,7 @@ public abstract class AbstractGameService implements IGameService {
 
     @Override
     public List<TestDTO> getTests(SimpleUser user, AbstractGame game) {
-        Player player = PlayerDAO.getPlayerForUserAndGame(user.getId(), game.getId());
+        Player player = getPlayer(user.getId(), game.getId());
         return game.getTests().stream()
                 .map(test -> convertTest(test, user, player, game))
                 .filter(Objects::nonNull)
@@ -193,7 +195,8 @@ public abstract class AbstractGameService implements IGameService {
         SimpleUser creator = userService.getSimpleUserByPlayerId(test.getPlayerId()).orElse(null);
 
         return new TestDTO(test.getId(), creator, test.getScore(), viewable,
-                test.getCoveredMutants(game.getMutants()).stream().map(Mutant::getId).collect(Collectors.toList()),
+                getCoverageIndex(game, false).getCoveredMutants(test).stream()
+                        .map(Mutant::getId).sorted().collect(Collectors.toList()),
                 test.getKilledMutants().stream().map(Mutant::getId).collect(Collectors.toList()),
                 (new TestSmellsDAO()).getDetectedTestSmellsForTest(test),
                 test.getGameId(),
@@ -205,6 +208,29 @@ public abstract class AbstractGameService implements IGameService {
 
     protected abstract boolean canViewTest(Test test, AbstractGame game, Player player, Role playerRole);
 
+    /**
+     * Returns the coverage index of the given game, shared through the snapshot of the game so it is not built again
+     * for every mutant or test.
+     *
+     * @param defendersOnly Whether the index only contains the tests of defenders, see
+     *                      {@link AbstractGame#getTests(boolean)}.
+     */
+    protected CoverageIndex getCoverageIndex(AbstractGame game, boolean defendersOnly) {
+        return gameSnapshotCache.getSnapshot(game.getId())
+                .map(snapshot -> snapshot.getCoverageIndex(defendersOnly))
+                .orElseGet(() -> new CoverageIndex(game.getTests(defendersOnly), game.getMutants()));
+    }
+
+    /**
+     * Returns the active player of the given user in the given game, or {@code null} if the user does not play in the
+     * game.
+     */
+    protected Player getPlayer(int userId, int gameId) {
+        return gameSnapshotCache.getSnapshot(gameId)
+                .map(snapshot -> snapshot.getPlayerForUser(userId))
+                .orElse(null);
+    }
+
     // TODO:
     protected Role determineRole(SimpleUser user, Player player, AbstractGame game) {
         Role result = null;
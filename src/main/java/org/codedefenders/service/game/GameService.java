@@ -24,14 +24,12 @@ import java.util.List;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
-import org.codedefenders.database.GameDAO;
 import org.codedefenders.database.MutantDAO;
 import org.codedefenders.database.TestDAO;
 import org.codedefenders.dto.MutantDTO;
 import org.codedefenders.dto.SimpleUser;
 import org.codedefenders.dto.TestDTO;
 import org.codedefenders.game.AbstractGame;
-import org.codedefenders.game.GameMode;
 import org.codedefenders.game.Mutant;
 import org.codedefenders.game.Test;
 import org.codedefenders.game.multiplayer.MeleeGame;
@@ -44,13 +42,15 @@ public class GameService implements IGameService {
     private final MultiplayerGameService multiplayerGameService;
     private final MeleeGameService meleeGameService;
     private final PuzzleGameService puzzleGameService;
+    private final GameSnapshotCache gameSnapshotCache;
 
     @Inject
     public GameService(MultiplayerGameService multiplayerGameService, MeleeGameService meleeGameService,
-            PuzzleGameService puzzleGameService) {
+            PuzzleGameService puzzleGameService, GameSnapshotCache gameSnapshotCache) {
         this.multiplayerGameService = multiplayerGameService;
         this.meleeGameService = meleeGameService;
         this.puzzleGameService = puzzleGameService;
+        this.gameSnapshotCache = gameSnapshotCache;
     }
 
     @Override
@@ -136,18 +136,12 @@ public class GameService implements IGameService {
     }
 
     private IGameService getGameServiceForGameId(int gameId) {
-        GameMode mode = GameDAO.getGameMode(gameId);
-        switch (mode) {
-            case PARTY:
-                return multiplayerGameService;
-            case MELEE:
-                return meleeGameService;
-            case PUZZLE:
-                return puzzleGameService;
-            default:
-                // TODO This might require some love, like an exception...
-                return null;
+        // The game is needed by the delegate anyway, so this loads its snapshot into the cache.
+        AbstractGame game = gameSnapshotCache.getGame(gameId);
+        if (game == null) {
+            return null;
         }
+        return getGameServiceForGame(game);
     }
 
     // TODO Honestly, this smells like some anti-pattern... the right service should
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.service.game;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codedefenders.database.GameDAO;
+import org.codedefenders.game.AbstractGame;
+import org.codedefenders.game.CoverageIndex;
+import org.codedefenders.game.Mutant;
+import org.codedefenders.game.Test;
+import org.codedefenders.model.Player;
+
+/**
+ * A read-only view of a game together with its players, mutants and tests (including their coverage), as loaded at
+ * one point in time. Snapshots are shared between requests by the {@link GameSnapshotCache}, so neither the game
+ * nor its mutants and tests must be modified.
+ */
+public class GameSnapshot {
+    private final AbstractGame game;
+    private final List<Player> players;
+    private final Map<Integer, Player> playersByUserId;
+
+    private CoverageIndex coverageIndex;
+    private CoverageIndex defenderCoverageIndex;
+
+    private GameSnapshot(AbstractGame game, List<Player> players) {
+        this.game = game;
+        this.players = Collections.unmodifiableList(players);
+        this.playersByUserId = new HashMap<>();
+        for (Player player : players) {
+            playersByUserId.put(player.getUser().getId(), player);
+        }
+    }
+
+    /**
+     * Loads a snapshot of the game with the given id.
+     *
+     * @param gameId The id of the game.
+     * @return The snapshot, or {@code null} if the game does not exist.
+     */
+    static GameSnapshot load(int gameId) {
+        AbstractGame game = GameDAO.getGame(gameId);
+        if (game == null) {
+            return null;
+        }
+        // The game loads its mutants and tests lazily, load them now so they are part of the snapshot.
+        game.getMutants();
+        game.getTests(false);
+        game.getTests(true);
+        return new GameSnapshot(game, GameDAO.getValidPlayersForGame(gameId));
+    }
+
+    public AbstractGame getGame() {
+        return game;
+    }
+
+    public List<Mutant> getMutants() {
+        return game.getMutants();
+    }
+
+    public List<Test> getTests() {
+        return game.getTests();
+    }
+
+    /**
+     * Returns the coverage index of the tests and mutants of the game. The index is built on first use and then shared
+     * by all users of the snapshot, so the coverage of a game is only joined once per snapshot.
+     *
+     * @param defendersOnly Whether the index only contains the tests of defenders, see
+     *                      {@link AbstractGame#getTests(boolean)}.
+     */
+    public synchronized CoverageIndex getCoverageIndex(boolean defendersOnly) {
+        if (defendersOnly) {
+            if (defenderCoverageIndex == null) {
+                defenderCoverageIndex = new CoverageIndex(game.getTests(true), game.getMutants());
+            }
+            return defenderCoverageIndex;
+        } else {
+            if (coverageIndex == null) {
+                coverageIndex = new CoverageIndex(game.getTests(false), game.getMutants());
+            }
+            return coverageIndex;
+        }
+    }
+
+    /**
+     * Returns the active players of the game.
+     */
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Returns the active player of the given user, or {@code null} if the user does not play in the game.
+     */
+    public Player getPlayerForUser(int userId) {
+        return playersByUserId.get(userId);
+    }
+}
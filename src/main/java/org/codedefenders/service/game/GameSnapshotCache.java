@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.service.game;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.codedefenders.configuration.Configuration;
+import org.codedefenders.game.AbstractGame;
+import org.codedefenders.notification.INotificationService;
+import org.codedefenders.notification.events.server.game.GameLifecycleEvent;
+import org.codedefenders.notification.events.server.mutant.MutantLifecycleEvent;
+import org.codedefenders.notification.events.server.test.TestLifecycleEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Caches {@link GameSnapshot snapshots} of games, so pages and API calls of a game can be served without loading its
+ * mutants, tests and players again.
+ *
+ * <p>A snapshot is dropped when an event of its game is posted to the {@link INotificationService} (a test or mutant
+ * was submitted and tested, a player joined, the game was started, ...) and after every {@code POST} request to the
+ * game (see {@link GameSnapshotFilter}). Changes made by other means (e.g. by admins) show up once the snapshot
+ * expires after {@link Configuration#getGameCacheTtl()} seconds.
+ *
+ * <p>Invalidating does not cancel a load that is already running, so each game has a generation counter that
+ * {@link #invalidate(int)} increments. A snapshot whose load started under an older generation is dropped and loaded
+ * again instead of being served.
+ */
+@ApplicationScoped
+public class GameSnapshotCache {
+    private static final Logger logger = LoggerFactory.getLogger(GameSnapshotCache.class);
+
+    /**
+     * How often {@link #getSnapshot(int)} reloads a snapshot that was invalidated while loading, before it loads the
+     * game without caching it.
+     */
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final INotificationService notificationService;
+    private final LoadingCache<Integer, CachedSnapshot> snapshotForGameIdCache;
+    private final ConcurrentMap<Integer, AtomicLong> generationForGameId = new ConcurrentHashMap<>();
+
+    @Inject
+    public GameSnapshotCache(Configuration config, INotificationService notificationService) {
+        this.notificationService = notificationService;
+
+        snapshotForGameIdCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(config.getGameCacheTtl(), TimeUnit.SECONDS)
+                .maximumSize(config.getGameCacheSize())
+                .build(
+                        new CacheLoader<Integer, CachedSnapshot>() {
+                            @Override
+                            public CachedSnapshot load(@Nonnull Integer gameId) throws Exception {
+                                // Read the generation before loading, so an invalidation during the load is noticed.
+                                long generation = getGeneration(gameId).get();
+                                GameSnapshot snapshot = GameSnapshot.load(gameId);
+                                if (snapshot == null) {
+                                    throw new Exception("No game found for given gameId");
+                                }
+                                return new CachedSnapshot(snapshot, generation);
+                            }
+                        }
+                );
+    }
+
+    @PostConstruct
+    void registerEventHandler() {
+        notificationService.register(this);
+    }
+
+    @PreDestroy
+    void unregisterEventHandler() {
+        notificationService.unregister(this);
+    }
+
+    /**
+     * Returns a snapshot of the game with the given id.
+     *
+     * @param gameId The id of the game.
+     * @return An {@code Optional} containing the snapshot, or an empty {@code Optional} if the game does not exist.
+     */
+    @Nonnull
+    public Optional<GameSnapshot> getSnapshot(int gameId) {
+        AtomicLong generation = getGeneration(gameId);
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            CachedSnapshot cached;
+            try {
+                cached = snapshotForGameIdCache.get(gameId);
+            } catch (ExecutionException e) {
+                return Optional.empty();
+            }
+            if (cached.generation == generation.get()) {
+                return Optional.of(cached.snapshot);
+            }
+            logger.debug("Dropping snapshot of game {} that was invalidated while loading", gameId);
+            snapshotForGameIdCache.asMap().remove(gameId, cached);
+        }
+        // The game keeps changing while it is loaded, serve a fresh snapshot without caching it.
+        return Optional.ofNullable(GameSnapshot.load(gameId));
+    }
+
+    /**
+     * Returns the game with the given id from its snapshot. The game must not be modified.
+     *
+     * @param gameId The id of the game.
+     * @return The game, or {@code null} if the game does not exist.
+     */
+    public AbstractGame getGame(int gameId) {
+        return getSnapshot(gameId).map(GameSnapshot::getGame).orElse(null);
+    }
+
+    /**
+     * Drops the snapshot of the game with the given id, so the next access loads the game again.
+     *
+     * @param gameId The id of the game.
+     */
+    public void invalidate(int gameId) {
+        logger.debug("Invalidating snapshot of game {}", gameId);
+        getGeneration(gameId).incrementAndGet();
+        snapshotForGameIdCache.invalidate(gameId);
+    }
+
+    private AtomicLong getGeneration(int gameId) {
+        return generationForGameId.computeIfAbsent(gameId, id -> new AtomicLong());
+    }
+
+    @Subscribe
+    public void onGameEvent(GameLifecycleEvent event) {
+        invalidate(event.getGameId());
+    }
+
+    @Subscribe
+    public void onMutantEvent(MutantLifecycleEvent event) {
+        invalidate(event.getGameId());
+    }
+
+    @Subscribe
+    public void onTestEvent(TestLifecycleEvent event) {
+        invalidate(event.getGameId());
+    }
+
+    /**
+     * A snapshot together with the generation of its game at the time the snapshot started loading.
+     */
+    private static class CachedSnapshot {
+        private final GameSnapshot snapshot;
+        private final long generation;
+
+        CachedSnapshot(GameSnapshot snapshot, long generation) {
+            this.snapshot = snapshot;
+            this.generation = generation;
+        }
+    }
+}
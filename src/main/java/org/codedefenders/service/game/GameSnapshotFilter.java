@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.service.game;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+
+import org.codedefenders.servlets.util.ServletUtils;
+
+/**
+ * Drops the {@link GameSnapshot} of a game after a {@code POST} request to the game, since these requests change
+ * the game (submissions, equivalence duels, ...) and the following page load must see the changes.
+ */
+@WebFilter(filterName = "GameSnapshotFilter")
+public class GameSnapshotFilter implements Filter {
+
+    @Inject
+    private GameSnapshotCache gameSnapshotCache;
+
+    @Override
+    public void init(FilterConfig config) throws ServletException {
+
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest)
+                || !"POST".equals(((HttpServletRequest) request).getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ServletUtils.gameId((HttpServletRequest) request).ifPresent(gameSnapshotCache::invalidate);
+        }
+    }
+
+    @Override
+    public void destroy() {
+
+    }
+}
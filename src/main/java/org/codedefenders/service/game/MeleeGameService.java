@@ -36,7 +36,7 @@ public class MeleeGameService extends AbstractGameService {
 
     @Override
     protected boolean isMutantCovered(Mutant mutant, AbstractGame game, Player player) {
-        return mutant.getCoveringTests(game.getTests(false)).stream()
+        return getCoverageIndex(game, false).getCoveringTests(mutant).stream()
                 .anyMatch(t -> player != null && t.getPlayerId() == player.getId());
     }
 
@@ -36,7 +36,9 @@ public class MultiplayerGameService extends AbstractGameService {
 
     @Override
     protected boolean isMutantCovered(Mutant mutant, AbstractGame game, Player player) {
-        return mutant.isCovered(game.getTests(true));
+        // Like Mutant#isCovered(List), tests of the creator of the mutant do not count.
+        return getCoverageIndex(game, true).getCoveringTests(mutant).stream()
+                .anyMatch(t -> t.getPlayerId() != mutant.getPlayerId());
     }
 
     // TODO: This could use some tests
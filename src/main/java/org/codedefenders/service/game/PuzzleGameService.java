@@ -33,7 +33,9 @@ public class PuzzleGameService extends AbstractGameService {
 
     @Override
     protected boolean isMutantCovered(Mutant mutant, AbstractGame game, Player player) {
-        return mutant.isCovered(game.getTests(true));
+        // Like Mutant#isCovered(List), tests of the creator of the mutant do not count.
+        return getCoverageIndex(game, true).getCoveringTests(mutant).stream()
+                .anyMatch(t -> t.getPlayerId() != mutant.getPlayerId());
     }
 
     // TODO: This doesn't use playerRole. Why not?! Doesn't {@link #determineRole} doesn't work for PuzzleGames?
@@ -20,7 +20,6 @@ package org.codedefenders.servlets.admin;
 
 import java.io.IOException;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -247,23 +246,27 @@ public class AdminMonitorGames extends HttpServlet {
         AdminDAO.deleteDefenderEquivalences(playerId);
         AdminDAO.deletePlayerTest(playerId);
         AdminDAO.deletePlayerMutants(playerId);
+        AbstractGame game = GameDAO.getGame(gameId);
+        if (game != null) {
+            KillmapDAO.updateRollupsForClass(game.getClassId());
+        }
         return AdminDAO.deletePlayer(playerId);
     }
 
     public static int getPlayerScore(MultiplayerGame mg, int pid) {
-        HashMap<Integer, PlayerScore> mutantScores = mg.getMutantScores();
-        HashMap<Integer, PlayerScore> testScores = mg.getTestScores();
-        if (mutantScores.containsKey(pid) && mutantScores.get(pid) != null) {
-            return (mutantScores.get(pid)).getTotalScore();
-        } else if (testScores.containsKey(pid) && testScores.get(pid) != null) {
-            return (testScores.get(pid)).getTotalScore();
-        }
-        return 0;
+        return getPlayerScore(mg.getMutantScores(), mg.getTestScores(), pid);
     }
 
     public static int getPlayerScore(MeleeGame mg, int pid) {
-        Map<Integer, PlayerScore> mutantScores = mg.getMutantScores();
-        Map<Integer, PlayerScore> testScores = mg.getTestScores();
+        return getPlayerScore(mg.getMutantScores(), mg.getTestScores(), pid);
+    }
+
+    /**
+     * Looks up the score of a player in already computed scores. Use this when showing the scores of several players
+     * of a game, since computing the scores of a game is expensive.
+     */
+    public static int getPlayerScore(Map<Integer, PlayerScore> mutantScores, Map<Integer, PlayerScore> testScores,
+            int pid) {
         if (mutantScores.containsKey(pid) && mutantScores.get(pid) != null) {
             return (mutantScores.get(pid)).getTotalScore();
         } else if (testScores.containsKey(pid) && testScores.get(pid) != null) {
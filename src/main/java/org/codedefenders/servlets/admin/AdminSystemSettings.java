@@ -31,6 +31,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.codedefenders.beans.message.MessagesBean;
 import org.codedefenders.database.AdminDAO;
 import org.codedefenders.database.ConnectionFactory;
+import org.codedefenders.notification.impl.NotificationService;
 import org.codedefenders.util.Constants;
 import org.codedefenders.util.Paths;
 
@@ -44,6 +45,9 @@ public class AdminSystemSettings extends HttpServlet {
     @Inject
     private ConnectionFactory connectionFactory;
 
+    @Inject
+    private NotificationService notificationService;
+
     public enum SETTING_NAME {
         SHOW_PLAYER_FEEDBACK {
             @Override
@@ -251,6 +255,8 @@ public class AdminSystemSettings extends HttpServlet {
     }
 
     public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        request.setAttribute("connectionPoolStatistics", connectionFactory.getPoolStatistics());
+        request.setAttribute("notificationStatistics", notificationService.getDispatchStatistics());
         request.getRequestDispatcher(Constants.ADMIN_SETTINGS_JSP).forward(request, response);
     }
 
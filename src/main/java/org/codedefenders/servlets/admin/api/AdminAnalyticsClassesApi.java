@@ -19,10 +19,8 @@
 package org.codedefenders.servlets.admin.api;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.lang.reflect.InvocationTargetException;
-import java.time.Instant;
-import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -30,9 +28,6 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.beanutils.PropertyUtils;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.apache.http.HttpStatus;
 import org.codedefenders.api.analytics.ClassDataDTO;
 import org.codedefenders.database.AnalyticsDAO;
@@ -40,13 +35,36 @@ import org.codedefenders.util.Paths;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.google.common.collect.ImmutableMap;
 
 @WebServlet(Paths.API_ANALYTICS_CLASSES)
 public class AdminAnalyticsClassesApi extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(AdminAnalyticsClassesApi.class);
 
+    /**
+     * The columns of the CSV file, with the accessors of their values.
+     */
+    private static final Map<String, Function<ClassDataDTO, Object>> CSV_COLUMNS =
+            ImmutableMap.<String, Function<ClassDataDTO, Object>>builder()
+                    .put("id", ClassDataDTO::getId)
+                    .put("classname", ClassDataDTO::getClassname)
+                    .put("classalias", ClassDataDTO::getClassalias)
+                    .put("nrGames", ClassDataDTO::getNrGames)
+                    .put("attackerWins", ClassDataDTO::getAttackerWins)
+                    .put("defenderWins", ClassDataDTO::getDefenderWins)
+                    .put("nrPlayers", ClassDataDTO::getNrPlayers)
+                    .put("testsSubmitted", ClassDataDTO::getTestsSubmitted)
+                    .put("mutantsSubmitted", ClassDataDTO::getMutantsSubmitted)
+                    .put("mutantsAlive", ClassDataDTO::getMutantsAlive)
+                    .put("mutantsEquivalent", ClassDataDTO::getMutantsEquivalent)
+                    .put("ratingsCutMutationDifficultyCount", c -> c.getRatings().getCutMutationDifficulty().getCount())
+                    .put("ratingsCutMutationDifficultySum", c -> c.getRatings().getCutMutationDifficulty().getSum())
+                    .put("ratingsCutTestDifficultyCount", c -> c.getRatings().getCutTestDifficulty().getCount())
+                    .put("ratingsCutTestDifficultySum", c -> c.getRatings().getCutTestDifficulty().getSum())
+                    .put("gameEngagingCount", c -> c.getRatings().getGameEngaging().getCount())
+                    .put("gameEngagingSum", c -> c.getRatings().getGameEngaging().getSum())
+                    .build();
+
     /**
      * Returns a JSON or CSV file containing the class analytics data.
      * <p></p>
@@ -76,88 +94,23 @@ public class AdminAnalyticsClassesApi extends HttpServlet {
      * <pre>
      * {
      *     timestamp: ...,
-     *     processingTime: ...,
      *     data: [
      *          ...
-     *     ]
+     *     ],
+     *     processingTime: ...
      * }
      * </pre>
      */
     private void doGetJSON(HttpServletResponse response) throws IOException {
-        response.setContentType("application/json");
-
-        long timeStart = System.currentTimeMillis();
-        List<ClassDataDTO> classData = AnalyticsDAO.getAnalyticsClassData();
-        long timeEnd = System.currentTimeMillis();
-
-        PrintWriter out = response.getWriter();
-        Gson gson = new Gson();
-
-        JsonObject root = new JsonObject();
-        root.add("timestamp", gson.toJsonTree(Instant.now().getEpochSecond()));
-        root.add("processingTime", gson.toJsonTree(timeEnd - timeStart));
-        root.add("data", gson.toJsonTree(classData));
-
-        out.print(gson.toJson(root));
-        out.flush();
+        AnalyticsExport.writeJSON(response, ClassDataDTO.class, AnalyticsDAO::forEachAnalyticsClassData);
     }
 
     /**
-     * Returns a CSV file containing the user analytics data.
+     * Returns a CSV file containing the class analytics data.
      * The returned CSV will have a header.
      */
     private void doGetCSV(HttpServletResponse response) throws IOException {
-        response.setContentType("text/csv");
-
-        List<ClassDataDTO> classData = AnalyticsDAO.getAnalyticsClassData();
-
-        String[] columns = new String[]{
-            "id",
-            "classname",
-            "classalias",
-            "nrGames",
-            "attackerWins",
-            "defenderWins",
-            "nrPlayers",
-            "testsSubmitted",
-            "mutantsSubmitted",
-            "mutantsAlive",
-            "mutantsEquivalent",
-            "ratingsCutMutationDifficultyCount",
-            "ratingsCutMutationDifficultySum",
-            "ratingsCutTestDifficultyCount",
-            "ratingsCutTestDifficultySum",
-            "gameEngagingCount",
-            "gameEngagingSum"
-        };
-
-        String[] ratingNames = new String[] {
-            "cutMutationDifficulty",
-            "cutTestDifficulty",
-            "gameEngaging"
-        };
-
-        PrintWriter out = response.getWriter();
-        CSVPrinter csvPrinter = new CSVPrinter(out, CSVFormat.DEFAULT.withHeader(columns));
-
-        for (ClassDataDTO clazz : classData) {
-            try {
-                for (int i = 0; i < 10; i++) {
-                    csvPrinter.print(PropertyUtils.getProperty(clazz, columns[i]));
-                }
-                for (String ratingName : ratingNames) {
-                    ClassDataDTO.ClassRating rating =
-                            (ClassDataDTO.ClassRating) PropertyUtils.getProperty(clazz.getRatings(), ratingName);
-                    csvPrinter.print(rating.getCount());
-                    csvPrinter.print(rating.getSum());
-                }
-            } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                throw new RuntimeException(e);
-            }
-            csvPrinter.println();
-        }
-
-        csvPrinter.flush();
+        AnalyticsExport.writeCSV(response, CSV_COLUMNS, AnalyticsDAO::forEachAnalyticsClassData);
     }
 
     @Override
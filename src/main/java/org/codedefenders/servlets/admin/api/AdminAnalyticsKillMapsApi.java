@@ -19,10 +19,8 @@
 package org.codedefenders.servlets.admin.api;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.lang.reflect.InvocationTargetException;
-import java.time.Instant;
-import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -30,9 +28,6 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.beanutils.PropertyUtils;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.apache.http.HttpStatus;
 import org.codedefenders.api.analytics.KillmapDataDTO;
 import org.codedefenders.database.AnalyticsDAO;
@@ -40,13 +35,26 @@ import org.codedefenders.util.Paths;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.google.common.collect.ImmutableMap;
 
 @WebServlet(Paths.API_ANALYTICS_KILLMAP)
 public class AdminAnalyticsKillMapsApi extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(AdminAnalyticsKillMapsApi.class);
 
+    /**
+     * The columns of the CSV file, with the accessors of their values.
+     */
+    private static final Map<String, Function<KillmapDataDTO, Object>> CSV_COLUMNS =
+            ImmutableMap.<String, Function<KillmapDataDTO, Object>>builder()
+                    .put("userId", KillmapDataDTO::getUserId)
+                    .put("userName", KillmapDataDTO::getUserName)
+                    .put("classId", KillmapDataDTO::getClassId)
+                    .put("className", KillmapDataDTO::getClassName)
+                    .put("role", KillmapDataDTO::getRole)
+                    .put("usefulMutants", KillmapDataDTO::getUsefulMutants)
+                    .put("usefulTests", KillmapDataDTO::getUsefulTests)
+                    .build();
+
     /**
      * Returns a JSON or CSV file containing the killmap analytics data.
      * <p></p>
@@ -76,30 +84,15 @@ public class AdminAnalyticsKillMapsApi extends HttpServlet {
      * <pre>
      * {
      *     timestamp: ...,
-     *     processingTime: ...,
      *     data: [
      *          ...
-     *     ]
+     *     ],
+     *     processingTime: ...
      * }
      * </pre>
      */
     private void doGetJSON(HttpServletResponse response) throws IOException {
-        response.setContentType("application/json");
-
-        long timeStart = System.currentTimeMillis();
-        List<KillmapDataDTO> classData = AnalyticsDAO.getAnalyticsKillMapData();
-        long timeEnd = System.currentTimeMillis();
-
-        PrintWriter out = response.getWriter();
-        Gson gson = new Gson();
-
-        JsonObject root = new JsonObject();
-        root.add("timestamp", gson.toJsonTree(Instant.now().getEpochSecond()));
-        root.add("processingTime", gson.toJsonTree(timeEnd - timeStart));
-        root.add("data", gson.toJsonTree(classData));
-
-        out.print(gson.toJson(root));
-        out.flush();
+        AnalyticsExport.writeJSON(response, KillmapDataDTO.class, AnalyticsDAO::forEachAnalyticsKillMapData);
     }
 
     /**
@@ -107,35 +100,7 @@ public class AdminAnalyticsKillMapsApi extends HttpServlet {
      * The returned CSV will have a header.
      */
     private void doGetCSV(HttpServletResponse response) throws IOException {
-        response.setContentType("text/csv");
-
-        List<KillmapDataDTO> killmapData = AnalyticsDAO.getAnalyticsKillMapData();
-
-        String[] columns = new String[]{
-            "userId",
-            "userName",
-            "classId",
-            "className",
-            "role",
-            "usefulMutants",
-            "usefulTests"
-        };
-
-        PrintWriter out = response.getWriter();
-        CSVPrinter csvPrinter = new CSVPrinter(out, CSVFormat.DEFAULT.withHeader(columns));
-
-        for (KillmapDataDTO k : killmapData) {
-            for (String column : columns) {
-                try {
-                    csvPrinter.print(PropertyUtils.getProperty(k, column));
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-            csvPrinter.println();
-        }
-
-        csvPrinter.flush();
+        AnalyticsExport.writeCSV(response, CSV_COLUMNS, AnalyticsDAO::forEachAnalyticsKillMapData);
     }
 
     @Override
@@ -19,10 +19,8 @@
 package org.codedefenders.servlets.admin.api;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.lang.reflect.InvocationTargetException;
-import java.time.Instant;
-import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -30,9 +28,6 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.beanutils.PropertyUtils;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.apache.http.HttpStatus;
 import org.codedefenders.api.analytics.UserDataDTO;
 import org.codedefenders.database.AnalyticsDAO;
@@ -40,13 +35,31 @@ import org.codedefenders.util.Paths;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.google.common.collect.ImmutableMap;
 
 @WebServlet(Paths.API_ANALYTICS_USERS)
 public class AdminAnalyticsUsersApi extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(AdminAnalyticsUsersApi.class);
 
+    /**
+     * The columns of the CSV file, with the accessors of their values.
+     */
+    private static final Map<String, Function<UserDataDTO, Object>> CSV_COLUMNS =
+            ImmutableMap.<String, Function<UserDataDTO, Object>>builder()
+                    .put("id", UserDataDTO::getId)
+                    .put("username", UserDataDTO::getUsername)
+                    .put("gamesPlayed", UserDataDTO::getGamesPlayed)
+                    .put("attackerGamesPlayed", UserDataDTO::getAttackerGamesPlayed)
+                    .put("defenderGamesPlayed", UserDataDTO::getDefenderGamesPlayed)
+                    .put("attackerScore", UserDataDTO::getAttackerScore)
+                    .put("defenderScore", UserDataDTO::getDefenderScore)
+                    .put("mutantsSubmitted", UserDataDTO::getMutantsSubmitted)
+                    .put("mutantsAlive", UserDataDTO::getMutantsAlive)
+                    .put("mutantsEquivalent", UserDataDTO::getMutantsEquivalent)
+                    .put("testsSubmitted", UserDataDTO::getTestsSubmitted)
+                    .put("mutantsKilled", UserDataDTO::getMutantsKilled)
+                    .build();
+
     /**
      * Returns a JSON or CSV file containing the user analytics data.
      * <p></p>
@@ -76,30 +89,15 @@ public class AdminAnalyticsUsersApi extends HttpServlet {
      * <pre>
      * {
      *     timestamp: ...,
-     *     processingTime: ...,
      *     data: [
      *          ...
-     *     ]
+     *     ],
+     *     processingTime: ...
      * }
      * </pre>
      */
     private void doGetJSON(HttpServletResponse response) throws IOException {
-        response.setContentType("application/json");
-
-        long timeStart = System.currentTimeMillis();
-        List<UserDataDTO> userData = AnalyticsDAO.getAnalyticsUserData();
-        long timeEnd = System.currentTimeMillis();
-
-        PrintWriter out = response.getWriter();
-        Gson gson = new Gson();
-
-        JsonObject root = new JsonObject();
-        root.add("timestamp", gson.toJsonTree(Instant.now().getEpochSecond()));
-        root.add("processingTime", gson.toJsonTree(timeEnd - timeStart));
-        root.add("data", gson.toJsonTree(userData));
-
-        out.print(gson.toJson(root));
-        out.flush();
+        AnalyticsExport.writeJSON(response, UserDataDTO.class, AnalyticsDAO::forEachAnalyticsUserData);
     }
 
     /**
@@ -107,40 +105,7 @@ public class AdminAnalyticsUsersApi extends HttpServlet {
      * The returned CSV will have a header.
      */
     private void doGetCSV(HttpServletResponse response) throws IOException {
-        response.setContentType("text/csv");
-
-        List<UserDataDTO> userData = AnalyticsDAO.getAnalyticsUserData();
-
-        String[] columns = new String[]{
-            "id",
-            "username",
-            "gamesPlayed",
-            "attackerGamesPlayed",
-            "defenderGamesPlayed",
-            "attackerScore",
-            "defenderScore",
-            "mutantsSubmitted",
-            "mutantsAlive",
-            "mutantsEquivalent",
-            "testsSubmitted",
-            "mutantsKilled"
-        };
-
-        PrintWriter out = response.getWriter();
-        CSVPrinter csvPrinter = new CSVPrinter(out, CSVFormat.DEFAULT.withHeader(columns));
-
-        for (UserDataDTO user : userData) {
-            for (String column : columns) {
-                try {
-                    csvPrinter.print(PropertyUtils.getProperty(user, column));
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-            csvPrinter.println();
-        }
-
-        csvPrinter.flush();
+        AnalyticsExport.writeCSV(response, CSV_COLUMNS, AnalyticsDAO::forEachAnalyticsUserData);
     }
 
     @Override
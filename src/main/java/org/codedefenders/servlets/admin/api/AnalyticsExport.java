@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.servlets.admin.api;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.codedefenders.database.AnalyticsDAO;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes analytics data as JSON or CSV to the response while the rows are read from the database, so exports take
+ * constant memory regardless of the number of rows.
+ */
+final class AnalyticsExport {
+
+    private AnalyticsExport() {
+    }
+
+    /**
+     * Reads the rows of an export, e.g. {@link AnalyticsDAO#forEachAnalyticsUserData(AnalyticsDAO.RowHandler)}.
+     *
+     * @param <T> the type of the rows.
+     */
+    @FunctionalInterface
+    interface Source<T> {
+        void forEach(AnalyticsDAO.RowHandler<T> handler) throws IOException;
+    }
+
+    /**
+     * Writes the rows as JSON in the following format, serializing each row with Gson:<br>
+     * <pre>
+     * {
+     *     timestamp: ...,
+     *     data: [
+     *          ...
+     *     ],
+     *     processingTime: ...
+     * }
+     * </pre>
+     * The processing time is the time it took to query and write all rows, in milliseconds.
+     */
+    static <T> void writeJSON(HttpServletResponse response, Class<T> rowType, Source<T> source) throws IOException {
+        response.setContentType("application/json");
+
+        long timeStart = System.currentTimeMillis();
+        Gson gson = new Gson();
+
+        JsonWriter writer = new JsonWriter(response.getWriter());
+        writer.beginObject();
+        writer.name("timestamp").value(Instant.now().getEpochSecond());
+        writer.name("data").beginArray();
+        source.forEach(row -> gson.toJson(row, rowType, writer));
+        writer.endArray();
+        writer.name("processingTime").value(System.currentTimeMillis() - timeStart);
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * Writes the rows as CSV with a header.
+     *
+     * @param columns the names of the columns, in order, together with the accessors of the column values.
+     */
+    static <T> void writeCSV(HttpServletResponse response, Map<String, Function<T, Object>> columns, Source<T> source)
+            throws IOException {
+        response.setContentType("text/csv");
+
+        CSVPrinter csvPrinter = new CSVPrinter(response.getWriter(),
+                CSVFormat.DEFAULT.withHeader(columns.keySet().toArray(new String[0])));
+        source.forEach(row -> {
+            for (Function<T, Object> column : columns.values()) {
+                csvPrinter.print(column.apply(row));
+            }
+            csvPrinter.println();
+        });
+        csvPrinter.flush();
+    }
+}
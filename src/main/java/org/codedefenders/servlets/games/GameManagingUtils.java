@@ -37,6 +37,8 @@ import org.codedefenders.database.MutantDAO;
 import org.codedefenders.database.PlayerDAO;
 import org.codedefenders.database.TargetExecutionDAO;
 import org.codedefenders.database.TestSmellsDAO;
+import org.codedefenders.database.UncheckedSQLException;
+import org.codedefenders.database.UnitOfWork;
 import org.codedefenders.execution.BackendExecutorService;
 import org.codedefenders.execution.ClassCompilerService;
 import org.codedefenders.execution.KillMap;
@@ -213,7 +215,32 @@ public class GameManagingUtils implements IGameManagingUtils {
         }
     }
 
+    /**
+     * Copies the predefined mutants and tests of the class of the game into the game. All of them are inserted in
+     * one transaction, which is rolled back if any of the inserts fails, so a game never ends up with only part of
+     * them.
+     *
+     * @return {@code true} if the mutants and tests were copied, {@code false} if nothing was copied.
+     */
     public boolean addPredefinedMutantsAndTests(AbstractGame game, boolean withMutants, boolean withTests) {
+        try {
+            UnitOfWork.inTransaction(() -> {
+                copyPredefinedMutantsAndTests(game, withMutants, withTests);
+                return null;
+            });
+            return true;
+        } catch (UncheckedSQLException e) {
+            logger.error("Could not add predefined mutants and tests to game " + game.getId() + ".", e);
+            return false;
+        }
+    }
+
+    /**
+     * Inserts the copies of the predefined mutants and tests.
+     *
+     * @throws UncheckedSQLException If any of the inserts fails, to roll back the transaction.
+     */
+    private void copyPredefinedMutantsAndTests(AbstractGame game, boolean withMutants, boolean withTests) {
         List<Mutant> uploadedMutants = GameClassDAO.getMappedMutantsForClassId(game.getClassId());
         List<Test> uploadedTests = GameClassDAO.getMappedTestsForClassId(game.getClassId());
         int dummyAttackerPlayerId = PlayerDAO.getPlayerIdForUserAndGame(DUMMY_ATTACKER_USER_ID, game.getId());
@@ -221,12 +248,10 @@ public class GameManagingUtils implements IGameManagingUtils {
         int currentRound = GameDAO.getCurrentRound(game.getId());
 
         if (dummyAttackerPlayerId == -1) {
-            logger.error("System attacker was not added to the game " + game.getId() + ".");
-            return false;
+            throw new UncheckedSQLException("System attacker was not added to the game " + game.getId() + ".");
         }
         if (dummyDefenderPlayerId == -1) {
-            logger.error("System defender was not added to the game " + game.getId() + ".");
-            return false;
+            throw new UncheckedSQLException("System defender was not added to the game " + game.getId() + ".");
         }
 
         /* Link original predefined mutants/tests to their copied counterparts. */
@@ -243,7 +268,9 @@ public class GameManagingUtils implements IGameManagingUtils {
                         true, // Alive be default
                         dummyAttackerPlayerId,
                         currentRound);
-                newMutant.insert();
+                if (!newMutant.insert()) {
+                    throw new UncheckedSQLException("Could not copy predefined mutant " + mutant.getId() + ".");
+                }
                 mutantMap.put(mutant.getId(), newMutant);
             }
         }
@@ -252,9 +279,10 @@ public class GameManagingUtils implements IGameManagingUtils {
         if (withTests) {
             for (Test test : uploadedTests) {
                 Test newTest = new Test(-1, game.getClassId(), game.getId(), test.getJavaFile(),
-                        test.getClassFile(), 0, 0, dummyDefenderPlayerId, test.getLineCoverage().getLinesCovered(),
-                        test.getLineCoverage().getLinesUncovered(), 0);
-                newTest.insert();
+                        test.getClassFile(), 0, 0, dummyDefenderPlayerId, test.getLineCoverage(), 0);
+                if (!newTest.insert()) {
+                    throw new UncheckedSQLException("Could not copy predefined test " + test.getId() + ".");
+                }
                 testMap.put(test.getId(), newTest);
             }
         }
@@ -276,12 +304,13 @@ public class GameManagingUtils implements IGameManagingUtils {
                     MutantDAO.updateMutantKillMessageForMutant(mutant);
                 }
 
-                targetExecution.insert();
+                if (!targetExecution.insert()) {
+                    throw new UncheckedSQLException("Could not copy execution of predefined test "
+                            + targetExecution.testId + " against mutant " + targetExecution.mutantId + ".");
+                }
             }
         }
 
-        return true;
-
         /* Kill predefined mutants that are dead from predefined tests.
            (Alternative implementation from AdminCreateGames) */
         /*
@@ -32,7 +32,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.servlet.RequestDispatcher;
@@ -60,6 +59,7 @@ import org.codedefenders.dto.SimpleUser;
 import org.codedefenders.execution.IMutationTester;
 import org.codedefenders.execution.KillMap;
 import org.codedefenders.execution.KillMap.KillMapEntry;
+import org.codedefenders.execution.SubmissionPipeline;
 import org.codedefenders.execution.TargetExecution;
 import org.codedefenders.game.GameState;
 import org.codedefenders.game.Mutant;
@@ -77,7 +77,6 @@ import org.codedefenders.notification.INotificationService;
 import org.codedefenders.notification.events.server.mutant.MutantCompiledEvent;
 import org.codedefenders.notification.events.server.mutant.MutantDuplicateCheckedEvent;
 import org.codedefenders.notification.events.server.mutant.MutantSubmittedEvent;
-import org.codedefenders.notification.events.server.mutant.MutantTestedEvent;
 import org.codedefenders.notification.events.server.mutant.MutantValidatedEvent;
 import org.codedefenders.notification.events.server.test.TestSubmittedEvent;
 import org.codedefenders.notification.events.server.test.TestTestedMutantsEvent;
@@ -107,6 +106,7 @@ import static org.codedefenders.util.Constants.MODE_BATTLEGROUND_DIR;
 import static org.codedefenders.util.Constants.MUTANT_COMPILED_MESSAGE;
 import static org.codedefenders.util.Constants.MUTANT_CREATION_ERROR_MESSAGE;
 import static org.codedefenders.util.Constants.MUTANT_DUPLICATED_MESSAGE;
+import static org.codedefenders.util.Constants.MUTANT_QUEUED_MESSAGE;
 import static org.codedefenders.util.Constants.MUTANT_UNCOMPILABLE_MESSAGE;
 import static org.codedefenders.util.Constants.TEST_DID_NOT_COMPILE_MESSAGE;
 import static org.codedefenders.util.Constants.TEST_DID_NOT_KILL_CLAIMED_MUTANT_MESSAGE;
@@ -114,6 +114,7 @@ import static org.codedefenders.util.Constants.TEST_DID_NOT_PASS_ON_CUT_MESSAGE;
 import static org.codedefenders.util.Constants.TEST_GENERIC_ERROR_MESSAGE;
 import static org.codedefenders.util.Constants.TEST_KILLED_CLAIMED_MUTANT_MESSAGE;
 import static org.codedefenders.util.Constants.TEST_PASSED_ON_CUT_MESSAGE;
+import static org.codedefenders.util.Constants.TEST_QUEUED_MESSAGE;
 
 /**
  * This {@link HttpServlet} handles retrieval and in-game management for {@link MultiplayerGame battleground games}.
@@ -139,6 +140,9 @@ public class MultiplayerGameManager extends HttpServlet {
     @Inject
     private IMutationTester mutationTester;
 
+    @Inject
+    private SubmissionPipeline submissionPipeline;
+
     @Inject
     private TestSmellsDAO testSmellsDAO;
 
@@ -226,14 +230,10 @@ public class MultiplayerGameManager extends HttpServlet {
         switch (action) {
             case "createMutant": {
                 createMutant(request, response, gameId, game);
-                // After creating a mutant, there's the chance that the mutant already survived enough tests
-                triggerAutomaticMutantEquivalenceForGame(game);
                 return;
             }
             case "createTest": {
                 createTest(request, response, gameId, game);
-                // After a test is submitted, there's the chance that one or more mutants already survived enough tests
-                triggerAutomaticMutantEquivalenceForGame(game);
                 return;
             }
             case "reset": {
@@ -255,65 +255,6 @@ public class MultiplayerGameManager extends HttpServlet {
         }
     }
 
-    // This is package protected to enable testing
-    void triggerAutomaticMutantEquivalenceForGame(MultiplayerGame game) {
-        int threshold = game.getAutomaticMutantEquivalenceThreshold();
-        if (threshold < 1) {
-            // No need to check as this feature is disabled
-            return;
-        }
-        // Get all the live mutants in the game
-        for (Mutant aliveMutant : game.getAliveMutants()) {
-            /*
-             * If the mutant is covered by enough tests trigger the automatic
-             * equivalence duel. Consider ONLY the coveringTests submitted after the mutant was created
-             */
-            Set<Integer> allCoveringTests = aliveMutant.getCoveringTests().stream()
-                        .map(Test::getId)
-                        .collect(Collectors.toSet());
-
-            boolean considerOnlydefenders = false;
-            Set<Integer> testSubmittedAfterMutant =
-                    TestDAO.getValidTestsForGameSubmittedAfterMutant(game.getId(), considerOnlydefenders, aliveMutant)
-                        .stream()
-                        .map(Test::getId)
-                        .collect(Collectors.toSet());
-
-            allCoveringTests.retainAll(testSubmittedAfterMutant);
-
-            int numberOfCoveringTestsSubmittedAfterMutant = allCoveringTests.size();
-
-            if (numberOfCoveringTestsSubmittedAfterMutant  >= threshold) {
-                // Flag the mutant as possibly equivalent
-                aliveMutant.setEquivalent(Mutant.Equivalence.PENDING_TEST);
-                aliveMutant.update();
-                // Send the notification about the flagged mutant to attacker
-                Optional<Integer> mutantOwnerId = userRepo.getUserIdForPlayerId(aliveMutant.getPlayerId());
-                Event event = new Event(-1, game.getId(), mutantOwnerId.orElse(0),
-                        "One of your mutants survived "
-                                + (threshold == aliveMutant.getCoveringTests().size() ? "" : "more than ") + threshold
-                                + "tests so it was automatically claimed as equivalent.",
-                        // TODO it might make sense to specify a new event type?
-                        EventType.DEFENDER_MUTANT_EQUIVALENT, EventStatus.NEW,
-                        new Timestamp(System.currentTimeMillis()));
-                eventDAO.insert(event);
-                /*
-                 * Register the event to DB
-                 */
-                DatabaseAccess.insertEquivalence(aliveMutant, Constants.DUMMY_CREATOR_USER_ID);
-                /*
-                 * Send the notification about the flagged mutant to the game channel
-                 */
-                String flaggingChatMessage = "Code Defenders automatically flagged mutant " + aliveMutant.getId()
-                        + " as equivalent.";
-                Event gameEvent = new Event(-1, game.getId(), -1, flaggingChatMessage,
-                        EventType.DEFENDER_MUTANT_CLAIMED_EQUIVALENT, EventStatus.GAME,
-                        new Timestamp(System.currentTimeMillis()));
-                eventDAO.insert(gameEvent);
-            }
-        }
-    }
-
     @SuppressWarnings("Duplicates")
     private void createTest(HttpServletRequest request, HttpServletResponse response, int gameId, MultiplayerGame game)
             throws IOException {
@@ -480,14 +421,10 @@ public class MultiplayerGameManager extends HttpServlet {
                 EventStatus.GAME, timestamp);
         eventDAO.insert(notif);
 
-        mutationTester.runTestOnAllMultiplayerMutants(game, newTest, messages.getBridge());
-        game.update();
-        logger.info("Successfully created test {} ", newTest.getId());
-
-        TestTestedMutantsEvent ttme = new TestTestedMutantsEvent();
-        ttme.setGameId(gameId);
-        ttme.setUserId(login.getUserId());
-        notificationService.post(ttme);
+        // The session and request scoped beans are not available in the job, its messages go through the bridge.
+        final ArrayList<String> messageBridge = messages.getBridge();
+        submissionPipeline.submitTest(gameId, newTest.getId(), login.getUserId(), messageBridge);
+        messages.add(TEST_QUEUED_MESSAGE);
 
         // Clean up the session
         previousSubmission.clear();
@@ -684,14 +621,10 @@ public class MultiplayerGameManager extends HttpServlet {
                 EventStatus.GAME, new Timestamp(System.currentTimeMillis() - 1000));
         eventDAO.insert(notif);
 
-        mutationTester.runAllTestsOnMutant(game, newMutant, messages.getBridge());
-        game.update();
-
-        MutantTestedEvent mte = new MutantTestedEvent();
-        mte.setGameId(gameId);
-        mte.setUserId(login.getUserId());
-        mte.setMutantId(newMutant.getId());
-        notificationService.post(mte);
+        // The session and request scoped beans are not available in the job, its messages go through the bridge.
+        final ArrayList<String> messageBridge = messages.getBridge();
+        submissionPipeline.submitMutant(gameId, newMutant.getId(), login.getUserId(), messageBridge);
+        messages.add(MUTANT_QUEUED_MESSAGE);
 
         if (game.isCapturePlayersIntention()) {
             AttackerIntention intention = AttackerIntention.fromString(request.getParameter("attacker_intention"));
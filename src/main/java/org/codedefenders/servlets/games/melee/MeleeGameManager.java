@@ -57,6 +57,7 @@ import org.codedefenders.database.TargetExecutionDAO;
 import org.codedefenders.database.TestSmellsDAO;
 import org.codedefenders.dto.SimpleUser;
 import org.codedefenders.execution.IMutationTester;
+import org.codedefenders.execution.SubmissionPipeline;
 import org.codedefenders.execution.TargetExecution;
 import org.codedefenders.game.GameState;
 import org.codedefenders.game.Mutant;
@@ -73,7 +74,6 @@ import org.codedefenders.model.Player;
 import org.codedefenders.notification.INotificationService;
 import org.codedefenders.notification.events.server.mutant.MutantDuplicateCheckedEvent;
 import org.codedefenders.notification.events.server.mutant.MutantSubmittedEvent;
-import org.codedefenders.notification.events.server.mutant.MutantTestedEvent;
 import org.codedefenders.notification.events.server.mutant.MutantValidatedEvent;
 import org.codedefenders.notification.events.server.test.TestSubmittedEvent;
 import org.codedefenders.notification.events.server.test.TestTestedMutantsEvent;
@@ -99,6 +99,7 @@ import static org.codedefenders.util.Constants.MODE_BATTLEGROUND_DIR;
 import static org.codedefenders.util.Constants.MUTANT_COMPILED_MESSAGE;
 import static org.codedefenders.util.Constants.MUTANT_CREATION_ERROR_MESSAGE;
 import static org.codedefenders.util.Constants.MUTANT_DUPLICATED_MESSAGE;
+import static org.codedefenders.util.Constants.MUTANT_QUEUED_MESSAGE;
 import static org.codedefenders.util.Constants.MUTANT_UNCOMPILABLE_MESSAGE;
 import static org.codedefenders.util.Constants.TEST_DID_NOT_COMPILE_MESSAGE;
 import static org.codedefenders.util.Constants.TEST_DID_NOT_KILL_CLAIMED_MUTANT_MESSAGE;
@@ -106,6 +107,7 @@ import static org.codedefenders.util.Constants.TEST_DID_NOT_PASS_ON_CUT_MESSAGE;
 import static org.codedefenders.util.Constants.TEST_GENERIC_ERROR_MESSAGE;
 import static org.codedefenders.util.Constants.TEST_KILLED_CLAIMED_MUTANT_MESSAGE;
 import static org.codedefenders.util.Constants.TEST_PASSED_ON_CUT_MESSAGE;
+import static org.codedefenders.util.Constants.TEST_QUEUED_MESSAGE;
 
 
 // TODO Alessio 18/02/2020: Differentiate between errorLines in the mutants and errorLines in the tests in the UI.
@@ -134,6 +136,9 @@ public class MeleeGameManager extends HttpServlet {
     @Inject
     private IMutationTester mutationTester;
 
+    @Inject
+    private SubmissionPipeline submissionPipeline;
+
     @Inject
     private TestSmellsDAO testSmellsDAO;
 
@@ -280,14 +285,10 @@ public class MeleeGameManager extends HttpServlet {
         switch (action) {
             case "createMutant": {
                 createMutant(request, response, user.get(), game, playerId);
-                triggerAutomaticMutantEquivalenceForGame(game);
                 return;
             }
             case "createTest": {
                 createTest(request, response, user.get(), game);
-                // After a test is submitted, there's the chance that one or more mutants
-                // already survived enough tests
-                triggerAutomaticMutantEquivalenceForGame(game);
                 return;
             }
             case "reset": {
@@ -309,50 +310,6 @@ public class MeleeGameManager extends HttpServlet {
         }
     }
 
-    // This is package protected to enable testing
-    void triggerAutomaticMutantEquivalenceForGame(MeleeGame game) {
-        int threshold = game.getAutomaticMutantEquivalenceThreshold();
-        if (threshold < 1) {
-            // No need to check as this feature is disabled
-            return;
-        }
-        // Get all the live mutants in the game
-        for (Mutant aliveMutant : game.getAliveMutants()) {
-            /*
-             * If the mutant is covered by enough tests trigger the automatic equivalence
-             * duel
-             */
-            int coveringTests = aliveMutant.getCoveringTests().size();
-            if (coveringTests >= threshold) {
-                // Flag the mutant as possibly equivalent
-                aliveMutant.setEquivalent(Mutant.Equivalence.PENDING_TEST);
-                aliveMutant.update();
-                // Send the notification about the flagged mutant to attacker
-                int mutantOwnerId = userRepo.getUserIdForPlayerId(aliveMutant.getPlayerId()).orElse(0);
-                Event event = new Event(-1, game.getId(), mutantOwnerId,
-                        "One of your mutants survived "
-                                + (threshold == aliveMutant.getCoveringTests().size() ? "" : "more than ") + threshold
-                                + "tests so it was automatically claimed as equivalent.",
-                        EventType.PLAYER_MUTANT_EQUIVALENT, EventStatus.NEW,
-                        new Timestamp(System.currentTimeMillis()));
-                eventDAO.insert(event);
-                /*
-                 * Register the event to DB
-                 */
-                DatabaseAccess.insertEquivalence(aliveMutant, Constants.DUMMY_CREATOR_USER_ID);
-                /*
-                 * Send the notification about the flagged mutant to the game channel
-                 */
-                String flaggingChatMessage = "Code Defenders automatically flagged mutant " + aliveMutant.getId()
-                        + " as equivalent.";
-                Event gameEvent = new Event(-1, game.getId(), -1, flaggingChatMessage,
-                        EventType.PLAYER_MUTANT_CLAIMED_EQUIVALENT, EventStatus.GAME,
-                        new Timestamp(System.currentTimeMillis()));
-                eventDAO.insert(gameEvent);
-            }
-        }
-    }
-
     @SuppressWarnings("Duplicates")
     private void createTest(HttpServletRequest request, HttpServletResponse response, SimpleUser user, MeleeGame game)
             throws IOException {
@@ -500,14 +457,10 @@ public class MeleeGameManager extends HttpServlet {
                 EventStatus.GAME, timestamp);
         eventDAO.insert(notif);
 
-        mutationTester.runTestOnAllMeleeMutants(game, newTest, messages.getBridge());
-        game.update();
-        logger.info("Successfully created test {} ", newTest.getId());
-
-        TestTestedMutantsEvent ttme = new TestTestedMutantsEvent();
-        ttme.setGameId(game.getId());
-        ttme.setUserId(login.getUserId());
-        notificationService.post(ttme);
+        // The session and request scoped beans are not available in the job, its messages go through the bridge.
+        final ArrayList<String> messageBridge = messages.getBridge();
+        submissionPipeline.submitTest(game.getId(), newTest.getId(), login.getUserId(), messageBridge);
+        messages.add(TEST_QUEUED_MESSAGE);
 
         // Clean up the session
         previousSubmission.clear();
@@ -695,14 +648,10 @@ public class MeleeGameManager extends HttpServlet {
                 EventStatus.GAME, new Timestamp(System.currentTimeMillis() - 1000));
         eventDAO.insert(notif);
 
-        mutationTester.runAllTestsOnMeleeMutant(game, newMutant, messages.getBridge());
-        game.update();
-
-        MutantTestedEvent mte = new MutantTestedEvent();
-        mte.setGameId(game.getId());
-        mte.setUserId(login.getUserId());
-        mte.setMutantId(newMutant.getId());
-        notificationService.post(mte);
+        // The session and request scoped beans are not available in the job, its messages go through the bridge.
+        final ArrayList<String> messageBridge = messages.getBridge();
+        submissionPipeline.submitMutant(game.getId(), newMutant.getId(), login.getUserId(), messageBridge);
+        messages.add(MUTANT_QUEUED_MESSAGE);
 
         if (game.isCapturePlayersIntention()) {
             AttackerIntention intention = AttackerIntention.fromString(request.getParameter("attacker_intention"));
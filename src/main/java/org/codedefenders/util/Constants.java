@@ -169,8 +169,12 @@ public class Constants {
     public static final String TEST_KILLED_LAST_MESSAGE = "Great, your test killed the last mutant!";
     public static final String TEST_KILLED_ONE_MESSAGE = "Great, your test killed a mutant!";
     public static final String TEST_KILLED_N_MESSAGE = "Awesome! Your test killed %d mutants!"; // number of mutants
+    public static final String TEST_QUEUED_MESSAGE
+            = "Your test is now run against the mutants, the results will show up shortly.";
 
     public static final String MUTANT_COMPILED_MESSAGE = "Your mutant was compiled successfully.";
+    public static final String MUTANT_QUEUED_MESSAGE
+            = "Your mutant is now tested, the results will show up shortly.";
     public static final String MUTANT_ACCEPTED_EQUIVALENT_MESSAGE = "The mutant was accepted as equivalent.";
     public static final String MUTANT_UNCOMPILABLE_MESSAGE = "Your mutant failed to compile. Try again.";
 
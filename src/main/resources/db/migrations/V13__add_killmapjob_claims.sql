@@ -0,0 +1,9 @@
+/* Add columns to claim killmap jobs, so several instances can process them concurrently. */
+ALTER TABLE killmapjob
+    ADD `Claimed_By` varchar(191) DEFAULT NULL,
+    ADD `Claimed_At` timestamp NULL DEFAULT NULL;
+
+/* Add columns to record the timing of killmap jobs. */
+ALTER TABLE killmapjob
+    ADD `Started_At` timestamp NULL DEFAULT NULL,
+    ADD `Computation_Time` bigint(20) NOT NULL DEFAULT '0';
@@ -0,0 +1,8 @@
+/* Whole killmaps, stored as packed matrices (see KillMatrix), to load killmaps without reading every entry. */
+CREATE TABLE `killmap_matrices` (
+    `Type` enum('CLASS','GAME') NOT NULL,
+    `Reference_ID` int(11) NOT NULL,
+    `Matrix` longblob NOT NULL,
+    `Timestamp` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (`Type`, `Reference_ID`)
+);
@@ -0,0 +1,9 @@
+/* Diffs of mutants against their class under test, so they are computed from the files only once. */
+CREATE TABLE `mutant_diffs` (
+    `Mutant_ID` int(11) NOT NULL,
+    `Summary` text NOT NULL,
+    `Readout` text NOT NULL,
+    `Patch` mediumtext NOT NULL,
+    PRIMARY KEY (`Mutant_ID`),
+    CONSTRAINT `fk_mutant_diffs_mutantId` FOREIGN KEY (`Mutant_ID`) REFERENCES `mutants` (`Mutant_ID`) ON DELETE CASCADE
+);
@@ -0,0 +1,8 @@
+/* Checkpoints of the incrementally computed scores of games, so the event log does not have to be replayed. */
+CREATE TABLE `scoring_checkpoints` (
+    `Game_ID` int(11) NOT NULL,
+    `Event_ID` int(11) NOT NULL,
+    `State` mediumtext NOT NULL,
+    PRIMARY KEY (`Game_ID`),
+    CONSTRAINT `fk_scoring_checkpoints_gameId` FOREIGN KEY (`Game_ID`) REFERENCES `games` (`ID`) ON DELETE CASCADE
+);
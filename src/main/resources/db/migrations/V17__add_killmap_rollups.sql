@@ -0,0 +1,30 @@
+/* Per test and mutant summaries of the killmap, so the analytics can count useful tests and mutants without
+   scanning the whole killmap. They are kept up to date by the KillmapDAO. */
+CREATE TABLE `killmap_test_rollups` (
+    `Test_ID` int(11) NOT NULL,
+    `Class_ID` int(11) NOT NULL,
+    `Useful` tinyint(1) NOT NULL,
+    PRIMARY KEY (`Test_ID`),
+    KEY `killmap_test_rollups_Class_ID` (`Class_ID`),
+    CONSTRAINT `fk_killmap_test_rollups_testId` FOREIGN KEY (`Test_ID`) REFERENCES `tests` (`Test_ID`) ON DELETE CASCADE
+);
+
+CREATE TABLE `killmap_mutant_rollups` (
+    `Mutant_ID` int(11) NOT NULL,
+    `Class_ID` int(11) NOT NULL,
+    `Killed` tinyint(1) NOT NULL,
+    `Survived` tinyint(1) NOT NULL,
+    PRIMARY KEY (`Mutant_ID`),
+    KEY `killmap_mutant_rollups_Class_ID` (`Class_ID`),
+    CONSTRAINT `fk_killmap_mutant_rollups_mutantId` FOREIGN KEY (`Mutant_ID`) REFERENCES `mutants` (`Mutant_ID`) ON DELETE CASCADE
+);
+
+INSERT INTO `killmap_test_rollups` (Test_ID, Class_ID, Useful)
+SELECT Test_ID, MIN(Class_ID), MAX(Status = 'KILL')
+FROM killmap
+GROUP BY Test_ID;
+
+INSERT INTO `killmap_mutant_rollups` (Mutant_ID, Class_ID, Killed, Survived)
+SELECT Mutant_ID, MIN(Class_ID), MAX(Status = 'KILL'), MAX(Status = 'NO_KILL')
+FROM killmap
+GROUP BY Mutant_ID;
@@ -0,0 +1,14 @@
+/* Pending mutation analyses of submitted tests and mutants, so the jobs of the SubmissionPipeline survive a
+   restart. A row is removed once its job ran. */
+CREATE TABLE `submission_jobs` (
+    `ID` int(11) NOT NULL AUTO_INCREMENT,
+    `Game_ID` int(11) NOT NULL,
+    `Test_ID` int(11) DEFAULT NULL,
+    `Mutant_ID` int(11) DEFAULT NULL,
+    `User_ID` int(11) NOT NULL,
+    `Timestamp` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (`ID`),
+    CONSTRAINT `fk_submission_jobs_gameId` FOREIGN KEY (`Game_ID`) REFERENCES `games` (`ID`) ON DELETE CASCADE,
+    CONSTRAINT `fk_submission_jobs_testId` FOREIGN KEY (`Test_ID`) REFERENCES `tests` (`Test_ID`) ON DELETE CASCADE,
+    CONSTRAINT `fk_submission_jobs_mutantId` FOREIGN KEY (`Mutant_ID`) REFERENCES `mutants` (`Mutant_ID`) ON DELETE CASCADE
+);
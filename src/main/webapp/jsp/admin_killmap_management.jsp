@@ -22,6 +22,7 @@
 <%@ page import="org.codedefenders.database.KillmapDAO" %>
 <%@ page import="org.codedefenders.execution.KillMapProcessor" %>
 <%@ page import="org.codedefenders.execution.KillMapProcessor.KillMapJob" %>
+<%@ page import="java.util.List" %>
 <%@ page import="static org.codedefenders.util.MessageUtils.pluralize" %>
 <%@ page import="org.codedefenders.servlets.admin.AdminKillmapManagement.KillmapPage" %>
 
@@ -46,7 +47,7 @@
     KillMapProcessor processor = (KillMapProcessor) context.getAttribute(KillMapProcessor.NAME);
 
     boolean processorEnabled = processor.isEnabled();
-    KillMapJob currentJob = processor.getCurrentJob();
+    List<KillMapJob> currentJobs = processor.getCurrentJobs();
 
     int numClassesQueued = KillmapDAO.getNumClassKillmapJobsQueued();
     int numGamesQueued = KillmapDAO.getNumGameKillmapJobsQueued();
@@ -74,7 +75,7 @@
             </p>
 
             <%
-                if (currentJob != null) {
+                for (KillMapJob currentJob : currentJobs) {
                     String jobType;
                     switch (currentJob.getType()) {
                         case CLASS: jobType = "Class"; break;
@@ -31,6 +31,7 @@
 <%@ page import="java.time.Duration" %>
 <%@ page import="org.codedefenders.servlets.admin.AdminMonitorGames" %>
 <%@ page import="org.codedefenders.game.multiplayer.MeleeGame" %>
+<%@ page import="org.codedefenders.game.multiplayer.PlayerScore" %>
 <%@ page import="java.util.Map" %>
 <%@ page import="java.util.stream.Collectors" %>
 
@@ -193,6 +194,10 @@
                                                     }
                                                 }
 
+                                                // Compute the scores of the game only once for all players
+                                                Map<Integer, PlayerScore> mutantScores = g.getMutantScores();
+                                                Map<Integer, PlayerScore> testScores = g.getTestScores();
+
                                                 for (List<String> playerInfo : playersInfo) {
                                                     int playerId = Integer.parseInt(playerInfo.get(0));
                                                     int userID = multiplayerUserIdForPlayerIds.get(playerId);
@@ -221,7 +226,7 @@
                                                     int totalScore = Integer.parseInt(playerInfo.get(4));
                                                     int submissionsCount = Integer.parseInt(playerInfo.get(5));
                                                     String color = role == Role.ATTACKER ? "bg-attacker-light" : "bg-defender-light";
-                                                    int gameScore = AdminMonitorGames.getPlayerScore(g, playerId);
+                                                    int gameScore = AdminMonitorGames.getPlayerScore(mutantScores, testScores, playerId);
                                             %>
                                                 <tr>
                                                     <%
@@ -19,6 +19,8 @@
 
 --%>
 <%@ page import="org.codedefenders.database.AdminDAO" %>
+<%@ page import="org.codedefenders.database.ConnectionFactory" %>
+<%@ page import="org.codedefenders.notification.impl.NotificationService" %>
 <%@ page import="org.codedefenders.servlets.admin.AdminSystemSettings" %>
 <%@ page import="java.util.Arrays" %>
 <%@ page import="java.util.stream.Collectors" %>
@@ -139,6 +141,74 @@
         </div>
     </form>
 
+    <%
+        ConnectionFactory.PoolStatistics poolStatistics =
+                (ConnectionFactory.PoolStatistics) request.getAttribute("connectionPoolStatistics");
+        if (poolStatistics != null) {
+    %>
+        <h3 class="mt-4 mb-3">Database Connections</h3>
+        <table class="table table-sm w-auto">
+            <tbody>
+                <tr>
+                    <td>Active connections</td>
+                    <td><%=poolStatistics.getActiveConnections()%> of <%=poolStatistics.getMaxConnections()%></td>
+                </tr>
+                <tr>
+                    <td>Idle connections</td>
+                    <td><%=poolStatistics.getIdleConnections()%></td>
+                </tr>
+                <tr>
+                    <td>Connection requests</td>
+                    <td><%=poolStatistics.getConnectionRequests()%></td>
+                </tr>
+                <tr>
+                    <td>Average wait time</td>
+                    <td><%=String.format("%.2f ms", poolStatistics.getAverageWaitMillis())%></td>
+                </tr>
+                <tr>
+                    <td>Maximum wait time</td>
+                    <td><%=String.format("%.2f ms", poolStatistics.getMaxWaitMillis())%></td>
+                </tr>
+            </tbody>
+        </table>
+    <% } %>
+
+    <%
+        NotificationService.DispatchStatistics notificationStatistics =
+                (NotificationService.DispatchStatistics) request.getAttribute("notificationStatistics");
+        if (notificationStatistics != null) {
+    %>
+        <h3 class="mt-4 mb-3">Notifications</h3>
+        <table class="table table-sm w-auto">
+            <tbody>
+                <tr>
+                    <td>Subscribed topics</td>
+                    <td><%=notificationStatistics.getTopics()%></td>
+                </tr>
+                <tr>
+                    <td>Handler subscriptions</td>
+                    <td><%=notificationStatistics.getSubscriptions()%></td>
+                </tr>
+                <tr>
+                    <td>Dispatched events</td>
+                    <td><%=notificationStatistics.getDispatchedEvents()%></td>
+                </tr>
+                <tr>
+                    <td>Average fan-out</td>
+                    <td><%=String.format("%.2f handlers", notificationStatistics.getAverageFanOut())%></td>
+                </tr>
+                <tr>
+                    <td>Average delivery latency</td>
+                    <td><%=String.format("%.2f ms", notificationStatistics.getAverageLatencyMillis())%></td>
+                </tr>
+                <tr>
+                    <td>Maximum delivery latency</td>
+                    <td><%=String.format("%.2f ms", notificationStatistics.getMaxLatencyMillis())%></td>
+                </tr>
+            </tbody>
+        </table>
+    <% } %>
+
     <script>
         $(document).ready(() => {
             const emailSwitch = document.getElementById('<%=AdminSystemSettings.SETTING_NAME.EMAILS_ENABLED.name()%>');
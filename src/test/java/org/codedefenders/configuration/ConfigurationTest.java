@@ -60,4 +60,52 @@ public class ConfigurationTest {
             assertTrue(e.getMessage().contains("dbPort"));
         }
     }
+
+    @Test()
+    public void invalidExecutionThreads() {
+        config.executionThreads = 0;
+
+        try {
+            config.validate();
+            fail("Should throw exception.");
+        } catch (ConfigurationValidationException e) {
+            assertTrue(e.getMessage().contains("executionThreads"));
+        }
+    }
+
+    @Test()
+    public void invalidKillmapBatchSize() {
+        config.killmapBatchSize = 0;
+
+        try {
+            config.validate();
+            fail("Should throw exception.");
+        } catch (ConfigurationValidationException e) {
+            assertTrue(e.getMessage().contains("killmapBatchSize"));
+        }
+    }
+
+    @Test()
+    public void invalidGameCacheSize() {
+        config.gameCacheSize = -1;
+
+        try {
+            config.validate();
+            fail("Should throw exception.");
+        } catch (ConfigurationValidationException e) {
+            assertTrue(e.getMessage().contains("gameCacheSize"));
+        }
+    }
+
+    @Test()
+    public void disabledGameCache() {
+        config.gameCacheSize = 0;
+        config.gameCacheTtl = 0;
+
+        try {
+            config.validate();
+        } catch (ConfigurationValidationException e) {
+            assertFalse(e.getMessage().contains("gameCache"));
+        }
+    }
 }
@@ -92,6 +92,14 @@ public class DatabaseValueTest {
         assertEquals(value, dbv.getValue());
     }
 
+    @Test
+    public void testBytesDatabaseValues() {
+        final byte[] value = {1, 2, 3};
+        final DatabaseValue<byte[]> dbv = DatabaseValue.of(value);
+        assertEquals(byte[].class, dbv.getType().clazz);
+        assertEquals(value, dbv.getValue());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testWrongDatabaseValueType() {
         final Dependency value = new Dependency(1, 1, "", "");
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class ExecutionSchedulerTest {
+
+    private ThreadPoolExecutor executor;
+    private ExecutionScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, ExecutionScheduler.newWorkQueue());
+        scheduler = new ExecutionScheduler(executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void startsQueuedTasksByPriorityAndSubmissionOrder() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> blocker = scheduler.submit(ExecutionPriority.BACKGROUND, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+        futures.add(scheduler.submit(ExecutionPriority.BACKGROUND, () -> order.add("background")));
+        futures.add(scheduler.submit(ExecutionPriority.VALIDATION, () -> order.add("validation")));
+        futures.add(scheduler.submit(ExecutionPriority.INTERACTIVE, () -> order.add("interactive 1")));
+        futures.add(scheduler.submit(ExecutionPriority.INTERACTIVE, () -> order.add("interactive 2")));
+
+        assertThat(scheduler.getRunningTasks(), is(1));
+        assertThat(scheduler.getQueuedTasks(ExecutionPriority.INTERACTIVE), is(2));
+        assertThat(scheduler.getQueuedTasks(), is(4));
+
+        release.countDown();
+        blocker.get();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertThat(order, contains("interactive 1", "interactive 2", "validation", "background"));
+        assertThat(scheduler.getQueuedTasks(), is(0));
+    }
+
+    @Test
+    public void waitsForQueuedTasksOfHigherPriority() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit(ExecutionPriority.INTERACTIVE, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+        Future<?> queued = scheduler.submit(ExecutionPriority.VALIDATION, () -> null);
+
+        assertThat(scheduler.hasQueuedTasksAbove(ExecutionPriority.BACKGROUND), is(true));
+        assertThat(scheduler.hasQueuedTasksAbove(ExecutionPriority.VALIDATION), is(false));
+
+        release.countDown();
+        scheduler.awaitNoQueuedTasksAbove(ExecutionPriority.BACKGROUND);
+        assertThat(scheduler.hasQueuedTasksAbove(ExecutionPriority.BACKGROUND), is(false));
+        queued.get();
+    }
+
+    @Test
+    public void stopsWaitingForQueuedTasksAfterTimeout() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit(ExecutionPriority.INTERACTIVE, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+        Future<?> queued = scheduler.submit(ExecutionPriority.INTERACTIVE, () -> null);
+
+        assertThat(scheduler.awaitNoQueuedTasksAbove(ExecutionPriority.BACKGROUND, 50, TimeUnit.MILLISECONDS),
+                is(false));
+
+        release.countDown();
+        assertThat(scheduler.awaitNoQueuedTasksAbove(ExecutionPriority.BACKGROUND, 10, TimeUnit.SECONDS), is(true));
+        queued.get();
+    }
+}
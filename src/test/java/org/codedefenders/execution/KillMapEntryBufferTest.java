@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codedefenders.database.KillmapDAO;
+import org.codedefenders.execution.KillMap.KillMapEntry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(KillmapDAO.class)
+public class KillMapEntryBufferTest {
+
+    private static final int CLASS_ID = 1;
+
+    /**
+     * The sizes of the stored batches. The buffer reuses its list, so only the size is recorded.
+     */
+    private final List<Integer> storedBatches = new ArrayList<>();
+    private boolean insertSucceeds = true;
+
+    @Before
+    public void mockDAO() {
+        PowerMockito.mockStatic(KillmapDAO.class);
+        PowerMockito.when(KillmapDAO.insertManyKillMapEntries(anyList(), anyInt())).thenAnswer(invocation -> {
+            storedBatches.add(invocation.<List<?>>getArgument(0).size());
+            return insertSucceeds;
+        });
+    }
+
+    private static KillMapEntry entry() {
+        return new KillMapEntry(null, null, KillMapEntry.Status.KILL);
+    }
+
+    @Test
+    public void flushesWhenBatchIsFull() {
+        KillMapEntryBuffer buffer = new KillMapEntryBuffer(CLASS_ID, 3, Duration.ofHours(1));
+        buffer.add(entry());
+        buffer.add(entry());
+        assertThat(storedBatches, is(empty()));
+
+        buffer.add(entry());
+        assertThat(storedBatches, contains(3));
+
+        buffer.add(entry());
+        buffer.flush();
+        assertThat(storedBatches, contains(3, 1));
+        assertThat(buffer.hasFailed(), is(false));
+    }
+
+    @Test
+    public void flushesWhenIntervalHasPassed() throws InterruptedException {
+        KillMapEntryBuffer buffer = new KillMapEntryBuffer(CLASS_ID, 100, Duration.ofMillis(50));
+        buffer.add(entry());
+        assertThat(storedBatches, is(empty()));
+
+        Thread.sleep(100);
+        buffer.add(entry());
+        assertThat(storedBatches, contains(2));
+    }
+
+    @Test
+    public void flushWithoutEntriesStoresNothing() {
+        KillMapEntryBuffer buffer = new KillMapEntryBuffer(CLASS_ID, 3, Duration.ofHours(1));
+        buffer.flush();
+        assertThat(storedBatches, is(empty()));
+    }
+
+    @Test
+    public void remembersFailedFlush() {
+        insertSucceeds = false;
+        KillMapEntryBuffer buffer = new KillMapEntryBuffer(CLASS_ID, 3, Duration.ofHours(1));
+        buffer.add(entry());
+        buffer.flush();
+        assertThat(storedBatches, contains(1));
+        assertThat(buffer.hasFailed(), is(true));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import org.codedefenders.execution.KillMap.KillMapEntry.Status;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class KillMatrixTest {
+
+    @Test
+    public void testSetAndGet() {
+        KillMatrix matrix = new KillMatrix(new int[]{1, 2, 3}, new int[]{10, 20, 30, 40, 50, 60, 70, 80});
+        assertThat(matrix.get(1, 5), is(nullValue()));
+
+        Status[] statuses = Status.values();
+        for (int t = 0; t < 3; t++) {
+            for (int m = 0; m < 8; m++) {
+                matrix.set(t, m, statuses[(t + m) % statuses.length]);
+            }
+        }
+        matrix.set(2, 7, Status.KILL);
+
+        assertThat(matrix.isComplete(), is(true));
+        assertThat(matrix.getNumEntries(), is(24));
+        assertThat(matrix.get(1, 5), is(statuses[6 % statuses.length]));
+        assertThat(matrix.get(2, 7), is(Status.KILL));
+        assertThat(matrix.row(2).get(7), is(Status.KILL));
+        assertThat(matrix.column(7).get(2), is(Status.KILL));
+        assertThat(matrix.column(0).size(), is(3));
+    }
+
+    @Test
+    public void testSerialization() {
+        KillMatrix matrix = new KillMatrix(new int[]{1, 2}, new int[]{10, 20, 30});
+        matrix.set(0, 0, Status.KILL);
+        matrix.set(1, 2, Status.NO_COVERAGE);
+
+        KillMatrix copy = KillMatrix.fromBytes(matrix.toBytes());
+        assertThat(copy.getTestId(1), is(2));
+        assertThat(copy.getMutantId(2), is(30));
+        assertThat(copy.getNumEntries(), is(2));
+        assertThat(copy.get(0, 0), is(Status.KILL));
+        assertThat(copy.get(1, 2), is(Status.NO_COVERAGE));
+        assertThat(copy.get(0, 1), is(nullValue()));
+    }
+
+    @Test
+    public void testPutAllMatchesIds() {
+        KillMatrix stored = new KillMatrix(new int[]{1, 2}, new int[]{10, 20});
+        stored.set(0, 1, Status.KILL);
+        stored.set(1, 0, Status.NO_KILL);
+
+        KillMatrix matrix = new KillMatrix(new int[]{3, 2}, new int[]{20, 10});
+        matrix.putAll(stored);
+        assertThat(matrix.getNumEntries(), is(1));
+        assertThat(matrix.get(1, 1), is(Status.NO_KILL));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBytes() {
+        KillMatrix.fromBytes(new byte[]{0, 0, 0, 1, 0, 0});
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.codedefenders.game.Mutant;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SubmissionCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final SubmissionCache cache = new SubmissionCache();
+
+    private String source(String content) throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file.getAbsolutePath();
+    }
+
+    @Test
+    public void testHashDistinguishesWhitespaceInLiterals() throws IOException {
+        String hash = cache.hashSource(source("String s = \"a b\";"));
+
+        assertThat(hash, is(cache.hashSource(source("String s = \"a b\";"))));
+        assertThat(hash, is(not(cache.hashSource(source("String s = \"ab\";")))));
+    }
+
+    @Test
+    public void testOnlyPassingAndFailingExecutionsAreCached() throws IOException {
+        Mutant mutant = new Mutant(source("mutant"), null, null, 1);
+        org.codedefenders.game.Test passingTest = new org.codedefenders.game.Test(source("passing"), null, 1, null);
+        org.codedefenders.game.Test erroneousTest = new org.codedefenders.game.Test(source("error"), null, 1, null);
+
+        cache.putExecution(mutant, passingTest, new TargetExecution(1, 1, TargetExecution.Target.TEST_MUTANT,
+                TargetExecution.Status.SUCCESS, null));
+        cache.putExecution(mutant, erroneousTest, new TargetExecution(2, 1, TargetExecution.Target.TEST_MUTANT,
+                TargetExecution.Status.ERROR, "timeout"));
+
+        Mutant identicalMutant = new Mutant(source("mutant"), null, null, 1);
+        Mutant otherClassMutant = new Mutant(source("mutant"), null, null, 2);
+        assertThat(cache.getExecution(identicalMutant, passingTest), is(notNullValue()));
+        assertThat(cache.getExecution(identicalMutant, passingTest).getStatus(), is(TargetExecution.Status.SUCCESS));
+        assertThat(cache.getExecution(otherClassMutant, passingTest), is(nullValue()));
+        assertThat(cache.getExecution(mutant, erroneousTest), is(nullValue()));
+    }
+
+    @Test
+    public void testCopyClassFiles() throws IOException {
+        File from = temporaryFolder.newFolder("from");
+        File to = temporaryFolder.newFolder("to");
+        new File(from, "pkg").mkdir();
+        Files.write(new File(from, "pkg/Foo.class").toPath(), new byte[]{1, 2, 3});
+        Files.write(new File(from, "Foo.java").toPath(), new byte[]{4});
+
+        assertThat(SubmissionCache.copyClassFiles(from, to), is(true));
+        assertThat(new File(to, "pkg/Foo.class").isFile(), is(true));
+        assertThat(new File(to, "Foo.java").exists(), is(false));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.codedefenders.execution.worker.FakeTestWorker;
+import org.codedefenders.execution.worker.TestWorker;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Tests the {@link TestWorkerPool} with {@link FakeTestWorker} JVMs, whose behaviour is selected by the name of the
+ * test class.
+ */
+public class TestWorkerPoolTest {
+
+    private static final List<String> CLASSPATH = Collections.singletonList("unused");
+    private static final long TIMEOUT = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestWorkerPool pool;
+
+    @After
+    public void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private TestWorkerPool createPool(int maxJobs) throws URISyntaxException {
+        String classpath = location(FakeTestWorker.class) + File.pathSeparator + location(TestWorker.class);
+        List<String> command = Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", classpath,
+                FakeTestWorker.class.getName());
+        return new TestWorkerPool(1, maxJobs, command, folder.getRoot());
+    }
+
+    private static String location(Class<?> clazz) throws URISyntaxException {
+        return Paths.get(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+
+    private List<TestWorker.Result> execute(String behaviour, List<List<String>> classpaths) {
+        return pool.execute(behaviour, classpaths, TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private List<TestWorker.Result> execute(String behaviour) {
+        return execute(behaviour, Collections.singletonList(CLASSPATH));
+    }
+
+    @Test
+    public void runsAllClasspathsOnOneWorker() throws URISyntaxException {
+        pool = createPool(10);
+
+        List<TestWorker.Result> results = execute("success", Arrays.asList(CLASSPATH, CLASSPATH, CLASSPATH));
+
+        assertThat(results, hasSize(3));
+        for (TestWorker.Result result : results) {
+            assertThat(result.getStatus(), is(TestWorker.Status.SUCCESS));
+            assertThat(result.getMessage(), is(results.get(0).getMessage()));
+        }
+    }
+
+    @Test
+    public void reusesWorkerUntilMaxJobs() throws URISyntaxException {
+        pool = createPool(2);
+
+        String first = execute("success").get(0).getMessage();
+        String second = execute("success").get(0).getMessage();
+        String third = execute("success").get(0).getMessage();
+
+        assertThat(second, is(first));
+        assertThat(third, is(not(first)));
+    }
+
+    @Test
+    public void retriesTimedOutRunOnNewWorker() throws URISyntaxException {
+        pool = createPool(10);
+        File marker = new File(folder.getRoot(), "timed-out");
+
+        List<TestWorker.Result> results = execute("hangOnce",
+                Collections.singletonList(Collections.singletonList(marker.getAbsolutePath())));
+
+        assertThat(marker.exists(), is(true));
+        assertThat(results, hasSize(1));
+        assertThat(results.get(0).getStatus(), is(TestWorker.Status.SUCCESS));
+    }
+
+    @Test
+    public void reportsSecondTimeoutAsError() throws URISyntaxException {
+        pool = createPool(10);
+
+        List<TestWorker.Result> results = execute("hang");
+
+        assertThat(results, hasSize(1));
+        assertThat(results.get(0).getStatus(), is(TestWorker.Status.ERROR));
+        assertThat(results.get(0).getMessage(), containsString("timed out"));
+
+        // The hanging workers were replaced.
+        assertThat(execute("success").get(0).getStatus(), is(TestWorker.Status.SUCCESS));
+    }
+
+    @Test
+    public void continuesOnNewWorkerAfterTaintedRun() throws URISyntaxException {
+        pool = createPool(10);
+
+        List<TestWorker.Result> results = execute("taint", Arrays.asList(CLASSPATH, CLASSPATH));
+
+        assertThat(results, hasSize(2));
+        assertThat(results.get(0).getStatus(), is(TestWorker.Status.SUCCESS));
+        assertThat(results.get(1).getStatus(), is(TestWorker.Status.SUCCESS));
+        assertThat(results.get(1).getMessage(), is(not(results.get(0).getMessage())));
+    }
+
+    @Test
+    public void reportsCrashAsErrorAndReplacesWorker() throws URISyntaxException {
+        pool = createPool(10);
+
+        List<TestWorker.Result> results = execute("crash");
+
+        assertThat(results, hasSize(1));
+        assertThat(results.get(0).getStatus(), is(TestWorker.Status.ERROR));
+
+        assertThat(execute("success").get(0).getStatus(), is(TestWorker.Status.SUCCESS));
+    }
+}
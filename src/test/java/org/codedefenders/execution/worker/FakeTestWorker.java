@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * A worker speaking the {@link TestWorker} protocol without running any tests, used to test the pool on the host
+ * side. The "test class name" of a job selects what every run does:
+ * <ul>
+ * <li>{@code success}: the run succeeds.</li>
+ * <li>{@code hang}: the run never finishes.</li>
+ * <li>{@code hangOnce}: the run never finishes if the file given as first classpath entry does not exist yet, and
+ *     creates the file. Otherwise, the run succeeds.</li>
+ * <li>{@code taint}: the run succeeds, but asks the host to recycle the worker.</li>
+ * <li>{@code crash}: the worker exits.</li>
+ * </ul>
+ * The message of every result identifies the worker JVM, so tests can tell whether a worker was replaced.
+ */
+public final class FakeTestWorker {
+
+    private FakeTestWorker() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+        String workerName = ManagementFactory.getRuntimeMXBean().getName();
+
+        TestWorker.writeReady(out);
+        out.flush();
+
+        while (true) {
+            TestWorker.Job job;
+            try {
+                job = TestWorker.readJob(in);
+            } catch (EOFException e) {
+                return;
+            }
+            for (List<String> classpath : job.getClasspaths()) {
+                boolean recycle = false;
+                switch (job.getTestClassName()) {
+                    case "success":
+                        break;
+                    case "hang":
+                        Thread.sleep(Long.MAX_VALUE);
+                        break;
+                    case "hangOnce":
+                        if (new File(classpath.get(0)).createNewFile()) {
+                            Thread.sleep(Long.MAX_VALUE);
+                        }
+                        break;
+                    case "taint":
+                        recycle = true;
+                        break;
+                    case "crash":
+                        System.exit(1);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(job.getTestClassName());
+                }
+                TestWorker.writeResult(out, new TestWorker.Result(TestWorker.Status.SUCCESS, workerName, recycle));
+                out.flush();
+                if (recycle) {
+                    return;
+                }
+            }
+        }
+    }
+}
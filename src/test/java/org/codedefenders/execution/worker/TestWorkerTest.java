@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.execution.worker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TestWorkerTest {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    private DataInputStream written() {
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    public void jobRoundTrip() throws IOException {
+        List<List<String>> classpaths = Arrays.asList(
+                Arrays.asList("/data/cuts/Foo/dependencies", "/data/mutants/1", "/data/tests/1"),
+                Collections.emptyList(),
+                Collections.singletonList("/data/mutants/ä"));
+        TestWorker.writeJob(out, "org.example.TestFoo", classpaths);
+
+        TestWorker.Job job = TestWorker.readJob(written());
+        assertThat(job.getTestClassName(), is("org.example.TestFoo"));
+        assertThat(job.getClasspaths(), is(classpaths));
+    }
+
+    @Test
+    public void consecutiveJobsAreReadInOrder() throws IOException {
+        TestWorker.writeJob(out, "TestA", Collections.singletonList(Collections.singletonList("a")));
+        TestWorker.writeJob(out, "TestB", Collections.singletonList(Collections.singletonList("b")));
+
+        DataInputStream in = written();
+        assertThat(TestWorker.readJob(in).getTestClassName(), is("TestA"));
+        assertThat(TestWorker.readJob(in).getTestClassName(), is("TestB"));
+    }
+
+    @Test(expected = EOFException.class)
+    public void readingJobFromClosedStreamFails() throws IOException {
+        TestWorker.readJob(written());
+    }
+
+    @Test
+    public void resultRoundTrip() throws IOException {
+        TestWorker.writeResult(out, new TestWorker.Result(TestWorker.Status.FAIL, "Testcase: testFoo"));
+        TestWorker.writeResult(out, new TestWorker.Result(TestWorker.Status.SUCCESS, null, true));
+
+        DataInputStream in = written();
+        TestWorker.Result first = TestWorker.readResult(in);
+        assertThat(first.getStatus(), is(TestWorker.Status.FAIL));
+        assertThat(first.getMessage(), is("Testcase: testFoo"));
+        assertThat(first.isRecycleWorker(), is(false));
+
+        TestWorker.Result second = TestWorker.readResult(in);
+        assertThat(second.getStatus(), is(TestWorker.Status.SUCCESS));
+        assertThat(second.getMessage(), is(nullValue()));
+        assertThat(second.isRecycleWorker(), is(true));
+    }
+
+    @Test(expected = EOFException.class)
+    public void readingTruncatedResultFails() throws IOException {
+        TestWorker.writeResult(out, new TestWorker.Result(TestWorker.Status.ERROR, "message"));
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 1);
+
+        TestWorker.readResult(new DataInputStream(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    public void readyRoundTrip() throws IOException {
+        TestWorker.writeReady(out);
+
+        TestWorker.readReady(written());
+    }
+
+    @Test(expected = IOException.class)
+    public void unexpectedMessageIsNotReady() throws IOException {
+        // E.g. a worker which crashed and wrote a result instead.
+        TestWorker.writeResult(out, new TestWorker.Result(TestWorker.Status.ERROR, "message"));
+
+        TestWorker.readReady(written());
+    }
+
+    @Test(expected = EOFException.class)
+    public void deadWorkerIsNotReady() throws IOException {
+        TestWorker.readReady(written());
+    }
+
+    @Test
+    public void boundedOutputKeepsOutputBelowLimit() {
+        TestWorker.BoundedOutputStream output = new TestWorker.BoundedOutputStream(10);
+        output.write('a');
+        output.write("bcd".getBytes(StandardCharsets.UTF_8), 0, 3);
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8), is("abcd"));
+        assertThat(output.isTruncated(), is(false));
+    }
+
+    @Test
+    public void boundedOutputKeepsOutputUpToLimit() {
+        TestWorker.BoundedOutputStream output = new TestWorker.BoundedOutputStream(10);
+        output.write("0123456789".getBytes(StandardCharsets.UTF_8), 0, 10);
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8), is("0123456789"));
+        assertThat(output.isTruncated(), is(false));
+    }
+
+    @Test
+    public void boundedOutputDiscardsBytesBeyondLimit() {
+        TestWorker.BoundedOutputStream output = new TestWorker.BoundedOutputStream(10);
+        output.write("012345".getBytes(StandardCharsets.UTF_8), 0, 6);
+        output.write("xx6789abcdef".getBytes(StandardCharsets.UTF_8), 2, 10);
+        output.write('g');
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8), is("0123456789"));
+        assertThat(output.isTruncated(), is(true));
+    }
+
+    @Test
+    public void boundedOutputIsEmptyAfterReset() {
+        TestWorker.BoundedOutputStream output = new TestWorker.BoundedOutputStream(3);
+        output.write("abcd".getBytes(StandardCharsets.UTF_8), 0, 4);
+        output.reset();
+        output.write('e');
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8), is("e"));
+        assertThat(output.isTruncated(), is(false));
+    }
+}
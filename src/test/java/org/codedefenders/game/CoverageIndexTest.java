@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CoverageIndexTest {
+
+    private Test test1;
+    private Test test2;
+    private Mutant mutant1;
+    private Mutant mutant2;
+    private Mutant mutant3;
+    private CoverageIndex index;
+
+    @Before
+    public void setUp() {
+        test1 = test(1, Arrays.asList(1, 2, 3));
+        test2 = test(2, Arrays.asList(3, 7));
+        mutant1 = mutant(1, Collections.singletonList(2));
+        mutant2 = mutant(2, Arrays.asList(6, 7));
+        mutant3 = mutant(3, Collections.singletonList(10));
+        index = new CoverageIndex(Arrays.asList(test1, test2), Arrays.asList(mutant1, mutant2, mutant3));
+    }
+
+    @org.junit.Test
+    public void testCoveredMutants() {
+        assertThat(index.getCoveredMutants(test1), contains(mutant1));
+        assertThat(index.getCoveredMutants(test2), contains(mutant2));
+        assertThat(index.isCovered(test2, mutant2), is(true));
+        assertThat(index.isCovered(test1, mutant3), is(false));
+    }
+
+    @org.junit.Test
+    public void testCoveringTests() {
+        assertThat(index.getCoveringTests(mutant1), contains(test1));
+        assertThat(index.getCoveringTests(mutant3), is(empty()));
+
+        Mutant other = mutant(4, Arrays.asList(3, 8));
+        assertThat(index.getCoveringTests(other), contains(test1, test2));
+    }
+
+    private static Test test(int id, List<Integer> linesCovered) {
+        // The Test constructors access CDI beans, hence the mock.
+        Test test = mock(Test.class);
+        when(test.getId()).thenReturn(id);
+        when(test.getLineCoverage()).thenReturn(new LineCoverage(linesCovered, Collections.emptyList()));
+        return test;
+    }
+
+    private static Mutant mutant(int id, List<Integer> lines) {
+        Mutant mutant = mock(Mutant.class);
+        when(mutant.getId()).thenReturn(id);
+        when(mutant.getLines()).thenReturn(lines);
+        return mutant;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class LineCoverageTest {
+
+    @Test
+    public void testEncodeLines() {
+        BitSet lines = LineCoverage.decodeLines("1,2,3,4,7,9,10");
+        assertThat(LineCoverage.encodeLines(lines), is("1-4,7,9-10"));
+        assertThat(LineCoverage.encodeLines(new BitSet()), is(""));
+    }
+
+    @Test
+    public void testDecodeLines() {
+        assertThat(LineCoverage.decodeLines("1-4,7,9-10"), is(LineCoverage.decodeLines("1,2,3,4,7,9,10")));
+        assertThat(LineCoverage.decodeLines(null).isEmpty(), is(true));
+        assertThat(LineCoverage.decodeLines("").isEmpty(), is(true));
+    }
+
+    @Test
+    public void testCoverage() {
+        LineCoverage coverage = new LineCoverage(Arrays.asList(5, 3, 3), Collections.singletonList(4));
+        assertThat(coverage.getLinesCovered(), contains(3, 5));
+        assertThat(coverage.getNumberOfLinesCovered(), is(2));
+        assertThat(coverage.isLineCovered(3), is(true));
+        assertThat(coverage.isLineCovered(4), is(false));
+        assertThat(coverage.isLineUncovered(4), is(true));
+        assertThat(new LineCoverage().getLinesUncovered(), is(empty()));
+    }
+}
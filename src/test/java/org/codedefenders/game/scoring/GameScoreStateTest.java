@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.game.scoring;
+
+import java.sql.Timestamp;
+
+import org.codedefenders.model.Event;
+import org.codedefenders.model.EventStatus;
+import org.codedefenders.model.EventType;
+import org.codedefenders.util.Constants;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class GameScoreStateTest {
+
+    private static Event event(int eventId, EventType type, String message) {
+        return new Event(eventId, 1, Constants.DUMMY_CREATOR_USER_ID, message, type, EventStatus.GAME,
+                new Timestamp(eventId * 1000L));
+    }
+
+    @Test
+    public void testKillsAndSurvivals() {
+        GameScoreState state = new GameScoreState();
+        state.apply(event(1, EventType.ATTACKER_MUTANT_SURVIVED, "10:20"));
+        state.apply(event(2, EventType.ATTACKER_MUTANT_SURVIVED, "11:20"));
+        state.apply(event(3, EventType.DEFENDER_KILLED_MUTANT, "12:20"));
+        // Events of other users are not scored
+        state.apply(new Event(4, 1, 5, "12:21", EventType.DEFENDER_KILLED_MUTANT, EventStatus.GAME,
+                new Timestamp(4000L)));
+
+        GameScoreState.GameScores scores = state.getScores();
+        assertThat(scores.getMutantScore(20), is(2));
+        assertThat(scores.getTestScore(12), is(3));
+        assertThat(scores.getTestScore(10), is(0));
+        assertThat(scores.getMutantScore(21), is(0));
+        assertThat(state.getLastEventId(), is(4));
+        assertThat(state.getAppliedEvents(), is(4));
+    }
+
+    @Test
+    public void testIncrementalApplicationAfterCheckpoint() {
+        GameScoreState state = new GameScoreState();
+        state.apply(event(1, EventType.ATTACKER_MUTANT_SURVIVED, "10:20"));
+        state.apply(event(2, EventType.DEFENDER_MUTANT_CLAIMED_EQUIVALENT, "7:20"));
+
+        Gson gson = new Gson();
+        GameScoreState restored = gson.fromJson(gson.toJson(state), GameScoreState.class);
+        assertThat(restored.getVersion(), is(GameScoreState.VERSION));
+        assertThat(restored.getLastEventId(), is(2));
+
+        restored.apply(event(3, EventType.DEFENDER_MUTANT_EQUIVALENT, "0:20"));
+        GameScoreState.GameScores scores = restored.getScores();
+        assertThat(scores.getMutantScore(20), is(0));
+        assertThat(scores.getDuelScore(7), is(1));
+    }
+
+    @Test
+    public void testUnparseableClaimStopsScoring() {
+        GameScoreState state = new GameScoreState();
+        state.apply(event(1, EventType.DEFENDER_MUTANT_CLAIMED_EQUIVALENT, "Automatic duel"));
+        state.apply(event(2, EventType.ATTACKER_MUTANT_SURVIVED, "10:20"));
+
+        assertThat(state.getScores().getMutantScore(20), is(0));
+        assertThat(state.getLastEventId(), is(2));
+
+        state.reset();
+        assertThat(state.getAppliedEvents(), is(0));
+        state.apply(event(2, EventType.ATTACKER_MUTANT_SURVIVED, "10:20"));
+        assertThat(state.getScores().getMutantScore(20), is(1));
+    }
+
+    @Test
+    public void testEarlierEventCannotBeAppliedInOrder() {
+        GameScoreState state = new GameScoreState();
+        state.apply(event(2, EventType.ATTACKER_MUTANT_SURVIVED, "10:20"));
+
+        assertThat(state.canApplyInOrder(event(3, EventType.DEFENDER_KILLED_MUTANT, "12:20")), is(true));
+        assertThat(state.canApplyInOrder(event(1, EventType.DEFENDER_KILLED_MUTANT, "12:20")), is(false));
+
+        state.reset();
+        assertThat(state.canApplyInOrder(event(1, EventType.DEFENDER_KILLED_MUTANT, "12:20")), is(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnparseableEvent() {
+        new GameScoreState().apply(event(1, EventType.DEFENDER_KILLED_MUTANT, "not a payload"));
+    }
+}
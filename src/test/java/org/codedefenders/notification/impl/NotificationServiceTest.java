@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.codedefenders.notification.NotificationTopic;
+import org.codedefenders.notification.events.server.chat.ServerGameChatEvent;
+import org.codedefenders.notification.handling.server.ServerEventHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.eventbus.Subscribe;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class NotificationServiceTest {
+
+    private NotificationService notificationService;
+
+    @Before
+    public void setUp() {
+        notificationService = new NotificationService();
+    }
+
+    @After
+    public void tearDown() {
+        notificationService.shutdown();
+    }
+
+    private static ServerGameChatEvent chatEvent(int gameId, String message) {
+        ServerGameChatEvent event = new ServerGameChatEvent();
+        event.setGameId(gameId);
+        event.setMessage(message);
+        return event;
+    }
+
+    @Test
+    public void testEventsOnlyReachHandlersOfTheirTopic() throws InterruptedException {
+        RecordingHandler game1 = new RecordingHandler(1, NotificationTopic.game(1));
+        RecordingHandler game2 = new RecordingHandler(0, NotificationTopic.game(2));
+        notificationService.register(game1);
+        notificationService.register(game2);
+
+        notificationService.post(chatEvent(1, "hello"));
+
+        assertThat(game1.latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(game1.messages, contains("hello"));
+        assertThat(game2.messages, is(empty()));
+        assertThat(notificationService.getDispatchStatistics().getTopics(), is(2));
+    }
+
+    @Test
+    public void testHandlerReceivesEventOnceForSeveralTopics() throws InterruptedException {
+        ServerGameChatEvent event = chatEvent(1, "hello");
+        event.setTicket("ticket");
+        RecordingHandler handler = new RecordingHandler(2,
+                NotificationTopic.game(1), NotificationTopic.ticket("ticket"));
+        notificationService.register(handler);
+
+        notificationService.post(event);
+        notificationService.unregister(handler);
+        notificationService.post(chatEvent(1, "unregistered"));
+
+        assertThat(handler.latch.await(1, TimeUnit.SECONDS), is(false));
+        assertThat(handler.messages, contains("hello"));
+        assertThat(notificationService.getDispatchStatistics().getTopics(), is(0));
+    }
+
+    private static class RecordingHandler implements ServerEventHandler {
+        private final List<NotificationTopic> topics;
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+
+        RecordingHandler(int expectedMessages, NotificationTopic... topics) {
+            this.topics = Arrays.asList(topics);
+            this.latch = new CountDownLatch(expectedMessages);
+        }
+
+        @Override
+        public Collection<NotificationTopic> getTopics() {
+            return topics;
+        }
+
+        @Subscribe
+        public void onChat(ServerGameChatEvent event) {
+            messages.add(event.getMessage());
+            latch.countDown();
+        }
+    }
+}
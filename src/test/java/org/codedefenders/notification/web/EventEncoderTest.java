@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.notification.web;
+
+import org.codedefenders.notification.events.server.chat.ServerGameChatEvent;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class EventEncoderTest {
+
+    private static ServerGameChatEvent chatEvent(String message) {
+        ServerGameChatEvent event = new ServerGameChatEvent();
+        event.setGameId(1);
+        event.setMessage(message);
+        return event;
+    }
+
+    @Test
+    public void testEventIsEncodedOnce() {
+        ServerGameChatEvent event = chatEvent("hello");
+
+        String message = new EventEncoder().encode(event);
+
+        assertThat(message, containsString("\"message\":\"hello\""));
+        assertThat(new EventEncoder().encode(event), sameInstance(message));
+    }
+
+    @Test
+    public void testDifferentEventsAreEncodedSeparately() {
+        String first = new EventEncoder().encode(chatEvent("first"));
+        String second = new EventEncoder().encode(chatEvent("second"));
+
+        assertThat(second, not(sameInstance(first)));
+        assertThat(second, containsString("\"message\":\"second\""));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016-2019 Code Defenders contributors
+ *
+ * This file is part of Code Defenders.
+ *
+ * Code Defenders is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Code Defenders is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Code Defenders. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.codedefenders.service.game;
+
+import java.util.Optional;
+
+import org.codedefenders.configuration.Configuration;
+import org.codedefenders.notification.INotificationService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(GameSnapshot.class)
+public class GameSnapshotCacheTest {
+
+    private static final int GAME_ID = 1;
+
+    private GameSnapshotCache cache;
+    private final GameSnapshot oldSnapshot = Mockito.mock(GameSnapshot.class);
+    private final GameSnapshot newSnapshot = Mockito.mock(GameSnapshot.class);
+
+    @Before
+    public void setUp() {
+        Configuration config = Mockito.mock(Configuration.class);
+        Mockito.when(config.getGameCacheSize()).thenReturn(10);
+        Mockito.when(config.getGameCacheTtl()).thenReturn(60);
+        cache = new GameSnapshotCache(config, Mockito.mock(INotificationService.class));
+        PowerMockito.mockStatic(GameSnapshot.class);
+    }
+
+    @Test
+    public void servesCachedSnapshot() {
+        PowerMockito.when(GameSnapshot.load(GAME_ID)).thenReturn(oldSnapshot, newSnapshot);
+
+        assertThat(cache.getSnapshot(GAME_ID).get(), is(sameInstance(oldSnapshot)));
+        assertThat(cache.getSnapshot(GAME_ID).get(), is(sameInstance(oldSnapshot)));
+    }
+
+    @Test
+    public void reloadsAfterInvalidate() {
+        PowerMockito.when(GameSnapshot.load(GAME_ID)).thenReturn(oldSnapshot, newSnapshot);
+
+        assertThat(cache.getSnapshot(GAME_ID).get(), is(sameInstance(oldSnapshot)));
+        cache.invalidate(GAME_ID);
+        assertThat(cache.getSnapshot(GAME_ID).get(), is(sameInstance(newSnapshot)));
+    }
+
+    @Test
+    public void dropsSnapshotInvalidatedWhileLoading() {
+        PowerMockito.when(GameSnapshot.load(GAME_ID)).thenAnswer(invocation -> {
+            // The game changes while its first snapshot is loaded.
+            cache.invalidate(GAME_ID);
+            return oldSnapshot;
+        }).thenReturn(newSnapshot);
+
+        assertThat(cache.getSnapshot(GAME_ID).get(), is(sameInstance(newSnapshot)));
+        assertThat(cache.getSnapshot(GAME_ID).get(), is(sameInstance(newSnapshot)));
+    }
+
+    @Test
+    public void loadsUncachedWhenAlwaysInvalidatedWhileLoading() {
+        PowerMockito.when(GameSnapshot.load(GAME_ID)).thenAnswer(invocation -> {
+            cache.invalidate(GAME_ID);
+            return oldSnapshot;
+        });
+
+        assertThat(cache.getSnapshot(GAME_ID).get(), is(sameInstance(oldSnapshot)));
+    }
+
+    @Test
+    public void missingGameGivesEmptySnapshot() {
+        PowerMockito.when(GameSnapshot.load(GAME_ID)).thenReturn(null);
+
+        assertThat(cache.getSnapshot(GAME_ID), is(Optional.empty()));
+    }
+}